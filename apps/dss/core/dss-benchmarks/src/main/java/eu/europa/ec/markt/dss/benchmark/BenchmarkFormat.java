@@ -0,0 +1,112 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.benchmark;
+
+import eu.europa.ec.markt.dss.parameter.SignatureParameters;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.signature.DocumentSignatureService;
+import eu.europa.ec.markt.dss.signature.SignatureLevel;
+import eu.europa.ec.markt.dss.signature.SignaturePackaging;
+import eu.europa.ec.markt.dss.signature.asic.ASiCService;
+import eu.europa.ec.markt.dss.signature.cades.CAdESService;
+import eu.europa.ec.markt.dss.signature.pades.PAdESService;
+import eu.europa.ec.markt.dss.signature.xades.XAdESService;
+import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
+import eu.europa.ec.markt.dss.validation102853.SignatureForm;
+
+/**
+ * The signature formats covered by the benchmarks. Each format knows the document to sign, the signature service and the baseline B parameters to use.
+ *
+ * @version $Revision$ - $Date$
+ */
+public enum BenchmarkFormat {
+
+	XAdES(SignatureLevel.XAdES_BASELINE_B, SignaturePackaging.ENVELOPED),
+
+	CAdES(SignatureLevel.CAdES_BASELINE_B, SignaturePackaging.ENVELOPING),
+
+	PAdES(SignatureLevel.PAdES_BASELINE_B, SignaturePackaging.ENVELOPED),
+
+	ASiC_S(SignatureLevel.ASiC_S_BASELINE_B, SignaturePackaging.DETACHED);
+
+	private final SignatureLevel signatureLevel;
+
+	private final SignaturePackaging signaturePackaging;
+
+	BenchmarkFormat(final SignatureLevel signatureLevel, final SignaturePackaging signaturePackaging) {
+
+		this.signatureLevel = signatureLevel;
+		this.signaturePackaging = signaturePackaging;
+	}
+
+	public DSSDocument createDocument() {
+
+		switch (this) {
+			case XAdES:
+				return BenchmarkPki.createXmlDocument();
+			case PAdES:
+				return BenchmarkPki.createPdfDocument();
+			default:
+				return BenchmarkPki.createBinaryDocument(64 * 1024);
+		}
+	}
+
+	public DocumentSignatureService createService(final CertificateVerifier certificateVerifier) {
+
+		switch (this) {
+			case XAdES:
+				return new XAdESService(certificateVerifier);
+			case CAdES:
+				return new CAdESService(certificateVerifier);
+			case PAdES:
+				return new PAdESService(certificateVerifier);
+			default:
+				return new ASiCService(certificateVerifier);
+		}
+	}
+
+	public SignatureParameters createParameters(final BenchmarkPki pki) {
+
+		final SignatureParameters parameters = pki.createParameters(signatureLevel, signaturePackaging);
+		if (this == ASiC_S) {
+			parameters.aSiC().setUnderlyingForm(SignatureForm.XAdES);
+		}
+		return parameters;
+	}
+
+	/**
+	 * Creates a document signed {@code numberOfSignatures} times. Each new signature is added to the already signed document.
+	 *
+	 * @param pki                the PKI used to sign
+	 * @param certificateVerifier the certificate verifier used by the signature service
+	 * @param numberOfSignatures the number of signatures
+	 * @return the signed document
+	 */
+	public DSSDocument createSignedDocument(final BenchmarkPki pki, final CertificateVerifier certificateVerifier, final int numberOfSignatures) {
+
+		final DocumentSignatureService service = createService(certificateVerifier);
+		DSSDocument document = createDocument();
+		for (int ii = 0; ii < numberOfSignatures; ii++) {
+			document = pki.sign(service, document, createParameters(pki));
+		}
+		return document;
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import org.apache.pdfbox.exceptions.COSVisitorException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.cert.CertIOException;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import eu.europa.ec.markt.dss.DSSPDFUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.parameter.SignatureParameters;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.signature.DocumentSignatureService;
+import eu.europa.ec.markt.dss.signature.InMemoryDocument;
+import eu.europa.ec.markt.dss.signature.MimeType;
+import eu.europa.ec.markt.dss.signature.SignatureLevel;
+import eu.europa.ec.markt.dss.signature.SignaturePackaging;
+import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
+import eu.europa.ec.markt.dss.validation102853.CommonCertificateVerifier;
+import eu.europa.ec.markt.dss.validation102853.CommonTrustedCertificateSource;
+
+/**
+ * A PKI generated in memory for the benchmarks: a self-signed CA, a signer certificate issued by this CA and CRLs of any size. The certificate verifier built from this PKI
+ * trusts the CA and has no online source: the benchmarks run without network access.
+ *
+ * @version $Revision$ - $Date$
+ */
+public final class BenchmarkPki {
+
+	private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+
+	private static final long ONE_DAY = 24L * 60 * 60 * 1000;
+
+	private static final X500Name CA_NAME = new X500Name("CN=DSS Benchmark CA,O=DSS,C=BE");
+
+	private static final X500Name SIGNER_NAME = new X500Name("CN=DSS Benchmark Signer,O=DSS,C=BE");
+
+	private final KeyPair caKeyPair;
+
+	private final X509Certificate caCertificate;
+
+	private final KeyPair signerKeyPair;
+
+	private final X509Certificate signerCertificate;
+
+	public BenchmarkPki() throws DSSException {
+
+		try {
+
+			final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+			keyPairGenerator.initialize(2048);
+			caKeyPair = keyPairGenerator.generateKeyPair();
+			signerKeyPair = keyPairGenerator.generateKeyPair();
+			caCertificate = createCertificate(CA_NAME, caKeyPair.getPublic(), BigInteger.ONE, true);
+			signerCertificate = createCertificate(SIGNER_NAME, signerKeyPair.getPublic(), BigInteger.valueOf(2), false);
+		} catch (GeneralSecurityException e) {
+			throw new DSSException(e);
+		}
+	}
+
+	private X509Certificate createCertificate(final X500Name subject, final PublicKey publicKey, final BigInteger serialNumber, final boolean ca) throws DSSException {
+
+		try {
+
+			final long now = System.currentTimeMillis();
+			final X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(CA_NAME, serialNumber, new Date(now - ONE_DAY), new Date(now + 365 * ONE_DAY), subject,
+				  publicKey);
+			builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(ca));
+			final int keyUsage = ca ? KeyUsage.keyCertSign | KeyUsage.cRLSign : KeyUsage.digitalSignature | KeyUsage.nonRepudiation;
+			builder.addExtension(Extension.keyUsage, true, new KeyUsage(keyUsage));
+			return new JcaX509CertificateConverter().getCertificate(builder.build(getCaSigner()));
+		} catch (CertIOException e) {
+			throw new DSSException(e);
+		} catch (GeneralSecurityException e) {
+			throw new DSSException(e);
+		}
+	}
+
+	private ContentSigner getCaSigner() throws DSSException {
+
+		try {
+			return new JcaContentSignerBuilder(SIGNATURE_ALGORITHM).build(caKeyPair.getPrivate());
+		} catch (OperatorCreationException e) {
+			throw new DSSException(e);
+		}
+	}
+
+	public X509Certificate getCaCertificate() {
+		return caCertificate;
+	}
+
+	public X509Certificate getSignerCertificate() {
+		return signerCertificate;
+	}
+
+	/**
+	 * @param numberOfRevokedCertificates the number of entries of the CRL
+	 * @return the DER encoded CRL issued by the CA
+	 */
+	public byte[] createCRL(final int numberOfRevokedCertificates) throws DSSException {
+
+		try {
+
+			final Date now = new Date();
+			final X509v2CRLBuilder builder = new X509v2CRLBuilder(CA_NAME, now);
+			builder.setNextUpdate(new Date(now.getTime() + ONE_DAY));
+			for (int ii = 0; ii < numberOfRevokedCertificates; ii++) {
+				builder.addCRLEntry(BigInteger.valueOf(1000 + ii), now, CRLReason.keyCompromise);
+			}
+			return builder.build(getCaSigner()).getEncoded();
+		} catch (IOException e) {
+			throw new DSSException(e);
+		}
+	}
+
+	/**
+	 * @return a certificate verifier which trusts the CA and has no online source
+	 */
+	public CertificateVerifier createCertificateVerifier() {
+
+		final CommonTrustedCertificateSource trustedCertSource = new CommonTrustedCertificateSource();
+		trustedCertSource.addCertificate(caCertificate);
+		final CommonCertificateVerifier certificateVerifier = new CommonCertificateVerifier(true);
+		certificateVerifier.setTrustedCertSource(trustedCertSource);
+		return certificateVerifier;
+	}
+
+	public SignatureParameters createParameters(final SignatureLevel signatureLevel, final SignaturePackaging signaturePackaging) {
+
+		final SignatureParameters parameters = new SignatureParameters();
+		parameters.setSignatureLevel(signatureLevel);
+		parameters.setSignaturePackaging(signaturePackaging);
+		parameters.setDigestAlgorithm(DigestAlgorithm.SHA256);
+		parameters.setSigningCertificate(signerCertificate);
+		parameters.setCertificateChain(signerCertificate, caCertificate);
+		parameters.bLevel().setSigningDate(new Date());
+		return parameters;
+	}
+
+	/**
+	 * Signs the document with the signer key without any signature token.
+	 *
+	 * @param service        the signature service to use
+	 * @param toSignDocument the document to sign
+	 * @param parameters     the signature parameters created by {@code #createParameters}
+	 * @return the signed document
+	 */
+	public DSSDocument sign(final DocumentSignatureService service, final DSSDocument toSignDocument, final SignatureParameters parameters) throws DSSException {
+
+		final byte[] dataToSign = service.getDataToSign(toSignDocument, parameters);
+		final byte[] signatureValue = sign(dataToSign, signerKeyPair.getPrivate());
+		return service.signDocument(toSignDocument, parameters, signatureValue);
+	}
+
+	private static byte[] sign(final byte[] dataToSign, final PrivateKey privateKey) throws DSSException {
+
+		try {
+
+			final Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+			signature.initSign(privateKey);
+			signature.update(dataToSign);
+			return signature.sign();
+		} catch (GeneralSecurityException e) {
+			throw new DSSException(e);
+		}
+	}
+
+	public static DSSDocument createXmlDocument() {
+
+		final String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><document><title>DSS benchmark</title><content>Lorem ipsum dolor sit amet</content></document>";
+		return new InMemoryDocument(xml.getBytes(), "document.xml", MimeType.XML);
+	}
+
+	public static DSSDocument createBinaryDocument(final int size) {
+
+		final byte[] bytes = new byte[size];
+		for (int ii = 0; ii < size; ii++) {
+			bytes[ii] = (byte) ii;
+		}
+		return new InMemoryDocument(bytes, "document.bin", MimeType.BINARY);
+	}
+
+	public static DSSDocument createPdfDocument() throws DSSException {
+
+		PDDocument pdDocument = null;
+		try {
+
+			pdDocument = new PDDocument();
+			pdDocument.addPage(new PDPage());
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			pdDocument.save(output);
+			return new InMemoryDocument(output.toByteArray(), "document.pdf", MimeType.PDF);
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} catch (COSVisitorException e) {
+			throw new DSSException(e);
+		} finally {
+			DSSPDFUtils.close(pdDocument);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.X509CRL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.validation102853.CertificatePool;
+import eu.europa.ec.markt.dss.validation102853.CertificateToken;
+import eu.europa.ec.markt.dss.validation102853.certificate.CertificateSourceType;
+import eu.europa.ec.markt.dss.validation102853.crl.CRLStreamParser;
+import eu.europa.ec.markt.dss.validation102853.crl.CRLValidity;
+
+/**
+ * Benchmark of the CRL parsing: the streaming parser which builds the revoked serial number index and the {@code X509CRL} built by the JCA provider.
+ *
+ * @version $Revision$ - $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CRLBenchmark {
+
+	@Param({"10", "10000", "100000"})
+	public int numberOfRevokedCertificates;
+
+	private byte[] crl;
+
+	private CertificateToken issuerToken;
+
+	@Setup
+	public void setup() {
+
+		final BenchmarkPki pki = new BenchmarkPki();
+		crl = pki.createCRL(numberOfRevokedCertificates);
+		issuerToken = new CertificatePool().getInstance(pki.getCaCertificate(), CertificateSourceType.TRUSTED_STORE);
+	}
+
+	@Benchmark
+	public CRLValidity streamParser() {
+
+		return CRLStreamParser.parse(new ByteArrayInputStream(crl), issuerToken);
+	}
+
+	@Benchmark
+	public X509CRL x509CRL() {
+
+		return DSSUtils.loadCRL(crl);
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.benchmark;
+
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import eu.europa.ec.markt.dss.validation102853.CertificatePool;
+import eu.europa.ec.markt.dss.validation102853.CertificateToken;
+import eu.europa.ec.markt.dss.validation102853.certificate.CertificateSourceType;
+
+/**
+ * Benchmark of {@code CertificatePool#getInstance}: the registration of a new certificate and the retrieval of an already registered certificate. The shared pool is also
+ * used concurrently when the benchmark is run with several threads ({@code -t}).
+ *
+ * @version $Revision$ - $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CertificatePoolBenchmark {
+
+	private X509Certificate signerCertificate;
+
+	private CertificatePool sharedPool;
+
+	@Setup
+	public void setup() {
+
+		final BenchmarkPki pki = new BenchmarkPki();
+		signerCertificate = pki.getSignerCertificate();
+		sharedPool = new CertificatePool();
+		sharedPool.getInstance(pki.getCaCertificate(), CertificateSourceType.TRUSTED_STORE);
+		sharedPool.getInstance(signerCertificate, CertificateSourceType.SIGNATURE);
+	}
+
+	@Benchmark
+	public CertificateToken getInstanceNewCertificate() {
+
+		return new CertificatePool().getInstance(signerCertificate, CertificateSourceType.SIGNATURE);
+	}
+
+	@Benchmark
+	public CertificateToken getInstanceKnownCertificate() {
+
+		return sharedPool.getInstance(signerCertificate, CertificateSourceType.SIGNATURE);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
+import eu.europa.ec.markt.dss.validation102853.SignedDocumentValidator;
+import eu.europa.ec.markt.dss.validation102853.report.DiagnosticData;
+import eu.europa.ec.markt.dss.validation102853.xml.XmlDom;
+
+/**
+ * Benchmark of the {@code XmlDom} lookups done by the validation process on the diagnostic data: access to the signatures by Id and XPath queries.
+ *
+ * @version $Revision$ - $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiagnosticDataBenchmark {
+
+	@Param({"1", "4"})
+	public int numberOfSignatures;
+
+	private DiagnosticData diagnosticData;
+
+	@Setup
+	public void setup() {
+
+		final BenchmarkPki pki = new BenchmarkPki();
+		final CertificateVerifier certificateVerifier = pki.createCertificateVerifier();
+		final DSSDocument signedDocument = BenchmarkFormat.XAdES.createSignedDocument(pki, certificateVerifier, numberOfSignatures);
+		final SignedDocumentValidator validator = SignedDocumentValidator.fromDocument(signedDocument);
+		validator.setCertificateVerifier(certificateVerifier);
+		diagnosticData = validator.validateDocument().getDiagnosticData();
+	}
+
+	@Benchmark
+	public void signatureLookups(final Blackhole blackhole) {
+
+		final List<String> signatureIdList = diagnosticData.getSignatureIdList();
+		for (final String signatureId : signatureIdList) {
+
+			blackhole.consume(diagnosticData.getSignatureFormat(signatureId));
+			blackhole.consume(diagnosticData.getSignatureDate(signatureId));
+			final int signingCertificateId = diagnosticData.getSigningCertificateId(signatureId);
+			blackhole.consume(diagnosticData.getUsedCertificate(signingCertificateId));
+			blackhole.consume(diagnosticData.getSignatureCertificateChain(signatureId));
+		}
+	}
+
+	@Benchmark
+	public List<XmlDom> xPathQuery() {
+
+		return diagnosticData.getElements("/DiagnosticData/Signature/BasicSignature");
+	}
+}
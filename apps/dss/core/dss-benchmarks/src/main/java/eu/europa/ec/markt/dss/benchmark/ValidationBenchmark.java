@@ -0,0 +1,79 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
+import eu.europa.ec.markt.dss.validation102853.SignedDocumentValidator;
+import eu.europa.ec.markt.dss.validation102853.report.Reports;
+
+/**
+ * Benchmark of {@code SignedDocumentValidator#validateDocument} for each signature format, for a document with one or several signatures, with and without the concurrent
+ * verification of the signatures.
+ *
+ * @version $Revision$ - $Date$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValidationBenchmark {
+
+	@Param({"XAdES", "CAdES", "PAdES", "ASiC_S"})
+	public BenchmarkFormat format;
+
+	@Param({"1", "4"})
+	public int numberOfSignatures;
+
+	@Param({"false", "true"})
+	public boolean concurrentSignatureValidation;
+
+	private CertificateVerifier certificateVerifier;
+
+	private DSSDocument signedDocument;
+
+	@Setup
+	public void setup() {
+
+		final BenchmarkPki pki = new BenchmarkPki();
+		certificateVerifier = pki.createCertificateVerifier();
+		signedDocument = format.createSignedDocument(pki, certificateVerifier, numberOfSignatures);
+	}
+
+	@Benchmark
+	public Reports validateDocument() {
+
+		final SignedDocumentValidator validator = SignedDocumentValidator.fromDocument(signedDocument);
+		validator.setCertificateVerifier(certificateVerifier);
+		validator.setConcurrentSignatureValidation(concurrentSignatureValidation);
+		return validator.validateDocument();
+	}
+}
@@ -151,7 +151,7 @@ public class SignatureParameters {
 		bLevelParams = new BLevelParameters(source.bLevelParams);
 		aSiCParams = new ASiCParameters(source.aSiCParams);
 
-		if (certificateChain != null) {
+		if (source.certificateChain != null) {
 
 			certificateChain = new ArrayList<X509Certificate>(source.certificateChain);
 		}
@@ -306,6 +306,18 @@ public class SignatureParameters {
 		return context;
 	}
 
+	/**
+	 * This method allows to set the internal variables used in the process of creating of a signature. The copy constructor shares the context with the source parameters: when
+	 * the copies are used to sign distinct documents each of them must be given its own context. {@code null} value means that a new context is created at the next call to
+	 * {@code #getContext}.
+	 *
+	 * @param context {@code ProfileParameters} to use or {@code null}
+	 */
+	public void setContext(final ProfileParameters context) {
+
+		this.context = context;
+	}
+
 	/**
 	 * Get the signing certificate
 	 *
@@ -0,0 +1,401 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.signature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.exception.DSSNullException;
+import eu.europa.ec.markt.dss.parameter.SignatureParameters;
+import eu.europa.ec.markt.dss.signature.token.BatchSignatureTokenConnection;
+import eu.europa.ec.markt.dss.signature.token.DSSPrivateKeyEntry;
+import eu.europa.ec.markt.dss.signature.token.SignatureTokenConnection;
+import eu.europa.ec.markt.dss.validation102853.DefaultValidationExecutor;
+
+/**
+ * This class signs several documents with the same signer and the same signing parameters. The process is done in three steps:<p/>
+ * - the data to be signed are prepared in parallel for all documents;<p/>
+ * - all the signature values are computed with one session on the signing token ({@code BatchSignatureTokenConnection}), or one by one when the token does not support it;<p/>
+ * - the signatures are incorporated in parallel within the documents.<p/>
+ * Each document is signed with its own copy of the given {@code SignatureParameters}. The failure of a document does not prevent the signature of the others: a {@code Result}
+ * is returned for each document, in the same order as the documents to sign.
+ * <p/>
+ * When the signature level requires timestamps, the signature service can be configured with a {@code WindowedBatchTSPSource}: the timestamp requests of the documents finalised
+ * in parallel are then sent together to the Time Stamping Authority.
+ *
+ * @version $Revision$ - $Date$
+ */
+public class BulkSignatureService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BulkSignatureService.class);
+
+	public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+	private final DocumentSignatureService signatureService;
+
+	private int poolSize = DEFAULT_POOL_SIZE;
+
+	/**
+	 * The {@code ExecutorService} used to prepare and to finalise the signatures. When it is not set a bounded pool of {@code poolSize} daemon threads is created at the first use.
+	 */
+	private ExecutorService executorService;
+
+	/**
+	 * The outcome of the signature of one document: either the signed document or the exception raised during its signature.
+	 */
+	public static class Result {
+
+		private final DSSDocument toSignDocument;
+
+		private DSSDocument signedDocument;
+
+		private DSSException exception;
+
+		Result(final DSSDocument toSignDocument) {
+
+			this.toSignDocument = toSignDocument;
+		}
+
+		/**
+		 * @return the document to sign
+		 */
+		public DSSDocument getToSignDocument() {
+			return toSignDocument;
+		}
+
+		/**
+		 * @return the signed document or {@code null} if the signature failed
+		 */
+		public DSSDocument getSignedDocument() {
+			return signedDocument;
+		}
+
+		/**
+		 * @return the exception raised during the signature or {@code null} if the document was signed
+		 */
+		public DSSException getException() {
+			return exception;
+		}
+
+		public boolean isSigned() {
+			return signedDocument != null;
+		}
+
+		@Override
+		public String toString() {
+			return "Result{document=" + toSignDocument.getName() + ", signed=" + isSigned() + (exception == null ? "" : ", exception=" + exception.getMessage()) + "}";
+		}
+	}
+
+	/**
+	 * The default constructor for BulkSignatureService.
+	 *
+	 * @param signatureService the {@code DocumentSignatureService} (XAdES, CAdES, PAdES or ASiC) used to sign each document
+	 */
+	public BulkSignatureService(final DocumentSignatureService signatureService) {
+
+		if (signatureService == null) {
+
+			throw new DSSNullException(DocumentSignatureService.class);
+		}
+		this.signatureService = signatureService;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	/**
+	 * Set the number of documents prepared at the same time. The value 1 disables the parallel processing. This value is not used when the {@code ExecutorService} is set.
+	 *
+	 * @param poolSize
+	 */
+	public void setPoolSize(final int poolSize) {
+
+		if (poolSize < 1) {
+			throw new DSSException("The pool size must be strictly positive: " + poolSize);
+		}
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * Set the {@code ExecutorService} used to prepare and to finalise the signatures. This executor is not shut down by this class.
+	 *
+	 * @param executorService
+	 */
+	public synchronized void setExecutorService(final ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+	private synchronized ExecutorService getExecutorService() {
+
+		if (executorService == null) {
+			executorService = DefaultValidationExecutor.newBoundedExecutor("dss-bulk-signature", poolSize);
+		}
+		return executorService;
+	}
+
+	/**
+	 * Signs all the given documents with the signing token and the private key entry defined within the {@code parameters}.
+	 *
+	 * @param toSignDocuments the documents to sign
+	 * @param parameters      set of the driving signing parameters, shared by all the documents
+	 * @return the list of the {@code Result}, one for each document and in the same order
+	 * @throws DSSException if the parameters are not valid
+	 */
+	public List<Result> signDocuments(final List<DSSDocument> toSignDocuments, final SignatureParameters parameters) throws DSSException {
+
+		if (toSignDocuments == null) {
+			throw new DSSNullException(List.class, "toSignDocuments");
+		}
+		if (parameters == null) {
+			throw new DSSNullException(SignatureParameters.class);
+		}
+		final SignatureTokenConnection signingToken = parameters.getSigningToken();
+		if (signingToken == null) {
+			throw new DSSNullException(SignatureTokenConnection.class);
+		}
+		final int size = toSignDocuments.size();
+		final List<Result> results = new ArrayList<Result>(size);
+		final List<SignatureParameters> documentParameters = new ArrayList<SignatureParameters>(size);
+		for (final DSSDocument toSignDocument : toSignDocuments) {
+
+			results.add(new Result(toSignDocument));
+			documentParameters.add(copyParameters(parameters));
+		}
+
+		final List<byte[]> dataToSignList = prepare(results, documentParameters);
+		final List<byte[]> signatureValues = computeSignatureValues(results, dataToSignList, parameters);
+		finalise(results, documentParameters, signatureValues);
+		if (LOG.isDebugEnabled()) {
+
+			int signed = 0;
+			for (final Result result : results) {
+				if (result.isSigned()) {
+					signed++;
+				}
+			}
+			LOG.debug("{} documents signed out of {}", signed, size);
+		}
+		return Collections.unmodifiableList(results);
+	}
+
+	/**
+	 * Creates the parameters of one document. The context is not shared and the deterministic id is computed here (and not within a worker thread) to obtain a distinct id for each
+	 * document.
+	 *
+	 * @param parameters the parameters shared by all the documents
+	 * @return the parameters to use for one document
+	 */
+	private static SignatureParameters copyParameters(final SignatureParameters parameters) {
+
+		final SignatureParameters copy = new SignatureParameters(parameters);
+		copy.setContext(null);
+		copy.setDeterministicId(null);
+		copy.getDeterministicId();
+		return copy;
+	}
+
+	private List<byte[]> prepare(final List<Result> results, final List<SignatureParameters> documentParameters) {
+
+		final List<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>(results.size());
+		for (int ii = 0; ii < results.size(); ii++) {
+
+			final DSSDocument toSignDocument = results.get(ii).getToSignDocument();
+			final SignatureParameters parameters = documentParameters.get(ii);
+			tasks.add(new Callable<byte[]>() {
+
+				@Override
+				public byte[] call() throws Exception {
+
+					return signatureService.getDataToSign(toSignDocument, parameters);
+				}
+			});
+		}
+		return execute(results, tasks);
+	}
+
+	private List<byte[]> computeSignatureValues(final List<Result> results, final List<byte[]> dataToSignList, final SignatureParameters parameters) {
+
+		final List<byte[]> signatureValues = new ArrayList<byte[]>(Collections.<byte[]>nCopies(results.size(), null));
+		final List<Integer> indexes = new ArrayList<Integer>(results.size());
+		final List<byte[]> toSignList = new ArrayList<byte[]>(results.size());
+		for (int ii = 0; ii < results.size(); ii++) {
+
+			if (results.get(ii).exception == null) {
+
+				indexes.add(ii);
+				toSignList.add(dataToSignList.get(ii));
+			}
+		}
+		if (toSignList.isEmpty()) {
+			return signatureValues;
+		}
+		final SignatureTokenConnection signingToken = parameters.getSigningToken();
+		final DigestAlgorithm digestAlgorithm = parameters.getDigestAlgorithm();
+		final DSSPrivateKeyEntry privateKeyEntry = parameters.getPrivateKeyEntry();
+		if (signingToken instanceof BatchSignatureTokenConnection) {
+
+			try {
+
+				final List<byte[]> computedValues = ((BatchSignatureTokenConnection) signingToken).sign(toSignList, digestAlgorithm, privateKeyEntry);
+				for (int ii = 0; ii < indexes.size(); ii++) {
+					signatureValues.set(indexes.get(ii), computedValues.get(ii));
+				}
+			} catch (RuntimeException e) {
+
+				// The whole session failed: the error is recorded for each document of the batch (a provider can also raise a ProviderException...)
+				for (final Integer index : indexes) {
+					setException(results.get(index), e);
+				}
+			}
+		} else {
+
+			// The failure of one signature value does not prevent the computation of the others
+			for (int ii = 0; ii < indexes.size(); ii++) {
+
+				final int index = indexes.get(ii);
+				try {
+					signatureValues.set(index, signingToken.sign(toSignList.get(ii), digestAlgorithm, privateKeyEntry));
+				} catch (RuntimeException e) {
+					setException(results.get(index), e);
+				}
+			}
+		}
+		return signatureValues;
+	}
+
+	private void finalise(final List<Result> results, final List<SignatureParameters> documentParameters, final List<byte[]> signatureValues) {
+
+		final List<Callable<DSSDocument>> tasks = new ArrayList<Callable<DSSDocument>>(results.size());
+		for (int ii = 0; ii < results.size(); ii++) {
+
+			final DSSDocument toSignDocument = results.get(ii).getToSignDocument();
+			final SignatureParameters parameters = documentParameters.get(ii);
+			final byte[] signatureValue = signatureValues.get(ii);
+			tasks.add(new Callable<DSSDocument>() {
+
+				@Override
+				public DSSDocument call() throws Exception {
+
+					return signatureService.signDocument(toSignDocument, parameters, signatureValue);
+				}
+			});
+		}
+		final List<DSSDocument> signedDocuments = execute(results, tasks);
+		for (int ii = 0; ii < results.size(); ii++) {
+
+			final Result result = results.get(ii);
+			if (result.exception == null) {
+				result.signedDocument = signedDocuments.get(ii);
+			}
+		}
+	}
+
+	/**
+	 * Executes the task of each document which has not failed yet. The exception raised by a task is recorded within the {@code Result} of its document.
+	 *
+	 * @param results the results of all the documents
+	 * @param tasks   the tasks of all the documents, in the same order
+	 * @return the values computed by the tasks, {@code null} for the failed documents
+	 */
+	private <T> List<T> execute(final List<Result> results, final List<Callable<T>> tasks) {
+
+		final List<T> values = new ArrayList<T>(results.size());
+		if (results.size() < 2 || (poolSize == 1 && executorService == null)) {
+
+			for (int ii = 0; ii < results.size(); ii++) {
+
+				final Result result = results.get(ii);
+				values.add(result.exception == null ? call(result, tasks.get(ii)) : null);
+			}
+			return values;
+		}
+		final ExecutorService executor = getExecutorService();
+		final List<Future<T>> futures = new ArrayList<Future<T>>(results.size());
+		try {
+
+			for (int ii = 0; ii < results.size(); ii++) {
+
+				futures.add(results.get(ii).exception == null ? executor.submit(tasks.get(ii)) : null);
+			}
+			for (int ii = 0; ii < results.size(); ii++) {
+
+				final Future<T> future = futures.get(ii);
+				if (future == null) {
+
+					values.add(null);
+					continue;
+				}
+				try {
+
+					values.add(future.get());
+				} catch (ExecutionException e) {
+
+					setException(results.get(ii), e.getCause());
+					values.add(null);
+				}
+			}
+			return values;
+		} catch (RejectedExecutionException e) {
+			throw new DSSException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DSSException(e);
+		} finally {
+
+			for (final Future<T> future : futures) {
+				if (future != null) {
+					future.cancel(true);
+				}
+			}
+		}
+	}
+
+	private static <T> T call(final Result result, final Callable<T> task) {
+
+		try {
+
+			return task.call();
+		} catch (Exception e) {
+
+			setException(result, e);
+			return null;
+		}
+	}
+
+	private static void setException(final Result result, final Throwable cause) {
+
+		LOG.warn("The document " + result.getToSignDocument().getName() + " cannot be signed: " + cause.getMessage());
+		result.exception = cause instanceof DSSException ? (DSSException) cause : new DSSException(cause);
+	}
+}
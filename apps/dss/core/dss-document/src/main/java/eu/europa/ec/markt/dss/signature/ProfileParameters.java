@@ -22,6 +22,7 @@ package eu.europa.ec.markt.dss.signature;
 
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.signature.cades.CAdESService;
+import eu.europa.ec.markt.dss.signature.pdf.pdfbox.PreparedPdfRevision;
 import eu.europa.ec.markt.dss.signature.xades.SignatureBuilder;
 import eu.europa.ec.markt.dss.signature.xades.XAdESLevelBaselineB;
 import eu.europa.ec.markt.dss.signature.xades.XAdESService;
@@ -94,6 +95,22 @@ public class ProfileParameters {
 		this.operationKind = operationKind;
 	}
 
+	/*
+	 * The revision of a PDF document prepared while computing the digest to be signed and reused to sign the document. Its content is only accessible to the PDF signature
+	 * service.
+	 */
+	private PreparedPdfRevision preparedPdfRevision;
+
+	public PreparedPdfRevision getPreparedPdfRevision() {
+
+		return preparedPdfRevision;
+	}
+
+	public void setPreparedPdfRevision(final PreparedPdfRevision preparedPdfRevision) {
+
+		this.preparedPdfRevision = preparedPdfRevision;
+	}
+
 	/*
 	 * This is the underlying service used within the ASiC signature generation process.
 	 */
@@ -31,6 +31,7 @@ package eu.europa.ec.markt.dss.signature.asic;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
@@ -149,20 +150,48 @@ public class ASiCService extends AbstractSignatureService {
 	@Override
 	public DSSDocument signDocument(final DSSDocument toSignDocument, final SignatureParameters parameters, final byte[] signatureValue) throws DSSException {
 
-		assertSigningDateInCertificateValidityRange(parameters);
+		final SignatureParameters underlyingParameters = getParameters(parameters);
+		final DSSDocument signature = signUnderlyingDocument(toSignDocument, parameters, underlyingParameters, signatureValue);
 
-		// Signs the toSignDocument first
+		final InMemoryDocument asicSignature = buildASiCContainer(underlyingParameters, signature);
+		parameters.setDeterministicId(null);
+		return asicSignature;
+	}
+
+	/**
+	 * This method does the same as {@link #signDocument(DSSDocument, SignatureParameters, byte[])} but the ASiC container is written directly to the given {@code
+	 * OutputStream}: the signed data objects are streamed into the container and are never loaded in memory. The {@code OutputStream} is not closed.
+	 *
+	 * @param toSignDocument the document to sign or an existing ASiC container
+	 * @param parameters     set of the driving signing parameters
+	 * @param signatureValue the signature value
+	 * @param outputStream   the destination of the ASiC container
+	 * @throws DSSException
+	 */
+	public void signDocument(final DSSDocument toSignDocument, final SignatureParameters parameters, final byte[] signatureValue,
+	                         final OutputStream outputStream) throws DSSException {
+
+		if (outputStream == null) {
+			throw new DSSNullException(OutputStream.class);
+		}
 		final SignatureParameters underlyingParameters = getParameters(parameters);
+		final DSSDocument signature = signUnderlyingDocument(toSignDocument, parameters, underlyingParameters, signatureValue);
+
+		writeASiCContainer(underlyingParameters, signature, outputStream);
+		parameters.setDeterministicId(null);
+	}
+
+	private DSSDocument signUnderlyingDocument(final DSSDocument toSignDocument, final SignatureParameters parameters, final SignatureParameters underlyingParameters,
+	                                           final byte[] signatureValue) {
 
+		assertSigningDateInCertificateValidityRange(parameters);
+
+		// Signs the toSignDocument first
 		final DSSDocument contextToSignDocument = prepare(toSignDocument, underlyingParameters);
 		parameters.aSiC().setEnclosedSignature(underlyingParameters.aSiC().getEnclosedSignature());
 
 		final DocumentSignatureService underlyingService = getSpecificService(underlyingParameters);
-		final DSSDocument signature = underlyingService.signDocument(contextToSignDocument, underlyingParameters, signatureValue);
-
-		final InMemoryDocument asicSignature = buildASiCContainer(underlyingParameters, signature);
-		parameters.setDeterministicId(null);
-		return asicSignature;
+		return underlyingService.signDocument(contextToSignDocument, underlyingParameters, signatureValue);
 	}
 
 	@Override
@@ -253,12 +282,29 @@ public class ASiCService extends AbstractSignatureService {
 
 	private InMemoryDocument buildASiCContainer(final SignatureParameters underlyingParameters, final DSSDocument signature) {
 
+		final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+		writeASiCContainer(underlyingParameters, signature, outBytes);
+
+		// return the new toSignDocument = ASiC-S
+		final DSSDocument detachedDocument = underlyingParameters.getDetachedContent();
+		final InMemoryDocument asicContainer = createASiCContainer(underlyingParameters.aSiC(), outBytes, detachedDocument.getName());
+		return asicContainer;
+	}
+
+	/**
+	 * Writes the ASiC container to the given {@code OutputStream}. The {@code OutputStream} is not closed.
+	 *
+	 * @param underlyingParameters the parameters of the underlying signature
+	 * @param signature            the underlying signature
+	 * @param outputStream         the destination of the container
+	 */
+	private void writeASiCContainer(final SignatureParameters underlyingParameters, final DSSDocument signature, final OutputStream outputStream) {
+
 		final DSSDocument detachedDocument = underlyingParameters.getDetachedContent();
 
 		final ASiCParameters asicParameters = underlyingParameters.aSiC();
 
-		final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
-		final ZipOutputStream outZip = new ZipOutputStream(outBytes);
+		final ZipOutputStream outZip = new ZipOutputStream(outputStream);
 
 		final MimeType signedFileMimeType = detachedDocument.getMimeType();
 
@@ -275,11 +321,11 @@ public class ASiCService extends AbstractSignatureService {
 		if (isAsics(asicParameters) && isCAdESForm(asicParameters)) {
 			storeAsicManifest(underlyingParameters, detachedDocument, outZip);
 		}
-		DSSUtils.close(outZip);
-
-		// return the new toSignDocument = ASiC-S
-		final InMemoryDocument asicContainer = createASiCContainer(asicParameters, outBytes, toSignDocumentName);
-		return asicContainer;
+		try {
+			outZip.finish();
+		} catch (IOException e) {
+			throw new DSSException(e);
+		}
 	}
 
 	private void storeAsicManifest(final SignatureParameters underlyingParameters, final DSSDocument detachedDocument, final ZipOutputStream outZip) {
@@ -317,8 +363,7 @@ public class ASiCService extends AbstractSignatureService {
 			digestMethodDom.setAttribute("Algorithm", digestAlgorithm.getXmlId());
 
 			final Element digestValueDom = DSSXMLUtils.addElement(documentDom, dataObjectReferenceDom, XMLSignature.XMLNS, "DigestValue");
-			final byte[] digest = DSSUtils.digest(digestAlgorithm, currentDetachedDocument.getBytes());
-			final String base64Encoded = DSSUtils.base64Encode(digest);
+			final String base64Encoded = currentDetachedDocument.getDigest(digestAlgorithm);
 			final Text textNode = documentDom.createTextNode(base64Encoded);
 			digestValueDom.appendChild(textNode);
 
@@ -563,7 +608,12 @@ public class ASiCService extends AbstractSignatureService {
 			outZip.setLevel(ZipEntry.DEFLATED);
 
 			createZipEntry(outZip, entryDocument);
-			DSSUtils.copy(currentDetachedDocument.openStream(), outZip);
+			final InputStream inputStream = currentDetachedDocument.openStream();
+			try {
+				DSSUtils.copy(inputStream, outZip);
+			} finally {
+				DSSUtils.closeQuietly(inputStream);
+			}
 			currentDetachedDocument = currentDetachedDocument.getNextDocument();
 		} while (currentDetachedDocument != null);
 	}
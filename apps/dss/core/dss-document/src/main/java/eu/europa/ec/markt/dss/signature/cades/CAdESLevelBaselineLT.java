@@ -20,8 +20,10 @@
 
 package eu.europa.ec.markt.dss.signature.cades;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.bouncycastle.asn1.ASN1Primitive;
@@ -84,6 +86,22 @@ public class CAdESLevelBaselineLT extends CAdESSignatureExtension {
 		return signerInformation;
 	}
 
+	@Override
+	protected void prefetchSignatureTimestamps(CMSSignedData cmsSignedData, Collection<SignerInformation> signersToExtend, SignatureParameters parameters) {
+
+		// Only the signers without the T level receive a signature timestamp
+		final List<SignerInformation> signersWithoutTimestamp = new ArrayList<SignerInformation>();
+		for (final SignerInformation signerInformation : signersToExtend) {
+
+			final CAdESSignature cadesSignature = new CAdESSignature(cmsSignedData, signerInformation);
+			cadesSignature.setDetachedContents(parameters.getDetachedContent());
+			if (!cadesSignature.isDataForSignatureLevelPresent(SignatureLevel.CAdES_BASELINE_T)) {
+				signersWithoutTimestamp.add(signerInformation);
+			}
+		}
+		cadesProfileT.prefetchSignatureTimestamps(cmsSignedData, signersWithoutTimestamp, parameters);
+	}
+
 	protected CMSSignedData postExtendCMSSignedData(CMSSignedData cmsSignedData, SignerInformation signerInformation, SignatureParameters parameters) {
 		CAdESSignature cadesSignature = new CAdESSignature(cmsSignedData, signerInformation);
 		cadesSignature.setDetachedContents(parameters.getDetachedContent());
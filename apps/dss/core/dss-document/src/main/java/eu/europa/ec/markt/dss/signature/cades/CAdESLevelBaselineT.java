@@ -20,6 +20,10 @@
 
 package eu.europa.ec.markt.dss.signature.cades;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.bouncycastle.asn1.ASN1Object;
 import org.bouncycastle.asn1.cms.AttributeTable;
 import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
@@ -28,9 +32,12 @@ import org.bouncycastle.cms.SignerInformation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.parameter.SignatureParameters;
 import eu.europa.ec.markt.dss.signature.SignatureLevel;
+import eu.europa.ec.markt.dss.validation102853.tsp.PrefetchedTSPSource;
 import eu.europa.ec.markt.dss.validation102853.tsp.TSPSource;
 import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
 import eu.europa.ec.markt.dss.validation102853.cades.CAdESSignature;
@@ -47,10 +54,31 @@ public class CAdESLevelBaselineT extends CAdESSignatureExtension {
     private static final Logger LOG = LoggerFactory.getLogger(CAdESLevelBaselineT.class);
     final CertificateVerifier certificateVerifier;
 
+    /**
+     * The signature TSA through which the signature timestamps obtained in advance are given back.
+     */
+    private final PrefetchedTSPSource prefetchedSignatureTsa;
+
     public CAdESLevelBaselineT(TSPSource signatureTsa, CertificateVerifier certificateVerifier, boolean onlyLastCMSSignature) {
 
         super(signatureTsa, onlyLastCMSSignature);
         this.certificateVerifier = certificateVerifier;
+        prefetchedSignatureTsa = new PrefetchedTSPSource(signatureTsa);
+    }
+
+    @Override
+    protected void prefetchSignatureTimestamps(CMSSignedData cmsSignedData, Collection<SignerInformation> signersToExtend, SignatureParameters parameters) {
+
+        if (!prefetchedSignatureTsa.isBatchSupported()) {
+            return;
+        }
+        final DigestAlgorithm timestampDigestAlgorithm = parameters.getSignatureTimestampParameters().getDigestAlgorithm();
+        final List<byte[]> timestampDigests = new ArrayList<byte[]>();
+        for (final SignerInformation signerInformation : signersToExtend) {
+
+            timestampDigests.add(DSSUtils.digest(timestampDigestAlgorithm, signerInformation.getSignature()));
+        }
+        prefetchedSignatureTsa.prefetch(timestampDigestAlgorithm, timestampDigests);
     }
 
     @Override
@@ -83,7 +111,7 @@ public class CAdESLevelBaselineT extends CAdESSignatureExtension {
 
     private AttributeTable addSignatureTimestampAttribute(SignerInformation signerInformation, AttributeTable unsignedAttributes, SignatureParameters parameters) {
 
-	    ASN1Object signatureTimeStamp = getTimeStampAttributeValue(signatureTsa, signerInformation.getSignature(), parameters);
+	    ASN1Object signatureTimeStamp = getTimeStampAttributeValue(prefetchedSignatureTsa, signerInformation.getSignature(), parameters);
         return unsignedAttributes.add(PKCSObjectIdentifiers.id_aa_signatureTimeStampToken, signatureTimeStamp);
     }
 
@@ -20,22 +20,31 @@
 
 package eu.europa.ec.markt.dss.signature.cades;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+
 import org.bouncycastle.asn1.cms.SignerInfo;
+import org.bouncycastle.cms.CMSAbsentContent;
 import org.bouncycastle.cms.CMSException;
 import org.bouncycastle.cms.CMSProcessableByteArray;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.CMSSignedDataStreamGenerator;
 import org.bouncycastle.cms.CMSTypedData;
 import org.bouncycastle.cms.SignerId;
 import org.bouncycastle.cms.SignerInfoGeneratorBuilder;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationStore;
 import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.bc.BcDigestCalculatorProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import eu.europa.ec.markt.dss.DSSASN1Utils;
+import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.SignatureAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.exception.DSSNullException;
@@ -48,6 +57,7 @@ import eu.europa.ec.markt.dss.signature.SignatureLevel;
 import eu.europa.ec.markt.dss.signature.SignaturePackaging;
 import eu.europa.ec.markt.dss.signature.token.SignatureTokenConnection;
 import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
+import eu.europa.ec.markt.dss.validation102853.cades.DetachedContentDigestCalculatorProvider;
 import org.w3c.dom.css.Counter;
 
 /**
@@ -60,6 +70,11 @@ public class CAdESService extends AbstractSignatureService {
 
 	private static final Logger LOG = LoggerFactory.getLogger(CAdESService.class);
 
+	/**
+	 * The DER encoding of the id-signedData object identifier (1.2.840.113549.1.7.2).
+	 */
+	private static final byte[] SIGNED_DATA_OID = new byte[]{0x06, 0x09, 0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7, 0x0D, 0x01, 0x07, 0x02};
+
 	private final CMSSignedDataBuilder cmsSignedDataBuilder;
 
 	/**
@@ -83,16 +98,16 @@ public class CAdESService extends AbstractSignatureService {
 
 		final SignatureAlgorithm signatureAlgorithm = parameters.getSignatureAlgorithm();
 		final CustomContentSigner customContentSigner = new CustomContentSigner(signatureAlgorithm.getJCEId());
-		final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder = cmsSignedDataBuilder.getSignerInfoGeneratorBuilder(parameters, false);
 		final CMSSignedData originalCmsSignedData = getCmsSignedData(toSignDocument, parameters);
+		final DSSDocument toSignData = getToSignData(toSignDocument, parameters, originalCmsSignedData);
+		final DigestCalculatorProvider digestCalculatorProvider = getDigestCalculatorProvider(toSignData, parameters);
+		final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder = cmsSignedDataBuilder.getSignerInfoGeneratorBuilder(parameters, false, digestCalculatorProvider);
 
 		final CMSSignedDataGenerator cmsSignedDataGenerator = cmsSignedDataBuilder
 			  .createCMSSignedDataGenerator(parameters, customContentSigner, signerInfoGeneratorBuilder, originalCmsSignedData);
 
-		final DSSDocument toSignData = getToSignData(toSignDocument, parameters, originalCmsSignedData);
-		final CMSProcessableByteArray content = new CMSProcessableByteArray(toSignData.getBytes());
-		final boolean encapsulate = !SignaturePackaging.DETACHED.equals(packaging);
-		DSSASN1Utils.generateCMSSignedData(cmsSignedDataGenerator, content, encapsulate);
+		// Only the signed attributes are signed: the content itself is not needed, its digest is provided by the document
+		DSSASN1Utils.generateCMSSignedData(cmsSignedDataGenerator, new CMSAbsentContent(), false);
 		final byte[] bytes = customContentSigner.getOutputStream().toByteArray();
 		return bytes;
 	}
@@ -106,19 +121,21 @@ public class CAdESService extends AbstractSignatureService {
 
 		final SignatureAlgorithm signatureAlgorithm = parameters.getSignatureAlgorithm();
 		final CustomContentSigner customContentSigner = new CustomContentSigner(signatureAlgorithm.getJCEId(), signatureValue);
-		final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder = cmsSignedDataBuilder.getSignerInfoGeneratorBuilder(parameters, true);
 		final CMSSignedData originalCmsSignedData = getCmsSignedData(toSignDocument, parameters);
 		if (originalCmsSignedData == null && SignaturePackaging.DETACHED.equals(packaging) && parameters.getDetachedContent() == null) {
 
 			parameters.setDetachedContent(toSignDocument);
 		}
+		final DSSDocument toSignData = getToSignData(toSignDocument, parameters, originalCmsSignedData);
+		final DigestCalculatorProvider digestCalculatorProvider = getDigestCalculatorProvider(toSignData, parameters);
+		final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder = cmsSignedDataBuilder.getSignerInfoGeneratorBuilder(parameters, true, digestCalculatorProvider);
 
 		final CMSSignedDataGenerator cmsSignedDataGenerator = cmsSignedDataBuilder
 			  .createCMSSignedDataGenerator(parameters, customContentSigner, signerInfoGeneratorBuilder, originalCmsSignedData);
 
-		final DSSDocument toSignData = getToSignData(toSignDocument, parameters, originalCmsSignedData);
-		final CMSProcessableByteArray content = new CMSProcessableByteArray(toSignData.getBytes());
 		final boolean encapsulate = !SignaturePackaging.DETACHED.equals(packaging);
+		// The detached content is not read: its digest is provided by the document
+		final CMSTypedData content = encapsulate ? new CMSProcessableByteArray(toSignData.getBytes()) : new CMSAbsentContent();
 		final CMSSignedData cmsSignedData = DSSASN1Utils.generateCMSSignedData(cmsSignedDataGenerator, content, encapsulate);
 		final CMSSignedDocument signature = new CMSSignedDocument(cmsSignedData);
 
@@ -135,6 +152,66 @@ public class CAdESService extends AbstractSignatureService {
 		return signature;
 	}
 
+	/**
+	 * This method signs the given document and writes the signature to the given {@code OutputStream}, which is not closed. For a new CAdES-BASELINE-B signature the content
+	 * is copied from the document to the {@code OutputStream} and digested in the same pass (enveloping packaging) or its digest is provided by the document (detached
+	 * packaging): the content is read at most once and never held in memory. In the
+	 * other cases (higher levels, parallel signature) the signature is built in memory by {@code #signDocument(DSSDocument, SignatureParameters, byte[])}.
+	 *
+	 * @param toSignDocument the document to sign
+	 * @param parameters     set of the driving signing parameters
+	 * @param signatureValue the value of the signature
+	 * @param outputStream   the {@code OutputStream} receiving the signature
+	 * @throws DSSException
+	 */
+	public void signDocument(final DSSDocument toSignDocument, final SignatureParameters parameters, final byte[] signatureValue,
+	                         final OutputStream outputStream) throws DSSException {
+
+		if (!SignatureLevel.CAdES_BASELINE_B.equals(parameters.getSignatureLevel()) || parameters.getDetachedContent() != null || isCmsSignedData(toSignDocument)) {
+
+			final DSSDocument signature = signDocument(toSignDocument, parameters, signatureValue);
+			final InputStream inputStream = signature.openStream();
+			try {
+				DSSUtils.copy(inputStream, outputStream);
+			} finally {
+				DSSUtils.closeQuietly(inputStream);
+			}
+			return;
+		}
+		assertSigningDateInCertificateValidityRange(parameters);
+		final SignaturePackaging packaging = parameters.getSignaturePackaging();
+		assertSignaturePackaging(packaging);
+
+		final SignatureAlgorithm signatureAlgorithm = parameters.getSignatureAlgorithm();
+		final CustomContentSigner customContentSigner = new CustomContentSigner(signatureAlgorithm.getJCEId(), signatureValue);
+		final boolean encapsulate = !SignaturePackaging.DETACHED.equals(packaging);
+		// The encapsulated content is digested by the generator while it is copied
+		final DigestCalculatorProvider digestCalculatorProvider = encapsulate ? new BcDigestCalculatorProvider() : getDigestCalculatorProvider(toSignDocument, parameters);
+		final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder = cmsSignedDataBuilder.getSignerInfoGeneratorBuilder(parameters, true, digestCalculatorProvider);
+		final CMSSignedDataStreamGenerator cmsSignedDataStreamGenerator = cmsSignedDataBuilder
+			  .createCMSSignedDataStreamGenerator(parameters, customContentSigner, signerInfoGeneratorBuilder);
+
+		InputStream inputStream = null;
+		try {
+
+			final OutputStream contentOutputStream = cmsSignedDataStreamGenerator.open(outputStream, encapsulate);
+			if (encapsulate) {
+
+				inputStream = toSignDocument.openStream();
+				DSSUtils.copy(inputStream, contentOutputStream);
+			}
+			// The signer info is written when the content stream is closed
+			contentOutputStream.close();
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} catch (CMSException e) {
+			throw new DSSException(e);
+		} finally {
+			DSSUtils.closeQuietly(inputStream);
+		}
+		parameters.setDeterministicId(null);
+	}
+
 	@Override
 	public DSSDocument signDocument(final DSSDocument toSignDocument, final SignatureParameters parameters) throws DSSException {
 
@@ -269,6 +346,60 @@ public class CAdESService extends AbstractSignatureService {
 		}
 	}
 
+	/**
+	 * The returned provider gives back the digest of the content as it is known by the document: a {@code FileDocument} is digested in a streaming manner and only once
+	 * for {@code #getDataToSign} and {@code #signDocument}.
+	 *
+	 * @param toSignData the data to be signed
+	 * @param parameters set of driving signing parameters
+	 * @return the {@code DigestCalculatorProvider} to be used to compute the message-digest attribute
+	 */
+	private DigestCalculatorProvider getDigestCalculatorProvider(final DSSDocument toSignData, final SignatureParameters parameters) {
+
+		return new DetachedContentDigestCalculatorProvider(toSignData, Collections.singletonList(parameters.getDigestAlgorithm().getAlgorithmIdentifier()));
+	}
+
+	/**
+	 * This method checks the beginning of the document: a ContentInfo (SEQUENCE) whose content type is id-signedData. It avoids to load a document which is not a CMS
+	 * signed message.
+	 *
+	 * @param dssDocument {@code DSSDocument} to check
+	 * @return {@code true} if the document can be a CMS signed message
+	 */
+	private static boolean isCmsSignedData(final DSSDocument dssDocument) {
+
+		final byte[] preamble = new byte[SIGNED_DATA_OID.length + 8];
+		int read = 0;
+		final InputStream inputStream = dssDocument.openStream();
+		try {
+
+			int count;
+			while (read < preamble.length && (count = inputStream.read(preamble, read, preamble.length - read)) != -1) {
+				read += count;
+			}
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} finally {
+			DSSUtils.closeQuietly(inputStream);
+		}
+		if (read < 2 || preamble[0] != 0x30) {
+			return false;
+		}
+		// Skips the length of the SEQUENCE: short form, long form or indefinite form
+		final int lengthOctet = preamble[1] & 0xFF;
+		final int offset = 2 + (lengthOctet > 0x80 ? lengthOctet & 0x7F : 0);
+		if (offset + SIGNED_DATA_OID.length > read) {
+			return false;
+		}
+		for (int ii = 0; ii < SIGNED_DATA_OID.length; ii++) {
+
+			if (preamble[offset + ii] != SIGNED_DATA_OID[ii]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * In case of an enveloping signature if the signed content's content is null then the null is returned.
 	 *
@@ -278,6 +409,9 @@ public class CAdESService extends AbstractSignatureService {
 	 */
 	private CMSSignedData getCmsSignedData(final DSSDocument dssDocument, final SignatureParameters parameters) {
 
+		if (!isCmsSignedData(dssDocument)) {
+			return null;
+		}
 		CMSSignedData cmsSignedData = null;
 		try {
 			// check if input dssDocument is already signed
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.bouncycastle.asn1.ASN1Encodable;
@@ -111,6 +112,13 @@ abstract class CAdESSignatureExtension implements SignatureExtension {
 	}
 
 	public CMSSignedData extendCMSSignatures(CMSSignedData cmsSignedData, SignatureParameters parameters) {
+		final Collection<SignerInformation> signersToExtend;
+		if (onlyLastCMSSignature) {
+			signersToExtend = Collections.singletonList(getFirstSigner(cmsSignedData));
+		} else {
+			signersToExtend = cmsSignedData.getSignerInfos().getSigners();
+		}
+		prefetchSignatureTimestamps(cmsSignedData, signersToExtend, parameters);
 		CMSSignedData extendCMSSignedData;
 		if (onlyLastCMSSignature) {
 			extendCMSSignedData = extendLastCMSSignature(cmsSignedData, parameters);
@@ -226,6 +234,16 @@ abstract class CAdESSignatureExtension implements SignatureExtension {
 	 */
 	abstract protected SignerInformation extendCMSSignature(CMSSignedData signedData, SignerInformation signerInformation, SignatureParameters parameters) throws DSSException;
 
+	/**
+	 * Obtains at once the signature timestamps of the signers to be extended, when the TSP source allows it. Nothing to do by default.
+	 *
+	 * @param cmsSignedData
+	 * @param signersToExtend the signers which will be extended
+	 * @param parameters
+	 */
+	protected void prefetchSignatureTimestamps(CMSSignedData cmsSignedData, Collection<SignerInformation> signersToExtend, SignatureParameters parameters) {
+	}
+
 	/**
 	 * Extends the root Signed Data. Nothing to do by default.
 	 *
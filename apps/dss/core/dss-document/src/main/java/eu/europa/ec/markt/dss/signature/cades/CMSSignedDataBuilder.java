@@ -35,10 +35,12 @@ import org.bouncycastle.asn1.cms.CMSObjectIdentifiers;
 import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.CMSAbsentContent;
 import org.bouncycastle.cms.CMSException;
-import org.bouncycastle.cms.CMSProcessableByteArray;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.CMSSignedDataStreamGenerator;
+import org.bouncycastle.cms.CMSSignedGenerator;
 import org.bouncycastle.cms.DefaultSignedAttributeTableGenerator;
 import org.bouncycastle.cms.SignerInfoGenerator;
 import org.bouncycastle.cms.SignerInfoGeneratorBuilder;
@@ -96,12 +98,36 @@ public class CMSSignedDataBuilder {
 	protected CMSSignedDataGenerator createCMSSignedDataGenerator(final SignatureParameters parameters, final ContentSigner contentSigner,
 	                                                              final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder,
 	                                                              final CMSSignedData originalSignedData) throws DSSException {
+		final CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+		initialiseGenerator(generator, parameters, contentSigner, signerInfoGeneratorBuilder, originalSignedData);
+		return generator;
+	}
+
+	/**
+	 * This method creates the generator used to write an enveloping or detached signature directly to an {@code OutputStream}: the content is never held in memory. It
+	 * cannot be used to add a signature to an existing one.
+	 *
+	 * @param parameters                 set of the driving signing parameters
+	 * @param contentSigner              the contentSigned to get the hash of the data to be signed
+	 * @param signerInfoGeneratorBuilder the builder of the {@code SignerInfoGenerator}
+	 * @return the bouncycastle streaming signed data generator
+	 * @throws DSSException
+	 */
+	protected CMSSignedDataStreamGenerator createCMSSignedDataStreamGenerator(final SignatureParameters parameters, final ContentSigner contentSigner,
+	                                                                          final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder) throws DSSException {
+
+		final CMSSignedDataStreamGenerator generator = new CMSSignedDataStreamGenerator();
+		initialiseGenerator(generator, parameters, contentSigner, signerInfoGeneratorBuilder, null);
+		return generator;
+	}
+
+	private void initialiseGenerator(final CMSSignedGenerator generator, final SignatureParameters parameters, final ContentSigner contentSigner,
+	                                 final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder, final CMSSignedData originalSignedData) throws DSSException {
+
 		try {
 
 			final X509Certificate signingCertificate = parameters.getSigningCertificate();
 
-			final CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
-
 			final X509CertificateHolder certHolder = DSSUtils.getX509CertificateHolder(signingCertificate);
 			final SignerInfoGenerator signerInfoGenerator = signerInfoGeneratorBuilder.build(contentSigner, certHolder);
 
@@ -127,8 +153,6 @@ public class CMSSignedDataBuilder {
 			newCertificateChain.addAll(certificateChain);
 			final Store jcaCertStore = getJcaCertStore(signingCertificate, newCertificateChain);
 			generator.addCertificates(jcaCertStore);
-			return generator;
-
 		} catch (CMSException e) {
 			throw new DSSException(e);
 		} catch (OperatorCreationException e) {
@@ -143,6 +167,18 @@ public class CMSSignedDataBuilder {
 	 */
 	SignerInfoGeneratorBuilder getSignerInfoGeneratorBuilder(final SignatureParameters parameters, final boolean includeUnsignedAttributes) {
 
+		return getSignerInfoGeneratorBuilder(parameters, includeUnsignedAttributes, new BcDigestCalculatorProvider());
+	}
+
+	/**
+	 * @param parameters                the parameters of the signature containing values for the attributes
+	 * @param includeUnsignedAttributes true if the unsigned attributes must be included
+	 * @param digestCalculatorProvider  the provider of the digest of the content (message-digest attribute)
+	 * @return a SignerInfoGeneratorBuilder that generate the signed and unsigned attributes according to the CAdESLevelBaselineB
+	 */
+	SignerInfoGeneratorBuilder getSignerInfoGeneratorBuilder(final SignatureParameters parameters, final boolean includeUnsignedAttributes,
+	                                                         final DigestCalculatorProvider digestCalculatorProvider) {
+
 		final CAdESLevelBaselineB cadesProfile = new CAdESLevelBaselineB();
 		final AttributeTable signedAttributes = cadesProfile.getSignedAttributes(parameters);
 
@@ -150,15 +186,17 @@ public class CMSSignedDataBuilder {
 		if (includeUnsignedAttributes) {
 			unsignedAttributes = cadesProfile.getUnsignedAttributes();
 		}
-		return getSignerInfoGeneratorBuilder(signedAttributes, unsignedAttributes);
+		return getSignerInfoGeneratorBuilder(signedAttributes, unsignedAttributes, digestCalculatorProvider);
 	}
 
 	/**
 	 * @param signedAttributes   the signedAttributes
 	 * @param unsignedAttributes the unsignedAttributes
+	 * @param digestCalculatorProvider the provider of the digest of the content
 	 * @return a SignerInfoGeneratorBuilder that generate the signed and unsigned attributes according to the parameters
 	 */
-	private SignerInfoGeneratorBuilder getSignerInfoGeneratorBuilder(AttributeTable signedAttributes, AttributeTable unsignedAttributes) {
+	private SignerInfoGeneratorBuilder getSignerInfoGeneratorBuilder(AttributeTable signedAttributes, AttributeTable unsignedAttributes,
+	                                                                 final DigestCalculatorProvider digestCalculatorProvider) {
 
 		if (signedAttributes != null && signedAttributes.size() == 0) {
 			signedAttributes = null;
@@ -169,18 +207,19 @@ public class CMSSignedDataBuilder {
 		}
 		final SimpleAttributeTableGenerator unsignedAttributeGenerator = new SimpleAttributeTableGenerator(unsignedAttributes);
 
-		return getSignerInfoGeneratorBuilder(signedAttributeGenerator, unsignedAttributeGenerator);
+		return getSignerInfoGeneratorBuilder(signedAttributeGenerator, unsignedAttributeGenerator, digestCalculatorProvider);
 	}
 
 	/**
 	 * @param signedAttributeGenerator   the signedAttribute generator
 	 * @param unsignedAttributeGenerator the unsignedAttribute generator
+	 * @param digestCalculatorProvider   the provider of the digest of the content
 	 * @return a SignerInfoGeneratorBuilder that generate the signed and unsigned attributes according to the parameters
 	 */
 	private SignerInfoGeneratorBuilder getSignerInfoGeneratorBuilder(DefaultSignedAttributeTableGenerator signedAttributeGenerator,
-	                                                                 SimpleAttributeTableGenerator unsignedAttributeGenerator) {
+	                                                                 SimpleAttributeTableGenerator unsignedAttributeGenerator,
+	                                                                 final DigestCalculatorProvider digestCalculatorProvider) {
 
-		final DigestCalculatorProvider digestCalculatorProvider = new BcDigestCalculatorProvider();
 		SignerInfoGeneratorBuilder sigInfoGeneratorBuilder = new SignerInfoGeneratorBuilder(digestCalculatorProvider);
 		sigInfoGeneratorBuilder.setSignedAttributeGenerator(signedAttributeGenerator);
 		sigInfoGeneratorBuilder.setUnsignedAttributeGenerator(unsignedAttributeGenerator);
@@ -241,8 +280,8 @@ public class CMSSignedDataBuilder {
 			cmsSignedDataGenerator.addOtherRevocationInfo(CMSObjectIdentifiers.id_ri_ocsp_response, otherRevocationInfoFormatStoreOcsp);
 			final boolean encapsulate = cmsSignedData.getSignedContent() != null;
 			if (!encapsulate) {
-				final CMSProcessableByteArray content = new CMSProcessableByteArray(DSSUtils.toByteArray(parameters.getDetachedContent().openStream()));
-				cmsSignedData = cmsSignedDataGenerator.generate(content, encapsulate);
+				// No signer is added: the detached content is neither digested nor encapsulated, it does not need to be read
+				cmsSignedData = cmsSignedDataGenerator.generate(new CMSAbsentContent(), encapsulate);
 			} else {
 				cmsSignedData = cmsSignedDataGenerator.generate(cmsSignedData.getSignedContent(), encapsulate);
 			}
@@ -98,7 +98,7 @@ public class PAdESService extends AbstractSignatureService {
 		final CustomContentSigner customContentSigner = new CustomContentSigner(signatureAlgorithm.getJCEId());
 
 		final PDFSignatureService pdfSignatureService = PdfObjFactory.getInstance().newPAdESSignatureService();
-		final byte[] messageDigest = pdfSignatureService.digest(toSignDocument.openStream(), parameters, parameters.getDigestAlgorithm());
+		final byte[] messageDigest = pdfSignatureService.digest(toSignDocument, parameters, parameters.getDigestAlgorithm());
 
 		SignerInfoGeneratorBuilder signerInfoGeneratorBuilder = padesCMSSignedDataBuilder.getSignerInfoGeneratorBuilder(parameters, messageDigest);
 
@@ -121,7 +121,7 @@ public class PAdESService extends AbstractSignatureService {
 			final CustomContentSigner customContentSigner = new CustomContentSigner(signatureAlgorithm.getJCEId(), signatureValue);
 
 			final PDFSignatureService pdfSignatureService = PdfObjFactory.getInstance().newPAdESSignatureService();
-			final byte[] messageDigest = pdfSignatureService.digest(toSignDocument.openStream(), parameters, parameters.getDigestAlgorithm());
+			final byte[] messageDigest = pdfSignatureService.digest(toSignDocument, parameters, parameters.getDigestAlgorithm());
 
 			final SignerInfoGeneratorBuilder signerInfoGeneratorBuilder = padesCMSSignedDataBuilder.getSignerInfoGeneratorBuilder(parameters, messageDigest);
 
@@ -140,7 +140,7 @@ public class PAdESService extends AbstractSignatureService {
 
 			final ByteArrayOutputStream output = new ByteArrayOutputStream();
 			final byte[] encodedData = DSSASN1Utils.getEncoded(data);
-			pdfSignatureService.sign(toSignDocument.openStream(), encodedData, output, parameters, parameters.getDigestAlgorithm());
+			pdfSignatureService.sign(toSignDocument, encodedData, output, parameters, parameters.getDigestAlgorithm());
 
 			final DSSDocument signature;
 			if (DSSUtils.isEmpty(toSignDocument.getName())) {
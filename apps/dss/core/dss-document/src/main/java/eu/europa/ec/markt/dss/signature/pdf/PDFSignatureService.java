@@ -28,6 +28,7 @@ import java.util.Map;
 import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.parameter.SignatureParameters;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
 import eu.europa.ec.markt.dss.validation102853.CertificatePool;
 
 /**
@@ -38,7 +39,7 @@ import eu.europa.ec.markt.dss.validation102853.CertificatePool;
 public interface PDFSignatureService {
 
 	/**
-	 * Return the digest value of a PDF document
+	 * Return the digest value of a PDF document. The document can be read more than once.
 	 *
 	 * @param toSignDocument
 	 * @param parameters
@@ -46,11 +47,11 @@ public interface PDFSignatureService {
 	 * @param extraDictionariesToAddBeforeSign @return
 	 * @throws DSSException
 	 */
-	byte[] digest(final InputStream toSignDocument, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
+	byte[] digest(final DSSDocument toSignDocument, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
 	              final Map.Entry<String, PdfDict>... extraDictionariesToAddBeforeSign) throws DSSException;
 
 	/**
-	 * Sign a PDF document
+	 * Sign a PDF document. The document can be read more than once.
 	 *
 	 * @param pdfData
 	 * @param signatureValue
@@ -60,7 +61,7 @@ public interface PDFSignatureService {
 	 * @param extraDictionariesToAddBeforeSign
 	 * @throws DSSException
 	 */
-	void sign(final InputStream pdfData, final byte[] signatureValue, final OutputStream signedStream, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
+	void sign(final DSSDocument pdfData, final byte[] signatureValue, final OutputStream signedStream, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
 	          final Map.Entry<String, PdfDict>... extraDictionariesToAddBeforeSign) throws DSSException;
 
 	/**
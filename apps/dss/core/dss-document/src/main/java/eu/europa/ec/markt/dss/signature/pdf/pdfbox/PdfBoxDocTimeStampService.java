@@ -52,9 +52,9 @@ class PdfBoxDocTimeStampService extends PdfBoxSignatureService implements PDFSig
                           final Map.Entry<String, PdfDict>... dictToAdd) throws DSSException {
 
         final DigestAlgorithm timestampDigestAlgorithm = parameters.getSignatureTimestampParameters().getDigestAlgorithm();
-        final byte[] digest = digest(document.openStream(), parameters, timestampDigestAlgorithm, dictToAdd);
+        final byte[] digest = digest(document, parameters, timestampDigestAlgorithm, dictToAdd);
         final TimeStampToken timeStampToken = tspSource.getTimeStampResponse(timestampDigestAlgorithm, digest);
         final byte[] encoded = DSSASN1Utils.getEncoded(timeStampToken);
-        sign(document.openStream(), encoded, signedStream, parameters, timestampDigestAlgorithm, dictToAdd);
+        sign(document, encoded, signedStream, parameters, timestampDigestAlgorithm, dictToAdd);
     }
 }
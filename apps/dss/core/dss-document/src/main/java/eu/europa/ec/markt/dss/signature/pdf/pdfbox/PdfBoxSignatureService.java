@@ -28,6 +28,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -55,6 +56,7 @@ import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.parameter.BLevelParameters;
 import eu.europa.ec.markt.dss.parameter.SignatureParameters;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
 import eu.europa.ec.markt.dss.signature.pdf.PDFSignatureService;
 import eu.europa.ec.markt.dss.signature.pdf.PdfDict;
 import eu.europa.ec.markt.dss.signature.pdf.PdfDocTimestampInfo;
@@ -68,82 +70,202 @@ class PdfBoxSignatureService implements PDFSignatureService {
 	private static final Logger LOG = LoggerFactory.getLogger(PdfBoxSignatureService.class);
 
 	@Override
-	public byte[] digest(final InputStream toSignDocument, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
+	public byte[] digest(final DSSDocument toSignDocument, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
 	                     final Map.Entry<String, PdfDict>... extraDictionariesToAddBeforeSign) throws DSSException {
 
-		final byte[] signatureBytes = DSSUtils.EMPTY_BYTE_ARRAY;
-		File file = null;
+		ensureSigningDate(parameters);
+		final String revisionKey = getRevisionKey(toSignDocument, parameters, digestAlgorithm, extraDictionariesToAddBeforeSign);
+		if (revisionKey != null) {
+
+			final PreparedPdfRevision preparedRevision = getPreparedPdfRevision(parameters, revisionKey);
+			if (preparedRevision != null) {
+				return preparedRevision.digestValue;
+			}
+		}
+		final PreparedPdfRevision preparedRevision = prepareRevision(toSignDocument, parameters, digestAlgorithm, extraDictionariesToAddBeforeSign);
+		if (revisionKey != null) {
+
+			preparedRevision.key = revisionKey;
+			parameters.getContext().setPreparedPdfRevision(preparedRevision);
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Digest to be signed: " + DSSUtils.encodeHexString(preparedRevision.digestValue));
+		}
+		return preparedRevision.digestValue;
+	}
+
+	@Override
+	public void sign(final DSSDocument toSignDocument, final byte[] signatureValue, final OutputStream signedStream, final SignatureParameters parameters,
+	                 final DigestAlgorithm digestAlgorithm, final Map.Entry<String, PdfDict>... extraDictionariesToAddBeforeSign) throws DSSException {
+
+		final String revisionKey = getRevisionKey(toSignDocument, parameters, digestAlgorithm, extraDictionariesToAddBeforeSign);
+		PreparedPdfRevision preparedRevision = revisionKey == null ? null : getPreparedPdfRevision(parameters, revisionKey);
+		if (preparedRevision != null) {
+			parameters.getContext().setPreparedPdfRevision(null);
+		} else {
+			preparedRevision = prepareRevision(toSignDocument, parameters, digestAlgorithm, extraDictionariesToAddBeforeSign);
+		}
+		final byte[] digestValue = writeRevision(toSignDocument, preparedRevision, signatureValue, digestAlgorithm, signedStream);
+		if (!Arrays.equals(digestValue, preparedRevision.digestValue)) {
+			throw new DSSException("The document to sign was modified during its signature.");
+		}
+	}
+
+	/**
+	 * This method loads the document, adds the signature dictionary and saves the new revision with an empty signature. The incremental writer of PDFBox needs a file: it
+	 * re-reads the saved revision to compute the digest of the byte range. This is the only temporary file used during the signature.
+	 *
+	 * @param toSignDocument                   the document to sign
+	 * @param parameters                       the signature parameters
+	 * @param digestAlgorithm                  the digest algorithm used to compute the digest of the byte range
+	 * @param extraDictionariesToAddBeforeSign the dictionaries to add to the catalog
+	 * @return the prepared revision
+	 * @throws DSSException
+	 */
+	private PreparedPdfRevision prepareRevision(final DSSDocument toSignDocument, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
+	                                         final Map.Entry<String, PdfDict>[] extraDictionariesToAddBeforeSign) throws DSSException {
+
 		File signed = null;
+		InputStream inputStream = null;
+		FileOutputStream output = null;
 		PDDocument doc = null;
 		try {
 
-			file = DSSPDFUtils.getFileFromPdfData(toSignDocument);
-
-			// TODO: (Bob: 2014 Jan 22) There is no guarantee that there will be no duplicates
-			signed = File.createTempFile("raw", "-signed.pdf");
-			final FileOutputStream output = get(file, signed);
+			signed = File.createTempFile("dss-", "-signed.pdf");
+			inputStream = toSignDocument.openStream();
+			output = new FileOutputStream(signed);
+			DSSUtils.copy(inputStream, output);
+			output.flush();
+			final long originalLength = signed.length();
 
-			doc = PDDocument.load(file);
+			doc = PDDocument.load(signed);
 			addExtraDicts(doc, extraDictionariesToAddBeforeSign);
-			PDSignature signature = createSignatureDictionary(parameters);
+			final PDSignature signature = createSignatureDictionary(parameters);
 
-			final byte[] digestValue = signDocumentAndReturnDigest(parameters, signatureBytes, signed, output, doc, signature, digestAlgorithm);
-			return digestValue;
+			final byte[] digestValue = signDocumentAndReturnDigest(parameters, DSSUtils.EMPTY_BYTE_ARRAY, signed, output, doc, signature, digestAlgorithm);
+			final byte[] revision = readRevision(signed, originalLength);
+			return new PreparedPdfRevision(originalLength, revision, digestValue);
 		} catch (IOException e) {
 			throw new DSSException(e);
 		} finally {
-			DSSUtils.delete(file);
-			DSSUtils.delete(signed);
+			DSSUtils.closeQuietly(inputStream);
+			DSSUtils.closeQuietly(output);
 			DSSPDFUtils.close(doc);
+			DSSUtils.delete(signed);
 		}
 	}
 
-	public static FileOutputStream get(final File file, final File signed) {
+	private static byte[] readRevision(final File signed, final long originalLength) throws IOException {
 
+		final RandomAccessFile randomAccessFile = new RandomAccessFile(signed, "r");
 		try {
 
-			FileInputStream in2 = new FileInputStream(file);
-			FileOutputStream output = new FileOutputStream(signed);
-			DSSUtils.copy(in2, output);
-			in2.close();
-			return output;
-		} catch (IOException e) {
-			throw new DSSException(e);
+			final byte[] revision = new byte[(int) (randomAccessFile.length() - originalLength)];
+			randomAccessFile.seek(originalLength);
+			randomAccessFile.readFully(revision);
+			return revision;
+		} finally {
+			randomAccessFile.close();
 		}
 	}
 
-	@Override
-	public void sign(final InputStream pdfData, final byte[] signatureValue, final OutputStream signedStream, final SignatureParameters parameters,
-	                 final DigestAlgorithm digestAlgorithm, final Map.Entry<String, PdfDict>... extraDictionariesToAddBeforeSign) throws DSSException {
+	/**
+	 * This method streams the original document followed by the prepared revision in which the signature value is written. In the same pass the digest of the byte range is
+	 * computed.
+	 *
+	 * @param toSignDocument   the document to sign
+	 * @param preparedRevision the revision prepared for this document
+	 * @param signatureValue   the signature value to write in the revision or {@code null}
+	 * @param digestAlgorithm  the digest algorithm used to compute the digest of the byte range
+	 * @param signedStream     the stream to which the signed document is written or {@code null} if only the digest is needed
+	 * @return the digest of the byte range or {@code null} if the length of the document does not match the prepared revision
+	 * @throws DSSException
+	 */
+	private static byte[] writeRevision(final DSSDocument toSignDocument, final PreparedPdfRevision preparedRevision, final byte[] signatureValue,
+	                                    final DigestAlgorithm digestAlgorithm, final OutputStream signedStream) throws DSSException {
 
-		File file = null;
-		File signed = null;
-		PDDocument doc = null;
+		InputStream inputStream = null;
 		try {
 
-			file = DSSPDFUtils.getFileFromPdfData(pdfData);
+			final MessageDigest messageDigest = DSSUtils.getMessageDigest(digestAlgorithm);
+			inputStream = toSignDocument.openStream();
+			final byte[] buffer = new byte[8192];
+			long length = 0;
+			int count;
+			while ((count = inputStream.read(buffer)) != -1) {
 
-			// TODO: (Bob: 2014 Jan 22) There is no guarantee that there will be no duplicates
-			signed = File.createTempFile("raw", "-signed.pdf");
-			final FileOutputStream output = get(file, signed);
+				messageDigest.update(buffer, 0, count);
+				if (signedStream != null) {
+					signedStream.write(buffer, 0, count);
+				}
+				length += count;
+			}
+			if (length != preparedRevision.originalLength) {
+				return null;
+			}
+			final byte[] revision = preparedRevision.getRevision(signatureValue);
+			messageDigest.update(revision, 0, preparedRevision.contentsStart);
+			messageDigest.update(revision, preparedRevision.contentsEnd, revision.length - preparedRevision.contentsEnd);
+			if (signedStream != null) {
+				signedStream.write(revision);
+			}
+			return messageDigest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new DSSException(e);
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} finally {
+			DSSUtils.closeQuietly(inputStream);
+		}
+	}
 
-			doc = PDDocument.load(file);
-			addExtraDicts(doc, extraDictionariesToAddBeforeSign);
-			final PDSignature signature = createSignatureDictionary(parameters);
+	/**
+	 * The signing date is part of the signature dictionary and so of the digest to be signed. When it is not given it is set in the parameters before computing the digest,
+	 * so that the revision prepared for the digest can be reused when the document is signed with the same parameters.
+	 *
+	 * @param parameters the signature parameters
+	 */
+	private static void ensureSigningDate(final SignatureParameters parameters) {
+
+		final BLevelParameters bLevelParameters = parameters.bLevel();
+		if (bLevelParameters.getSigningDate() == null) {
+			bLevelParameters.setSigningDate(new Date());
+		}
+	}
 
-			signDocumentAndReturnDigest(parameters, signatureValue, signed, output, doc, signature, digestAlgorithm);
+	/**
+	 * The prepared revision can be reused only for the same document and if the signature dictionary is identical: same signing date, same deterministic id, same sub-filter
+	 * and no extra dictionary. The signing date is always set by {@code digest}; it is null only when {@code sign} is called with parameters which were not used to compute the
+	 * digest, in which case there is no revision to reuse. The document is identified by its digest which is kept by the {@code DSSDocument}: the key is computed once per call and the document is not
+	 * read again to check the revision. When the document is modified in the meantime the byte range digest computed while writing the signed stream does not match and the
+	 * signature fails.
+	 *
+	 * @return the key of the prepared revision or {@code null} if the revision cannot be reused
+	 */
+	private String getRevisionKey(final DSSDocument toSignDocument, final SignatureParameters parameters, final DigestAlgorithm digestAlgorithm,
+	                              final Map.Entry<String, PdfDict>[] extraDictionariesToAddBeforeSign) {
 
-			final FileInputStream in3 = new FileInputStream(signed);
-			DSSUtils.copy(in3, signedStream);
-			in3.close();
+		final Date signingDate = parameters.bLevel().getSigningDate();
+		if (signingDate == null || (extraDictionariesToAddBeforeSign != null && extraDictionariesToAddBeforeSign.length > 0)) {
+			return null;
+		}
+		return getSubFilter().getName() + "|" + digestAlgorithm.getName() + "|" + parameters.getDeterministicId() + "|" + signingDate.getTime() + "|" + toSignDocument
+			  .getDigest(DigestAlgorithm.SHA256);
+	}
 
-		} catch (Exception e) {
-			throw new DSSException(e);
-		} finally {
-			DSSUtils.delete(file);
-			DSSUtils.delete(signed);
-			DSSPDFUtils.close(doc);
+	/**
+	 * The prepared revision is kept within the context of the signature parameters: it lives as long as the parameters used to sign the document. Only the revision of the last
+	 * prepared document is kept.
+	 *
+	 * @return the prepared revision with the given key or {@code null}
+	 */
+	private static PreparedPdfRevision getPreparedPdfRevision(final SignatureParameters parameters, final String revisionKey) {
+
+		final PreparedPdfRevision preparedPdfRevision = parameters.getContext().getPreparedPdfRevision();
+		if (preparedPdfRevision != null && revisionKey.equals(preparedPdfRevision.key)) {
+			return preparedPdfRevision;
 		}
+		return null;
 	}
 
 	private byte[] signDocumentAndReturnDigest(final SignatureParameters parameters, final byte[] signatureBytes, final File signed, final FileOutputStream output,
@@ -169,9 +291,6 @@ class PdfBoxSignatureService implements PDFSignatureService {
 
 			saveDocumentIncrementally(parameters, signed, output, doc);
 			final byte[] digestValue = digest.digest();
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("Digest to be signed: " + DSSUtils.encodeHexString(digestValue));
-			}
 			output.close();
 			return digestValue;
 		} catch (NoSuchAlgorithmException e) {
@@ -365,5 +484,4 @@ class PdfBoxSignatureService implements PDFSignatureService {
 		}
 		return pdfSignatureOrDocTimestampInfo;
 	}
-
 }
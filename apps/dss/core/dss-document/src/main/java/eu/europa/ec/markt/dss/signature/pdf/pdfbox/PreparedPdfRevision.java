@@ -0,0 +1,100 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.signature.pdf.pdfbox;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.exception.DSSException;
+
+/**
+ * The new revision of a document saved with an empty signature. The offsets of the signature value (the {@code Contents} entry of the signature dictionary) are extracted
+ * from the {@code ByteRange} entry.
+ * <p/>
+ * It is prepared by {@code PdfBoxSignatureService} while computing the digest to be signed and kept within the {@code ProfileParameters} to be reused when the document is
+ * signed. Its content is only accessible to the PDF signature service.
+ *
+ * @version $Revision$ - $Date$
+ */
+public final class PreparedPdfRevision {
+
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	final long originalLength;
+
+	private final byte[] revision;
+
+	final int contentsStart;
+
+	final int contentsEnd;
+
+	final byte[] digestValue;
+
+	/**
+	 * The key identifying the document and the signature dictionary of this revision.
+	 */
+	String key;
+
+	PreparedPdfRevision(final long originalLength, final byte[] revision, final byte[] digestValue) throws DSSException {
+
+		this.originalLength = originalLength;
+		this.revision = revision;
+		this.digestValue = digestValue;
+
+		final String revisionString = new String(revision, ISO_8859_1);
+		final int byteRangeIndex = revisionString.lastIndexOf("/ByteRange");
+		final int openingIndex = byteRangeIndex == -1 ? -1 : revisionString.indexOf('[', byteRangeIndex);
+		final int closingIndex = openingIndex == -1 ? -1 : revisionString.indexOf(']', openingIndex);
+		if (closingIndex == -1) {
+			throw new DSSException("The ByteRange of the signature cannot be found in the new revision.");
+		}
+		final String[] byteRange = revisionString.substring(openingIndex + 1, closingIndex).trim().split("\\s+");
+		if (byteRange.length != 4) {
+			throw new DSSException("The ByteRange of the signature is not valid: " + Arrays.toString(byteRange));
+		}
+		contentsStart = (int) (Long.parseLong(byteRange[1]) - originalLength);
+		contentsEnd = (int) (Long.parseLong(byteRange[2]) - originalLength);
+		final long endOfRange = Long.parseLong(byteRange[2]) + Long.parseLong(byteRange[3]);
+		if (contentsStart < 0 || contentsEnd > revision.length || contentsEnd - contentsStart < 2 || endOfRange != originalLength + revision.length || revision[contentsStart] != '<' || revision[contentsEnd - 1] != '>') {
+			throw new DSSException("The ByteRange of the signature does not match the new revision.");
+		}
+	}
+
+	/**
+	 * @param signatureValue the signature value to write or {@code null}
+	 * @return the revision containing the signature value
+	 */
+	byte[] getRevision(final byte[] signatureValue) throws DSSException {
+
+		if (signatureValue == null || signatureValue.length == 0) {
+			return revision;
+		}
+		final byte[] hexSignatureValue = DSSUtils.encodeHexString(signatureValue).getBytes(ISO_8859_1);
+		final int availableLength = contentsEnd - contentsStart - 2;
+		if (hexSignatureValue.length > availableLength) {
+			throw new DSSException("The signature value (" + hexSignatureValue.length + " hex digits) does not fit in the reserved space of " + availableLength + " digits.");
+		}
+		final byte[] signedRevision = revision.clone();
+		System.arraycopy(hexSignatureValue, 0, signedRevision, contentsStart + 1, hexSignatureValue.length);
+		return signedRevision;
+	}
+}
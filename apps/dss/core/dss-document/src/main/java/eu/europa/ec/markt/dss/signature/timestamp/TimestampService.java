@@ -50,6 +50,7 @@ import eu.europa.ec.markt.dss.validation102853.SignedDocumentValidator;
 import eu.europa.ec.markt.dss.validation102853.TimestampInclude;
 import eu.europa.ec.markt.dss.validation102853.TimestampToken;
 import eu.europa.ec.markt.dss.validation102853.TimestampType;
+import eu.europa.ec.markt.dss.validation102853.tsp.BatchTSPSource;
 import eu.europa.ec.markt.dss.validation102853.tsp.TSPSource;
 import eu.europa.ec.markt.dss.validation102853.xades.XAdESSignature;
 import eu.europa.ec.markt.dss.validation102853.xades.XMLDocumentValidator;
@@ -252,9 +253,66 @@ public class TimestampService {
 			LOG.trace("Digest to timestamp: " + DSSUtils.base64Encode(digest));
 		}
 		final TimeStampToken timeStampResponse = tspSource.getTimeStampResponse(digestAlgorithm, digest);
-		TimestampToken token = new TimestampToken(timeStampResponse, timestampType, certificatePool);
+		return newTimestampToken(timeStampResponse, timestampType, signatureParameters);
+	}
+
+	/**
+	 * Method that generates several TimestampTokens given a TimestampType, a set of signature parameters and a list of byte arrays containing each the
+	 * concatenated references to timestamp. When the TSPSource is a {@code BatchTSPSource} all timestamps are obtained at once.
+	 *
+	 * @param timestampType       The TimestampType for the TimestampTokens
+	 * @param signatureParameters The signature parameters from which the contentTimestamp parameters must be retrieved
+	 * @param referencesList      the list of the concatenated references, one by TimestampToken
+	 * @return the list of TimestampTokens in the order of {@code referencesList}
+	 */
+	public List<TimestampToken> generateTimestampTokens(final TimestampType timestampType, final SignatureParameters signatureParameters,
+	                                                    final List<byte[]> referencesList) {
+
+		if (timestampType == null) {
+			throw new DSSNullException(TimestampType.class);
+		}
+		if (signatureParameters == null) {
+			throw new DSSNullException(SignatureParameters.class);
+		}
+		final TimestampParameters contentTimestampParameters = signatureParameters.getContentTimestampParameters();
+		if (contentTimestampParameters == null) {
+			throw new DSSNullException(TimestampParameters.class);
+		}
+		final DigestAlgorithm digestAlgorithm = contentTimestampParameters.getDigestAlgorithm();
+		if (digestAlgorithm == null) {
+
+			throw new DSSNullException(DigestAlgorithm.class);
+		}
+		final List<byte[]> digests = new ArrayList<byte[]>(referencesList.size());
+		for (final byte[] references : referencesList) {
+
+			digests.add(DSSUtils.digest(digestAlgorithm, references));
+		}
+		final List<TimeStampToken> timeStampResponses;
+		if (tspSource instanceof BatchTSPSource) {
+
+			timeStampResponses = ((BatchTSPSource) tspSource).getTimeStampResponses(digestAlgorithm, digests);
+		} else {
+
+			timeStampResponses = new ArrayList<TimeStampToken>(digests.size());
+			for (final byte[] digest : digests) {
+
+				timeStampResponses.add(tspSource.getTimeStampResponse(digestAlgorithm, digest));
+			}
+		}
+		final List<TimestampToken> tokens = new ArrayList<TimestampToken>(timeStampResponses.size());
+		for (final TimeStampToken timeStampResponse : timeStampResponses) {
+
+			tokens.add(newTimestampToken(timeStampResponse, timestampType, signatureParameters));
+		}
+		return tokens;
+	}
+
+	private TimestampToken newTimestampToken(final TimeStampToken timeStampResponse, final TimestampType timestampType, final SignatureParameters signatureParameters) {
+
+		final TimestampToken token = new TimestampToken(timeStampResponse, timestampType, certificatePool);
 
-		token.setCanonicalizationMethod(contentTimestampParameters.getCanonicalizationMethod());
+		token.setCanonicalizationMethod(signatureParameters.getContentTimestampParameters().getCanonicalizationMethod());
 
 		//Case of XAdES INDIVIDUAL DATA OBJECTS TIMESTAMP: Timestamp Includes must be generated for each reference
 		if (TimestampType.INDIVIDUAL_DATA_OBJECTS_TIMESTAMP.equals(timestampType)) {
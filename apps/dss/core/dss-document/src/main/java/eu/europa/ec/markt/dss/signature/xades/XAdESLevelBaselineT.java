@@ -21,6 +21,10 @@
 package eu.europa.ec.markt.dss.signature.xades;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -52,6 +56,7 @@ import eu.europa.ec.markt.dss.validation102853.CertificateToken;
 import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
 import eu.europa.ec.markt.dss.validation102853.TimestampType;
 import eu.europa.ec.markt.dss.validation102853.ValidationContext;
+import eu.europa.ec.markt.dss.validation102853.tsp.PrefetchedTSPSource;
 import eu.europa.ec.markt.dss.validation102853.tsp.TSPSource;
 import eu.europa.ec.markt.dss.validation102853.xades.XAdESSignature;
 
@@ -70,6 +75,16 @@ public class XAdESLevelBaselineT extends ExtensionBuilder implements XAdESSignat
 	 */
 	protected TSPSource tspSource;
 
+	/*
+	 * The signature timestamps obtained at once for all signatures of the document being extended, it wraps the tspSource
+	 */
+	private PrefetchedTSPSource prefetchedTspSource;
+
+	/*
+	 * The digests of the signature timestamp data computed while prefetching, by signature element
+	 */
+	private final Map<Element, byte[]> signatureTimestampDigests = new IdentityHashMap<Element, byte[]>();
+
 	/**
 	 * The default constructor for XAdESLevelBaselineT.
 	 */
@@ -120,21 +135,31 @@ public class XAdESLevelBaselineT extends ExtensionBuilder implements XAdESSignat
 
 			signatureId = params.getDeterministicId();
 		}
-		for (int ii = 0; ii < signatureNodeList.getLength(); ii++) {
+		try {
 
-			currentSignatureDom = (Element) signatureNodeList.item(ii);
-			final String currentSignatureId = currentSignatureDom.getAttribute("Id");
-			if (signatureId != null && !signatureId.equals(currentSignatureId)) {
+			prefetchSignatureTimestamps(signatureNodeList, signatureId);
+			for (int ii = 0; ii < signatureNodeList.getLength(); ii++) {
+
+				currentSignatureDom = (Element) signatureNodeList.item(ii);
+				final String currentSignatureId = currentSignatureDom.getAttribute("Id");
+				if (signatureId != null && !signatureId.equals(currentSignatureId)) {
+
+					continue;
+				}
+				final CertificatePool certPool = new CertificatePool();
+				// TODO-Bob (13/07/2014):  The XPath query holder can be inherited from the xadesSignature: to be analysed
+				xadesSignature = new XAdESSignature(currentSignatureDom, certPool);
+				xadesSignature.setDetachedContents(params.getDetachedContent());
+				// In the cse of the extension of the signature the signing certificate must be included within the signature
+				// xadesSignature.setProvidedSigningCertificateToken(null);
+				extendSignatureTag();
+			}
+		} finally {
 
-				continue;
+			signatureTimestampDigests.clear();
+			if (prefetchedTspSource != null) {
+				prefetchedTspSource.clear();
 			}
-			final CertificatePool certPool = new CertificatePool();
-			// TODO-Bob (13/07/2014):  The XPath query holder can be inherited from the xadesSignature: to be analysed
-			xadesSignature = new XAdESSignature(currentSignatureDom, certPool);
-			xadesSignature.setDetachedContents(params.getDetachedContent());
-			// In the cse of the extension of the signature the signing certificate must be included within the signature
-			// xadesSignature.setProvidedSigningCertificateToken(null);
-			extendSignatureTag();
 		}
 		final byte[] documentBytes = DSSXMLUtils.serializeNode(documentDom);
 		final InMemoryDocument inMemoryDocument = new InMemoryDocument(documentBytes);
@@ -159,16 +184,77 @@ public class XAdESLevelBaselineT extends ExtensionBuilder implements XAdESSignat
 		ensureUnsignedSignatureProperties();
 
 		// The timestamp must be added only if there is no one or the extension -T is being created
-		if (!xadesSignature.hasTProfile() || SignatureLevel.XAdES_BASELINE_T.equals(params.getSignatureLevel())) {
+		if (needsSignatureTimestamp(xadesSignature)) {
 
-			final byte[] canonicalisedValue = xadesSignature.getSignatureTimestampData(null);
-			final DigestAlgorithm timestampDigestAlgorithm = params.getSignatureTimestampParameters().getDigestAlgorithm();
-			final byte[] digestValue = DSSUtils.digest(timestampDigestAlgorithm, canonicalisedValue);
+			final byte[] digestValue = getSignatureTimestampDigest(xadesSignature);
 			final String canonicalizationMethod = params.getSignatureTimestampParameters().getCanonicalizationMethod();
 			createXAdESTimeStampType(TimestampType.SIGNATURE_TIMESTAMP, canonicalizationMethod, digestValue);
 		}
 	}
 
+	/**
+	 * When the TSP source can timestamp several digests at once, this method obtains in one batch the signature timestamps of all signatures to
+	 * be extended. The signature timestamp covers only the ds:SignatureValue element which is not changed by the extension.
+	 *
+	 * @param signatureNodeList the list of the signatures of the document
+	 * @param signatureId       the Id of the only signature to extend or null
+	 */
+	private void prefetchSignatureTimestamps(final NodeList signatureNodeList, final String signatureId) {
+
+		if (prefetchedTspSource == null || !prefetchedTspSource.isBatchSupported()) {
+
+			return;
+		}
+		final DigestAlgorithm timestampDigestAlgorithm = params.getSignatureTimestampParameters().getDigestAlgorithm();
+		final List<byte[]> digestValues = new ArrayList<byte[]>();
+		for (int ii = 0; ii < signatureNodeList.getLength(); ii++) {
+
+			final Element signatureDom = (Element) signatureNodeList.item(ii);
+			if (signatureId != null && !signatureId.equals(signatureDom.getAttribute("Id"))) {
+
+				continue;
+			}
+			final XAdESSignature signature = new XAdESSignature(signatureDom, new CertificatePool());
+			signature.setDetachedContents(params.getDetachedContent());
+			if (needsSignatureTimestamp(signature)) {
+
+				final byte[] digestValue = getSignatureTimestampDigest(signature);
+				signatureTimestampDigests.put(signatureDom, digestValue);
+				digestValues.add(digestValue);
+			}
+		}
+		prefetchedTspSource.prefetch(timestampDigestAlgorithm, digestValues);
+	}
+
+	/**
+	 * The timestamp must be added only if there is no one or the extension -T is being created.
+	 *
+	 * @param signature the signature to extend
+	 * @return true if a signature timestamp must be added to the signature
+	 */
+	private boolean needsSignatureTimestamp(final XAdESSignature signature) {
+
+		return !signature.hasTProfile() || SignatureLevel.XAdES_BASELINE_T.equals(params.getSignatureLevel());
+	}
+
+	/**
+	 * Returns the digest of the signature timestamp data of the given signature. The digest computed while prefetching the signature timestamps is
+	 * reused, so that the ds:SignatureValue element is canonicalised only once.
+	 *
+	 * @param signature the signature to extend
+	 * @return the digest to timestamp
+	 */
+	private byte[] getSignatureTimestampDigest(final XAdESSignature signature) {
+
+		final byte[] prefetchedDigestValue = signatureTimestampDigests.get(signature.getSignatureElement());
+		if (prefetchedDigestValue != null) {
+			return prefetchedDigestValue;
+		}
+		final byte[] canonicalisedValue = signature.getSignatureTimestampData(null);
+		final DigestAlgorithm timestampDigestAlgorithm = params.getSignatureTimestampParameters().getDigestAlgorithm();
+		return DSSUtils.digest(timestampDigestAlgorithm, canonicalisedValue);
+	}
+
 	/**
 	 * Checks if the extension is possible.
 	 */
@@ -190,6 +276,7 @@ public class XAdESLevelBaselineT extends ExtensionBuilder implements XAdESSignat
 	public void setTspSource(TSPSource tspSource) {
 
 		this.tspSource = tspSource;
+		prefetchedTspSource = tspSource == null ? null : new PrefetchedTSPSource(tspSource);
 	}
 
 	/**
@@ -257,7 +344,8 @@ public class XAdESLevelBaselineT extends ExtensionBuilder implements XAdESSignat
 				final String encodedDigestValue = DSSUtils.base64Encode(digestValue);
 				LOG.info("Timestamp generation: " + timestampDigestAlgorithm.getName() + " / " + timestampC14nMethod + " / " + encodedDigestValue);
 			}
-			final TimeStampToken timeStampToken = tspSource.getTimeStampResponse(timestampDigestAlgorithm, digestValue);
+			final TSPSource timestampSource = prefetchedTspSource == null ? tspSource : prefetchedTspSource;
+			final TimeStampToken timeStampToken = timestampSource.getTimeStampResponse(timestampDigestAlgorithm, digestValue);
 			final byte[] timeStampTokenBytes = timeStampToken.getEncoded();
 
 			final String signatureTimestampId = "time-stamp-token-" + UUID.randomUUID().toString();
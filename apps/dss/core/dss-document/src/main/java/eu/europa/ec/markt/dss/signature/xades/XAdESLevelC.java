@@ -20,7 +20,6 @@
 
 package eu.europa.ec.markt.dss.signature.xades;
 
-import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Date;
@@ -95,8 +94,6 @@ public class XAdESLevelC extends XAdESLevelBaselineT {
 
 			if (revocationToken instanceof CRLToken) {
 
-				final X509CRL crl = ((CRLToken) revocationToken).getX509crl();
-
 				final Element crlRefDom = DSSXMLUtils.addElement(documentDom, crlRefsDom, XAdESNamespaces.XAdES, "xades:CRLRef");
 
 				final Element digestAlgAndValueDom = DSSXMLUtils.addElement(documentDom, crlRefDom, XAdESNamespaces.XAdES, "xades:DigestAlgAndValue");
@@ -109,10 +106,10 @@ public class XAdESLevelC extends XAdESLevelBaselineT {
 
 				// final Element crlIdentifierDom = DSSXMLUtils.addElement(documentDom, crlRefDom, XAdESNamespaces.XAdES, "xades:CRLIdentifier");
 				// crlIdentifierDom.setAttribute("URI",".crl");
-				final String issuerX500PrincipalName = crl.getIssuerX500Principal().getName();
+				final String issuerX500PrincipalName = revocationToken.getIssuerX500Principal().getName();
 				DSSXMLUtils.addTextElement(documentDom, crlRefDom, XAdESNamespaces.XAdES, "xades:Issuer", issuerX500PrincipalName);
 
-				final Date thisUpdate = crl.getThisUpdate();
+				final Date thisUpdate = revocationToken.getIssuingTime();
 				XMLGregorianCalendar xmlGregorianCalendar = DSSXMLUtils.createXMLGregorianCalendar(thisUpdate);
 				final String thisUpdateAsXmlFormat = xmlGregorianCalendar.toXMLFormat();
 				DSSXMLUtils.addTextElement(documentDom, crlRefDom, XAdESNamespaces.XAdES, "xades:IssueTime", thisUpdateAsXmlFormat);
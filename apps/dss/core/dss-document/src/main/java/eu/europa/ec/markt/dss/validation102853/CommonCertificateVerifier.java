@@ -20,6 +20,8 @@
 
 package eu.europa.ec.markt.dss.validation102853;
 
+import java.util.concurrent.ExecutorService;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +47,11 @@ public class CommonCertificateVerifier implements CertificateVerifier {
 
 	private static final Logger LOG = LoggerFactory.getLogger(CommonCertificateVerifier.class);
 
+	/**
+	 * The default maximum time (in milliseconds) the retrieval of the validation data can take for one validation.
+	 */
+	public static final long DEFAULT_VALIDATION_TIMEOUT = 20000;
+
 	/**
 	 * This field contains the reference to the trusted certificate source. This source is fixed, it means that the same source is used for different validations.
 	 */
@@ -80,6 +87,16 @@ public class CommonCertificateVerifier implements CertificateVerifier {
 	 */
 	ListOCSPSource signatureOCSPSource;
 
+	/**
+	 * The {@code ExecutorService} used to fetch the validation data. When null the shared {@code DefaultValidationExecutor} is used.
+	 */
+	private ExecutorService executorService;
+
+	/**
+	 * The maximum time (in milliseconds) the retrieval of the validation data can take for one validation.
+	 */
+	private long validationTimeout = DEFAULT_VALIDATION_TIMEOUT;
+
 	/**
 	 * This method returns a new instance of the {@code CommonCertificateVerifier} including the {@code OnlineCRLSource}, {@code OnlineOCSPSource} and {@code
 	 * CommonsDataLoader}.
@@ -263,4 +280,30 @@ public class CommonCertificateVerifier implements CertificateVerifier {
 		}
 		return validationPool;
 	}
+
+	@Override
+	public ExecutorService getExecutorService() {
+
+		if (executorService == null) {
+			return DefaultValidationExecutor.getInstance();
+		}
+		return executorService;
+	}
+
+	@Override
+	public void setExecutorService(final ExecutorService executorService) {
+
+		this.executorService = executorService;
+	}
+
+	@Override
+	public long getValidationTimeout() {
+		return validationTimeout;
+	}
+
+	@Override
+	public void setValidationTimeout(final long validationTimeout) {
+
+		this.validationTimeout = validationTimeout;
+	}
 }
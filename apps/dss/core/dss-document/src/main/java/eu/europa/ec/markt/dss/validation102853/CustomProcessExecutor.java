@@ -40,6 +40,10 @@ import eu.europa.ec.markt.dss.validation102853.xml.XmlNode;
 
 /**
  * This class allows to carry out the validation process with in a specific context.
+ * <p/>
+ * The validation processes read the DOM representation of the diagnostic data: there is no typed model of the diagnostic data for the processes and the DOM is always
+ * built by {@code SignedDocumentValidator#validateDocument} before the processes are executed. The per-identifier queries of the processes are run against the
+ * signatures, timestamps and certificates indexed by {@link DiagnosticData} and {@link ProcessParameters#getCertificate(String)} instead of scanning the whole document.
  *
  * @author bielecro
  */
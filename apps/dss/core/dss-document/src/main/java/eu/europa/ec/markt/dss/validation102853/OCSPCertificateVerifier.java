@@ -40,6 +40,7 @@ import org.slf4j.LoggerFactory;
 import eu.europa.ec.markt.dss.DSSRevocationUtils;
 import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.validation102853.ocsp.CacheOCSPSource;
 import eu.europa.ec.markt.dss.validation102853.ocsp.OCSPSource;
 import eu.europa.ec.markt.dss.validation102853.ocsp.OnlineOCSPSource;
 
@@ -87,9 +88,9 @@ public class OCSPCertificateVerifier implements CertificateStatusVerifier {
 			if (basicOCSPResp == null) {
 
 				String uri = "";
-				if (ocspSource instanceof OnlineOCSPSource) {
+				if (ocspSource instanceof OnlineOCSPSource || ocspSource instanceof CacheOCSPSource) {
 
-					uri = ((OnlineOCSPSource) ocspSource).getAccessLocation(toCheckCert);
+					uri = getAccessLocation(toCheckCert);
 					toCheckToken.extraInfo().infoNoOCSPResponse(uri);
 				}
 
@@ -114,9 +115,9 @@ public class OCSPCertificateVerifier implements CertificateStatusVerifier {
 					LOG.debug("OCSP nextUpdate: " + singleResp.getNextUpdate());
 				}
 				final OCSPToken ocspToken = new OCSPToken(basicOCSPResp, validationCertPool);
-				if (ocspSource instanceof OnlineOCSPSource) {
+				if (ocspSource instanceof OnlineOCSPSource || ocspSource instanceof CacheOCSPSource) {
 
-					ocspToken.setSourceURI(((OnlineOCSPSource) ocspSource).getAccessLocation(toCheckCert));
+					ocspToken.setSourceURI(getAccessLocation(toCheckCert));
 				}
 
 				ocspToken.setIssuingTime(basicOCSPResp.getProducedAt());
@@ -176,4 +177,13 @@ public class OCSPCertificateVerifier implements CertificateStatusVerifier {
 		toCheckToken.extraInfo().infoNoOCSPResponse(null);
 		return null;
 	}
+
+	private String getAccessLocation(final X509Certificate x509Certificate) {
+
+		if (ocspSource instanceof CacheOCSPSource) {
+
+			return ((CacheOCSPSource) ocspSource).getAccessLocation(x509Certificate);
+		}
+		return ((OnlineOCSPSource) ocspSource).getAccessLocation(x509Certificate);
+	}
 }
@@ -21,18 +21,22 @@
 package eu.europa.ec.markt.dss.validation102853;
 
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.x500.X500Principal;
@@ -53,8 +57,9 @@ import eu.europa.ec.markt.dss.validation102853.ocsp.OCSPSource;
  * During the validation of a signature, the software retrieves different X509 artifacts like Certificate, CRL and OCSP Response. The SignatureValidationContext is a "cache" for
  * one validation request that contains every object retrieved so far.
  * <p/>
- * The validate method is multi-threaded, using an CachedThreadPool from ExecutorService, to parallelize fetching of the certificates from AIA and of the revocation information
- * from online sources.
+ * The validate method is multi-threaded, using the {@code ExecutorService} provided by the {@code CertificateVerifier}, to parallelize fetching of the certificates from AIA
+ * and of the revocation information from online sources. The completion of each fetching task is awaited through a {@code CompletionService}; the whole retrieval is bounded
+ * by the validation timeout of the {@code CertificateVerifier}.
  *
  * @version $Revision: 1839 $ - $Date: 2013-04-04 17:40:51 +0200 (Thu, 04 Apr 2013) $
  */
@@ -63,17 +68,10 @@ public class SignatureValidationContext implements ValidationContext {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SignatureValidationContext.class);
 
-	/**
-	 * Each unit is approximately 5 seconds
-	 */
-	private final int MAX_TIMEOUT = 4;
-
-	private final Set<CertificateToken> processedCertificates = new HashSet<CertificateToken>();
-	private final Set<RevocationToken> processedRevocations = new HashSet<RevocationToken>();
-
-	private final Set<TimestampToken> processedTimestamps = new HashSet<TimestampToken>();
+	private final Set<CertificateToken> processedCertificates = Collections.synchronizedSet(new HashSet<CertificateToken>());
+	private final Set<RevocationToken> processedRevocations = Collections.synchronizedSet(new HashSet<RevocationToken>());
 
-	static int threadCount = 0;
+	private final Set<TimestampToken> processedTimestamps = Collections.synchronizedSet(new HashSet<TimestampToken>());
 
 	/**
 	 * The data loader used to access AIA certificate source.
@@ -107,12 +105,16 @@ public class SignatureValidationContext implements ValidationContext {
 	 */
 	protected Date currentTime = new Date();
 
+	/**
+	 * The {@code ExecutorService} used to fetch the validation data. This executor is shared between the validations and must not be shut down. A unique thread can be used to
+	 * disable the parallel fetching.
+	 */
+	private ExecutorService executorService;
 
 	/**
-	 * A unique thread can be used to disable the parallel fetching:
-	 * final ExecutorService executorService = Executors.newFixedThreadPool(1);
+	 * The maximum time (in milliseconds) the retrieval of the validation data can take.
 	 */
-	private final ExecutorService executorService = Executors.newCachedThreadPool();
+	private long validationTimeout = CommonCertificateVerifier.DEFAULT_VALIDATION_TIMEOUT;
 
 	/**
 	 * This constructor is used during the signature creation process. The certificate pool is created within initialize method.
@@ -152,6 +154,8 @@ public class SignatureValidationContext implements ValidationContext {
 		this.dataLoader = certificateVerifier.getDataLoader();
 		this.signatureCRLSource = certificateVerifier.getSignatureCRLSource();
 		this.signatureOCSPSource = certificateVerifier.getSignatureOCSPSource();
+		this.executorService = certificateVerifier.getExecutorService();
+		this.validationTimeout = certificateVerifier.getValidationTimeout();
 	}
 
 	public Date getCurrentTime() {
@@ -264,7 +268,8 @@ public class SignatureValidationContext implements ValidationContext {
 
 	/**
 	 * This function retrieves the issuer certificate from the validation pool (this pool should contain trusted certificates). The check is made if the token is well signed by
-	 * the retrieved certificate.
+	 * the retrieved certificate. When the token provides its authority key identifier the candidates with the matching key identifier are tried first, the other
+	 * certificates with the same subject distinguished name are only tried if none of them signs the token.
 	 *
 	 * @param token               token for which the issuer have to be found
 	 * @param issuerX500Principal issuer's subject distinguished name
@@ -272,11 +277,28 @@ public class SignatureValidationContext implements ValidationContext {
 	 */
 	private CertificateToken getIssuerFromPool(final Token token, final X500Principal issuerX500Principal) {
 
+		final List<CertificateToken> triedCertList = new ArrayList<CertificateToken>();
+		final byte[] authorityKeyIdentifier = token.getAuthorityKeyIdentifier();
+		if (authorityKeyIdentifier != null) {
+
+			for (final CertificateToken issuerCertToken : validationCertificatePool.getByKeyIdentifier(authorityKeyIdentifier)) {
+
+				if (!issuerCertToken.getSubjectX500Principal().equals(issuerX500Principal)) {
+
+					continue;
+				}
+				if (token.isSignedBy(issuerCertToken)) {
+
+					return issuerCertToken;
+				}
+				triedCertList.add(issuerCertToken);
+			}
+		}
 		final List<CertificateToken> issuerCertList = validationCertificatePool.get(issuerX500Principal);
 		for (final CertificateToken issuerCertToken : issuerCertList) {
 
 			// We keep the first issuer that signs the certificate
-			if (token.isSignedBy(issuerCertToken)) {
+			if (!triedCertList.contains(issuerCertToken) && token.isSignedBy(issuerCertToken)) {
 
 				return issuerCertToken;
 			}
@@ -374,69 +396,85 @@ public class SignatureValidationContext implements ValidationContext {
 	@Override
 	public void validate() throws DSSException {
 
+		if (executorService == null) {
+			executorService = DefaultValidationExecutor.getInstance();
+		}
 		validateLoop();
+		LOG.debug(">>> MT ***DONE***");
+	}
+
+	/**
+	 * Each token to verify is submitted to the {@code CompletionService}. A {@code Task} can add new tokens to verify (issuer certificate, revocation data...), they are
+	 * submitted as soon as the {@code Task} which discovered them is completed. The loop ends when there is no more running task and no more token to verify.
+	 */
+	private void validateLoop() {
+
+		final CompletionService<Object> completionService = new ExecutorCompletionService<Object>(executorService);
+		final List<Future<Object>> runningTasks = new LinkedList<Future<Object>>();
+		final long deadline = System.currentTimeMillis() + validationTimeout;
 		try {
 
-			LOG.debug(">>> MT ***DONE***");
-			executorService.shutdown();
-			executorService.awaitTermination(5, TimeUnit.SECONDS);
+			submitNotYetVerifiedTokens(completionService, runningTasks);
+			while (!runningTasks.isEmpty()) {
+
+				final long remaining = deadline - System.currentTimeMillis();
+				final Future<Object> completedTask = remaining > 0 ? completionService.poll(remaining, TimeUnit.MILLISECONDS) : null;
+				if (completedTask == null) {
+
+					LOG.warn("{} tasks still running after {} ms", runningTasks.size(), validationTimeout);
+					throw new DSSException("Operation aborted, the retrieval of the validation data takes too long.");
+				}
+				runningTasks.remove(completedTask);
+				checkTaskResult(completedTask);
+				submitNotYetVerifiedTokens(completionService, runningTasks);
+			}
 		} catch (InterruptedException e) {
-			throw new RuntimeException(e);
+
+			Thread.currentThread().interrupt();
+			throw new DSSException(e);
+		} finally {
+
+			for (final Future<Object> runningTask : runningTasks) {
+				runningTask.cancel(true);
+			}
 		}
 	}
 
-	private void validateLoop() {
-
-		int threshold = 0;
-		int max_timeout = 0;
-		final ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executorService;
-		boolean exit = false;
-		boolean checkAgain = true;
-		do {
-
-			final Token token = getNotYetVerifiedToken();
-			if (token != null) {
-
-				checkAgain = true;
-				try {
-
-					//					System.out.println("----------------------------------------------------");
-					//					System.out.println(" DSS_ID: " + token.getDSSId());
-					//					System.out.println("----------------------------------------------------");
-					final Task task = new Task(token);
-					executorService.submit(task);
-				} catch (RejectedExecutionException e) {
-					LOG.error(e.getMessage(), e);
-					throw new DSSException(e);
-				}
-			} else {
+	/**
+	 * This method submits all tokens which are not yet verified.
+	 *
+	 * @param completionService the {@code CompletionService} used to execute the tasks
+	 * @param runningTasks      the list of the tasks in progress
+	 */
+	private void submitNotYetVerifiedTokens(final CompletionService<Object> completionService, final List<Future<Object>> runningTasks) {
 
-				try {
+		Token token;
+		while ((token = getNotYetVerifiedToken()) != null) {
 
-					Thread.sleep(5);
-					threshold++;
-					if (threshold > 1000) {
+			try {
 
-						LOG.warn("{} active threads", threadPoolExecutor.getActiveCount());
-						LOG.warn("{} completed tasks", threadPoolExecutor.getCompletedTaskCount());
-						LOG.warn("{} waiting tasks", threadPoolExecutor.getQueue());
-						max_timeout++;
-						if (max_timeout == MAX_TIMEOUT) {
-							throw new DSSException("Operation aborted, the retrieval of the validation data takes too long.");
-						}
-						threshold = 0;
-					}
-				} catch (InterruptedException e) {
-					throw new DSSException(e);
-				}
-				final boolean threadPoolExecutorEmpty = !(threadPoolExecutor.getActiveCount() > 0 || threadPoolExecutor.getQueue().size() > 0);
-				exit = threadPoolExecutorEmpty && !checkAgain;
-				if (threadPoolExecutorEmpty) {
-					checkAgain = false;
-				}
+				final Task task = new Task(token);
+				runningTasks.add(completionService.submit(task, null));
+			} catch (RejectedExecutionException e) {
+				LOG.error(e.getMessage(), e);
+				throw new DSSException(e);
 			}
-		} while (!exit);
+		}
+	}
 
+	/**
+	 * The failure of a task does not stop the validation: the missing information is reported by the validation process.
+	 *
+	 * @param completedTask the completed task
+	 * @throws InterruptedException
+	 */
+	private void checkTaskResult(final Future<Object> completedTask) throws InterruptedException {
+
+		try {
+			completedTask.get();
+		} catch (ExecutionException e) {
+			LOG.error(e.getCause().getMessage(), e.getCause());
+		}
 	}
 
 	class Task implements Runnable {
@@ -451,8 +489,9 @@ public class SignatureValidationContext implements ValidationContext {
 		@Override
 		public void run() {
 
-			final int threadCount_ = threadCount++;
-			LOG.debug(">>> MT IN  [" + threadCount_ + "] DSS_ID: " + token.getDSSId());
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(">>> MT IN  [" + Thread.currentThread().getName() + "] DSS_ID: " + token.getDSSId());
+			}
 			/**
 			 * Gets the issuer certificate of the Token and checks its signature
 			 */
@@ -466,7 +505,9 @@ public class SignatureValidationContext implements ValidationContext {
 				final RevocationToken revocationToken = getRevocationData((CertificateToken) token);
 				addRevocationTokenForVerification(revocationToken);
 			}
-			LOG.debug(">>> MT END [" + threadCount_ + "] DSS_ID: " + token.getDSSId());
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(">>> MT END [" + Thread.currentThread().getName() + "] DSS_ID: " + token.getDSSId());
+			}
 		}
 	}
 
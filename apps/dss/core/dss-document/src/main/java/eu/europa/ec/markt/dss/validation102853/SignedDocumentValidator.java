@@ -27,11 +27,20 @@ import java.net.URL;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.security.auth.x500.X500Principal;
 
@@ -172,6 +181,12 @@ public abstract class SignedDocumentValidator implements DocumentValidator {
 	 */
 	protected List<AdvancedSignature> signatures = null;
 
+	/**
+	 * Indicates if the cryptographic verification of the signatures is carried out concurrently. The tasks are executed by the {@code ExecutorService} of the certificate
+	 * verifier. The default value is {@code false}.
+	 */
+	protected boolean concurrentSignatureValidation = false;
+
 	/**
 	 * This variable contains the reference to the diagnostic data.
 	 */
@@ -385,6 +400,17 @@ public abstract class SignedDocumentValidator implements DocumentValidator {
 		this.processExecutor = processExecutor;
 	}
 
+	/**
+	 * This method allows to carry out concurrently the verification of the signatures (signature integrity, signing certificate and timestamps). The signatures sharing the same
+	 * DOM document or the same CMS structure are verified by the same task. The order of the signatures within the diagnostic data is not affected.
+	 *
+	 * @param concurrentSignatureValidation {@code true} to verify the signatures concurrently
+	 */
+	public void setConcurrentSignatureValidation(final boolean concurrentSignatureValidation) {
+
+		this.concurrentSignatureValidation = concurrentSignatureValidation;
+	}
+
 	/**
 	 * This method returns the process executor. If the instance of this class is not yet instantiated then the new instance is created.
 	 *
@@ -443,18 +469,20 @@ public abstract class SignedDocumentValidator implements DocumentValidator {
 
 		validationContext.setCurrentTime(provideProcessExecutorInstance().getCurrentTime());
 		validationContext.validate();
+
+		final Set<AdvancedSignature> preparedSignatures = concurrentSignatureValidation ? prepareSignatures() : Collections.<AdvancedSignature>emptySet();
 	  /*
 	   * For each signature present in the file to be validated the extraction of diagnostic data is launched.
        */
 		for (final AdvancedSignature signature : getSignatures()) {
 
-			final XmlSignature xmlSignature = validateSignature(signature);
+			final XmlSignature xmlSignature = validateSignature(signature, preparedSignatures.contains(signature));
 			usedCertificatesDigestAlgorithms.addAll(signature.getUsedCertificatesDigestAlgorithms());
 			jaxbDiagnosticData.getSignature().add(xmlSignature);
 			final List<SignatureCryptographicVerification> counterSignaturesVerifications = verifyCounterSignatures(signature, validationContext);
 			if (counterSignaturesVerifications.size() > 0) {
 				for (AdvancedSignature countersignature : signature.getCounterSignatures()) {
-					final XmlSignature xmlCounterSignature = validateSignature(countersignature);
+					final XmlSignature xmlCounterSignature = validateSignature(countersignature, preparedSignatures.contains(countersignature));
 					jaxbDiagnosticData.getSignature().add(xmlCounterSignature);
 				}
 			}
@@ -465,13 +493,148 @@ public abstract class SignedDocumentValidator implements DocumentValidator {
 		return jaxbDiagnosticData;
 	}
 
+	/**
+	 * This method carries out concurrently the costly verifications of the signatures and of their counter-signatures: signature integrity, signing certificate and timestamps.
+	 * The results are kept by each signature and are used when the diagnostic data is built in the original order. The signatures sharing the same DOM document or the same CMS
+	 * structure are verified by the same task; the first group is handled by the calling thread. The validations can themselves run on the threads of the shared pool: to never
+	 * wait for a task queued behind blocked tasks, the calling thread runs itself the tasks which were not yet started by the pool (or which were rejected).
+	 *
+	 * @return the set of signatures (and counter-signatures) for which the timestamps were validated
+	 */
+	private Set<AdvancedSignature> prepareSignatures() {
+
+		final Map<Object, List<AdvancedSignature>> signatureGroups = new LinkedHashMap<Object, List<AdvancedSignature>>();
+		for (final AdvancedSignature signature : getSignatures()) {
+
+			final Object sharedStructure = getSharedStructure(signature);
+			List<AdvancedSignature> signatureGroup = signatureGroups.get(sharedStructure);
+			if (signatureGroup == null) {
+
+				signatureGroup = new ArrayList<AdvancedSignature>();
+				signatureGroups.put(sharedStructure, signatureGroup);
+			}
+			signatureGroup.add(signature);
+		}
+		final Set<AdvancedSignature> preparedSignatures = Collections.synchronizedSet(new HashSet<AdvancedSignature>());
+		if (signatureGroups.size() < 2) {
+
+			return preparedSignatures;
+		}
+		ExecutorService executorService = certificateVerifier.getExecutorService();
+		if (executorService == null) {
+			executorService = DefaultValidationExecutor.getInstance();
+		}
+		final List<FutureTask<Object>> runningTasks = new ArrayList<FutureTask<Object>>();
+		try {
+
+			List<AdvancedSignature> callerSignatureGroup = null;
+			for (final List<AdvancedSignature> signatureGroup : signatureGroups.values()) {
+
+				if (callerSignatureGroup == null) {
+
+					callerSignatureGroup = signatureGroup;
+					continue;
+				}
+				final FutureTask<Object> task = new FutureTask<Object>(new Runnable() {
+
+					@Override
+					public void run() {
+
+						prepareSignatures(signatureGroup, preparedSignatures);
+					}
+				}, null);
+				runningTasks.add(task);
+				try {
+					executorService.execute(task);
+				} catch (RejectedExecutionException e) {
+					LOG.debug("The verification of the signatures is run by the calling thread: " + e.getMessage());
+				}
+			}
+			final long deadline = System.currentTimeMillis() + certificateVerifier.getValidationTimeout();
+			prepareSignatures(callerSignatureGroup, preparedSignatures);
+			for (final FutureTask<Object> runningTask : runningTasks) {
+
+				// Nothing is done if the task was already started by the pool
+				runningTask.run();
+			}
+			for (final FutureTask<Object> runningTask : runningTasks) {
+
+				runningTask.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+			}
+			runningTasks.clear();
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new DSSException(e);
+		} catch (ExecutionException e) {
+
+			throw new DSSException(e.getCause());
+		} catch (TimeoutException e) {
+
+			throw new DSSException("Operation aborted, the verification of the signatures takes too long.");
+		} finally {
+
+			for (final FutureTask<Object> runningTask : runningTasks) {
+				runningTask.cancel(true);
+			}
+		}
+		return preparedSignatures;
+	}
+
+	/**
+	 * Returns the structure which is shared between the signatures and which cannot be used concurrently: the DOM document for XAdES and the CMS signed data for CAdES.
+	 *
+	 * @param signature the signature to analyse
+	 * @return the shared structure or the signature itself
+	 */
+	private static Object getSharedStructure(final AdvancedSignature signature) {
+
+		if (signature instanceof XAdESSignature) {
+			return ((XAdESSignature) signature).getSignatureElement().getOwnerDocument();
+		}
+		if (signature instanceof CAdESSignature) {
+			return ((CAdESSignature) signature).getCmsSignedData();
+		}
+		return signature;
+	}
+
+	private static void prepareSignatures(final List<AdvancedSignature> signatureGroup, final Set<AdvancedSignature> preparedSignatures) {
+
+		for (final AdvancedSignature signature : signatureGroup) {
+
+			prepareSignature(signature, preparedSignatures);
+			final List<AdvancedSignature> counterSignatures = signature.getCounterSignatures();
+			if (counterSignatures != null) {
+				for (final AdvancedSignature counterSignature : counterSignatures) {
+					prepareSignature(counterSignature, preparedSignatures);
+				}
+			}
+		}
+	}
+
+	private static void prepareSignature(final AdvancedSignature signature, final Set<AdvancedSignature> preparedSignatures) {
+
+		try {
+
+			signature.checkSignatureIntegrity();
+			signature.checkSigningCertificate();
+			signature.validateTimestamps();
+			preparedSignatures.add(signature);
+		} catch (Exception e) {
+
+			// The error is reported when the diagnostic data of the signature is built.
+			LOG.debug(e.getMessage(), e);
+		}
+	}
+
 	/**
 	 * Main method for validating a signature. The diagnostic data is extracted.
 	 *
-	 * @param signature Signature to be validated (can be XAdES, CAdES, PAdES).
+	 * @param signature            Signature to be validated (can be XAdES, CAdES, PAdES).
+	 * @param timestampsValidated  indicates if the timestamps of the signature were already validated
 	 * @return The JAXB object containing all diagnostic data pertaining to the signature
 	 */
-	private XmlSignature validateSignature(final AdvancedSignature signature) throws DSSException {
+	private XmlSignature validateSignature(final AdvancedSignature signature, final boolean timestampsValidated) throws DSSException {
 
 		final XmlSignature xmlSignature = DIAGNOSTIC_DATA_OBJECT_FACTORY.createXmlSignature();
 		try {
@@ -482,7 +645,9 @@ public abstract class SignedDocumentValidator implements DocumentValidator {
 
 			dealCertificateChain(xmlSignature, signingToken);
 
-			signature.validateTimestamps();
+			if (!timestampsValidated) {
+				signature.validateTimestamps();
+			}
 
 			XmlTimestamps xmlTimestamps = null;
 			xmlTimestamps = dealTimestamps(xmlTimestamps, signature.getContentTimestamps());
@@ -21,11 +21,17 @@
 package eu.europa.ec.markt.dss.validation102853.asic;
 
 import java.io.ByteArrayOutputStream;
-import java.io.UnsupportedEncodingException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.slf4j.Logger;
@@ -36,8 +42,10 @@ import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.exception.DSSNotETSICompliantException;
 import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.signature.FileDocument;
 import eu.europa.ec.markt.dss.signature.InMemoryDocument;
 import eu.europa.ec.markt.dss.signature.MimeType;
+import eu.europa.ec.markt.dss.signature.ZipEntryDocument;
 import eu.europa.ec.markt.dss.validation102853.AdvancedSignature;
 import eu.europa.ec.markt.dss.validation102853.DocumentValidator;
 import eu.europa.ec.markt.dss.validation102853.SignedDocumentValidator;
@@ -70,6 +78,9 @@ import eu.europa.ec.markt.dss.validation102853.scope.SignatureScopeFinder;
  * allowing more than 3 characters file extensions). In the case where the container content is to be handled
  * manually, the ".zip" extension may be used.
  * <p/>
+ * When the container is a {@code FileDocument} its entries are located through the central directory of the ZIP file and the data objects are exposed as
+ * {@code ZipEntryDocument}s: their content is read only when it is needed by the validation. Only the signatures and the manifests are loaded in memory.
+ * <p/>
  * DISCLAIMER: Project owner DG-MARKT.
  *
  * @author <a href="mailto:dgmarkt.Project-DSS@arhs-developments.com">ARHS Developments</a>
@@ -83,6 +94,11 @@ public class ASiCContainerValidator extends SignedDocumentValidator {
 	private static final String MIME_TYPE_COMMENT = MIME_TYPE + "=";
 	private static final String META_INF_FOLDER = "META-INF/";
 
+	/**
+	 * The maximum size of the end of central directory record: fixed part (22 bytes) and comment (up to 65535 bytes).
+	 */
+	private static final int MAX_END_OF_CENTRAL_DIRECTORY_LENGTH = 22 + 0xFFFF;
+
 	private SignedDocumentValidator subordinatedValidator;
 
 	/**
@@ -95,6 +111,11 @@ public class ASiCContainerValidator extends SignedDocumentValidator {
 	 */
 	private final List<DSSDocument> signatures = new ArrayList<DSSDocument>();
 
+	/**
+	 * The names of the entries already analysed: an entry name must not be used twice within the container.
+	 */
+	private final Set<String> entryNames = new HashSet<String>();
+
 	/**
 	 * This mime-type comes from the container file name: (zip, asic...).
 	 */
@@ -137,15 +158,25 @@ public class ASiCContainerValidator extends SignedDocumentValidator {
 
 			final ASiCContainerValidator asicContainerValidator = new ASiCContainerValidator();
 
-			asicsInputStream = new ZipInputStream(asicContainer.openStream()); // The underlying stream is closed by the parent (asicsInputStream).
+			final byte[] endOfContainer;
+			if (asicContainer instanceof FileDocument) {
 
-			for (ZipEntry entry = asicsInputStream.getNextEntry(); entry != null; entry = asicsInputStream.getNextEntry()) {
+				final File containerFile = new File(asicContainer.getAbsolutePath());
+				asicContainerValidator.analyseZipFile(containerFile);
+				endOfContainer = readEndOfFile(containerFile, MAX_END_OF_CENTRAL_DIRECTORY_LENGTH);
+			} else {
+
+				asicsInputStream = new ZipInputStream(asicContainer.openStream()); // The underlying stream is closed by the parent (asicsInputStream).
+
+				for (ZipEntry entry = asicsInputStream.getNextEntry(); entry != null; entry = asicsInputStream.getNextEntry()) {
 
-				final String entryName = entry.getName();
-				asicContainerValidator.analyseEntries(asicsInputStream, entryName);
+					final String entryName = entry.getName();
+					asicContainerValidator.analyseEntries(entryName, getEntryElement(entryName, asicsInputStream));
+				}
+				endOfContainer = asicContainer.getBytes();
 			}
 
-			final MimeType asicCommentString = getZipComment(asicContainer.getBytes());
+			final MimeType asicCommentString = getZipComment(endOfContainer);
 			asicContainerValidator.setAsicCommentMimeType(asicCommentString);
 
 			final MimeType magicNumberMimeType = getMagicNumberMimeType(preamble);
@@ -201,44 +232,84 @@ public class ASiCContainerValidator extends SignedDocumentValidator {
 		}
 	}
 
-	private void analyseEntries(final ZipInputStream asicsInputStream, final String entryName) throws DSSException {
+	/**
+	 * This method analyses the entries of the container using the central directory of the ZIP file. The data objects are not read. As the content of an entry
+	 * is read later by its name, the containers with several entries of the same name are rejected.
+	 *
+	 * @param containerFile the ASiC container
+	 * @throws DSSException
+	 */
+	private void analyseZipFile(final File containerFile) throws DSSException {
+
+		ZipFile zipFile = null;
+		try {
+
+			zipFile = new ZipFile(containerFile);
+			final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+
+				final String entryName = entries.nextElement().getName();
+				analyseEntries(entryName, new ZipEntryDocument(containerFile, entryName));
+			}
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} finally {
+			if (zipFile != null) {
+				try {
+					zipFile.close();
+				} catch (IOException e) {
+					LOG.warn(e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param entryName     the name of the entry
+	 * @param entryDocument the content of the entry: only the data objects are kept as they are, the other entries are loaded in memory
+	 * @throws DSSException
+	 */
+	private void analyseEntries(final String entryName, final DSSDocument entryDocument) throws DSSException {
 
+		if (!entryNames.add(entryName)) {
+			throw new DSSException("The container contains several entries with the same name: " + entryName);
+		}
 		if (isCAdES(entryName)) {
 
 			if (xadesSigned) {
 				throw new DSSNotETSICompliantException(DSSNotETSICompliantException.MSG.DIFFERENT_SIGNATURE_FORMATS);
 			}
-			getEntryElement(entryName, signatures, asicsInputStream);
+			signatures.add(toInMemoryDocument(entryDocument));
 			cadesSigned = true;
 		} else if (isXAdES(entryName)) {
 
 			if (cadesSigned) {
 				throw new DSSNotETSICompliantException(DSSNotETSICompliantException.MSG.DIFFERENT_SIGNATURE_FORMATS);
 			}
-			getEntryElement(entryName, signatures, asicsInputStream);
+			signatures.add(toInMemoryDocument(entryDocument));
 			xadesSigned = true;
 		} else if (isTimestamp(entryName)) {
 
-			getEntryElement(entryName, signatures, asicsInputStream);
+			signatures.add(toInMemoryDocument(entryDocument));
 			timestamped = true;
 		} else if (isASiCManifest(entryName)) {
 
-			getEntryElement(entryName, detachedContents, asicsInputStream);
+			detachedContents.add(toInMemoryDocument(entryDocument));
 		} else if (isManifest(entryName)) {
 
-			getEntryElement(entryName, detachedContents, asicsInputStream);
+			detachedContents.add(toInMemoryDocument(entryDocument));
 		} else if (isContainer(entryName)) {
 
-			getEntryElement(entryName, detachedContents, asicsInputStream);
+			detachedContents.add(toInMemoryDocument(entryDocument));
 		} else if (isMetadata(entryName)) {
 
-			getEntryElement(entryName, detachedContents, asicsInputStream);
+			detachedContents.add(toInMemoryDocument(entryDocument));
 		} else if (MIME_TYPE.equalsIgnoreCase(entryName)) {
 
-			asicMimeType = getMimeType(asicsInputStream);
+			asicMimeType = MimeType.fromCode(DSSUtils.getUtf8String(entryDocument.getBytes()));
 		} else if (entryName.indexOf("/") == -1) {
 
-			getEntryElement(entryName, detachedContents, asicsInputStream);
+			detachedContents.add(entryDocument);
 		} else {
 
 			LOG.error("unknown entry: " + entryName);
@@ -277,26 +348,53 @@ public class ASiCContainerValidator extends SignedDocumentValidator {
 		this.asicContainerMimeType = asicContainerMimeType;
 	}
 
-	private static MimeType getMimeType(final ZipInputStream asicsInputStream) throws DSSException {
+	private static InMemoryDocument getEntryElement(final String entryName, final ZipInputStream asicsInputStream) {
 
-		try {
-			final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-			DSSUtils.copy(asicsInputStream, byteArrayOutputStream);
-			final String mimeTypeString = byteArrayOutputStream.toString("UTF-8");
-			final MimeType asicMimeType = MimeType.fromCode(mimeTypeString);
-			return asicMimeType;
-		} catch (UnsupportedEncodingException e) {
+		final ByteArrayOutputStream signature = new ByteArrayOutputStream();
+		DSSUtils.copy(asicsInputStream, signature);
+		final InMemoryDocument inMemoryDocument = new InMemoryDocument(signature.toByteArray(), entryName);
+		return inMemoryDocument;
+	}
 
-			throw new DSSException(e);
+	private static DSSDocument toInMemoryDocument(final DSSDocument entryDocument) {
+
+		if (entryDocument instanceof InMemoryDocument) {
+			return entryDocument;
 		}
+		return new InMemoryDocument(entryDocument.getBytes(), entryDocument.getName());
 	}
 
-	private static void getEntryElement(final String entryName, final List<DSSDocument> signatures, final ZipInputStream asicsInputStream) {
+	/**
+	 * Reads the last bytes of the file: the ZIP comment is located at the end of the ZIP file.
+	 *
+	 * @param file   the file to read
+	 * @param length the maximum number of bytes to read
+	 * @return the last bytes of the file
+	 * @throws DSSException
+	 */
+	private static byte[] readEndOfFile(final File file, final int length) throws DSSException {
+
+		RandomAccessFile randomAccessFile = null;
+		try {
 
-		final ByteArrayOutputStream signature = new ByteArrayOutputStream();
-		DSSUtils.copy(asicsInputStream, signature);
-		final InMemoryDocument inMemoryDocument = new InMemoryDocument(signature.toByteArray(), entryName);
-		signatures.add(inMemoryDocument);
+			randomAccessFile = new RandomAccessFile(file, "r");
+			final long fileLength = randomAccessFile.length();
+			final int bytesToRead = (int) Math.min(fileLength, length);
+			final byte[] bytes = new byte[bytesToRead];
+			randomAccessFile.seek(fileLength - bytesToRead);
+			randomAccessFile.readFully(bytes);
+			return bytes;
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} finally {
+			if (randomAccessFile != null) {
+				try {
+					randomAccessFile.close();
+				} catch (IOException e) {
+					LOG.warn(e.getMessage());
+				}
+			}
+		}
 	}
 
 	/**
@@ -20,6 +20,7 @@
 
 package eu.europa.ec.markt.dss.validation102853.cades;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
@@ -102,9 +103,9 @@ import org.bouncycastle.cms.SignerId;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationVerifier;
 import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.DigestCalculatorProvider;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.RuntimeOperatorException;
-import org.bouncycastle.operator.bc.BcDigestCalculatorProvider;
 import org.bouncycastle.tsp.TimeStampToken;
 import org.bouncycastle.util.Store;
 import org.slf4j.Logger;
@@ -178,6 +179,11 @@ public class CAdESSignature extends DefaultAdvancedSignature {
 	 */
 	private String signatureId;
 
+	/**
+	 * The counter-signatures are created once: the results of their verifications are kept by the instances.
+	 */
+	private List<AdvancedSignature> counterSignatures;
+
 	/**
 	 * @param data byte array representing CMSSignedData
 	 * @throws org.bouncycastle.cms.CMSException
@@ -1013,9 +1019,11 @@ public class CAdESSignature extends DefaultAdvancedSignature {
 				signerInformationToCheck = signerInformation;
 			} else {
 				// Recreate a SignerInformation with the content using a CMSSignedDataParser
+				// The digests of the detached content are provided by the document itself: they are computed once for all signatures covering the same content.
 				final DSSDocument dssDocument = detachedContents.get(0); // only one element for CAdES Signature
-				final CMSTypedStream signedContent = new CMSTypedStream(dssDocument.openStream());
-				final CMSSignedDataParser sp = new CMSSignedDataParser(new BcDigestCalculatorProvider(), signedContent, cmsSignedData.getEncoded());
+				final DigestCalculatorProvider digestCalculatorProvider = new DetachedContentDigestCalculatorProvider(dssDocument, getDigestAlgorithmIds());
+				final CMSTypedStream signedContent = new CMSTypedStream(new ByteArrayInputStream(DSSUtils.EMPTY_BYTE_ARRAY));
+				final CMSSignedDataParser sp = new CMSSignedDataParser(digestCalculatorProvider, signedContent, cmsSignedData.getEncoded());
 				sp.getSignedContent().drain();
 				final SignerId sid = signerInformation.getSID();
 				signerInformationToCheck = sp.getSignerInfos().get(sid);
@@ -1101,6 +1109,18 @@ public class CAdESSignature extends DefaultAdvancedSignature {
 		return signatureCryptographicVerification;
 	}
 
+	private List<AlgorithmIdentifier> getDigestAlgorithmIds() {
+
+		final SignedData signedData = SignedData.getInstance(cmsSignedData.toASN1Structure().getContent());
+		final ASN1Set digestAlgorithms = signedData.getDigestAlgorithms();
+		final List<AlgorithmIdentifier> digestAlgorithmIds = new ArrayList<AlgorithmIdentifier>();
+		for (int ii = 0; ii < digestAlgorithms.size(); ii++) {
+
+			digestAlgorithmIds.add(AlgorithmIdentifier.getInstance(digestAlgorithms.getObjectAt(ii)));
+		}
+		return digestAlgorithmIds;
+	}
+
 	@Override
 	public void checkSigningCertificate() {
 
@@ -1169,6 +1189,9 @@ public class CAdESSignature extends DefaultAdvancedSignature {
 	@Override
 	public List<AdvancedSignature> getCounterSignatures() {
 
+		if (counterSignatures != null) {
+			return counterSignatures;
+		}
 		final List<AdvancedSignature> list = new ArrayList<AdvancedSignature>();
 
 		for (Object o : this.signerInformation.getCounterSignatures().getSigners()) {
@@ -1176,7 +1199,7 @@ public class CAdESSignature extends DefaultAdvancedSignature {
 			CAdESSignature info = new CAdESSignature(this.cmsSignedData, signerInformation, certPool);
 			list.add(info);
 		}
-
+		counterSignatures = list;
 		return list;
 	}
 
@@ -0,0 +1,114 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.cades;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.signature.CommonDocument;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+
+/**
+ * This {@code DigestCalculatorProvider} gives back the digests of a detached content as they are known by the {@code DSSDocument}. The {@code CMSSignedDataParser} using it
+ * does not need to read the detached content: an empty content must be provided to the parser. When several signatures cover the same detached content, its digests are
+ * computed only once.
+ * <p/>
+ * It is also used when a signature is created: the CMS generators compute the message-digest attribute without buffering the content.
+ *
+ * @version $Revision$ - $Date$
+ */
+public final class DetachedContentDigestCalculatorProvider implements DigestCalculatorProvider {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DetachedContentDigestCalculatorProvider.class);
+
+	private final DSSDocument detachedContent;
+
+	/**
+	 * @param detachedContent    the detached content covered by the signature
+	 * @param digestAlgorithmIds the digest algorithms used within the signed data: all the digests are computed in one pass over the detached content
+	 */
+	public DetachedContentDigestCalculatorProvider(final DSSDocument detachedContent, final Collection<AlgorithmIdentifier> digestAlgorithmIds) {
+
+		this.detachedContent = detachedContent;
+		if (detachedContent instanceof CommonDocument) {
+
+			final List<DigestAlgorithm> digestAlgorithms = new ArrayList<DigestAlgorithm>();
+			for (final AlgorithmIdentifier digestAlgorithmId : digestAlgorithmIds) {
+
+				try {
+					digestAlgorithms.add(DigestAlgorithm.forOID(digestAlgorithmId.getAlgorithm()));
+				} catch (DSSException e) {
+					LOG.warn(e.getMessage());
+				}
+			}
+			((CommonDocument) detachedContent).computeDigests(digestAlgorithms.toArray(new DigestAlgorithm[digestAlgorithms.size()]));
+		}
+	}
+
+	@Override
+	public DigestCalculator get(final AlgorithmIdentifier digestAlgorithmIdentifier) throws OperatorCreationException {
+
+		final DigestAlgorithm digestAlgorithm;
+		try {
+			digestAlgorithm = DigestAlgorithm.forOID(digestAlgorithmIdentifier.getAlgorithm());
+		} catch (DSSException e) {
+			throw new OperatorCreationException(e.getMessage(), e);
+		}
+		return new DigestCalculator() {
+
+			@Override
+			public AlgorithmIdentifier getAlgorithmIdentifier() {
+				return digestAlgorithmIdentifier;
+			}
+
+			@Override
+			public OutputStream getOutputStream() {
+
+				return new OutputStream() {
+
+					@Override
+					public void write(final int b) {
+						// The content is not provided to the parser.
+					}
+				};
+			}
+
+			@Override
+			public byte[] getDigest() {
+
+				final String base64EncodedDigest = detachedContent.getDigest(digestAlgorithm);
+				return DSSUtils.base64Decode(base64EncodedDigest);
+			}
+		};
+	}
+}
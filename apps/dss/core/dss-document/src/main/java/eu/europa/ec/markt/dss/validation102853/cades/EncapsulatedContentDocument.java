@@ -0,0 +1,124 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.cades;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.bouncycastle.asn1.ASN1OctetStringParser;
+import org.bouncycastle.asn1.BERTags;
+import org.bouncycastle.asn1.cms.ContentInfoParser;
+import org.bouncycastle.asn1.cms.SignedDataParser;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.signature.CommonDocument;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+
+/**
+ * Document representing the content encapsulated in a CMS signed message. The content is not held in memory: each opened stream parses the signed message up to the
+ * encapsulated content. The digests computed while the signed message was read by the {@code StreamingCMSDocumentValidator} are known from the creation of the document.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+final class EncapsulatedContentDocument extends CommonDocument {
+
+	private final DSSDocument cmsDocument;
+
+	/**
+	 * @param cmsDocument the CMS signed message
+	 * @param digests     the digests of the encapsulated content already computed, by algorithm
+	 */
+	EncapsulatedContentDocument(final DSSDocument cmsDocument, final Map<DigestAlgorithm, byte[]> digests) {
+
+		this.cmsDocument = cmsDocument;
+		this.mimeType = cmsDocument.getMimeType();
+		addDigests(digests);
+	}
+
+	/**
+	 * The returned stream must be closed: it holds the stream of the CMS signed message open.
+	 *
+	 * @return an {@code InputStream} on the encapsulated content
+	 * @throws DSSException
+	 */
+	@Override
+	public InputStream openStream() throws DSSException {
+
+		final InputStream inputStream = cmsDocument.openStream();
+		try {
+
+			final SignedDataParser signedDataParser = StreamingCMSDocumentValidator.getSignedDataParser(inputStream);
+			signedDataParser.getDigestAlgorithms().toASN1Primitive();
+			final ContentInfoParser encapContentInfo = signedDataParser.getEncapContentInfo();
+			final ASN1OctetStringParser content = (ASN1OctetStringParser) encapContentInfo.getContent(BERTags.OCTET_STRING);
+			if (content == null) {
+				throw new DSSException("The CMS signed message does not encapsulate its content!");
+			}
+			return new FilterInputStream(content.getOctetStream()) {
+
+				@Override
+				public void close() throws IOException {
+					inputStream.close();
+				}
+			};
+		} catch (IOException e) {
+
+			DSSUtils.closeQuietly(inputStream);
+			throw new DSSException(e);
+		} catch (RuntimeException e) {
+
+			DSSUtils.closeQuietly(inputStream);
+			throw e;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return cmsDocument.getName();
+	}
+
+	@Override
+	public String getAbsolutePath() {
+		return cmsDocument.getAbsolutePath();
+	}
+
+	@Override
+	public byte[] getBytes() throws DSSException {
+
+		final InputStream inputStream = openStream();
+		final byte[] bytes = DSSUtils.toByteArray(inputStream);
+		DSSUtils.closeQuietly(inputStream);
+		return bytes;
+	}
+
+	@Override
+	public void save(final String path) throws DSSException {
+
+		final InputStream inputStream = openStream();
+		DSSUtils.saveToFile(inputStream, path);
+		DSSUtils.closeQuietly(inputStream);
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.cades;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1OctetStringParser;
+import org.bouncycastle.asn1.ASN1SequenceParser;
+import org.bouncycastle.asn1.ASN1Set;
+import org.bouncycastle.asn1.ASN1SetParser;
+import org.bouncycastle.asn1.ASN1StreamParser;
+import org.bouncycastle.asn1.BERTags;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.CMSObjectIdentifiers;
+import org.bouncycastle.asn1.cms.ContentInfo;
+import org.bouncycastle.asn1.cms.ContentInfoParser;
+import org.bouncycastle.asn1.cms.SignedData;
+import org.bouncycastle.asn1.cms.SignedDataParser;
+import org.bouncycastle.asn1.cms.SignerInfo;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.OID;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.validation102853.AdvancedSignature;
+
+/**
+ * Validator of large CMS signed messages. The signed message is read once as a stream: the encapsulated content is digested on the fly with all the digest algorithms of
+ * the signed data and only the structures around it (certificates, CRLs, signer infos) are held in memory. The signatures are then validated as detached signatures whose
+ * detached content is the encapsulated content (see {@code EncapsulatedContentDocument}).
+ * <p/>
+ * The signed message is loaded in memory as by {@code CMSDocumentValidator} when its content is not encapsulated, or when a content timestamp or an archive timestamp needs
+ * the encapsulated content to be verified.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class StreamingCMSDocumentValidator extends CMSDocumentValidator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StreamingCMSDocumentValidator.class);
+
+	/**
+	 * The encapsulated content, {@code null} when the signed message is loaded in memory.
+	 */
+	private EncapsulatedContentDocument encapsulatedContent;
+
+	/**
+	 * The default constructor for {@code StreamingCMSDocumentValidator}.
+	 *
+	 * @param document document to validate (with the signature(s))
+	 * @throws DSSException
+	 */
+	public StreamingCMSDocumentValidator(final DSSDocument document) throws DSSException {
+
+		this.document = document;
+		this.cmsSignedData = readSignedData();
+		if (cmsSignedData == null) {
+
+			LOG.debug("The CMS signed message is loaded in memory.");
+			final InputStream inputStream = document.openStream();
+			try {
+				this.cmsSignedData = new CMSSignedData(inputStream);
+			} catch (CMSException e) {
+				throw new DSSException("Not a valid CAdES file", e);
+			} finally {
+				DSSUtils.closeQuietly(inputStream);
+			}
+		}
+	}
+
+	@Override
+	public List<AdvancedSignature> getSignatures() {
+
+		if (encapsulatedContent == null) {
+			return super.getSignatures();
+		}
+		if (signatures != null) {
+			return signatures;
+		}
+		signatures = new ArrayList<AdvancedSignature>();
+		final List<DSSDocument> encapsulatedContents = Collections.<DSSDocument>singletonList(encapsulatedContent);
+		for (final Object signerInformationObject : cmsSignedData.getSignerInfos().getSigners()) {
+
+			final SignerInformation signerInformation = (SignerInformation) signerInformationObject;
+			final CAdESSignature cadesSignature = new CAdESSignature(cmsSignedData, signerInformation, validationCertPool);
+			cadesSignature.setDetachedContents(encapsulatedContents);
+			cadesSignature.setProvidedSigningCertificateToken(providedSigningCertificateToken);
+			signatures.add(cadesSignature);
+		}
+		return signatures;
+	}
+
+	/**
+	 * @return {@code true} if the encapsulated content is not held in memory
+	 */
+	public boolean isStreamingMode() {
+		return encapsulatedContent != null;
+	}
+
+	/**
+	 * This method reads the signed message as a stream and builds the signed data without its encapsulated content. The sets of the signed data are kept as they are
+	 * encoded.
+	 *
+	 * @return the {@code CMSSignedData} without encapsulated content or {@code null} if the signed message must be loaded in memory
+	 * @throws DSSException
+	 */
+	private CMSSignedData readSignedData() throws DSSException {
+
+		final InputStream inputStream = document.openStream();
+		try {
+
+			final SignedDataParser signedDataParser = getSignedDataParser(inputStream);
+			final ASN1Set digestAlgorithms = ASN1Set.getInstance(signedDataParser.getDigestAlgorithms().toASN1Primitive());
+			final ContentInfoParser encapContentInfo = signedDataParser.getEncapContentInfo();
+			final ASN1ObjectIdentifier contentType = encapContentInfo.getContentType();
+			final ASN1OctetStringParser content = (ASN1OctetStringParser) encapContentInfo.getContent(BERTags.OCTET_STRING);
+			if (content == null) {
+				return null;
+			}
+			final Map<DigestAlgorithm, byte[]> digests = DSSUtils.digests(content.getOctetStream(), getDigestAlgorithms(digestAlgorithms));
+			final ASN1Set certificates = toASN1Set(signedDataParser.getCertificates());
+			final ASN1Set crls = toASN1Set(signedDataParser.getCrls());
+			final ASN1Set signerInfos = toASN1Set(signedDataParser.getSignerInfos());
+			if (hasTimestampOnContent(signerInfos)) {
+				return null;
+			}
+			final SignedData signedData = new SignedData(digestAlgorithms, new ContentInfo(contentType, null), certificates, crls, signerInfos);
+			encapsulatedContent = new EncapsulatedContentDocument(document, digests);
+			return new CMSSignedData(new ContentInfo(CMSObjectIdentifiers.signedData, signedData));
+		} catch (IOException e) {
+			throw new DSSException("Not a valid CAdES file", e);
+		} catch (ClassCastException e) {
+			throw new DSSException("Not a valid CAdES file", e);
+		} finally {
+			DSSUtils.closeQuietly(inputStream);
+		}
+	}
+
+	/**
+	 * @param inputStream the CMS signed message
+	 * @return the {@code SignedDataParser} positioned after the version of the signed data
+	 * @throws IOException
+	 */
+	static SignedDataParser getSignedDataParser(final InputStream inputStream) throws IOException {
+
+		final ASN1StreamParser streamParser = new ASN1StreamParser(inputStream);
+		final ContentInfoParser contentInfoParser = new ContentInfoParser((ASN1SequenceParser) streamParser.readObject());
+		if (!CMSObjectIdentifiers.signedData.equals(contentInfoParser.getContentType())) {
+			throw new DSSException("Not a valid CAdES file: " + contentInfoParser.getContentType());
+		}
+		return SignedDataParser.getInstance(contentInfoParser.getContent(BERTags.SEQUENCE));
+	}
+
+	private static ASN1Set toASN1Set(final ASN1SetParser setParser) {
+
+		return setParser == null ? null : ASN1Set.getInstance(setParser.toASN1Primitive());
+	}
+
+	private static DigestAlgorithm[] getDigestAlgorithms(final ASN1Set digestAlgorithmIds) {
+
+		final List<DigestAlgorithm> digestAlgorithms = new ArrayList<DigestAlgorithm>();
+		for (int ii = 0; ii < digestAlgorithmIds.size(); ii++) {
+
+			final AlgorithmIdentifier digestAlgorithmId = AlgorithmIdentifier.getInstance(digestAlgorithmIds.getObjectAt(ii));
+			try {
+
+				final DigestAlgorithm digestAlgorithm = DigestAlgorithm.forOID(digestAlgorithmId.getAlgorithm());
+				if (!digestAlgorithms.contains(digestAlgorithm)) {
+					digestAlgorithms.add(digestAlgorithm);
+				}
+			} catch (DSSException e) {
+				LOG.warn(e.getMessage());
+			}
+		}
+		return digestAlgorithms.toArray(new DigestAlgorithm[digestAlgorithms.size()]);
+	}
+
+	/**
+	 * The content timestamps and the archive timestamps are computed over the encapsulated content as it is encoded within the signed data.
+	 */
+	private static boolean hasTimestampOnContent(final ASN1Set signerInfos) {
+
+		for (int ii = 0; ii < signerInfos.size(); ii++) {
+
+			final SignerInfo signerInfo = SignerInfo.getInstance(signerInfos.getObjectAt(ii));
+			if (contains(signerInfo.getAuthenticatedAttributes(), PKCSObjectIdentifiers.id_aa_ets_contentTimestamp)) {
+				return true;
+			}
+			final ASN1Set unsignedAttributes = signerInfo.getUnauthenticatedAttributes();
+			if (contains(unsignedAttributes, PKCSObjectIdentifiers.id_aa_ets_archiveTimestamp) || contains(unsignedAttributes, OID.id_aa_ets_archiveTimestampV2) || contains(
+				  unsignedAttributes, OID.id_aa_ets_archiveTimestampV3)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean contains(final ASN1Set attributes, final ASN1ObjectIdentifier attributeType) {
+
+		if (attributes == null) {
+			return false;
+		}
+		for (int ii = 0; ii < attributes.size(); ii++) {
+
+			final ASN1Encodable attribute = attributes.getObjectAt(ii);
+			if (attributeType.equals(Attribute.getInstance(attribute).getAttrType())) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
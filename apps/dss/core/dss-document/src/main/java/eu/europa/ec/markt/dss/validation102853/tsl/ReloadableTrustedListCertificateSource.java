@@ -20,13 +20,25 @@
 
 package eu.europa.ec.markt.dss.validation102853.tsl;
 
+import java.io.File;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.security.auth.x500.X500Principal;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import eu.europa.ec.markt.dss.exception.DSSEncodingException;
+import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.validation102853.CertificatePool;
 import eu.europa.ec.markt.dss.validation102853.CertificateToken;
 
@@ -34,6 +46,17 @@ import eu.europa.ec.markt.dss.validation102853.CertificateToken;
  * This CertificateSource keep a list of trusted certificates extracted from the trusted list. To populate this list {@link
  * TrustedListsCertificateSource} class is used. This list is refreshed when the method refresh
  * is called.
+ * <p/>
+ * The trusted lists are loaded in a new {@code TrustedListsCertificateSource} (snapshot) by a background thread. The snapshot used by the validations is replaced only when
+ * the new one is completely built: the readers never see a partially loaded source and never wait. If the LOTL cannot be loaded the previous snapshot is kept; if the trusted
+ * list of a territory cannot be loaded the certificates of its previous version are kept. The trusted lists which did not change since the previous snapshot are reused
+ * without being verified again.
+ * <p/>
+ * When the automatic refresh is enabled (see {@code #setAutomaticRefresh(boolean)}) each reload schedules the next one at the earliest next update date of the loaded
+ * trusted lists, bounded by the minimum and the maximum refresh periods.
+ * <p/>
+ * When a snapshot file is defined (see {@code #setSnapshotFile(File)}) each published snapshot is saved in this file. The first call to {@code #refresh()} publishes the
+ * content of the file, if it exists, before launching the reload: a new node can validate with the trust anchors of its previous run without waiting for the trusted lists.
  *
  * @version $Revision$ - $Date$
  */
@@ -42,7 +65,59 @@ public class ReloadableTrustedListCertificateSource extends TrustedListsCertific
 
     private static final Logger LOG = LoggerFactory.getLogger(ReloadableTrustedListCertificateSource.class);
 
-    private TrustedListsCertificateSource currentSource = new TrustedListsCertificateSource();
+    /**
+     * The default minimum delay between two automatic reloads: 15 minutes.
+     */
+    public static final long DEFAULT_MIN_REFRESH_PERIOD = 15 * 60 * 1000L;
+
+    /**
+     * The default maximum delay between two automatic reloads: 24 hours.
+     */
+    public static final long DEFAULT_MAX_REFRESH_PERIOD = 24 * 60 * 60 * 1000L;
+
+    /**
+     * The snapshot used by the validations. It is replaced atomically when a new snapshot is built.
+     */
+    private volatile TrustedListsCertificateSource currentSource = new TrustedListsCertificateSource();
+
+    /**
+     * Indicates if a reload is in progress: the requests received during a reload are ignored.
+     */
+    private final AtomicBoolean reloading = new AtomicBoolean(false);
+
+    /**
+     * The executor used to build the new snapshots.
+     */
+    private ExecutorService reloadExecutor;
+
+    /**
+     * Indicates if the executor was created by this class and must be shut down by {@code #shutdown()}.
+     */
+    private boolean ownReloadExecutor;
+
+    /**
+     * Indicates if each reload schedules the next one.
+     */
+    private boolean automaticRefresh = false;
+
+    private long minRefreshPeriod = DEFAULT_MIN_REFRESH_PERIOD;
+
+    private long maxRefreshPeriod = DEFAULT_MAX_REFRESH_PERIOD;
+
+    /**
+     * The next automatic reload.
+     */
+    private ScheduledFuture<?> nextRefresh;
+
+    /**
+     * The file in which the trust anchors are saved.
+     */
+    private File snapshotFile;
+
+    /**
+     * Indicates if the snapshot file was already read.
+     */
+    private boolean snapshotFileRead;
 
     public ReloadableTrustedListCertificateSource() {
 
@@ -51,11 +126,11 @@ public class ReloadableTrustedListCertificateSource extends TrustedListsCertific
 
     static class Reloader implements Runnable {
 
-        private TrustedListsCertificateSource underlyingSource;
+        private final ReloadableTrustedListCertificateSource reloadableSource;
 
-        Reloader(final TrustedListsCertificateSource underlyingSource) {
+        Reloader(final ReloadableTrustedListCertificateSource reloadableSource) {
 
-            this.underlyingSource = underlyingSource;
+            this.reloadableSource = reloadableSource;
         }
 
         @Override
@@ -66,29 +141,225 @@ public class ReloadableTrustedListCertificateSource extends TrustedListsCertific
                 LOG.info("Reload Trusted List");
                 // Asynchronous loading of all the data in the TSLs
                 LOG.info("--> run(): START LOADING");
-                underlyingSource.init();
+                reloadableSource.reload();
                 LOG.info("--> run(): END LOADING");
-
-            } catch (DSSEncodingException e) {
-                makeATrace(e);
+            } finally {
+                reloadableSource.reloading.set(false);
+                reloadableSource.scheduleNextRefresh();
             }
         }
+    }
 
-        private static void makeATrace(final Exception e) {
+    /**
+     * This method launches the reload of the trusted lists in background. It returns immediately; the current snapshot remains in use until the new one is built. If a reload
+     * is already in progress the call has no effect.
+     */
+    public void refresh() {
 
-            LOG.error(e.getMessage(), e);
+        if (!reloading.compareAndSet(false, true)) {
+
+            LOG.info("--> refresh(): the trusted lists are already being reloaded");
+            return;
         }
+        LOG.info("--> refresh(): START");
+        publishSnapshotFile();
+        try {
+            getReloadExecutor().execute(new Reloader(this));
+        } catch (RejectedExecutionException e) {
+
+            reloading.set(false);
+            throw new DSSException(e);
+        }
+        LOG.info("--> refresh(): END");
     }
 
-    public synchronized void refresh() {
+    /**
+     * This method builds a new snapshot of the trusted lists and publishes it when it is complete. It is executed by the thread calling it.
+     */
+    protected void reload() {
 
+        final TrustedListsCertificateSource previousSource = currentSource;
         final TrustedListsCertificateSource newSource = new TrustedListsCertificateSource(this);
-        final Thread reloader = new Thread(new Reloader(newSource));
-        LOG.info("--> refresh(): START");
-        reloader.start();
-        LOG.info("--> refresh(): END");
+        newSource.setPreviousSource(previousSource);
+        try {
+
+            newSource.init();
+            newSource.reuseFailedTrustStatusLists(previousSource);
+        } catch (RuntimeException e) {
 
+            LOG.error("The trusted lists cannot be reloaded, the previous ones are kept: " + e.getMessage(), e);
+            return;
+        } finally {
+            // The snapshots must not be chained
+            newSource.setPreviousSource(null);
+        }
         currentSource = newSource;
+        LOG.info("New trusted lists published: {} certificates", newSource.getCertificatePool().getNumberOfCertificates());
+        if (snapshotFile != null) {
+
+            try {
+                newSource.saveSnapshot(snapshotFile);
+            } catch (DSSException e) {
+                LOG.warn("The trusted lists cannot be saved: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Publishes the content of the snapshot file when nothing has been published yet. It is executed only once, by the thread launching the first reload.
+     */
+    private void publishSnapshotFile() {
+
+        if (snapshotFileRead || snapshotFile == null) {
+            return;
+        }
+        snapshotFileRead = true;
+        if (!snapshotFile.exists()) {
+
+            LOG.info("There is no snapshot file: {}", snapshotFile);
+            return;
+        }
+        final TrustedListsCertificateSource snapshotSource = new TrustedListsCertificateSource(this);
+        try {
+
+            snapshotSource.loadSnapshot(snapshotFile);
+            currentSource = snapshotSource;
+        } catch (DSSException e) {
+            LOG.warn("The snapshot file cannot be used: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Defines the file in which the trust anchors are saved after each reload and from which they are published by the first call to {@code #refresh()}.
+     *
+     * @param snapshotFile the snapshot file
+     */
+    public void setSnapshotFile(final File snapshotFile) {
+
+        this.snapshotFile = snapshotFile;
+    }
+
+    private synchronized ExecutorService getReloadExecutor() {
+
+        if (reloadExecutor == null) {
+
+            reloadExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+
+                    final Thread thread = new Thread(runnable, "dss-trusted-list-reloader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ownReloadExecutor = true;
+        }
+        return reloadExecutor;
+    }
+
+    /**
+     * Schedules the next reload when the automatic refresh is enabled. The delay is given by the earliest next update date of the current snapshot.
+     */
+    private synchronized void scheduleNextRefresh() {
+
+        if (!automaticRefresh) {
+            return;
+        }
+        final ExecutorService executor = getReloadExecutor();
+        if (!(executor instanceof ScheduledExecutorService)) {
+
+            LOG.warn("The automatic refresh requires a ScheduledExecutorService, the trusted lists must be refreshed explicitly.");
+            return;
+        }
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+        final long delay = getNextRefreshDelay(currentSource.getNextUpdate());
+        try {
+
+            nextRefresh = ((ScheduledExecutorService) executor).schedule(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    refresh();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            LOG.info("Next refresh of the trusted lists in {} s", delay / 1000);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("The next refresh of the trusted lists cannot be scheduled: " + e.getMessage());
+        }
+    }
+
+    private long getNextRefreshDelay(final Date nextUpdate) {
+
+        long delay = maxRefreshPeriod;
+        if (nextUpdate != null) {
+            delay = Math.min(delay, nextUpdate.getTime() - System.currentTimeMillis());
+        }
+        return Math.max(delay, minRefreshPeriod);
+    }
+
+    /**
+     * Enables the automatic refresh: each reload schedules the next one at the earliest next update date of the loaded trusted lists. The first reload is launched by
+     * {@code #refresh()}. The executor used to reload the trusted lists must be a {@code ScheduledExecutorService}.
+     *
+     * @param automaticRefresh true to enable the automatic refresh
+     */
+    public synchronized void setAutomaticRefresh(final boolean automaticRefresh) {
+
+        this.automaticRefresh = automaticRefresh;
+        if (!automaticRefresh && nextRefresh != null) {
+
+            nextRefresh.cancel(false);
+            nextRefresh = null;
+        }
+    }
+
+    /**
+     * @param minRefreshPeriod the minimum delay (millis) between two automatic reloads
+     */
+    public synchronized void setMinRefreshPeriod(final long minRefreshPeriod) {
+
+        this.minRefreshPeriod = minRefreshPeriod;
+    }
+
+    /**
+     * @param maxRefreshPeriod the maximum delay (millis) between two automatic reloads
+     */
+    public synchronized void setMaxRefreshPeriod(final long maxRefreshPeriod) {
+
+        this.maxRefreshPeriod = maxRefreshPeriod;
+    }
+
+    /**
+     * This method allows to define the executor used to reload the trusted lists (a managed executor for example). This executor is not shut down by {@code #shutdown()}.
+     * A {@code ScheduledExecutorService} is required by the automatic refresh.
+     *
+     * @param reloadExecutor the executor to use
+     */
+    public synchronized void setReloadExecutor(final ExecutorService reloadExecutor) {
+
+        this.reloadExecutor = reloadExecutor;
+        this.ownReloadExecutor = false;
+    }
+
+    /**
+     * This method shuts down the executor created by this class. It can be used as the destroy method of the bean.
+     */
+    public synchronized void shutdown() {
+
+        if (nextRefresh != null) {
+
+            nextRefresh.cancel(false);
+            nextRefresh = null;
+        }
+        if (ownReloadExecutor && reloadExecutor != null) {
+
+            reloadExecutor.shutdownNow();
+            reloadExecutor = null;
+        }
     }
 
     public Map<String, String> getDiagnosticInfo() {
@@ -96,6 +367,12 @@ public class ReloadableTrustedListCertificateSource extends TrustedListsCertific
         return currentSource.getDiagnosticInfo();
     }
 
+    @Override
+    public Date getNextUpdate() {
+
+        return currentSource.getNextUpdate();
+    }
+
     @Override
     public CertificatePool getCertificatePool() {
 
@@ -112,4 +389,10 @@ public class ReloadableTrustedListCertificateSource extends TrustedListsCertific
 
         return currentSource.getCertificatePool().getCertificateTokens();
     }
+
+    @Override
+    public List<CertificateToken> get(final X500Principal x500Principal) {
+
+        return currentSource.get(x500Principal);
+    }
 }
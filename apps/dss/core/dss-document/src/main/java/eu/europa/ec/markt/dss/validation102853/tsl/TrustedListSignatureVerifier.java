@@ -0,0 +1,218 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.tsl;
+
+import java.security.cert.X509Certificate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.xml.security.Init;
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.signature.Reference;
+import org.apache.xml.security.signature.SignedInfo;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.signature.XMLSignatureException;
+import org.apache.xml.security.transforms.Transforms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DSSXMLUtils;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.validation102853.toolbox.XPointerResourceResolver;
+
+/**
+ * This class verifies the signature of a trusted list directly on its parsed DOM. Only the cryptographic validity of the enveloped signature, the coverage of the whole trusted
+ * list and the use of one of the possible signing certificates given by the LOTL are checked: the trusted list does not go through the complete ETSI validation process.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+final class TrustedListSignatureVerifier {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TrustedListSignatureVerifier.class);
+
+	static {
+
+		Init.init();
+	}
+
+	private TrustedListSignatureVerifier() {
+	}
+
+	/**
+	 * Verifies the signature of the trusted list.
+	 *
+	 * @param document        the DOM of the trusted list
+	 * @param signingCertList the {@code List} of the possible signing certificates
+	 * @throws DSSException if the trusted list is not signed or if its signature is not valid
+	 */
+	static void verify(final Document document, final List<X509Certificate> signingCertList) throws DSSException {
+
+		final Element rootElement = document.getDocumentElement();
+		final Element signatureElement = getSignatureElement(rootElement);
+		if (signatureElement == null) {
+
+			throw new DSSException("Not ETSI compliant signature. The Xml is not signed.");
+		}
+		checkUniqueIds(rootElement, new HashSet<String>());
+		DSSXMLUtils.setIDIdentifier(rootElement);
+		DSSXMLUtils.recursiveIdBrowse(rootElement);
+		boolean coreValidity = false;
+		try {
+
+			final XMLSignature santuarioSignature = new XMLSignature(signatureElement, "");
+			santuarioSignature.addResourceResolver(new XPointerResourceResolver(signatureElement));
+			if (isWholeDocumentSigned(document, santuarioSignature.getSignedInfo(), rootElement)) {
+
+				for (final X509Certificate x509Certificate : signingCertList) {
+
+					if (x509Certificate == null) {
+						continue;
+					}
+					try {
+
+						coreValidity = santuarioSignature.checkSignatureValue(x509Certificate);
+						if (coreValidity) {
+							break;
+						}
+					} catch (XMLSignatureException e) {
+						LOG.warn("Exception when validating the TSL signature: " + e.getMessage());
+					}
+				}
+			} else {
+				LOG.warn("The TSL signature does not cover the whole document.");
+			}
+		} catch (XMLSecurityException e) {
+			throw new DSSException("Not ETSI compliant signature. The signature cannot be read.", e);
+		}
+		LOG.info("The TSL signature validity: " + coreValidity);
+		if (!coreValidity) {
+
+			throw new DSSException("Not ETSI compliant signature. The signature is not valid.");
+		}
+	}
+
+	/**
+	 * The signature of a trusted list is an enveloped signature: it is a child of the root element.
+	 *
+	 * @param rootElement the root element of the trusted list
+	 * @return the signature element or {@code null}
+	 */
+	private static Element getSignatureElement(final Element rootElement) {
+
+		for (Node node = rootElement.getFirstChild(); node != null; node = node.getNextSibling()) {
+
+			if (node.getNodeType() == Node.ELEMENT_NODE && XMLSignature.XMLNS.equals(node.getNamespaceURI()) && "Signature".equals(node.getLocalName())) {
+
+				return (Element) node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The Ids are registered with the DOM in the document order: when the same Id is used twice, the reference would be resolved against the last element carrying it. Such
+	 * a document could wrap a genuine signed trusted list inside a forged one, and is therefore rejected.
+	 *
+	 * @param element the element to check together with its descendants
+	 * @param ids     the {@code Set} of the Ids already encountered
+	 * @throws DSSException if an Id is used more than once
+	 */
+	private static void checkUniqueIds(final Element element, final Set<String> ids) throws DSSException {
+
+		final String id = DSSXMLUtils.getIDIdentifier(element);
+		if (id != null && !ids.add(id)) {
+
+			throw new DSSException("Not ETSI compliant signature. The Id '" + id + "' is not unique.");
+		}
+		for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+
+				checkUniqueIds((Element) node, ids);
+			}
+		}
+	}
+
+	/**
+	 * The trusted list is covered when one reference points to the root element (the whole document or the unique element with the root Id) and applies the enveloped signature
+	 * transformation, optionally followed by a canonicalisation, and no other transformation.
+	 *
+	 * @param document    the DOM of the trusted list
+	 * @param signedInfo  the {@code SignedInfo} of the signature
+	 * @param rootElement the root element of the trusted list
+	 * @return {@code true} if the whole trusted list is signed
+	 * @throws XMLSecurityException if a reference cannot be read
+	 */
+	private static boolean isWholeDocumentSigned(final Document document, final SignedInfo signedInfo, final Element rootElement) throws XMLSecurityException {
+
+		final String rootId = rootElement.getAttribute("Id");
+		for (int ii = 0; ii < signedInfo.getLength(); ii++) {
+
+			final Reference reference = signedInfo.item(ii);
+			final String uri = reference.getURI();
+			final boolean rootReference = "".equals(uri) || (DSSUtils.isNotBlank(rootId) && ("#" + rootId).equals(uri) && document.getElementById(rootId) == rootElement);
+			if (rootReference && hasEnvelopedTransformsOnly(reference)) {
+
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasEnvelopedTransformsOnly(final Reference reference) throws XMLSecurityException {
+
+		final Transforms transforms = reference.getTransforms();
+		if (transforms == null) {
+			return false;
+		}
+		boolean enveloped = false;
+		boolean canonicalised = false;
+		for (int ii = 0; ii < transforms.getLength(); ii++) {
+
+			final String transformUri = transforms.item(ii).getURI();
+			if (Transforms.TRANSFORM_ENVELOPED_SIGNATURE.equals(transformUri) && !enveloped) {
+
+				enveloped = true;
+			} else if (enveloped && !canonicalised && isCanonicalisation(transformUri)) {
+
+				canonicalised = true;
+			} else {
+
+				LOG.warn("The TSL signature reference uses an unexpected transformation: " + transformUri);
+				return false;
+			}
+		}
+		return enveloped;
+	}
+
+	private static boolean isCanonicalisation(final String transformUri) {
+
+		return Transforms.TRANSFORM_C14N_OMIT_COMMENTS.equals(transformUri) || Transforms.TRANSFORM_C14N_WITH_COMMENTS.equals(transformUri) || Transforms.TRANSFORM_C14N11_OMIT_COMMENTS
+			  .equals(transformUri) || Transforms.TRANSFORM_C14N11_WITH_COMMENTS.equals(transformUri) || Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS.equals(transformUri) || Transforms
+			  .TRANSFORM_C14N_EXCL_WITH_COMMENTS.equals(transformUri);
+	}
+}
@@ -20,51 +20,74 @@
 
 package eu.europa.ec.markt.dss.validation102853.tsl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.math.BigInteger;
 import java.net.URL;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Security;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.security.auth.x500.X500Principal;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
 
 import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.DSSXMLUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.exception.DSSNotApplicableMethodException;
 import eu.europa.ec.markt.dss.exception.DSSNotETSICompliantException;
 import eu.europa.ec.markt.dss.exception.DSSNullReturnedException;
-import eu.europa.ec.markt.dss.signature.DSSDocument;
-import eu.europa.ec.markt.dss.signature.InMemoryDocument;
-import eu.europa.ec.markt.dss.validation102853.AdvancedSignature;
 import eu.europa.ec.markt.dss.validation102853.CertificateToken;
-import eu.europa.ec.markt.dss.validation102853.CertificateVerifier;
-import eu.europa.ec.markt.dss.validation102853.CommonCertificateVerifier;
 import eu.europa.ec.markt.dss.validation102853.CommonTrustedCertificateSource;
 import eu.europa.ec.markt.dss.validation102853.certificate.CertificateSourceType;
 import eu.europa.ec.markt.dss.validation102853.condition.ServiceInfo;
+import eu.europa.ec.markt.dss.validation102853.loader.ConditionalDataLoader;
+import eu.europa.ec.markt.dss.validation102853.loader.ConditionalResponse;
 import eu.europa.ec.markt.dss.validation102853.loader.DataLoader;
-import eu.europa.ec.markt.dss.validation102853.report.Reports;
-import eu.europa.ec.markt.dss.validation102853.report.SimpleReport;
-import eu.europa.ec.markt.dss.validation102853.rules.Indication;
-import eu.europa.ec.markt.dss.validation102853.xades.XMLDocumentValidator;
-import eu.europa.ec.markt.dss.validation102853.xades.XPathQueryHolder;
 
 /**
  * Certificate coming from the Trusted List
+ * <p/>
+ * The trusted lists referenced by the LOTL are downloaded, verified and parsed in parallel (see {@code #setLoaderThreads(int)}); their certificates are added in the order of
+ * the LOTL. When the source built by the previous loading is provided (see {@code #setPreviousSource(TrustedListsCertificateSource)}) the trusted lists which did not change
+ * (HTTP 304, same digest or same sequence number) are reused without being verified again.
  *
  * @version $Revision: 1845 $ - $Date: 2013-04-04 17:46:25 +0200 (Thu, 04 Apr 2013) $
  */
@@ -77,12 +100,77 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 	private static final String CP = "classpath://";
 	private static final String FILE = "file://";
 
+	/**
+	 * The default maximum number of trusted lists downloaded and verified in parallel.
+	 */
+	public static final int DEFAULT_LOADER_THREADS = 8;
+
+	/**
+	 * The default maximum age of a snapshot file: 7 days.
+	 */
+	public static final long DEFAULT_SNAPSHOT_MAX_AGE = 7L * 24 * 60 * 60 * 1000;
+
+	/**
+	 * The version of the format of the snapshot file.
+	 */
+	private static final int SNAPSHOT_VERSION = 2;
+
+	/**
+	 * The algorithm of the integrity check of the snapshot file when a snapshot key is defined.
+	 */
+	private static final String SNAPSHOT_MAC_ALGORITHM = "HmacSHA256";
+
+	/**
+	 * The length of the integrity check (HMAC-SHA256 or SHA-256) written at the end of the snapshot file.
+	 */
+	private static final int SNAPSHOT_CHECK_LENGTH = 32;
+
 	protected String lotlUrl;
 
 	protected transient DataLoader dataLoader;
 
 	private Map<String, String> diagnosticInfo = new HashMap<String, String>();
 
+	/**
+	 * The successfully loaded trusted lists: the key is the territory (or the URL when the territory is not known).
+	 */
+	private Map<String, LoadedTrustStatusList> loadedTrustStatusLists = new HashMap<String, LoadedTrustStatusList>();
+
+	/**
+	 * The loaded LOTL.
+	 */
+	private LoadedTrustStatusList loadedLotl;
+
+	/**
+	 * The source built by the previous loading. Its unchanged trusted lists are reused.
+	 */
+	protected transient TrustedListsCertificateSource previousSource;
+
+	/**
+	 * The maximum number of trusted lists downloaded and verified in parallel.
+	 */
+	protected int loaderThreads = DEFAULT_LOADER_THREADS;
+
+	/**
+	 * The earliest next update date read from the snapshot file when the source was loaded from a snapshot.
+	 */
+	private Date snapshotNextUpdate;
+
+	/**
+	 * The maximum age (in milliseconds) of a snapshot file which can be loaded, 0 means that the age is not checked.
+	 */
+	protected long snapshotMaxAge = DEFAULT_SNAPSHOT_MAX_AGE;
+
+	/**
+	 * The secret key of the HMAC protecting the snapshot file, or null when the snapshot file is only protected against corruption.
+	 */
+	protected transient byte[] snapshotKey;
+
+	/**
+	 * The trusted lists which could not be loaded: the key is the territory (or the URL when the territory is not known), the value is the URL.
+	 */
+	private Map<String, String> failedTrustStatusLists = new HashMap<String, String>();
+
 	/**
 	 * Defines if the TL signature must be checked. The default value is true.
 	 */
@@ -113,7 +201,68 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 		this.setCheckSignature(trustedListsCertificateSource.checkSignature);
 		this.setLotlCertificate(trustedListsCertificateSource.lotlCertificate);
 		this.setLotlUrl(trustedListsCertificateSource.lotlUrl);
+		this.setLoaderThreads(trustedListsCertificateSource.loaderThreads);
+		this.setSnapshotMaxAge(trustedListsCertificateSource.snapshotMaxAge);
+		this.snapshotKey = trustedListsCertificateSource.snapshotKey;
+	}
+
+	/**
+	 * A trusted list with the information allowing to detect that it did not change since its previous loading.
+	 */
+	static class LoadedTrustStatusList {
+
+		final String url;
+
+		final TrustStatusList trustStatusList;
+
+		final List<X509Certificate> signingCertList;
+
+		final byte[] digest;
+
+		final String eTag;
 
+		final String lastModified;
+
+		LoadedTrustStatusList(final String url, final TrustStatusList trustStatusList, final List<X509Certificate> signingCertList, final byte[] digest,
+		                      final ConditionalResponse response) {
+
+			this.url = url;
+			this.trustStatusList = trustStatusList;
+			this.signingCertList = signingCertList;
+			this.digest = digest;
+			this.eTag = response.getETag();
+			this.lastModified = response.getLastModified();
+		}
+	}
+
+	/**
+	 * Downloads, verifies and parses one trusted list. It does not modify the state of the source and can be executed by any thread.
+	 */
+	private class TrustStatusListFetcher implements Callable<LoadedTrustStatusList> {
+
+		private final String key;
+
+		private final String url;
+
+		private final String territory;
+
+		private final List<X509Certificate> signingCertList;
+
+		TrustStatusListFetcher(final String key, final String url, final String territory, final List<X509Certificate> signingCertList) {
+
+			this.key = key;
+			this.url = url;
+			this.territory = territory;
+			this.signingCertList = signingCertList;
+		}
+
+		@Override
+		public LoadedTrustStatusList call() throws Exception {
+
+			LOG.info("Downloading TrustStatusList for '{}' from url= {}", territory, url);
+			final LoadedTrustStatusList previous = previousSource == null ? null : previousSource.loadedTrustStatusLists.get(key);
+			return fetchTrustStatusList(url, signingCertList, previous);
+		}
 	}
 
 	@Override
@@ -242,20 +391,99 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 	}
 
 	/**
-	 * Load a trusted list form the specified URL. If the {@code signingCertList} contains any {@code X509Certificate} then the validation of the signature of the TSL is done.
+	 * Load a trusted list form the specified URL. When the trusted list did not change since the {@code previous} loading (the resource was not modified, its digest or its
+	 * sequence number is the same) and it was signed by the same possible signing certificates then the previous version is reused without being verified again.
 	 *
 	 * @param url             of the TSL to load
 	 * @param signingCertList the {@code List} of the possible signing certificates
-	 * @return {@code TrustStatusList}
+	 * @param previous        the previous version of the TSL or {@code null}
+	 * @return {@code LoadedTrustStatusList}
 	 */
-	private TrustStatusList getTrustStatusList(final String url, final List<X509Certificate> signingCertList) {
+	private LoadedTrustStatusList fetchTrustStatusList(final String url, final List<X509Certificate> signingCertList, final LoadedTrustStatusList previousTSL) {
+
+		final LoadedTrustStatusList previous = isReusable(previousTSL, url, signingCertList) ? previousTSL : null;
+		final ConditionalResponse response;
+		if (dataLoader instanceof ConditionalDataLoader) {
+
+			final String eTag = previous == null ? null : previous.eTag;
+			final String lastModified = previous == null ? null : previous.lastModified;
+			response = ((ConditionalDataLoader) dataLoader).get(url, eTag, lastModified);
+		} else {
 
-		byte[] bytes = dataLoader.get(url);
+			response = new ConditionalResponse(dataLoader.get(url), null, null);
+		}
+		if (response.isNotModified() && previous != null) {
+
+			LOG.info("The TrustStatusList at {} was not modified.", url);
+			return new LoadedTrustStatusList(url, previous.trustStatusList, signingCertList, previous.digest, response);
+		}
+		final byte[] bytes = response.getContent();
 		if (bytes == null) {
 
 			throw new DSSNullReturnedException(url);
 		}
+		final byte[] digest = DSSUtils.digest(DigestAlgorithm.SHA256, bytes);
+		if (previous != null && Arrays.equals(digest, previous.digest)) {
+
+			LOG.info("The TrustStatusList at {} did not change.", url);
+			return new LoadedTrustStatusList(url, previous.trustStatusList, signingCertList, digest, response);
+		}
 		final Document doc = DSSXMLUtils.buildDOM(bytes);
+		if (previous != null) {
+
+			final BigInteger sequenceNumber = getSequenceNumber(doc);
+			final BigInteger previousSequenceNumber = previous.trustStatusList.getSequenceNumber();
+			if (sequenceNumber != null && previousSequenceNumber != null && sequenceNumber.compareTo(previousSequenceNumber) <= 0) {
+
+				if (sequenceNumber.compareTo(previousSequenceNumber) < 0) {
+					LOG.warn("The sequence number of the TrustStatusList at {} decreased ({} < {}): the previous version is kept.",
+					      new Object[]{url, sequenceNumber, previousSequenceNumber});
+				} else {
+					LOG.info("The sequence number of the TrustStatusList at {} did not change.", url);
+				}
+				return new LoadedTrustStatusList(url, previous.trustStatusList, signingCertList, previous.digest, response);
+			}
+		}
+		final TrustStatusList tsl = getTrustStatusList(doc, signingCertList);
+		return new LoadedTrustStatusList(url, tsl, signingCertList, digest, response);
+	}
+
+	private static boolean isReusable(final LoadedTrustStatusList previous, final String url, final List<X509Certificate> signingCertList) {
+
+		if (previous == null || !previous.url.equals(url)) {
+
+			return false;
+		}
+		return previous.signingCertList == null ? signingCertList == null : previous.signingCertList.equals(signingCertList);
+	}
+
+	/**
+	 * @param doc the DOM of the trusted list
+	 * @return the value of the {@code TSLSequenceNumber} element or {@code null} if it cannot be read
+	 */
+	private static BigInteger getSequenceNumber(final Document doc) {
+
+		final NodeList nodeList = doc.getElementsByTagNameNS("*", "TSLSequenceNumber");
+		if (nodeList.getLength() == 0) {
+
+			return null;
+		}
+		try {
+			return new BigInteger(nodeList.item(0).getTextContent().trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Verifies and parses a trusted list. If the {@code signingCertList} contains any {@code X509Certificate} then the validation of the signature of the TSL is done on the
+	 * given DOM, which is then unmarshalled: the trusted list is parsed only once.
+	 *
+	 * @param doc             the DOM of the TSL
+	 * @param signingCertList the {@code List} of the possible signing certificates
+	 * @return {@code TrustStatusList}
+	 */
+	private TrustStatusList getTrustStatusList(final Document doc, final List<X509Certificate> signingCertList) {
 
 		boolean coreValidity = true;
 		if (checkSignature) {
@@ -263,42 +491,8 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 			coreValidity = false;
 			if (signingCertList != null) {
 
-				final CommonTrustedCertificateSource commonTrustedCertificateSource = new CommonTrustedCertificateSource();
-				for (final X509Certificate x509Certificate : signingCertList) {
-
-					commonTrustedCertificateSource.addCertificate(x509Certificate);
-				}
-				final CertificateVerifier certificateVerifier = new CommonCertificateVerifier(true);
-				certificateVerifier.setTrustedCertSource(commonTrustedCertificateSource);
-
-				final DSSDocument dssDocument = new InMemoryDocument(bytes);
-				final XMLDocumentValidator xmlDocumentValidator = new XMLDocumentValidator(dssDocument);
-				xmlDocumentValidator.setCertificateVerifier(certificateVerifier);
-				// To increase the security: the default {@code XPathQueryHolder} is used.
-				final List<XPathQueryHolder> xPathQueryHolders = xmlDocumentValidator.getXPathQueryHolder();
-				xPathQueryHolders.clear();
-				final XPathQueryHolder xPathQueryHolder = new XPathQueryHolder();
-				xPathQueryHolders.add(xPathQueryHolder);
-
-				final List<AdvancedSignature> signatures = xmlDocumentValidator.getSignatures();
-				if (signatures.size() == 0) {
-
-					throw new DSSException("Not ETSI compliant signature. The Xml is not signed.");
-				}
-
-				final Reports reports = xmlDocumentValidator.validateDocument();
-				final SimpleReport simpleReport = reports.getSimpleReport();
-				final List<String> signatureIdList = simpleReport.getSignatureIds();
-				final String signatureId = signatureIdList.get(0);
-				final String indication = simpleReport.getIndication(signatureId);
-				coreValidity = Indication.VALID.equals(indication);
-				LOG.info("The TSL signature validity: " + coreValidity);
-				if (!coreValidity) {
-
-					LOG.info("The TSL signature validity details:\n" + simpleReport);
-					//					System.out.println(reports.getDiagnosticData());
-					throw new DSSException("Not ETSI compliant signature. The signature is not valid.");
-				}
+				TrustedListSignatureVerifier.verify(doc, signingCertList);
+				coreValidity = true;
 			}
 		}
 		final TrustStatusList tsl = TrustServiceListFactory.newInstance(doc);
@@ -312,58 +506,74 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 	public void init() {
 
 		diagnosticInfo.clear();
+		loadedLotl = null;
+		snapshotNextUpdate = null;
+		loadedTrustStatusLists.clear();
+		failedTrustStatusLists.clear();
 
 		X509Certificate lotlCert = null;
 		if (checkSignature) {
 
 			lotlCert = readLOTLCertificate();
 		}
-		TrustStatusList lotl;
 		try {
 
 			LOG.info("Downloading LOTL from url= {}", lotlUrl);
 			final ArrayList<X509Certificate> x509CertificateList = new ArrayList<X509Certificate>();
 			x509CertificateList.add(lotlCert);
-			lotl = getTrustStatusList(lotlUrl, x509CertificateList);
+			loadedLotl = fetchTrustStatusList(lotlUrl, x509CertificateList, previousSource == null ? null : previousSource.loadedLotl);
 		} catch (DSSException e) {
 
 			LOG.error("The LOTL cannot be loaded: " + e.getMessage(), e);
 			throw e;
 		}
 		diagnosticInfo.put(lotlUrl, "Loaded " + new Date().toString());
-		final int size = lotl.getOtherTSLPointers().size();
-		//        final ExecutorService executorService = Executors.newFixedThreadPool(size);
-		//        List<Future> futures = new ArrayList<Future>(size);
-		for (final PointerToOtherTSL pointerToTSL : lotl.getOtherTSLPointers()) {
-			//            Runnable runnable = new Runnable() {
-			//                public void run() {
-
-			final String url = pointerToTSL.getTslLocation();
-			final String territory = pointerToTSL.getTerritory();
-			final List<X509Certificate> signingCertList = pointerToTSL.getDigitalIdentity();
-			try {
-
-				loadTSL(url, territory, signingCertList);
-			} catch (DSSException e) {
-				LOG.error("Error loading trusted list for {} at {}", new Object[]{territory, url, e});
-				// do nothing continue with the next trusted list.
+		final List<PointerToOtherTSL> pointers = loadedLotl.trustStatusList.getOtherTSLPointers();
+		final int size = pointers.size();
+		final ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(loaderThreads, size)), new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable runnable) {
+
+				final Thread thread = new Thread(runnable, "dss-trusted-list-loader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+
+			final List<Future<LoadedTrustStatusList>> futures = new ArrayList<Future<LoadedTrustStatusList>>(size);
+			for (final PointerToOtherTSL pointerToTSL : pointers) {
+
+				final String url = pointerToTSL.getTslLocation();
+				if (DSSUtils.isBlank(url)) {
+
+					futures.add(null);
+					continue;
+				}
+				final String trimmedUrl = url.trim();
+				final String territory = pointerToTSL.getTerritory();
+				final String key = territory == null ? trimmedUrl : territory;
+				diagnosticInfo.put(trimmedUrl, "Loading");
+				futures.add(executorService.submit(new TrustStatusListFetcher(key, trimmedUrl, territory, pointerToTSL.getDigitalIdentity())));
 			}
+			// The certificates are added in the order of the LOTL: the digital identities given as X500Principal are resolved against the certificates already loaded.
+			for (int ii = 0; ii < size; ii++) {
 
-			//                }
-			//            };
-			//            final Future submit = executorService.submit(runnable);
-			//            futures.add(submit);
-		}
-
-		//        executorService.shutdown();
-		//        while (!executorService.isTerminated()){
-		//            try {
-		//                Thread.sleep(100);
-		//            } catch (InterruptedException e) {
-		//                throw new RuntimeException(e);
-		//            }
-		//        }
-		//        LOG.info("Parallel download of Trusted list done");
+				final PointerToOtherTSL pointerToTSL = pointers.get(ii);
+				final Future<LoadedTrustStatusList> future = futures.get(ii);
+				if (future == null) {
+
+					LOG.error("The URL is blank!");
+					continue;
+				}
+				loadTSL(pointerToTSL.getTslLocation().trim(), pointerToTSL.getTerritory(), future);
+			}
+		} finally {
+
+			executorService.shutdownNow();
+		}
+		LOG.info("Parallel download of Trusted list done");
 		loadAdditionalLists();
 		LOG.info("Loading completed: {} trusted lists", size);
 		LOG.info("                 : {} certificates", certPool.getNumberOfCertificates());
@@ -429,21 +639,80 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 			return;
 		}
 		final String trimmedUrl = url.trim();
+		final String key = territory == null ? trimmedUrl : territory;
+		diagnosticInfo.put(trimmedUrl, "Loading");
+		final FutureTask<LoadedTrustStatusList> task = new FutureTask<LoadedTrustStatusList>(new TrustStatusListFetcher(key, trimmedUrl, territory, signingCertList));
+		task.run();
+		loadTSL(trimmedUrl, territory, task);
+	}
+
+	/**
+	 * Adds the certificates of the TSL loaded by the given task. This method must be called in the order of the LOTL.
+	 *
+	 * @param trimmedUrl of the TSL
+	 * @param territory  of the TSL
+	 * @param future     the task loading the TSL
+	 */
+	private void loadTSL(final String trimmedUrl, final String territory, final Future<LoadedTrustStatusList> future) {
+
+		final String key = territory == null ? trimmedUrl : territory;
 		try {
 
-			diagnosticInfo.put(trimmedUrl, "Loading");
-			LOG.info("Downloading TrustStatusList for '{}' from url= {}", territory, trimmedUrl);
-			final TrustStatusList countryTSL = getTrustStatusList(trimmedUrl, signingCertList);
-			loadAllCertificatesFromOneTSL(countryTSL);
+			final LoadedTrustStatusList countryTSL = getLoadedTrustStatusList(future);
+			loadAllCertificatesFromOneTSL(countryTSL.trustStatusList);
+			loadedTrustStatusLists.put(key, countryTSL);
 			LOG.info(".... done for '{}'", territory);
 			diagnosticInfo.put(trimmedUrl, "Loaded " + new Date().toString());
 		} catch (final DSSNullReturnedException e) {
 
 			LOG.info("Download skipped.");
 			// do nothing: it can happened when a mock data loader is used.
+			failedTrustStatusLists.put(key, trimmedUrl);
 		} catch (final RuntimeException e) {
 
 			makeATrace(trimmedUrl, "Other problem: " + e.toString(), e);
+			failedTrustStatusLists.put(key, trimmedUrl);
+		}
+	}
+
+	private static LoadedTrustStatusList getLoadedTrustStatusList(final Future<LoadedTrustStatusList> future) throws DSSException {
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new DSSException(e);
+		} catch (ExecutionException e) {
+
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new DSSException(cause);
+		}
+	}
+
+	/**
+	 * This method adds the certificates of the trusted lists which could not be loaded by this source but which were loaded by the previous source. It allows to keep the
+	 * trusted services of a territory when its trusted list is temporarily not available.
+	 *
+	 * @param previousSource the source which was used before this one
+	 */
+	protected void reuseFailedTrustStatusLists(final TrustedListsCertificateSource previousSource) {
+
+		for (final Entry<String, String> failedEntry : failedTrustStatusLists.entrySet()) {
+
+			final String key = failedEntry.getKey();
+			final LoadedTrustStatusList previousTSL = previousSource.loadedTrustStatusLists.get(key);
+			if (previousTSL == null) {
+				continue;
+			}
+			LOG.warn("The trusted list of '{}' cannot be loaded, the previously loaded version is kept.", key);
+			loadAllCertificatesFromOneTSL(previousTSL.trustStatusList);
+			loadedTrustStatusLists.put(key, previousTSL);
+			final String url = failedEntry.getValue();
+			diagnosticInfo.put(url, "Previous version kept: " + previousSource.diagnosticInfo.get(url));
 		}
 	}
 
@@ -505,6 +774,200 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 		}
 	}
 
+	/**
+	 * Saves the trusted certificates of this source with their service information, the diagnostic information and the next update date in a binary snapshot file. This file
+	 * allows a new node to be operational before the trusted lists are loaded (see {@code #loadSnapshot(File)}). The snapshot is written in a temporary file which is then
+	 * renamed: a reader never sees a partially written snapshot. The file ends with an HMAC-SHA256 of its content when a snapshot key is defined (see {@code
+	 * #setSnapshotKey(byte[])}), otherwise with a SHA-256 digest which only detects a corrupted file.
+	 *
+	 * @param file the snapshot file
+	 * @throws DSSException if the snapshot cannot be written
+	 */
+	public void saveSnapshot(final File file) throws DSSException {
+
+		final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		ObjectOutputStream outputStream = null;
+		try {
+
+			outputStream = new ObjectOutputStream(snapshot);
+			outputStream.writeInt(SNAPSHOT_VERSION);
+			outputStream.writeObject(new Date());
+			outputStream.writeObject(lotlUrl);
+			outputStream.writeObject(getNextUpdate());
+			outputStream.writeObject(new HashMap<String, String>(diagnosticInfo));
+			final List<CertificateToken> certificateTokens = certPool.getCertificateTokens();
+			outputStream.writeInt(certificateTokens.size());
+			for (final CertificateToken certificateToken : certificateTokens) {
+
+				final byte[] encoded = DSSUtils.getEncoded(certificateToken.getCertificate());
+				outputStream.writeInt(encoded.length);
+				outputStream.write(encoded);
+				// The service information shared by several certificates is written only once
+				outputStream.writeObject(new ArrayList<ServiceInfo>(certificateToken.getAssociatedTSPS()));
+			}
+			outputStream.close();
+			outputStream = null;
+		} catch (IOException e) {
+
+			throw new DSSException("Cannot write the snapshot: " + file, e);
+		} finally {
+
+			DSSUtils.closeQuietly(outputStream);
+		}
+		final byte[] content = snapshot.toByteArray();
+		final File tmpFile = new File(file.getPath() + ".tmp");
+		FileOutputStream fileOutputStream = null;
+		try {
+
+			fileOutputStream = new FileOutputStream(tmpFile);
+			fileOutputStream.write(content);
+			fileOutputStream.write(computeSnapshotCheck(content, content.length));
+			fileOutputStream.close();
+			fileOutputStream = null;
+		} catch (IOException e) {
+
+			throw new DSSException("Cannot write the snapshot: " + file, e);
+		} finally {
+
+			DSSUtils.closeQuietly(fileOutputStream);
+		}
+		if (!tmpFile.renameTo(file) && !(file.delete() && tmpFile.renameTo(file))) {
+
+			throw new DSSException("Cannot write the snapshot: " + file);
+		}
+		LOG.info("Snapshot saved: {} certificates", certPool.getNumberOfCertificates());
+	}
+
+	/**
+	 * Loads the trusted certificates from a snapshot file written by {@code #saveSnapshot(File)}, without downloading any trusted list. The trusted lists should be loaded
+	 * afterwards to take into account their latest versions.
+	 * <p/>
+	 * The snapshot is refused when its integrity check fails, when it is older than {@code #getSnapshotMaxAge()} or when the earliest next update date of its trusted lists
+	 * has passed. Without snapshot key (see {@code #setSnapshotKey(byte[])}) the integrity check only detects a corrupted file: the snapshot file must then be protected like
+	 * any trust store and must not be writable by untrusted users. Only the classes written by {@code #saveSnapshot(File)} can be deserialized: the service information, its
+	 * conditions and a few JDK value classes (see {@code SnapshotInputStream}).
+	 *
+	 * @param file the snapshot file
+	 * @throws DSSException if the snapshot cannot be read, is not intact, is outdated or was built for another LOTL
+	 */
+	@SuppressWarnings("unchecked")
+	public void loadSnapshot(final File file) throws DSSException {
+
+		final byte[] snapshot = DSSUtils.toByteArray(file);
+		final int contentLength = snapshot.length - SNAPSHOT_CHECK_LENGTH;
+		if (contentLength <= 0) {
+
+			throw new DSSException("The snapshot is truncated: " + file);
+		}
+		final byte[] check = Arrays.copyOfRange(snapshot, contentLength, snapshot.length);
+		if (!MessageDigest.isEqual(check, computeSnapshotCheck(snapshot, contentLength))) {
+
+			throw new DSSException("The integrity check of the snapshot failed (corrupted file, modified file or other snapshot key): " + file);
+		}
+		ObjectInputStream inputStream = null;
+		try {
+
+			inputStream = new SnapshotInputStream(new ByteArrayInputStream(snapshot, 0, contentLength));
+			final int version = inputStream.readInt();
+			if (version != SNAPSHOT_VERSION) {
+
+				throw new DSSException("Unsupported snapshot version: " + version);
+			}
+			final Date now = new Date();
+			final Date snapshotDate = (Date) inputStream.readObject();
+			if (snapshotMaxAge > 0 && snapshotDate.getTime() + snapshotMaxAge < now.getTime()) {
+
+				throw new DSSException("The snapshot is too old: " + DSSUtils.formatInternal(snapshotDate));
+			}
+			final String snapshotLotlUrl = (String) inputStream.readObject();
+			if (lotlUrl != null && !lotlUrl.equals(snapshotLotlUrl)) {
+
+				throw new DSSException("The snapshot was built for another LOTL: " + snapshotLotlUrl);
+			}
+			final Date nextUpdate = (Date) inputStream.readObject();
+			if (nextUpdate != null && nextUpdate.before(now)) {
+
+				throw new DSSException("The next update date of the trusted lists of the snapshot has passed: " + DSSUtils.formatInternal(nextUpdate));
+			}
+			snapshotNextUpdate = nextUpdate;
+			diagnosticInfo.putAll((Map<String, String>) inputStream.readObject());
+			final List<CertificateSourceType> sources = Collections.singletonList(getCertificateSourceType());
+			final int size = inputStream.readInt();
+			for (int ii = 0; ii < size; ii++) {
+
+				final byte[] encoded = new byte[inputStream.readInt()];
+				inputStream.readFully(encoded);
+				final List<ServiceInfo> services = (List<ServiceInfo>) inputStream.readObject();
+				addCertificate(DSSUtils.loadCertificate(encoded), sources, services);
+			}
+			LOG.info("Snapshot loaded: {} certificates", size);
+		} catch (IOException e) {
+
+			throw new DSSException("Cannot read the snapshot: " + file, e);
+		} catch (ClassNotFoundException e) {
+
+			throw new DSSException("Cannot read the snapshot: " + file, e);
+		} finally {
+
+			DSSUtils.closeQuietly(inputStream);
+		}
+	}
+
+	/**
+	 * @param content the content of the snapshot file
+	 * @param length  the length of the content to check
+	 * @return the HMAC-SHA256 of the content when a snapshot key is defined, its SHA-256 digest otherwise
+	 */
+	private byte[] computeSnapshotCheck(final byte[] content, final int length) throws DSSException {
+
+		try {
+
+			if (snapshotKey == null) {
+
+				final MessageDigest messageDigest = DSSUtils.getMessageDigest(DigestAlgorithm.SHA256);
+				messageDigest.update(content, 0, length);
+				return messageDigest.digest();
+			}
+			final Mac mac = Mac.getInstance(SNAPSHOT_MAC_ALGORITHM);
+			mac.init(new SecretKeySpec(snapshotKey, SNAPSHOT_MAC_ALGORITHM));
+			mac.update(content, 0, length);
+			return mac.doFinal();
+		} catch (NoSuchAlgorithmException e) {
+			throw new DSSException(e);
+		} catch (InvalidKeyException e) {
+			throw new DSSException(e);
+		}
+	}
+
+	/**
+	 * @return the maximum age (in milliseconds) of a snapshot file which can be loaded, 0 means that the age is not checked
+	 */
+	public long getSnapshotMaxAge() {
+
+		return snapshotMaxAge;
+	}
+
+	/**
+	 * Defines the maximum age (in milliseconds) of a snapshot file which can be loaded. The default value is {@code #DEFAULT_SNAPSHOT_MAX_AGE}.
+	 *
+	 * @param snapshotMaxAge the maximum age, 0 disables the check
+	 */
+	public void setSnapshotMaxAge(final long snapshotMaxAge) {
+
+		this.snapshotMaxAge = snapshotMaxAge;
+	}
+
+	/**
+	 * Defines the secret key of the HMAC-SHA256 written at the end of the snapshot file and checked when it is loaded. The same key must be used to save and to load the
+	 * snapshot.
+	 *
+	 * @param snapshotKey the secret key or {@code null} to only detect the corrupted files
+	 */
+	public void setSnapshotKey(final byte[] snapshotKey) {
+
+		this.snapshotKey = snapshotKey == null ? null : snapshotKey.clone();
+	}
+
 	/**
 	 * Defines if the TL signature must be checked.
 	 *
@@ -542,4 +1005,76 @@ public class TrustedListsCertificateSource extends CommonTrustedCertificateSourc
 
 		this.dataLoader = dataLoader;
 	}
+
+	/**
+	 * Defines the maximum number of trusted lists downloaded and verified in parallel. The default value is {@code #DEFAULT_LOADER_THREADS}.
+	 *
+	 * @param loaderThreads the number of threads to use
+	 */
+	public void setLoaderThreads(final int loaderThreads) {
+
+		this.loaderThreads = loaderThreads;
+	}
+
+	/**
+	 * Defines the source built by the previous loading: the trusted lists which did not change since this loading are reused without being verified again. When a
+	 * {@code ConditionalDataLoader} is used the trusted lists are downloaded only if they were modified.
+	 *
+	 * @param previousSource the previous source or {@code null}
+	 */
+	public void setPreviousSource(final TrustedListsCertificateSource previousSource) {
+
+		this.previousSource = previousSource;
+	}
+
+	/**
+	 * Returns the earliest next update date of the loaded trusted lists (LOTL included). It can be used to schedule the next loading.
+	 *
+	 * @return the earliest next update date or {@code null} if none is known
+	 */
+	public Date getNextUpdate() {
+
+		if (loadedLotl == null) {
+
+			return snapshotNextUpdate;
+		}
+		Date nextUpdate = loadedLotl.trustStatusList.getNextUpdate();
+		for (final LoadedTrustStatusList loadedTrustStatusList : loadedTrustStatusLists.values()) {
+
+			final Date tslNextUpdate = loadedTrustStatusList.trustStatusList.getNextUpdate();
+			if (tslNextUpdate != null && (nextUpdate == null || tslNextUpdate.before(nextUpdate))) {
+
+				nextUpdate = tslNextUpdate;
+			}
+		}
+		return nextUpdate;
+	}
+
+	/**
+	 * This {@code ObjectInputStream} only resolves the classes which can be found in a snapshot file: any other class is rejected before being instantiated.
+	 */
+	private static final class SnapshotInputStream extends ObjectInputStream {
+
+		private static final String CONDITION_PACKAGE = ServiceInfo.class.getPackage().getName() + ".";
+
+		private static final Set<String> ALLOWED_CLASSES = new HashSet<String>(Arrays
+			  .asList(String.class.getName(), Date.class.getName(), HashMap.class.getName(), ArrayList.class.getName(), Enum.class.getName(), Number.class.getName(),
+				    Integer.class.getName(), Boolean.class.getName()));
+
+		SnapshotInputStream(final InputStream inputStream) throws IOException {
+
+			super(inputStream);
+		}
+
+		@Override
+		protected Class<?> resolveClass(final ObjectStreamClass objectStreamClass) throws IOException, ClassNotFoundException {
+
+			final String className = objectStreamClass.getName();
+			if (!ALLOWED_CLASSES.contains(className) && !className.startsWith(CONDITION_PACKAGE)) {
+
+				throw new InvalidClassException(className, "Unexpected class in the snapshot file");
+			}
+			return super.resolveClass(objectStreamClass);
+		}
+	}
 }
@@ -137,7 +137,7 @@ public class OfflineResolver extends ResourceResolverSpi {
 		return null;
 	}
 
-	private DSSDocument getDocument(final String documentUri) {
+	DSSDocument getDocument(final String documentUri) {
 
 		final DSSDocument document = isKnown(documentUri);
 		if (document != null) {
@@ -0,0 +1,575 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.xades;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xml.security.utils.Constants;
+
+import eu.europa.ec.markt.dss.DSSXMLUtils;
+import eu.europa.ec.markt.dss.exception.DSSException;
+
+/**
+ * This class canonicalizes an XML document read as a stream of StAX events. Only the node-sets handled by the streaming validation are supported: the whole document or the
+ * subtree of the element with a given Id, without comments, optionally without one {@code ds:Signature} element (enveloped-signature transform). The namespaces are rendered
+ * according to the inclusive (c14n 1.0 and 1.1) or to the exclusive canonicalization. Only the namespace declarations and the xml:* attributes of the ancestors are kept in
+ * memory.
+ * <p/>
+ * An instance is used to canonicalize only one document.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+final class StreamingCanonicalizer {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final XMLInputFactory XML_INPUT_FACTORY;
+
+	static {
+
+		XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.TRUE);
+		XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+
+	/**
+	 * The attributes are sorted by namespace URI and then by local name.
+	 */
+	private static final Comparator<String[]> ATTRIBUTE_COMPARATOR = new Comparator<String[]>() {
+
+		@Override
+		public int compare(final String[] attribute1, final String[] attribute2) {
+
+			final int result = attribute1[0].compareTo(attribute2[0]);
+			return result != 0 ? result : attribute1[1].compareTo(attribute2[1]);
+		}
+	};
+
+	private final boolean exclusive;
+
+	private final int excludedSignatureIndex;
+
+	private final String apexId;
+
+	/**
+	 * The namespace declarations of each open element, {@code null} when the element does not declare any namespace.
+	 */
+	private final List<Map<String, String>> declaredNamespaces = new ArrayList<Map<String, String>>();
+
+	/**
+	 * The xml:* attributes of each open element, {@code null} when the element does not have such an attribute.
+	 */
+	private final List<Map<String, String>> declaredXmlAttributes = new ArrayList<Map<String, String>>();
+
+	/**
+	 * The namespaces rendered by each open output element.
+	 */
+	private final List<Map<String, String>> renderedNamespaces = new ArrayList<Map<String, String>>();
+
+	private int signatureCount;
+
+	private int excludedElementDepth = -1;
+
+	private int apexElementDepth = -1;
+
+	private boolean afterDocumentElement;
+
+	private Writer writer;
+
+	/**
+	 * The canonicalization of the subtree stops at the end of the first element with the given Id: the caller must make sure that this Id is unique within the document.
+	 *
+	 * @param exclusive              {@code true} for the exclusive canonicalization, {@code false} for the inclusive canonicalization
+	 * @param excludedSignatureIndex the index (in document order) of the {@code ds:Signature} element to exclude, -1 if none
+	 * @param apexId                 the Id of the element at the apex of the subtree to canonicalize, {@code null} to canonicalize the whole document
+	 */
+	StreamingCanonicalizer(final boolean exclusive, final int excludedSignatureIndex, final String apexId) {
+
+		this.exclusive = exclusive;
+		this.excludedSignatureIndex = excludedSignatureIndex;
+		this.apexId = apexId;
+	}
+
+	/**
+	 * This method creates a namespace aware {@code XMLStreamReader} which does not resolve the external entities.
+	 *
+	 * @param inputStream the XML document
+	 * @return the {@code XMLStreamReader}
+	 * @throws XMLStreamException
+	 */
+	static XMLStreamReader createReader(final InputStream inputStream) throws XMLStreamException {
+
+		synchronized (XML_INPUT_FACTORY) {
+			return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+		}
+	}
+
+	/**
+	 * @param reader the {@code XMLStreamReader} positioned on a start element
+	 * @return {@code true} if the current element is a {@code ds:Signature} element
+	 */
+	static boolean isSignature(final XMLStreamReader reader) {
+
+		return XPathQueryHolder.XMLE_SIGNATURE.equals(reader.getLocalName()) && Constants.SignatureSpecNS.equals(reader.getNamespaceURI());
+	}
+
+	/**
+	 * This method returns the value of the first attribute named Id (case-insensitive), as {@code DSSXMLUtils#getIDIdentifier} does.
+	 *
+	 * @param reader the {@code XMLStreamReader} positioned on a start element
+	 * @return the Id of the current element or {@code null}
+	 */
+	static String getIdAttribute(final XMLStreamReader reader) {
+
+		for (int ii = 0; ii < reader.getAttributeCount(); ii++) {
+
+			final String prefix = reader.getAttributePrefix(ii);
+			if ((prefix == null || prefix.isEmpty()) && DSSXMLUtils.ID_ATTRIBUTE_NAME.equalsIgnoreCase(reader.getAttributeLocalName(ii))) {
+				return reader.getAttributeValue(ii);
+			}
+		}
+		return null;
+	}
+
+	static String getQualifiedName(final String prefix, final String localName) {
+
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+	}
+
+	/**
+	 * This method writes the canonical form of the node-set to the given {@code OutputStream}. The {@code OutputStream} is flushed but not closed.
+	 *
+	 * @param inputStream  the XML document
+	 * @param outputStream the {@code OutputStream} receiving the canonical form
+	 * @return {@code false} if the document cannot be canonicalized in streaming mode (DTD, unresolved entity reference) or if the element with the given Id is not found
+	 * @throws DSSException
+	 */
+	boolean canonicalize(final InputStream inputStream, final OutputStream outputStream) throws DSSException {
+
+		XMLStreamReader reader = null;
+		try {
+
+			reader = createReader(inputStream);
+			writer = new BufferedWriter(new OutputStreamWriter(outputStream, "UTF-8"), BUFFER_SIZE);
+			while (reader.hasNext()) {
+
+				final int event = reader.next();
+				switch (event) {
+
+					case XMLStreamConstants.DTD:
+					case XMLStreamConstants.ENTITY_REFERENCE:
+						return false;
+					case XMLStreamConstants.START_ELEMENT:
+						startElement(reader);
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (endElement(reader)) {
+
+							writer.flush();
+							return true;
+						}
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+					case XMLStreamConstants.SPACE:
+						if (isOutput()) {
+							writeText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						}
+						break;
+					case XMLStreamConstants.PROCESSING_INSTRUCTION:
+						processingInstruction(reader);
+						break;
+					default:
+						break;
+				}
+			}
+			writer.flush();
+			return apexId == null;
+		} catch (XMLStreamException e) {
+			throw new DSSException(e);
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} finally {
+			closeQuietly(reader);
+		}
+	}
+
+	static void closeQuietly(final XMLStreamReader reader) {
+
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				// ignore
+			}
+		}
+	}
+
+	private boolean isOutput() {
+
+		if (excludedElementDepth >= 0) {
+			return false;
+		}
+		return apexId == null ? !declaredNamespaces.isEmpty() : apexElementDepth >= 0;
+	}
+
+	private void startElement(final XMLStreamReader reader) throws IOException {
+
+		final int depth = declaredNamespaces.size();
+		declaredNamespaces.add(getNamespaceDeclarations(reader));
+		declaredXmlAttributes.add(getXmlAttributes(reader));
+		if (isSignature(reader)) {
+
+			final int signatureIndex = signatureCount++;
+			if (signatureIndex == excludedSignatureIndex && excludedElementDepth < 0) {
+				excludedElementDepth = depth;
+			}
+		}
+		if (excludedElementDepth >= 0) {
+			return;
+		}
+		boolean apex = false;
+		if (apexId != null && apexElementDepth < 0) {
+
+			if (!apexId.equals(getIdAttribute(reader))) {
+				return;
+			}
+			apexElementDepth = depth;
+			apex = true;
+		}
+		writeStartElement(reader, depth, apex);
+	}
+
+	/**
+	 * @return {@code true} when the end of the apex element is reached
+	 */
+	private boolean endElement(final XMLStreamReader reader) throws IOException {
+
+		final int depth = declaredNamespaces.size() - 1;
+		try {
+
+			if (excludedElementDepth >= 0) {
+
+				if (depth == excludedElementDepth) {
+					excludedElementDepth = -1;
+				}
+				return false;
+			}
+			if (depth == 0) {
+				afterDocumentElement = true;
+			}
+			if (apexId != null && apexElementDepth < 0) {
+				return false;
+			}
+			writer.write("</");
+			writer.write(getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+			writer.write('>');
+			renderedNamespaces.remove(renderedNamespaces.size() - 1);
+			return depth == apexElementDepth;
+		} finally {
+
+			declaredNamespaces.remove(depth);
+			declaredXmlAttributes.remove(depth);
+		}
+	}
+
+	private void processingInstruction(final XMLStreamReader reader) throws IOException {
+
+		final boolean outsideDocumentElement = apexId == null && declaredNamespaces.isEmpty();
+		if (!outsideDocumentElement && !isOutput()) {
+			return;
+		}
+		if (outsideDocumentElement && afterDocumentElement) {
+			writer.write('\n');
+		}
+		writer.write("<?");
+		writer.write(reader.getPITarget());
+		final String data = reader.getPIData();
+		if (data != null && !data.isEmpty()) {
+
+			writer.write(' ');
+			writer.write(data);
+		}
+		writer.write("?>");
+		if (outsideDocumentElement && !afterDocumentElement) {
+			writer.write('\n');
+		}
+	}
+
+	private void writeStartElement(final XMLStreamReader reader, final int depth, final boolean apex) throws IOException {
+
+		writer.write('<');
+		writer.write(getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+
+		final Map<String, String> namespaces = getNamespacesToRender(reader, depth, apex);
+		for (final Map.Entry<String, String> entry : namespaces.entrySet()) {
+
+			final String prefix = entry.getKey();
+			writer.write(prefix.isEmpty() ? " xmlns=\"" : " xmlns:" + prefix + "=\"");
+			writeAttributeValue(entry.getValue());
+			writer.write('"');
+		}
+		renderedNamespaces.add(namespaces);
+
+		final List<String[]> attributes = new ArrayList<String[]>(reader.getAttributeCount());
+		for (int ii = 0; ii < reader.getAttributeCount(); ii++) {
+
+			final String namespace = reader.getAttributeNamespace(ii);
+			final String localName = reader.getAttributeLocalName(ii);
+			final String qualifiedName = getQualifiedName(reader.getAttributePrefix(ii), localName);
+			attributes.add(new String[]{namespace == null ? "" : namespace, localName, qualifiedName, reader.getAttributeValue(ii)});
+		}
+		if (apex && !exclusive) {
+
+			// The xml:* attributes of the ancestors are inherited by the apex of the subset
+			final Map<String, String> xmlAttributes = new HashMap<String, String>();
+			for (int ii = 0; ii < depth; ii++) {
+
+				final Map<String, String> declared = declaredXmlAttributes.get(ii);
+				if (declared != null) {
+					xmlAttributes.putAll(declared);
+				}
+			}
+			final Map<String, String> ownXmlAttributes = declaredXmlAttributes.get(depth);
+			for (final Map.Entry<String, String> entry : xmlAttributes.entrySet()) {
+
+				final String localName = entry.getKey();
+				if (ownXmlAttributes == null || !ownXmlAttributes.containsKey(localName)) {
+					attributes.add(new String[]{XMLConstants.XML_NS_URI, localName, XMLConstants.XML_NS_PREFIX + ":" + localName, entry.getValue()});
+				}
+			}
+		}
+		Collections.sort(attributes, ATTRIBUTE_COMPARATOR);
+		for (final String[] attribute : attributes) {
+
+			writer.write(' ');
+			writer.write(attribute[2]);
+			writer.write("=\"");
+			writeAttributeValue(attribute[3]);
+			writer.write('"');
+		}
+		writer.write('>');
+	}
+
+	private Map<String, String> getNamespacesToRender(final XMLStreamReader reader, final int depth, final boolean apex) {
+
+		final Map<String, String> namespaces = new TreeMap<String, String>();
+		if (exclusive) {
+
+			final TreeSet<String> utilizedPrefixes = new TreeSet<String>();
+			utilizedPrefixes.add(nullToEmpty(reader.getPrefix()));
+			for (int ii = 0; ii < reader.getAttributeCount(); ii++) {
+
+				final String prefix = nullToEmpty(reader.getAttributePrefix(ii));
+				if (!prefix.isEmpty() && !XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+					utilizedPrefixes.add(prefix);
+				}
+			}
+			for (final String prefix : utilizedPrefixes) {
+
+				final String namespace = nullToEmpty(getInScopeNamespace(prefix, depth));
+				String renderedNamespace = getRenderedNamespace(prefix);
+				if (renderedNamespace == null && prefix.isEmpty()) {
+					renderedNamespace = "";
+				}
+				if (!namespace.equals(renderedNamespace)) {
+					namespaces.put(prefix, namespace);
+				}
+			}
+		} else if (apex) {
+
+			for (int ii = 0; ii <= depth; ii++) {
+
+				final Map<String, String> declared = declaredNamespaces.get(ii);
+				if (declared != null) {
+					namespaces.putAll(declared);
+				}
+			}
+			if ("".equals(namespaces.get(""))) {
+				namespaces.remove("");
+			}
+		} else {
+
+			final Map<String, String> declared = declaredNamespaces.get(depth);
+			if (declared != null) {
+
+				for (final Map.Entry<String, String> entry : declared.entrySet()) {
+
+					final String prefix = entry.getKey();
+					String parentNamespace = getInScopeNamespace(prefix, depth - 1);
+					if (parentNamespace == null && prefix.isEmpty()) {
+						parentNamespace = "";
+					}
+					if (!entry.getValue().equals(parentNamespace)) {
+						namespaces.put(prefix, entry.getValue());
+					}
+				}
+			}
+		}
+		return namespaces;
+	}
+
+	private String getInScopeNamespace(final String prefix, final int depth) {
+
+		for (int ii = depth; ii >= 0; ii--) {
+
+			final Map<String, String> declared = declaredNamespaces.get(ii);
+			if (declared != null && declared.containsKey(prefix)) {
+				return declared.get(prefix);
+			}
+		}
+		return null;
+	}
+
+	private String getRenderedNamespace(final String prefix) {
+
+		for (int ii = renderedNamespaces.size() - 1; ii >= 0; ii--) {
+
+			final String namespace = renderedNamespaces.get(ii).get(prefix);
+			if (namespace != null) {
+				return namespace;
+			}
+		}
+		return null;
+	}
+
+	static Map<String, String> getNamespaceDeclarations(final XMLStreamReader reader) {
+
+		final int count = reader.getNamespaceCount();
+		if (count == 0) {
+			return null;
+		}
+		final Map<String, String> namespaces = new HashMap<String, String>(count * 2);
+		for (int ii = 0; ii < count; ii++) {
+
+			final String prefix = nullToEmpty(reader.getNamespacePrefix(ii));
+			if (!XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+				namespaces.put(prefix, nullToEmpty(reader.getNamespaceURI(ii)));
+			}
+		}
+		return namespaces;
+	}
+
+	static Map<String, String> getXmlAttributes(final XMLStreamReader reader) {
+
+		Map<String, String> xmlAttributes = null;
+		for (int ii = 0; ii < reader.getAttributeCount(); ii++) {
+
+			if (XMLConstants.XML_NS_URI.equals(reader.getAttributeNamespace(ii))) {
+
+				if (xmlAttributes == null) {
+					xmlAttributes = new HashMap<String, String>();
+				}
+				xmlAttributes.put(reader.getAttributeLocalName(ii), reader.getAttributeValue(ii));
+			}
+		}
+		return xmlAttributes;
+	}
+
+	private static String nullToEmpty(final String value) {
+
+		return value == null ? "" : value;
+	}
+
+	private void writeText(final char[] characters, final int start, final int length) throws IOException {
+
+		final int end = start + length;
+		int last = start;
+		for (int ii = start; ii < end; ii++) {
+
+			final String replacement;
+			switch (characters[ii]) {
+
+				case '&':
+					replacement = "&amp;";
+					break;
+				case '<':
+					replacement = "&lt;";
+					break;
+				case '>':
+					replacement = "&gt;";
+					break;
+				case '\r':
+					replacement = "&#xD;";
+					break;
+				default:
+					continue;
+			}
+			writer.write(characters, last, ii - last);
+			writer.write(replacement);
+			last = ii + 1;
+		}
+		writer.write(characters, last, end - last);
+	}
+
+	private void writeAttributeValue(final String value) throws IOException {
+
+		for (int ii = 0; ii < value.length(); ii++) {
+
+			final char character = value.charAt(ii);
+			switch (character) {
+
+				case '&':
+					writer.write("&amp;");
+					break;
+				case '<':
+					writer.write("&lt;");
+					break;
+				case '"':
+					writer.write("&quot;");
+					break;
+				case '\t':
+					writer.write("&#x9;");
+					break;
+				case '\n':
+					writer.write("&#xA;");
+					break;
+				case '\r':
+					writer.write("&#xD;");
+					break;
+				default:
+					writer.write(character);
+			}
+		}
+	}
+}
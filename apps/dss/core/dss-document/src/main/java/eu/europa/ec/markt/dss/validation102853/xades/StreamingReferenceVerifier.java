@@ -0,0 +1,300 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.xades;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.xml.security.exceptions.XMLSecurityException;
+import org.apache.xml.security.signature.Reference;
+import org.apache.xml.security.signature.XMLSignature;
+import org.apache.xml.security.transforms.Transform;
+import org.apache.xml.security.transforms.Transforms;
+import org.apache.xml.security.utils.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DSSXMLUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.validation102853.toolbox.XPointerResourceResolver;
+
+/**
+ * This class verifies the references of the signatures validated by the {@code StreamingXMLDocumentValidator}. Only the subtrees of the signatures are available as DOM: the
+ * references pointing to the enveloping document are verified by canonicalizing the document on the fly into the digest (see {@code StreamingCanonicalizer}). When the
+ * transforms of a reference cannot be applied on a stream, the DOM of the whole document is built once and the reference is verified by Santuario.
+ * <p/>
+ * A same-document reference to an Id which is not unique within the whole document is not verified: the streaming mode and the DOM mode would not resolve it to the same
+ * element (signature wrapping).
+ *
+ * @version $Revision$ - $Date$
+ */
+
+final class StreamingReferenceVerifier {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StreamingReferenceVerifier.class);
+
+	private final DSSDocument document;
+
+	/**
+	 * The index in document order of each {@code ds:Signature} element kept in memory.
+	 */
+	private final Map<Element, Integer> signatureIndexes = new IdentityHashMap<Element, Integer>();
+
+	/**
+	 * The results of the verified references, the key is composed of the index of the signature and the index of the reference.
+	 */
+	private final Map<String, Boolean> results = new HashMap<String, Boolean>();
+
+	/**
+	 * The Ids of all the elements of the document.
+	 */
+	private final Set<String> ids = new HashSet<String>();
+
+	/**
+	 * The Ids carried by more than one element of the document.
+	 */
+	private final Set<String> duplicateIds = new HashSet<String>();
+
+	/**
+	 * The DOM of the whole document, built only when a reference cannot be verified in streaming mode.
+	 */
+	private Document fullDocument;
+
+	StreamingReferenceVerifier(final DSSDocument document) {
+
+		this.document = document;
+	}
+
+	void registerSignature(final Element signatureElement, final int signatureIndex) {
+
+		signatureIndexes.put(signatureElement, signatureIndex);
+	}
+
+	/**
+	 * This method must be called for each element of the document carrying an Id, within the signatures or not.
+	 *
+	 * @param id the Id of an element
+	 */
+	void registerId(final String id) {
+
+		if (!ids.add(id)) {
+			duplicateIds.add(id);
+		}
+	}
+
+	/**
+	 * @param reference the {@code Reference} to check
+	 * @return {@code true} if the given reference points to an Id carried by more than one element of the document
+	 */
+	private boolean isDuplicateIdReference(final Reference reference) {
+
+		final String uri = reference.getURI();
+		return uri != null && uri.startsWith("#") && duplicateIds.contains(uri.substring(1));
+	}
+
+	/**
+	 * @param signatureElement the {@code ds:Signature} element
+	 * @param reference        the {@code Reference} to check
+	 * @return {@code true} if the given reference points to the document out of the subtree of the signature or to a duplicate Id
+	 */
+	boolean isDocumentReference(final Element signatureElement, final Reference reference) {
+
+		if (!signatureIndexes.containsKey(signatureElement)) {
+			return false;
+		}
+		if (isDuplicateIdReference(reference)) {
+			return true;
+		}
+		final String uri = reference.getURI();
+		if (uri == null) {
+			return false;
+		}
+		if (uri.isEmpty() || XPointerResourceResolver.isXPointerQuery(uri, true)) {
+			return true;
+		}
+		if (!uri.startsWith("#")) {
+			return false;
+		}
+		return signatureElement.getOwnerDocument().getElementById(uri.substring(1)) == null;
+	}
+
+	/**
+	 * This method verifies the digest of a reference pointing to the document. The result is kept.
+	 *
+	 * @param signatureElement the {@code ds:Signature} element
+	 * @param referenceIndex   the index of the reference within the {@code SignedInfo}
+	 * @param reference        the {@code Reference} to verify
+	 * @param detachedContents the detached contents of the signature
+	 * @return {@code true} if the digest of the referenced data is intact, {@code false} when the referenced Id is not unique
+	 * @throws XMLSecurityException
+	 */
+	synchronized boolean verify(final Element signatureElement, final int referenceIndex, final Reference reference,
+	                            final List<DSSDocument> detachedContents) throws XMLSecurityException {
+
+		final Integer signatureIndex = signatureIndexes.get(signatureElement);
+		if (signatureIndex == null) {
+			throw new DSSException("The signature element is not registered!");
+		}
+		final String key = signatureIndex + "/" + referenceIndex;
+		Boolean result = results.get(key);
+		if (result == null && isDuplicateIdReference(reference)) {
+
+			LOG.warn("The reference '{}' points to an Id which is not unique within the document: it is considered as invalid.", reference.getURI());
+			result = false;
+			results.put(key, result);
+		}
+		if (result == null) {
+
+			final byte[] digest = digest(signatureIndex, reference);
+			if (digest != null) {
+				result = Arrays.equals(digest, reference.getDigestValue());
+			} else {
+				result = verifyOnFullDocument(signatureIndex, referenceIndex, detachedContents);
+			}
+			results.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the digest of the canonicalized referenced data or {@code null} if the reference cannot be processed in streaming mode
+	 */
+	private byte[] digest(final int signatureIndex, final Reference reference) throws XMLSecurityException {
+
+		final String uri = reference.getURI();
+		if (XPointerResourceResolver.isXPointerQuery(uri, true)) {
+			return null;
+		}
+		final String apexId = uri.isEmpty() ? null : uri.substring(1);
+		final DigestAlgorithm digestAlgorithm = DigestAlgorithm.forXML(reference.getMessageDigestAlgorithm().getAlgorithmURI(), null);
+		if (digestAlgorithm == null) {
+			return null;
+		}
+		boolean enveloped = false;
+		String canonicalizationMethod = null;
+		final Transforms transforms = reference.getTransforms();
+		final int length = transforms == null ? 0 : transforms.getLength();
+		for (int ii = 0; ii < length; ii++) {
+
+			final Transform transform = transforms.item(ii);
+			final String transformUri = transform.getURI();
+			if (Transforms.TRANSFORM_ENVELOPED_SIGNATURE.equals(transformUri) && !enveloped && canonicalizationMethod == null) {
+				enveloped = true;
+			} else if (canonicalizationMethod == null && isSupported(transformUri, apexId) && !hasChildElement(transform.getElement())) {
+				canonicalizationMethod = transformUri;
+			} else {
+				return null;
+			}
+		}
+		final boolean exclusive = Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS.equals(canonicalizationMethod) || Transforms.TRANSFORM_C14N_EXCL_WITH_COMMENTS
+			  .equals(canonicalizationMethod);
+		final StreamingCanonicalizer canonicalizer = new StreamingCanonicalizer(exclusive, enveloped ? signatureIndex : -1, apexId);
+		InputStream inputStream = null;
+		try {
+
+			final MessageDigest messageDigest = DSSUtils.getMessageDigest(digestAlgorithm);
+			final OutputStream digestOutputStream = new OutputStream() {
+
+				@Override
+				public void write(final int b) {
+					messageDigest.update((byte) b);
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) {
+					messageDigest.update(b, off, len);
+				}
+			};
+			inputStream = document.openStream();
+			if (!canonicalizer.canonicalize(inputStream, digestOutputStream)) {
+
+				LOG.debug("The reference '{}' cannot be verified in streaming mode.", uri);
+				return null;
+			}
+			return messageDigest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new DSSException(e);
+		} finally {
+			DSSUtils.closeQuietly(inputStream);
+		}
+	}
+
+	/**
+	 * The comments are not part of the node-set of a same-document reference: the "with comments" variants give the same result. The canonicalization 1.1 differs from the
+	 * canonicalization 1.0 only for the xml:* attributes of the document subsets, it is therefore supported only for the whole document.
+	 */
+	private static boolean isSupported(final String transformUri, final String apexId) {
+
+		if (Transforms.TRANSFORM_C14N_OMIT_COMMENTS.equals(transformUri) || Transforms.TRANSFORM_C14N_WITH_COMMENTS.equals(transformUri)) {
+			return true;
+		}
+		if (Transforms.TRANSFORM_C14N_EXCL_OMIT_COMMENTS.equals(transformUri) || Transforms.TRANSFORM_C14N_EXCL_WITH_COMMENTS.equals(transformUri)) {
+			return true;
+		}
+		return apexId == null && (Transforms.TRANSFORM_C14N11_OMIT_COMMENTS.equals(transformUri) || Transforms.TRANSFORM_C14N11_WITH_COMMENTS.equals(transformUri));
+	}
+
+	/**
+	 * A child element of the transform holds parameters (InclusiveNamespaces, XPath...) which are not supported in streaming mode.
+	 */
+	private static boolean hasChildElement(final Element element) {
+
+		for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean verifyOnFullDocument(final int signatureIndex, final int referenceIndex, final List<DSSDocument> detachedContents) throws XMLSecurityException {
+
+		if (fullDocument == null) {
+
+			LOG.info("A reference cannot be verified in streaming mode: the DOM of the whole document is built.");
+			fullDocument = DSSXMLUtils.buildDOM(document);
+			final Element rootElement = fullDocument.getDocumentElement();
+			DSSXMLUtils.setIDIdentifier(rootElement);
+			DSSXMLUtils.recursiveIdBrowse(rootElement);
+		}
+		final Element signatureElement = (Element) fullDocument.getElementsByTagNameNS(Constants.SignatureSpecNS, XPathQueryHolder.XMLE_SIGNATURE).item(signatureIndex);
+		final XMLSignature santuarioSignature = new XMLSignature(signatureElement, "");
+		santuarioSignature.addResourceResolver(new XPointerResourceResolver(signatureElement));
+		santuarioSignature.addResourceResolver(new OfflineResolver(detachedContents));
+		return santuarioSignature.getSignedInfo().item(referenceIndex).verify();
+	}
+}
@@ -0,0 +1,351 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.xades;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DSSXMLUtils;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.validation102853.AdvancedSignature;
+
+/**
+ * Validator of large XML signed documents. The document is read as a stream of StAX events and only the subtrees of the {@code ds:Signature} elements are held in memory
+ * as DOM. The references pointing to the rest of the document are verified by canonicalizing the document on the fly (see {@code StreamingReferenceVerifier}).
+ * <p/>
+ * The DOM of the whole document is built when the document contains a DTD or a timestamp whose input is made of the signed data objects (all data objects, individual data
+ * objects and archive timestamps): this validator then behaves as {@code XMLDocumentValidator}. The DOM is also built when a reference uses a transform which cannot be
+ * applied on a stream (XPath, XSLT...), or when a signature is removed.
+ * <p/>
+ * In streaming mode the scope of a signature is computed from its subtree: the signed elements located out of the signature are not reported. The references to an Id
+ * which is not unique within the document are considered as invalid.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class StreamingXMLDocumentValidator extends XMLDocumentValidator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StreamingXMLDocumentValidator.class);
+
+	/**
+	 * The local names of the timestamps which need the signed data objects to be held in memory.
+	 */
+	private static final Set<String> DATA_OBJECTS_TIMESTAMPS = new HashSet<String>(Arrays.asList("AllDataObjectsTimeStamp", "IndividualDataObjectsTimeStamp", "ArchiveTimeStamp"));
+
+	/**
+	 * The {@code ds:Signature} elements at the root of the subtrees held in memory, {@code null} when the DOM of the whole document is used.
+	 */
+	private List<Element> signatureElements;
+
+	private int signatureCount;
+
+	/**
+	 * The default constructor for StreamingXMLDocumentValidator.
+	 *
+	 * @param dssDocument The instance of {@code DSSDocument} to validate
+	 * @throws DSSException
+	 */
+	public StreamingXMLDocumentValidator(final DSSDocument dssDocument) throws DSSException {
+
+		super(dssDocument, null);
+		final StreamingReferenceVerifier streamingReferenceVerifier = new StreamingReferenceVerifier(dssDocument);
+		signatureElements = readSignatureElements(streamingReferenceVerifier);
+		if (signatureElements == null) {
+
+			LOG.info("The document cannot be validated in streaming mode: the DOM of the whole document is built.");
+			rootElement = DSSXMLUtils.buildDOM(dssDocument);
+		} else {
+			verificationContext.setStreamingReferenceVerifier(streamingReferenceVerifier);
+		}
+	}
+
+	@Override
+	public List<AdvancedSignature> getSignatures() {
+
+		if (signatureElements == null) {
+			return super.getSignatures();
+		}
+		if (signatures != null) {
+			return signatures;
+		}
+		signatures = new ArrayList<AdvancedSignature>();
+		for (final Element signatureElement : signatureElements) {
+
+			final XAdESSignature xadesSignature = new XAdESSignature(signatureElement, xPathQueryHolders, validationCertPool);
+			xadesSignature.setDetachedContents(detachedContents);
+			xadesSignature.setVerificationContext(verificationContext);
+			xadesSignature.setProvidedSigningCertificateToken(providedSigningCertificateToken);
+			signatures.add(xadesSignature);
+		}
+		return signatures;
+	}
+
+	@Override
+	public DSSDocument removeSignature(final String signatureId) throws DSSException {
+
+		if (signatureElements != null) {
+
+			rootElement = DSSXMLUtils.buildDOM(document);
+			signatureElements = null;
+			signatures = null;
+			verificationContext.clear();
+		}
+		return super.removeSignature(signatureId);
+	}
+
+	/**
+	 * In streaming mode the DOM of the whole document is not held in memory: it is built at the first call to this method, the signatures keep being validated in streaming
+	 * mode.
+	 *
+	 * @return the DOM of the whole document
+	 */
+	@Override
+	public Document getRootElement() {
+
+		if (rootElement == null) {
+			rootElement = DSSXMLUtils.buildDOM(document);
+		}
+		return rootElement;
+	}
+
+	/**
+	 * @return {@code true} if only the subtrees of the signatures are held in memory
+	 */
+	public boolean isStreamingMode() {
+		return signatureElements != null;
+	}
+
+	/**
+	 * This method reads the document and builds the DOM of the subtree of each top-level {@code ds:Signature} element.
+	 *
+	 * @param streamingReferenceVerifier the verifier which receives the index of each signature element and the Id of each element
+	 * @return the list of the signature elements or {@code null} if the document cannot be validated in streaming mode
+	 * @throws DSSException
+	 */
+	private List<Element> readSignatureElements(final StreamingReferenceVerifier streamingReferenceVerifier) throws DSSException {
+
+		final List<Element> signatureElements = new ArrayList<Element>();
+		// The namespace declarations and the xml:* attributes of each open element
+		final List<Map<String, String>> ancestorNamespaces = new ArrayList<Map<String, String>>();
+		final List<Map<String, String>> ancestorXmlAttributes = new ArrayList<Map<String, String>>();
+		InputStream inputStream = null;
+		XMLStreamReader reader = null;
+		try {
+
+			inputStream = document.openStream();
+			reader = StreamingCanonicalizer.createReader(inputStream);
+			while (reader.hasNext()) {
+
+				final int event = reader.next();
+				switch (event) {
+
+					case XMLStreamConstants.DTD:
+					case XMLStreamConstants.ENTITY_REFERENCE:
+						return null;
+					case XMLStreamConstants.START_ELEMENT:
+						registerId(reader, streamingReferenceVerifier);
+						if (StreamingCanonicalizer.isSignature(reader)) {
+
+							final Element signatureElement = readSubtree(reader, ancestorNamespaces, ancestorXmlAttributes, streamingReferenceVerifier);
+							if (signatureElement == null) {
+								return null;
+							}
+							signatureElements.add(signatureElement);
+						} else {
+
+							ancestorNamespaces.add(StreamingCanonicalizer.getNamespaceDeclarations(reader));
+							ancestorXmlAttributes.add(StreamingCanonicalizer.getXmlAttributes(reader));
+						}
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						ancestorNamespaces.remove(ancestorNamespaces.size() - 1);
+						ancestorXmlAttributes.remove(ancestorXmlAttributes.size() - 1);
+						break;
+					default:
+						break;
+				}
+			}
+			return signatureElements;
+		} catch (XMLStreamException e) {
+			throw new DSSException(e);
+		} finally {
+
+			StreamingCanonicalizer.closeQuietly(reader);
+			DSSUtils.closeQuietly(inputStream);
+		}
+	}
+
+	/**
+	 * This method builds the DOM of the subtree of the current {@code ds:Signature} element. The namespaces declared by the ancestors and their xml:* attributes are copied
+	 * on the signature element: the canonical form of the subtree is the same as in the whole document.
+	 *
+	 * @return the signature element or {@code null} if the subtree contains a timestamp which needs the signed data objects or a DTD
+	 */
+	private Element readSubtree(final XMLStreamReader reader, final List<Map<String, String>> ancestorNamespaces, final List<Map<String, String>> ancestorXmlAttributes,
+	                            final StreamingReferenceVerifier streamingReferenceVerifier) throws XMLStreamException {
+
+		final Document subtreeDocument = DSSXMLUtils.buildDOM();
+		Node currentNode = subtreeDocument;
+		int depth = 0;
+		int event = reader.getEventType();
+		while (true) {
+
+			switch (event) {
+
+				case XMLStreamConstants.DTD:
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					return null;
+				case XMLStreamConstants.START_ELEMENT:
+					if (DATA_OBJECTS_TIMESTAMPS.contains(reader.getLocalName())) {
+						return null;
+					}
+					if (depth > 0) {
+						registerId(reader, streamingReferenceVerifier);
+					}
+					final Element element = createElement(subtreeDocument, reader);
+					if (depth == 0) {
+						inheritAncestors(element, ancestorNamespaces, ancestorXmlAttributes);
+					}
+					if (StreamingCanonicalizer.isSignature(reader)) {
+						streamingReferenceVerifier.registerSignature(element, signatureCount++);
+					}
+					currentNode.appendChild(element);
+					currentNode = element;
+					depth++;
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					currentNode = currentNode.getParentNode();
+					depth--;
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					currentNode.appendChild(subtreeDocument.createTextNode(reader.getText()));
+					break;
+				case XMLStreamConstants.COMMENT:
+					currentNode.appendChild(subtreeDocument.createComment(reader.getText()));
+					break;
+				case XMLStreamConstants.PROCESSING_INSTRUCTION:
+					currentNode.appendChild(subtreeDocument.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+					break;
+				default:
+					break;
+			}
+			if (depth == 0) {
+				break;
+			}
+			event = reader.next();
+		}
+		return subtreeDocument.getDocumentElement();
+	}
+
+	private static void registerId(final XMLStreamReader reader, final StreamingReferenceVerifier streamingReferenceVerifier) {
+
+		final String id = StreamingCanonicalizer.getIdAttribute(reader);
+		if (id != null) {
+			streamingReferenceVerifier.registerId(id);
+		}
+	}
+
+	private static Element createElement(final Document document, final XMLStreamReader reader) {
+
+		final String namespace = reader.getNamespaceURI();
+		final String qualifiedName = StreamingCanonicalizer.getQualifiedName(reader.getPrefix(), reader.getLocalName());
+		final Element element = document.createElementNS(DSSUtils.isEmpty(namespace) ? null : namespace, qualifiedName);
+		for (int ii = 0; ii < reader.getNamespaceCount(); ii++) {
+
+			final String prefix = reader.getNamespacePrefix(ii);
+			final String namespaceUri = reader.getNamespaceURI(ii);
+			setNamespace(element, prefix, namespaceUri == null ? "" : namespaceUri);
+		}
+		for (int ii = 0; ii < reader.getAttributeCount(); ii++) {
+
+			final String attributeNamespace = reader.getAttributeNamespace(ii);
+			final String attributeName = StreamingCanonicalizer.getQualifiedName(reader.getAttributePrefix(ii), reader.getAttributeLocalName(ii));
+			element.setAttributeNS(DSSUtils.isEmpty(attributeNamespace) ? null : attributeNamespace, attributeName, reader.getAttributeValue(ii));
+		}
+		return element;
+	}
+
+	private static void setNamespace(final Element element, final String prefix, final String namespaceUri) {
+
+		if (prefix == null || prefix.isEmpty()) {
+			element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, XMLConstants.XMLNS_ATTRIBUTE, namespaceUri);
+		} else {
+			element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix, namespaceUri);
+		}
+	}
+
+	private static void inheritAncestors(final Element element, final List<Map<String, String>> ancestorNamespaces, final List<Map<String, String>> ancestorXmlAttributes) {
+
+		final Map<String, String> namespaces = new HashMap<String, String>();
+		for (final Map<String, String> declared : ancestorNamespaces) {
+
+			if (declared != null) {
+				namespaces.putAll(declared);
+			}
+		}
+		for (final Map.Entry<String, String> entry : namespaces.entrySet()) {
+
+			final String prefix = entry.getKey();
+			final String attributeName = prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix;
+			if (element.hasAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : prefix)) {
+				continue;
+			}
+			if (prefix.isEmpty() && entry.getValue().isEmpty()) {
+				continue;
+			}
+			element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attributeName, entry.getValue());
+		}
+		final Map<String, String> xmlAttributes = new HashMap<String, String>();
+		for (final Map<String, String> declared : ancestorXmlAttributes) {
+
+			if (declared != null) {
+				xmlAttributes.putAll(declared);
+			}
+		}
+		for (final Map.Entry<String, String> entry : xmlAttributes.entrySet()) {
+
+			if (!element.hasAttributeNS(XMLConstants.XML_NS_URI, entry.getKey())) {
+				element.setAttributeNS(XMLConstants.XML_NS_URI, XMLConstants.XML_NS_PREFIX + ":" + entry.getKey(), entry.getValue());
+			}
+		}
+	}
+}
@@ -39,6 +39,7 @@ import javax.xml.crypto.dsig.CanonicalizationMethod;
 
 import org.apache.xml.security.Init;
 import org.apache.xml.security.algorithms.JCEMapper;
+import org.apache.xml.security.exceptions.XMLSecurityException;
 import org.apache.xml.security.keys.KeyInfo;
 import org.apache.xml.security.keys.keyresolver.KeyResolverException;
 import org.apache.xml.security.signature.Reference;
@@ -46,6 +47,7 @@ import org.apache.xml.security.signature.ReferenceNotInitializedException;
 import org.apache.xml.security.signature.SignedInfo;
 import org.apache.xml.security.signature.XMLSignature;
 import org.apache.xml.security.signature.XMLSignatureException;
+import org.apache.xml.security.transforms.Transforms;
 import org.bouncycastle.tsp.TimeStampToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,6 +67,8 @@ import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.exception.DSSNotETSICompliantException;
 import eu.europa.ec.markt.dss.exception.DSSNullException;
 import eu.europa.ec.markt.dss.exception.DSSNullReturnedException;
+import eu.europa.ec.markt.dss.signature.CommonDocument;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
 import eu.europa.ec.markt.dss.signature.SignatureLevel;
 import eu.europa.ec.markt.dss.validation102853.AdvancedSignature;
 import eu.europa.ec.markt.dss.validation102853.ArchiveTimestampType;
@@ -145,6 +149,16 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 	 */
 	private Set<DigestAlgorithm> usedCertificatesDigestAlgorithms = new HashSet<DigestAlgorithm>();
 
+	/**
+	 * The context shared by the signatures of the same document. It can be null: in this case nothing is cached.
+	 */
+	private XAdESVerificationContext verificationContext;
+
+	/**
+	 * The counter-signatures are created once: the results of their verifications are kept by the instances.
+	 */
+	private List<AdvancedSignature> counterSignatures;
+
 	static {
 
 		Init.init();
@@ -208,6 +222,33 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 		initialiseSettings();
 	}
 
+	/**
+	 * This method sets the context shared by all the signatures of the same document. The context allows to cache the canonicalized nodes and the resource resolvers. It
+	 * must not be set when the DOM of the signature is modified, for example during the extension of the signature.
+	 *
+	 * @param verificationContext the {@code XAdESVerificationContext} to use
+	 */
+	public void setVerificationContext(final XAdESVerificationContext verificationContext) {
+
+		this.verificationContext = verificationContext;
+	}
+
+	/**
+	 * @return the {@code XAdESVerificationContext} used by this signature or null
+	 */
+	public XAdESVerificationContext getVerificationContext() {
+
+		return verificationContext;
+	}
+
+	private byte[] canonicalizeSubtree(final String canonicalizationMethod, final Node node) {
+
+		if (verificationContext != null) {
+			return verificationContext.canonicalizeSubtree(canonicalizationMethod, node);
+		}
+		return DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, node);
+	}
+
 	/**
 	 * This method is called when creating a new instance of the {@code XAdESSignature} with unknown schema.
 	 */
@@ -947,10 +988,10 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 				String id = include.getURI();
 
 				if (reference.getId().equals(id)) {
-					//byte[] canonicalizedElement = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, reference);
+					//byte[] canonicalizedElement = canonicalizeSubtree(canonicalizationMethod, reference);
 					try {
 						final byte[] referencedBytes = reference.getReferencedBytes();
-						//					byte[] canonicalizedElement = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, referenceElement);
+						//					byte[] canonicalizedElement = canonicalizeSubtree(canonicalizationMethod, referenceElement);
 						outputStream.write(referencedBytes);
 					} catch (IOException e) {
 						throw new DSSException(e);
@@ -999,7 +1040,7 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 				try {
 
 					final byte[] referencedBytes = reference.getReferencedBytes();
-					//					byte[] canonicalizedElement = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, referenceElement);
+					//					byte[] canonicalizedElement = canonicalizeSubtree(canonicalizationMethod, referenceElement);
 					outputStream.write(referencedBytes);
 				} catch (IOException e) {
 					throw new DSSException(e);
@@ -1208,16 +1249,29 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 			return signatureCryptographicVerification;
 		}
 		signatureCryptographicVerification = new SignatureCryptographicVerification();
+		final long start = System.nanoTime();
 		final Document document = signatureElement.getOwnerDocument();
-		final Element rootElement = document.getDocumentElement();
+		final XPointerResourceResolver xPointerResourceResolver;
+		final OfflineResolver offlineResolver;
+		final StreamingReferenceVerifier streamingReferenceVerifier = verificationContext == null ? null : verificationContext.getStreamingReferenceVerifier();
+		if (verificationContext != null) {
+
+			verificationContext.registerIds(document);
+			xPointerResourceResolver = verificationContext.getXPointerResourceResolver(signatureElement);
+			offlineResolver = verificationContext.getOfflineResolver(detachedContents);
+		} else {
 
-		DSSXMLUtils.setIDIdentifier(rootElement);
-		DSSXMLUtils.recursiveIdBrowse(rootElement);
+			final Element rootElement = document.getDocumentElement();
+			DSSXMLUtils.setIDIdentifier(rootElement);
+			DSSXMLUtils.recursiveIdBrowse(rootElement);
+			xPointerResourceResolver = new XPointerResourceResolver(signatureElement);
+			offlineResolver = new OfflineResolver(detachedContents);
+		}
 		try {
 
 			final XMLSignature santuarioSignature = new XMLSignature(signatureElement, "");
-			santuarioSignature.addResourceResolver(new XPointerResourceResolver(signatureElement));
-			santuarioSignature.addResourceResolver(new OfflineResolver(detachedContents));
+			santuarioSignature.addResourceResolver(xPointerResourceResolver);
+			santuarioSignature.addResourceResolver(offlineResolver);
 
 			boolean coreValidity = false;
 			final List<SigningCertificateValidity> signingCertificateValidityList = getSigningCertificateValidityList(santuarioSignature, signatureCryptographicVerification,
@@ -1227,7 +1281,7 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 				try {
 
 					final PublicKey publicKey = signingCertificateValidity.getPublicKey();
-					coreValidity = santuarioSignature.checkSignatureValue(publicKey);
+					coreValidity = checkSignatureValue(santuarioSignature, publicKey);
 					if (coreValidity) {
 
 						candidatesForSigningCertificate.setTheSigningCertificateValidity(signingCertificateValidity);
@@ -1236,21 +1290,31 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 				} catch (XMLSignatureException e) {
 					LOG.warn("Exception when validating signature: ", e);
 					signatureCryptographicVerification.setErrorMessage(e.getMessage());
+				} catch (XMLSecurityException e) {
+					LOG.warn("Exception when validating signature: ", e);
+					signatureCryptographicVerification.setErrorMessage(e.getMessage());
 				}
 			}
+			// Only the signature value was checked: the references are verified here, each detached content being digested once for all its references
 			final SignedInfo signedInfo = santuarioSignature.getSignedInfo();
 			final int length = signedInfo.getLength();
 			boolean referenceDataFound = length > 0;
 			boolean referenceDataHashValid = length > 0;
+			computeDetachedContentDigests(signedInfo, offlineResolver);
 			for (int ii = 0; ii < length; ii++) {
 
 				final Reference reference = signedInfo.item(ii);
-				if (!coreValidity) {
+				if (streamingReferenceVerifier != null && streamingReferenceVerifier.isDocumentReference(signatureElement, reference)) {
 
-					referenceDataHashValid = referenceDataHashValid && reference.verify();
+					final long startReference = System.nanoTime();
+					referenceDataHashValid = referenceDataHashValid && streamingReferenceVerifier.verify(signatureElement, ii, reference, detachedContents);
+					verificationContext.addElapsedTime(XAdESVerificationContext.Stage.STREAMED_REFERENCE_VERIFICATION, System.nanoTime() - startReference);
+				} else {
+					referenceDataHashValid = referenceDataHashValid && verifyReference(reference, offlineResolver);
 				}
 				references.add(reference);
 			}
+			coreValidity = coreValidity && referenceDataHashValid;
 			signatureCryptographicVerification.setReferenceDataFound(referenceDataFound);
 			signatureCryptographicVerification.setReferenceDataIntact(referenceDataHashValid);
 			signatureCryptographicVerification.setSignatureIntact(coreValidity);
@@ -1271,9 +1335,99 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 			}
 			signatureCryptographicVerification.setErrorMessage(e.getMessage() + "/ XAdESSignature/Line number/" + lineNumber);
 		}
+		if (verificationContext != null) {
+			verificationContext.addElapsedTime(XAdESVerificationContext.Stage.SIGNATURE_VERIFICATION, System.nanoTime() - start);
+		}
 		return signatureCryptographicVerification;
 	}
 
+	/**
+	 * This method checks only the value of the signature, the references are not verified. They are verified afterwards by {@code #verifyReference} (which does not read
+	 * again the detached contents already digested) or, when the document is not held in memory, by the {@code StreamingReferenceVerifier}.
+	 *
+	 * @param santuarioSignature the Santuario {@code XMLSignature}
+	 * @param publicKey          the public key of the candidate for the signing certificate
+	 * @return true if the signature value is valid
+	 * @throws XMLSecurityException
+	 */
+	private static boolean checkSignatureValue(final XMLSignature santuarioSignature, final PublicKey publicKey) throws XMLSecurityException {
+
+		final SignedInfo signedInfo = santuarioSignature.getSignedInfo();
+		final org.apache.xml.security.algorithms.SignatureAlgorithm signatureAlgorithm = new org.apache.xml.security.algorithms.SignatureAlgorithm(signedInfo
+			  .getSignatureMethodElement(), "");
+		signatureAlgorithm.initVerify(publicKey);
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		signedInfo.signInOctetStream(outputStream);
+		signatureAlgorithm.update(outputStream.toByteArray());
+		return signatureAlgorithm.verify(santuarioSignature.getSignatureValue());
+	}
+
+	/**
+	 * This method computes in one pass per detached content all the digests needed by the references of the signature.
+	 *
+	 * @param signedInfo      the {@code SignedInfo} of the signature
+	 * @param offlineResolver the resolver of the detached contents
+	 * @throws XMLSecurityException
+	 */
+	private void computeDetachedContentDigests(final SignedInfo signedInfo, final OfflineResolver offlineResolver) throws XMLSecurityException {
+
+		final Map<CommonDocument, List<DigestAlgorithm>> digestAlgorithmsByDocument = new HashMap<CommonDocument, List<DigestAlgorithm>>();
+		for (int ii = 0; ii < signedInfo.getLength(); ii++) {
+
+			final Reference reference = signedInfo.item(ii);
+			final String uri = reference.getURI();
+			final Transforms transforms = reference.getTransforms();
+			if (uri == null || uri.isEmpty() || uri.startsWith("#") || transforms != null && transforms.getLength() > 0) {
+				continue;
+			}
+			final DSSDocument detachedDocument = offlineResolver.getDocument(uri);
+			final DigestAlgorithm digestAlgorithm = DigestAlgorithm.forXML(reference.getMessageDigestAlgorithm().getAlgorithmURI(), null);
+			if (!(detachedDocument instanceof CommonDocument) || digestAlgorithm == null) {
+				continue;
+			}
+			List<DigestAlgorithm> digestAlgorithms = digestAlgorithmsByDocument.get(detachedDocument);
+			if (digestAlgorithms == null) {
+
+				digestAlgorithms = new ArrayList<DigestAlgorithm>();
+				digestAlgorithmsByDocument.put((CommonDocument) detachedDocument, digestAlgorithms);
+			}
+			digestAlgorithms.add(digestAlgorithm);
+		}
+		for (final Map.Entry<CommonDocument, List<DigestAlgorithm>> entry : digestAlgorithmsByDocument.entrySet()) {
+
+			final List<DigestAlgorithm> digestAlgorithms = entry.getValue();
+			entry.getKey().computeDigests(digestAlgorithms.toArray(new DigestAlgorithm[digestAlgorithms.size()]));
+		}
+	}
+
+	/**
+	 * This method checks the digest of the given {@code Reference}. When the reference points to a detached content without any transformation, the digest known by the
+	 * {@code DSSDocument} is used: the detached content is not read again when it is shared by several signatures.
+	 *
+	 * @param reference       the {@code Reference} to check
+	 * @param offlineResolver the resolver of the detached contents
+	 * @return true if the digest of the referenced data is intact
+	 * @throws XMLSecurityException
+	 */
+	private boolean verifyReference(final Reference reference, final OfflineResolver offlineResolver) throws XMLSecurityException {
+
+		final String uri = reference.getURI();
+		if (uri == null || uri.isEmpty() || uri.startsWith("#")) {
+			return reference.verify();
+		}
+		final Transforms transforms = reference.getTransforms();
+		if (transforms != null && transforms.getLength() > 0) {
+			return reference.verify();
+		}
+		final DSSDocument detachedDocument = offlineResolver.getDocument(uri);
+		final DigestAlgorithm digestAlgorithm = DigestAlgorithm.forXML(reference.getMessageDigestAlgorithm().getAlgorithmURI(), null);
+		if (detachedDocument == null || digestAlgorithm == null) {
+			return reference.verify();
+		}
+		final byte[] digestValue = DSSUtils.base64Decode(detachedDocument.getDigest(digestAlgorithm));
+		return Arrays.equals(digestValue, reference.getDigestValue());
+	}
+
 	/**
 	 * This method returns a {@code List} of {@code SigningCertificateValidity} base on the certificates extracted from the signature or on the {@code
 	 * providedSigningCertificateToken}.
@@ -1352,6 +1506,9 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 	@Override
 	public List<AdvancedSignature> getCounterSignatures() {
 
+		if (counterSignatures != null) {
+			return counterSignatures;
+		}
 		// see ETSI TS 101 903 V1.4.2 (2010-12) pp. 38/39/40
 		NodeList counterSigs = DSSXMLUtils.getNodeList(signatureElement, xPathQueryHolder.XPATH_COUNTER_SIGNATURE);
 		if (counterSigs == null) {
@@ -1366,11 +1523,13 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 
 			// Verify that the element is a proper signature by trying to build a XAdESSignature out of it
 			XAdESSignature xCounterSig = new XAdESSignature(signatureEl, xPathQueryHolders, certPool);
+			xCounterSig.setVerificationContext(verificationContext);
 
 			if (isCounterSignature(xCounterSig)) {
 				xadesList.add(xCounterSig);
 			}
 		}
+		counterSignatures = xadesList;
 		return xadesList;
 	}
 
@@ -1511,7 +1670,7 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 
 		final String canonicalizationMethod = getCanonicalizationMethod(timestampToken);
 		final Node signatureValue = getSignatureValue();
-		final byte[] canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, signatureValue);
+		final byte[] canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, signatureValue);
 		if (LOG.isTraceEnabled()) {
 			LOG.trace("Signature timestamp: canonicalization method  --> {}", canonicalizationMethod);
 			LOG.trace("                   : canonicalized string     --> {}", new String(canonicalizedValue));
@@ -1541,7 +1700,7 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 
 			getSignatureValue();
 			final Element signatureValue = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_SIGNATURE_VALUE);
-			byte[] canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, signatureValue);
+			byte[] canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, signatureValue);
 			buffer.write(canonicalizedValue);
 
 			final NodeList signatureTimeStampNode = DSSXMLUtils.getNodeList(signatureElement, xPathQueryHolder.XPATH_SIGNATURE_TIMESTAMP);
@@ -1550,7 +1709,7 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 				for (int ii = 0; ii < signatureTimeStampNode.getLength(); ii++) {
 
 					final Node item = signatureTimeStampNode.item(ii);
-					canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, item);
+					canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, item);
 					buffer.write(canonicalizedValue);
 				}
 			}
@@ -1558,13 +1717,13 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 			final Node completeCertificateRefsNode = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_COMPLETE_CERTIFICATE_REFS);
 			if (completeCertificateRefsNode != null) {
 
-				canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, completeCertificateRefsNode);
+				canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, completeCertificateRefsNode);
 				buffer.write(canonicalizedValue);
 			}
 			final Node completeRevocationRefsNode = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_COMPLETE_REVOCATION_REFS);
 			if (completeRevocationRefsNode != null) {
 
-				canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, completeRevocationRefsNode);
+				canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, completeRevocationRefsNode);
 				buffer.write(canonicalizedValue);
 			}
 			if (LOG.isTraceEnabled()) {
@@ -1588,13 +1747,13 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 			final Node completeCertificateRefsNode = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_COMPLETE_CERTIFICATE_REFS);
 			if (completeCertificateRefsNode != null) {
 
-				final byte[] canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, completeCertificateRefsNode);
+				final byte[] canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, completeCertificateRefsNode);
 				buffer.write(canonicalizedValue);
 			}
 			final Node completeRevocationRefsNode = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_COMPLETE_REVOCATION_REFS);
 			if (completeRevocationRefsNode != null) {
 
-				final byte[] canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, completeRevocationRefsNode);
+				final byte[] canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, completeRevocationRefsNode);
 				buffer.write(canonicalizedValue);
 			}
 			if (LOG.isTraceEnabled()) {
@@ -1668,15 +1827,15 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 			byte[] canonicalizedValue;
 
 			final Element signedInfo = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_SIGNED_INFO);
-			canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, signedInfo);
+			canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, signedInfo);
 			buffer.write(canonicalizedValue);
 
 			final Element signatureValue = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_SIGNATURE_VALUE);
-			canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, signatureValue);
+			canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, signatureValue);
 			buffer.write(canonicalizedValue);
 
 			final Element keyInfo = DSSXMLUtils.getElement(signatureElement, xPathQueryHolder.XPATH_KEY_INFO);
-			canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, keyInfo);
+			canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, keyInfo);
 			buffer.write(canonicalizedValue);
 
 			/**
@@ -1783,7 +1942,7 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 					}
 				}
 
-				canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, node);
+				canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, node);
 				if (LOG.isTraceEnabled()) {
 					LOG.trace(localName + ": Canonicalization: " + canonicalizationMethod);
 					LOG.trace(new String(canonicalizedValue) + "\n");
@@ -1812,7 +1971,7 @@ public class XAdESSignature extends DefaultAdvancedSignature {
 
 						continue;
 					}
-					canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, node);
+					canonicalizedValue = canonicalizeSubtree(canonicalizationMethod, node);
 					buffer.write(canonicalizedValue);
 				}
 			}
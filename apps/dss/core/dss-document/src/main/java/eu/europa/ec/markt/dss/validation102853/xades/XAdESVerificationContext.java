@@ -0,0 +1,276 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.xades;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import eu.europa.ec.markt.dss.DSSXMLUtils;
+import eu.europa.ec.markt.dss.signature.DSSDocument;
+import eu.europa.ec.markt.dss.validation102853.toolbox.XPointerResourceResolver;
+
+/**
+ * This class holds the state shared by all the {@code XAdESSignature}s of one XML document during its validation:
+ * <ul>
+ * <li>the canonicalized bytes of the nodes, by node and canonicalization method,</li>
+ * <li>the resource resolvers given to Santuario,</li>
+ * <li>the registration of the Id attributes of the document, which is done only once.</li>
+ * </ul>
+ * The time spent in each {@link Stage} is measured. The DOM of the document must not be modified while the context is used: {@link #clear()} must be called after any
+ * modification.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class XAdESVerificationContext {
+
+	/**
+	 * The stages of the verification whose time is measured.
+	 */
+	public static enum Stage {
+
+		/**
+		 * The registration of the Id attributes of the document.
+		 */
+		ID_REGISTRATION,
+
+		/**
+		 * The cryptographic verification of the signatures.
+		 */
+		SIGNATURE_VERIFICATION,
+
+		/**
+		 * The canonicalization of the nodes which are not yet in the cache.
+		 */
+		CANONICALIZATION,
+
+		/**
+		 * The verification of the references pointing to a document which is not held in memory.
+		 */
+		STREAMED_REFERENCE_VERIFICATION
+	}
+
+	private final Map<Node, Map<String, byte[]>> canonicalizedNodes = new IdentityHashMap<Node, Map<String, byte[]>>();
+
+	private final Map<Document, Boolean> registeredDocuments = new IdentityHashMap<Document, Boolean>();
+
+	private final Map<Element, XPointerResourceResolver> xPointerResourceResolvers = new IdentityHashMap<Element, XPointerResourceResolver>();
+
+	private List<DSSDocument> offlineDocuments;
+
+	private OfflineResolver offlineResolver;
+
+	private volatile StreamingReferenceVerifier streamingReferenceVerifier;
+
+	private final AtomicLong[] elapsedTimes = new AtomicLong[Stage.values().length];
+
+	private final AtomicLong[] counts = new AtomicLong[Stage.values().length];
+
+	private final AtomicLong canonicalizationCacheHits = new AtomicLong();
+
+	public XAdESVerificationContext() {
+
+		for (int ii = 0; ii < elapsedTimes.length; ii++) {
+
+			elapsedTimes[ii] = new AtomicLong();
+			counts[ii] = new AtomicLong();
+		}
+	}
+
+	/**
+	 * This method canonicalizes the given {@code Node}. The result is kept: the next calls with the same node and the same method do not canonicalize the node again.
+	 *
+	 * @param canonicalizationMethod canonicalization method
+	 * @param node                   node to canonicalize
+	 * @return array of canonicalized bytes
+	 */
+	public byte[] canonicalizeSubtree(final String canonicalizationMethod, final Node node) {
+
+		synchronized (canonicalizedNodes) {
+
+			final Map<String, byte[]> canonicalizedValues = canonicalizedNodes.get(node);
+			final byte[] canonicalizedValue = canonicalizedValues == null ? null : canonicalizedValues.get(canonicalizationMethod);
+			if (canonicalizedValue != null) {
+
+				canonicalizationCacheHits.incrementAndGet();
+				return canonicalizedValue.clone();
+			}
+		}
+		final long start = System.nanoTime();
+		final byte[] canonicalizedValue = DSSXMLUtils.canonicalizeSubtree(canonicalizationMethod, node);
+		addElapsedTime(Stage.CANONICALIZATION, System.nanoTime() - start);
+		synchronized (canonicalizedNodes) {
+
+			Map<String, byte[]> canonicalizedValues = canonicalizedNodes.get(node);
+			if (canonicalizedValues == null) {
+
+				canonicalizedValues = new HashMap<String, byte[]>();
+				canonicalizedNodes.put(node, canonicalizedValues);
+			}
+			canonicalizedValues.put(canonicalizationMethod, canonicalizedValue);
+		}
+		return canonicalizedValue.clone();
+	}
+
+	/**
+	 * This method registers the Id attributes of the given document. The registration is done only once per document.
+	 *
+	 * @param document the document containing the signatures
+	 */
+	public void registerIds(final Document document) {
+
+		synchronized (registeredDocuments) {
+
+			if (registeredDocuments.containsKey(document)) {
+				return;
+			}
+			final long start = System.nanoTime();
+			final Element rootElement = document.getDocumentElement();
+			DSSXMLUtils.setIDIdentifier(rootElement);
+			DSSXMLUtils.recursiveIdBrowse(rootElement);
+			registeredDocuments.put(document, Boolean.TRUE);
+			addElapsedTime(Stage.ID_REGISTRATION, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @param detachedContents the detached contents of the signatures
+	 * @return the {@code OfflineResolver} of the given detached contents, it is shared by all signatures using the same list
+	 */
+	public synchronized OfflineResolver getOfflineResolver(final List<DSSDocument> detachedContents) {
+
+		if (offlineResolver == null || offlineDocuments != detachedContents) {
+
+			offlineResolver = new OfflineResolver(detachedContents);
+			offlineDocuments = detachedContents;
+		}
+		return offlineResolver;
+	}
+
+	/**
+	 * @param signatureElement the signature element
+	 * @return the {@code XPointerResourceResolver} of the given signature element
+	 */
+	public XPointerResourceResolver getXPointerResourceResolver(final Element signatureElement) {
+
+		synchronized (xPointerResourceResolvers) {
+
+			XPointerResourceResolver xPointerResourceResolver = xPointerResourceResolvers.get(signatureElement);
+			if (xPointerResourceResolver == null) {
+
+				xPointerResourceResolver = new XPointerResourceResolver(signatureElement);
+				xPointerResourceResolvers.put(signatureElement, xPointerResourceResolver);
+			}
+			return xPointerResourceResolver;
+		}
+	}
+
+	/**
+	 * @return the verifier of the references pointing to the document when only the signatures are held in memory, {@code null} otherwise
+	 */
+	StreamingReferenceVerifier getStreamingReferenceVerifier() {
+		return streamingReferenceVerifier;
+	}
+
+	void setStreamingReferenceVerifier(final StreamingReferenceVerifier streamingReferenceVerifier) {
+		this.streamingReferenceVerifier = streamingReferenceVerifier;
+	}
+
+	/**
+	 * This method adds the given time to the time spent in the stage.
+	 *
+	 * @param stage       the {@code Stage}
+	 * @param elapsedTime the elapsed time in nanoseconds
+	 */
+	public void addElapsedTime(final Stage stage, final long elapsedTime) {
+
+		elapsedTimes[stage.ordinal()].addAndGet(elapsedTime);
+		counts[stage.ordinal()].incrementAndGet();
+	}
+
+	/**
+	 * @param stage the {@code Stage}
+	 * @return the total time spent in the stage in nanoseconds
+	 */
+	public long getElapsedTime(final Stage stage) {
+
+		return elapsedTimes[stage.ordinal()].get();
+	}
+
+	/**
+	 * @param stage the {@code Stage}
+	 * @return the number of times the stage was executed
+	 */
+	public long getCount(final Stage stage) {
+
+		return counts[stage.ordinal()].get();
+	}
+
+	/**
+	 * @return the number of canonicalizations served from the cache
+	 */
+	public long getCanonicalizationCacheHits() {
+
+		return canonicalizationCacheHits.get();
+	}
+
+	/**
+	 * This method must be called when the DOM of the document has been modified: the cached canonicalized bytes, the resolvers, the registration of the Id attributes and
+	 * the streaming verifier are forgotten. The time counters are kept.
+	 */
+	public void clear() {
+
+		synchronized (canonicalizedNodes) {
+			canonicalizedNodes.clear();
+		}
+		synchronized (registeredDocuments) {
+			registeredDocuments.clear();
+		}
+		synchronized (xPointerResourceResolvers) {
+			xPointerResourceResolvers.clear();
+		}
+		synchronized (this) {
+
+			offlineResolver = null;
+			offlineDocuments = null;
+		}
+		streamingReferenceVerifier = null;
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder stringBuilder = new StringBuilder();
+		for (final Stage stage : Stage.values()) {
+
+			stringBuilder.append(stage).append(": ").append(getCount(stage)).append(" / ").append(getElapsedTime(stage) / 1000000).append(" ms, ");
+		}
+		stringBuilder.append("canonicalization cache hits: ").append(getCanonicalizationCacheHits());
+		return stringBuilder.toString();
+	}
+}
@@ -56,6 +56,11 @@ public class XMLDocumentValidator extends SignedDocumentValidator {
 
 	protected Document rootElement;
 
+	/**
+	 * The context shared by all the signatures of the document: canonicalized nodes, resource resolvers and time counters.
+	 */
+	protected final XAdESVerificationContext verificationContext = new XAdESVerificationContext();
+
 	/**
 	 * The default constructor for XMLDocumentValidator. The created instance is initialised with default {@code XPathQueryHolder} and {@code XAdES111XPathQueryHolder}.
 	 *
@@ -64,9 +69,21 @@ public class XMLDocumentValidator extends SignedDocumentValidator {
 	 */
 	public XMLDocumentValidator(final DSSDocument dssDocument) throws DSSException {
 
+		this(dssDocument, DSSXMLUtils.buildDOM(dssDocument));
+	}
+
+	/**
+	 * This constructor allows the subclasses to provide the DOM of the document or to postpone its creation.
+	 *
+	 * @param dssDocument The instance of {@code DSSDocument} to validate
+	 * @param rootElement the DOM of the document, can be {@code null}
+	 * @throws DSSException
+	 */
+	protected XMLDocumentValidator(final DSSDocument dssDocument, final Document rootElement) throws DSSException {
+
 		xadesSignatureScopeFinder = SignatureScopeFinderFactory.geInstance(XAdESSignature.class);
 		this.document = dssDocument;
-		this.rootElement = DSSXMLUtils.buildDOM(dssDocument);
+		this.rootElement = rootElement;
 
 		xPathQueryHolders = new ArrayList<XPathQueryHolder>();
 
@@ -93,6 +110,7 @@ public class XMLDocumentValidator extends SignedDocumentValidator {
 			final Element signatureEl = (Element) signatureNodeList.item(ii);
 			final XAdESSignature xadesSignature = new XAdESSignature(signatureEl, xPathQueryHolders, validationCertPool);
 			xadesSignature.setDetachedContents(detachedContents);
+			xadesSignature.setVerificationContext(verificationContext);
 			xadesSignature.setProvidedSigningCertificateToken(providedSigningCertificateToken);
 			signatures.add(xadesSignature);
 		}
@@ -114,6 +132,7 @@ public class XMLDocumentValidator extends SignedDocumentValidator {
 			if (signatureId.equals(idIdentifier)) {
 
 				signatureEl.getParentNode().removeChild(signatureEl);
+				verificationContext.clear();
 				// TODO (31/07/2014): Save the modified document
 				final Node documentElement = rootElement.getDocumentElement();
 				final byte[] documentBytes = DSSXMLUtils.serializeNode(documentElement);
@@ -162,4 +181,14 @@ public class XMLDocumentValidator extends SignedDocumentValidator {
 	public Document getRootElement() {
 		return rootElement;
 	}
+
+	/**
+	 * This getter returns the {@code XAdESVerificationContext} shared by the signatures of the document. It gives access to the time spent in each stage of the
+	 * verification.
+	 *
+	 * @return the {@code XAdESVerificationContext}
+	 */
+	public XAdESVerificationContext getVerificationContext() {
+		return verificationContext;
+	}
 }
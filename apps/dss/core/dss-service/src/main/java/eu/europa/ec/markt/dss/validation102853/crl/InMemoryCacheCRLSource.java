@@ -0,0 +1,249 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.crl;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.exception.DSSNullException;
+import eu.europa.ec.markt.dss.validation102853.CertificateToken;
+import eu.europa.ec.markt.dss.validation102853.loader.RequestCoalescer;
+
+/**
+ * In-memory cache tier in front of another {@code CRLSource} (for example {@code OnlineCRLSource} or {@code JdbcCacheCRLSource}). Each CRL is parsed and its signature is
+ * verified only once per version: the revoked certificates are kept in a compact {@code CRLIndex} and the status of a certificate is then found with a binary search. A CRL
+ * is kept until its nextUpdate date, the CRLs without nextUpdate are not cached.
+ * <p/>
+ * The CRLs are identified by the issuer certificate and the CRL distribution points extension of the checked certificate. The concurrent requests for the same CRL share one
+ * call to the underlying source.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class InMemoryCacheCRLSource extends CommonCRLSource {
+
+	private static final Logger LOG = LoggerFactory.getLogger(InMemoryCacheCRLSource.class);
+
+	/**
+	 * The default maximum number of cached CRLs.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private CRLSource cachedSource;
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private final ConcurrentMap<String, CachedCRLIndex> cache = new ConcurrentHashMap<String, CachedCRLIndex>();
+
+	private final RequestCoalescer<String, CachedCRLIndex> inFlightRequests = new RequestCoalescer<String, CachedCRLIndex>();
+
+	/**
+	 * The default constructor for InMemoryCacheCRLSource. The cached source must be set.
+	 */
+	public InMemoryCacheCRLSource() {
+	}
+
+	/**
+	 * @param cachedSource the {@code CRLSource} used to retrieve the CRLs which are not in the cache
+	 */
+	public InMemoryCacheCRLSource(final CRLSource cachedSource) {
+
+		this.cachedSource = cachedSource;
+	}
+
+	@Override
+	public CRLToken findCrl(final CertificateToken certificateToken) throws DSSException {
+
+		if (certificateToken == null) {
+
+			return null;
+		}
+		final CertificateToken issuerToken = certificateToken.getIssuerToken();
+		if (issuerToken == null) {
+
+			return null;
+		}
+		if (cachedSource == null) {
+
+			throw new DSSNullException(CRLSource.class, "cachedSource");
+		}
+		final byte[] crlDistributionPoints = certificateToken.getCRLDistributionPoints();
+		if (crlDistributionPoints == null) {
+
+			return cachedSource.findCrl(certificateToken);
+		}
+		// The DSS id of the issuer is not stable, the issuer is identified by the digest of its certificate
+		final String key = DSSUtils.encodeHexString(DSSUtils.digest(DigestAlgorithm.SHA1, issuerToken.getEncoded())) + DSSUtils
+			  .encodeHexString(DSSUtils.digest(DigestAlgorithm.SHA1, crlDistributionPoints));
+		final Date now = new Date();
+		final CachedCRLIndex cachedCRLIndex = cache.get(key);
+		if (cachedCRLIndex != null) {
+
+			if (cachedCRLIndex.nextUpdate.after(now)) {
+
+				LOG.debug("CRL in memory cache");
+				return cachedCRLIndex.newCRLToken(certificateToken);
+			}
+			LOG.debug("CRL in memory cache expired");
+			cache.remove(key, cachedCRLIndex);
+		}
+		final boolean[] loadedByThisThread = new boolean[1];
+		final CRLToken[] crlTokenHolder = new CRLToken[1];
+		final CachedCRLIndex loadedCRLIndex = inFlightRequests.execute(key, new Callable<CachedCRLIndex>() {
+
+			@Override
+			public CachedCRLIndex call() throws Exception {
+
+				final CRLToken crlToken = cachedSource.findCrl(certificateToken);
+				loadedByThisThread[0] = true;
+				crlTokenHolder[0] = crlToken;
+				return index(key, crlToken, now);
+			}
+		});
+		if (loadedByThisThread[0]) {
+
+			// This thread made the call to the cached source
+			return crlTokenHolder[0];
+		}
+		if (loadedCRLIndex == null) {
+
+			// The CRL retrieved by another thread cannot be cached
+			return cachedSource.findCrl(certificateToken);
+		}
+		return loadedCRLIndex.newCRLToken(certificateToken);
+	}
+
+	private CachedCRLIndex index(final String key, final CRLToken crlToken, final Date now) {
+
+		if (crlToken == null || !crlToken.isValid()) {
+			return null;
+		}
+		final CRLValidity crlValidity = crlToken.getCrlValidity();
+		final Date nextUpdate = crlValidity.getNextUpdate();
+		if (nextUpdate == null || !nextUpdate.after(now)) {
+			return null;
+		}
+		final CRLValidity indexedCRLValidity = crlValidity.copy(crlValidity.issuerToken);
+		if (indexedCRLValidity.crlIndex == null) {
+			indexedCRLValidity.crlIndex = CRLIndex.build(crlValidity.getX509CRL());
+		}
+		// Only the index and the DER encoding (needed to include the CRL in -LT signatures) are kept: the X509CRL is created again from its encoding by the
+		// CRLToken which needs it
+		indexedCRLValidity.crlEncoded = crlValidity.getEncoded();
+		indexedCRLValidity.x509CRL = null;
+		final CachedCRLIndex cachedCRLIndex = new CachedCRLIndex(indexedCRLValidity, crlToken.getSourceURL(), nextUpdate);
+		if (cache.size() >= maxEntries) {
+			evict(now);
+		}
+		cache.put(key, cachedCRLIndex);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("CRL indexed in memory cache: " + indexedCRLValidity.crlIndex.size() + " revoked certificates");
+		}
+		return cachedCRLIndex;
+	}
+
+	/**
+	 * Removes the expired CRLs. If the cache is still full an arbitrary entry is removed.
+	 *
+	 * @param now the current time
+	 */
+	private void evict(final Date now) {
+
+		final Iterator<Map.Entry<String, CachedCRLIndex>> iterator = cache.entrySet().iterator();
+		while (iterator.hasNext()) {
+
+			if (!iterator.next().getValue().nextUpdate.after(now)) {
+				iterator.remove();
+			}
+		}
+		final Iterator<String> keyIterator = cache.keySet().iterator();
+		while (cache.size() >= maxEntries && keyIterator.hasNext()) {
+
+			keyIterator.next();
+			keyIterator.remove();
+		}
+	}
+
+	/**
+	 * Removes all cached CRLs.
+	 */
+	public void clear() {
+
+		cache.clear();
+	}
+
+	/**
+	 * @return the number of cached CRLs
+	 */
+	public int size() {
+
+		return cache.size();
+	}
+
+	/**
+	 * @param cachedSource the {@code CRLSource} used to retrieve the CRLs which are not in the cache
+	 */
+	public void setCachedSource(final CRLSource cachedSource) {
+
+		this.cachedSource = cachedSource;
+	}
+
+	/**
+	 * @param maxEntries the maximum number of cached CRLs
+	 */
+	public void setMaxEntries(final int maxEntries) {
+
+		this.maxEntries = maxEntries;
+	}
+
+	private static class CachedCRLIndex {
+
+		private final CRLValidity crlValidity;
+
+		private final String sourceURL;
+
+		private final Date nextUpdate;
+
+		CachedCRLIndex(final CRLValidity crlValidity, final String sourceURL, final Date nextUpdate) {
+
+			this.crlValidity = crlValidity;
+			this.sourceURL = sourceURL;
+			this.nextUpdate = nextUpdate;
+		}
+
+		CRLToken newCRLToken(final CertificateToken certificateToken) {
+
+			final CRLToken crlToken = new CRLToken(certificateToken, crlValidity.copy(certificateToken.getIssuerToken()));
+			crlToken.setSourceURL(sourceURL);
+			return crlToken;
+		}
+	}
+}
@@ -20,7 +20,6 @@
 
 package eu.europa.ec.markt.dss.validation102853.crl;
 
-import java.security.cert.X509CRL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -128,11 +127,11 @@ public class JdbcCacheCRLSource extends CommonCRLSource {
 			final CachedCRL dbCrl = findCrlInDB(key);
 			if (dbCrl != null) {
 
-				X509CRL x509Crl = DSSUtils.loadCRL(dbCrl.getCrl());
-				if (x509Crl.getNextUpdate().after(new Date())) {
+				final CRLValidity crlValidity = isValidCRL(dbCrl.getCrl(), issuerToken);
+				final Date nextUpdate = crlValidity.getNextUpdate();
+				if (nextUpdate != null && nextUpdate.after(new Date())) {
 
 					LOG.debug("CRL in cache");
-					final CRLValidity crlValidity = isValidCRL(x509Crl, issuerToken);
 					final CRLToken crlToken = new CRLToken(certificateToken, crlValidity);
 					if (crlToken.isValid()) {
 
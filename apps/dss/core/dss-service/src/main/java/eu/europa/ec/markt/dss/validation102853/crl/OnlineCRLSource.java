@@ -22,9 +22,9 @@ package eu.europa.ec.markt.dss.validation102853.crl;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.security.cert.X509CRL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1Sequence;
@@ -45,11 +45,14 @@ import eu.europa.ec.markt.dss.validation102853.CertificateToken;
 import eu.europa.ec.markt.dss.validation102853.https.CommonsDataLoader;
 import eu.europa.ec.markt.dss.validation102853.loader.DataLoader;
 import eu.europa.ec.markt.dss.validation102853.loader.Protocol;
+import eu.europa.ec.markt.dss.validation102853.loader.RequestCoalescer;
 
 /**
  * Online CRL repository. This CRL repository implementation will download the CRLs from the given CRL URIs.
  * Note that for the HTTP kind of URLs you can provide dedicated data loader. If the data loader is not provided the standard load from URI is
  * provided. For FTP the standard load from URI is provided. For LDAP kind of URLs an internal implementation using apache-ldap-api is provided.
+ * <p/>
+ * The concurrent requests for the same distribution point URL share one in-flight download.
  *
  * @version $Revision$ - $Date$
  */
@@ -68,6 +71,11 @@ public class OnlineCRLSource extends CommonCRLSource {
 	 */
 	private DataLoader dataLoader;
 
+	/**
+	 * The CRL downloads in progress.
+	 */
+	private final RequestCoalescer<String, byte[]> inFlightDownloads = new RequestCoalescer<String, byte[]>();
+
 	/**
 	 * The default constructor. A {@code CommonsDataLoader is created}.
 	 */
@@ -127,11 +135,25 @@ public class OnlineCRLSource extends CommonCRLSource {
 
 			return null;
 		}
-		final X509CRL x509CRL = downloadCrl(crlUrl);
-		if (x509CRL == null) {
+		final byte[] crlEncoded = inFlightDownloads.execute(crlUrl, new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() throws Exception {
+
+				return downloadCrl(crlUrl);
+			}
+		});
+		if (crlEncoded == null) {
+			return null;
+		}
+		final CRLValidity crlValidity;
+		try {
+			crlValidity = isValidCRL(crlEncoded, issuerToken);
+		} catch (DSSException e) {
+
+			LOG.warn(e.getMessage());
 			return null;
 		}
-		final CRLValidity crlValidity = isValidCRL(x509CRL, issuerToken);
 		final CRLToken crlToken = new CRLToken(certificateToken, crlValidity);
 		crlToken.setSourceURL(crlUrl);
 		return crlToken;
@@ -141,9 +163,9 @@ public class OnlineCRLSource extends CommonCRLSource {
 	 * Download a CRL from any location with any protocol.
 	 *
 	 * @param downloadUrl The string representation on an URL to be used to obtain the revocation data through the CRL canal.
-	 * @return {@code X509CRL}
+	 * @return the encoded CRL or null
 	 */
-	private X509CRL downloadCrl(final String downloadUrl) {
+	private byte[] downloadCrl(final String downloadUrl) {
 
 		if (downloadUrl != null) {
 			try {
@@ -151,8 +173,7 @@ public class OnlineCRLSource extends CommonCRLSource {
 				final byte[] bytes = dataLoader.get(downloadUrl);
 				if (bytes != null && bytes.length > 0) {
 
-					final X509CRL crl = DSSUtils.loadCRL(bytes);
-					return crl;
+					return bytes;
 				}
 			} catch (DSSException e) {
 				LOG.warn(e.getMessage());
@@ -35,7 +35,9 @@ import javax.naming.directory.Attributes;
 import javax.naming.directory.DirContext;
 import javax.naming.directory.InitialDirContext;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
@@ -69,17 +71,19 @@ import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.exception.DSSCannotFetchDataException;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.manager.ProxyPreferenceManager;
-import eu.europa.ec.markt.dss.validation102853.loader.DataLoader;
+import eu.europa.ec.markt.dss.validation102853.loader.ConditionalDataLoader;
+import eu.europa.ec.markt.dss.validation102853.loader.ConditionalResponse;
 import eu.europa.ec.markt.dss.validation102853.loader.Protocol;
 
 /**
  * Implementation of DataLoader for any protocol.<p/>
  * HTTP & HTTPS: using HttpClient which is more flexible for HTTPS without having to add the certificate to the JVM TrustStore. It takes into account a proxy management through
  * {@code ProxyPreferenceManager}. The authentication is also supported.<p/>
+ * The conditional HTTP GET requests ({@code If-None-Match} and {@code If-Modified-Since}) are supported.<p/>
  *
  * @version $Revision$ - $Date$
  */
-public class CommonsDataLoader implements DataLoader {
+public class CommonsDataLoader implements ConditionalDataLoader {
 
 	private static final Logger LOG = LoggerFactory.getLogger(CommonsDataLoader.class);
 
@@ -87,6 +91,16 @@ public class CommonsDataLoader implements DataLoader {
 
 	public static final int TIMEOUT_SOCKET = 6000;
 
+	/**
+	 * The default maximum number of concurrent connections to the same host.
+	 */
+	public static final int CONNECTIONS_MAX_PER_HOST = 5;
+
+	/**
+	 * The default maximum number of concurrent connections.
+	 */
+	public static final int CONNECTIONS_MAX_TOTAL = 20;
+
 	public static final String CONTENT_TYPE = "Content-Type";
 
 	protected String contentType;
@@ -99,6 +113,8 @@ public class CommonsDataLoader implements DataLoader {
 
 	private int timeoutConnection = TIMEOUT_CONNECTION;
 	private int timeoutSocket = TIMEOUT_SOCKET;
+	private int connectionsMaxPerHost = CONNECTIONS_MAX_PER_HOST;
+	private int connectionsMaxTotal = CONNECTIONS_MAX_TOTAL;
 
 	private final Map<HttpHost, UsernamePasswordCredentials> authenticationMap = new HashMap<HttpHost, UsernamePasswordCredentials>();
 
@@ -127,7 +143,10 @@ public class CommonsDataLoader implements DataLoader {
 		socketFactoryRegistryBuilder = setConnectionManagerSchemeHttp(socketFactoryRegistryBuilder);
 		socketFactoryRegistryBuilder = setConnectionManagerSchemeHttps(socketFactoryRegistryBuilder);
 
-		final HttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistryBuilder.build());
+		final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistryBuilder.build());
+		// The requests exceeding the limits wait for a free connection (at most timeoutConnection millis).
+		connectionManager.setDefaultMaxPerRoute(connectionsMaxPerHost);
+		connectionManager.setMaxTotal(connectionsMaxTotal);
 		return connectionManager;
 	}
 
@@ -396,6 +415,56 @@ public class CommonsDataLoader implements DataLoader {
 		}
 	}
 
+	@Override
+	public ConditionalResponse get(final String url, final String eTag, final String lastModified) throws DSSCannotFetchDataException {
+
+		if (!Protocol.isHttpUrl(url)) {
+
+			return new ConditionalResponse(get(url), null, null);
+		}
+		HttpGet httpRequest = null;
+		HttpResponse httpResponse = null;
+		try {
+
+			final URI uri = URI.create(url.trim());
+			httpRequest = new HttpGet(uri);
+			if (contentType != null) {
+				httpRequest.setHeader(CONTENT_TYPE, contentType);
+			}
+			if (eTag != null) {
+				httpRequest.setHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+			}
+			if (lastModified != null) {
+				httpRequest.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+			}
+
+			httpResponse = getHttpResponse(httpRequest, url);
+
+			final String newETag = getHeaderValue(httpResponse, HttpHeaders.ETAG);
+			final String newLastModified = getHeaderValue(httpResponse, HttpHeaders.LAST_MODIFIED);
+			if (httpResponse.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+
+				LOG.debug("Not modified since the previous download: " + url);
+				return ConditionalResponse.notModified(newETag == null ? eTag : newETag, newLastModified == null ? lastModified : newLastModified);
+			}
+			final byte[] returnedBytes = readHttpResponse(url, httpResponse);
+			return new ConditionalResponse(returnedBytes, newETag, newLastModified);
+		} finally {
+			if (httpRequest != null) {
+				httpRequest.releaseConnection();
+			}
+			if (httpResponse != null) {
+				EntityUtils.consumeQuietly(httpResponse.getEntity());
+			}
+		}
+	}
+
+	private static String getHeaderValue(final HttpResponse httpResponse, final String headerName) {
+
+		final Header header = httpResponse.getFirstHeader(headerName);
+		return header == null ? null : header.getValue();
+	}
+
 	@Override
 	public byte[] post(final String url, final byte[] content) throws DSSException {
 
@@ -534,6 +603,44 @@ public class CommonsDataLoader implements DataLoader {
 		this.timeoutSocket = timeoutSocket;
 	}
 
+	/**
+	 * Used when the {@code HttpClient} is created.
+	 *
+	 * @return the maximum number of concurrent connections to the same host
+	 */
+	public int getConnectionsMaxPerHost() {
+		return connectionsMaxPerHost;
+	}
+
+	/**
+	 * Used when the {@code HttpClient} is created. The requests exceeding this limit wait for a free connection.
+	 *
+	 * @param connectionsMaxPerHost the maximum number of concurrent connections to the same host
+	 */
+	public void setConnectionsMaxPerHost(final int connectionsMaxPerHost) {
+		httpClient = null;
+		this.connectionsMaxPerHost = connectionsMaxPerHost;
+	}
+
+	/**
+	 * Used when the {@code HttpClient} is created.
+	 *
+	 * @return the maximum number of concurrent connections
+	 */
+	public int getConnectionsMaxTotal() {
+		return connectionsMaxTotal;
+	}
+
+	/**
+	 * Used when the {@code HttpClient} is created.
+	 *
+	 * @param connectionsMaxTotal the maximum number of concurrent connections
+	 */
+	public void setConnectionsMaxTotal(final int connectionsMaxTotal) {
+		httpClient = null;
+		this.connectionsMaxTotal = connectionsMaxTotal;
+	}
+
 	/**
 	 * @return the contentType
 	 */
@@ -38,6 +38,7 @@ import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.ResourceLoader;
 import eu.europa.ec.markt.dss.exception.DSSCannotFetchDataException;
 import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.validation102853.loader.ConditionalResponse;
 import eu.europa.ec.markt.dss.validation102853.loader.Protocol;
 
 /**
@@ -146,6 +147,15 @@ public class FileCacheDataLoader extends CommonsDataLoader {
 		return bytes;
 	}
 
+	/**
+	 * The cached file is never revalidated: the conditional request is replaced by {@code #get(String)} and the response does not carry any validator.
+	 */
+	@Override
+	public ConditionalResponse get(final String urlString, final String eTag, final String lastModified) throws DSSCannotFetchDataException {
+
+		return new ConditionalResponse(get(urlString), null, null);
+	}
+
 	protected boolean isNetworkProtocol(final String urlString) {
 
 		final String normalizedUrl = urlString.trim().toLowerCase();
@@ -0,0 +1,329 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.ocsp;
+
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.SingleResp;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DSSRevocationUtils;
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.exception.DSSNullException;
+import eu.europa.ec.markt.dss.validation102853.CertificatePool;
+import eu.europa.ec.markt.dss.validation102853.CertificateToken;
+import eu.europa.ec.markt.dss.validation102853.OCSPToken;
+import eu.europa.ec.markt.dss.validation102853.certificate.CertificateSourceType;
+import eu.europa.ec.markt.dss.validation102853.loader.RequestCoalescer;
+
+/**
+ * Base class of the OCSP cache tiers. A cache tier is placed in front of another {@code OCSPSource} (for example {@code OnlineOCSPSource} or another cache tier) and keeps
+ * the OCSP responses identified by the OCSP CertID (hash algorithm, issuer name hash, issuer key hash and serial number) of the checked certificate.
+ * <p/>
+ * Only the responses which can be trusted for the checked certificate are kept: the signature of the response is valid, the responder is the issuer of the certificate or
+ * holds a certificate issued by it for OCSP signing, and the single response related to the certificate gives a known status. A response is kept until the nextUpdate date
+ * of this single response. When the responder does not provide the nextUpdate date the response is kept during {@link #getMaxAge()} milliseconds from its thisUpdate date
+ * (0 disables the caching of such responses). When {@code OnlineOCSPSource#ADD_NONCE} is set the cache is not used.
+ * <p/>
+ * The concurrent requests for the same CertID share one call to the underlying source.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public abstract class CacheOCSPSource implements OCSPSource {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CacheOCSPSource.class);
+
+	/**
+	 * The default maximum age (in milliseconds) of the responses without nextUpdate: 5 minutes.
+	 */
+	public static final long DEFAULT_MAX_AGE = 300000;
+
+	private long maxAge = DEFAULT_MAX_AGE;
+
+	private OCSPSource cachedSource;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final RequestCoalescer<String, BasicOCSPResp> inFlightRequests = new RequestCoalescer<String, BasicOCSPResp>();
+
+	@Override
+	public BasicOCSPResp getOCSPResponse(final X509Certificate x509Certificate, final X509Certificate issuerX509Certificate) {
+
+		if (cachedSource == null) {
+
+			throw new DSSNullException(OCSPSource.class, "cachedSource");
+		}
+		if (OnlineOCSPSource.ADD_NONCE) {
+
+			// A response bound to a nonce cannot be reused
+			return cachedSource.getOCSPResponse(x509Certificate, issuerX509Certificate);
+		}
+		final CertificateID certId = DSSRevocationUtils.getOCSPCertificateID(x509Certificate, issuerX509Certificate);
+		final String key = getKey(certId);
+		final Date now = new Date();
+		final BasicOCSPResp cachedResponse = getFromCache(key);
+		if (cachedResponse != null) {
+
+			final Date expirationDate = keepsVerifiedResponses() ? getExpirationDate(cachedResponse, certId) : getVerifiedExpirationDate(cachedResponse, certId,
+				  issuerX509Certificate);
+			if (expirationDate != null && expirationDate.after(now)) {
+
+				hitCount.incrementAndGet();
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("OCSP response in cache: " + key);
+				}
+				return cachedResponse;
+			}
+			LOG.debug("OCSP response in cache expired or not trusted");
+			removeFromCache(key);
+		}
+		missCount.incrementAndGet();
+		return inFlightRequests.execute(key, new Callable<BasicOCSPResp>() {
+
+			@Override
+			public BasicOCSPResp call() throws Exception {
+
+				final BasicOCSPResp basicOCSPResp = cachedSource.getOCSPResponse(x509Certificate, issuerX509Certificate);
+				if (basicOCSPResp != null) {
+
+					final Date expirationDate = getVerifiedExpirationDate(basicOCSPResp, certId, issuerX509Certificate);
+					if (expirationDate != null && expirationDate.after(now)) {
+
+						putInCache(key, basicOCSPResp, expirationDate);
+					}
+				}
+				return basicOCSPResp;
+			}
+		});
+	}
+
+	/**
+	 * This method returns the cache key of the given CertID.
+	 *
+	 * @param certId the OCSP CertID
+	 * @return the key
+	 */
+	protected String getKey(final CertificateID certId) {
+
+		return certId.getHashAlgOID().getId() + "|" + DSSUtils.encodeHexString(certId.getIssuerNameHash()) + "|" + DSSUtils
+			  .encodeHexString(certId.getIssuerKeyHash()) + "|" + certId.getSerialNumber();
+	}
+
+	/**
+	 * This method returns the date until which the given response can be used for the given CertID: the nextUpdate date of the matching single response or its thisUpdate
+	 * date plus {@link #getMaxAge()} when there is no nextUpdate. The responses with an unknown status are not reused, nor the responses without nextUpdate when the maximum
+	 * age is 0.
+	 *
+	 * @param basicOCSPResp the OCSP response
+	 * @param certId        the OCSP CertID
+	 * @return the expiration date or null if the response cannot be reused for the CertID
+	 */
+	protected Date getExpirationDate(final BasicOCSPResp basicOCSPResp, final CertificateID certId) {
+
+		for (final SingleResp singleResp : basicOCSPResp.getResponses()) {
+
+			if (!DSSRevocationUtils.matches(certId, singleResp)) {
+				continue;
+			}
+			if (singleResp.getCertStatus() instanceof UnknownStatus) {
+				return null;
+			}
+			final Date nextUpdate = singleResp.getNextUpdate();
+			if (nextUpdate != null) {
+				return nextUpdate;
+			}
+			if (maxAge <= 0) {
+				return null;
+			}
+			return new Date(singleResp.getThisUpdate().getTime() + maxAge);
+		}
+		return null;
+	}
+
+	/**
+	 * This method returns the expiration date of the given response (see {@link #getExpirationDate(BasicOCSPResp, CertificateID)}) once its signature and its responder
+	 * have been checked against the issuer of the certificate.
+	 *
+	 * @param basicOCSPResp         the OCSP response
+	 * @param certId                the OCSP CertID
+	 * @param issuerX509Certificate the issuer of the checked certificate
+	 * @return the expiration date or null if the response cannot be trusted or reused for the CertID
+	 */
+	protected Date getVerifiedExpirationDate(final BasicOCSPResp basicOCSPResp, final CertificateID certId, final X509Certificate issuerX509Certificate) {
+
+		final Date expirationDate = getExpirationDate(basicOCSPResp, certId);
+		if (expirationDate == null) {
+			return null;
+		}
+		try {
+
+			if (isSignedByResponder(basicOCSPResp, issuerX509Certificate)) {
+				return expirationDate;
+			}
+			LOG.warn("The OCSP response signature cannot be verified against the issuer, the response is not cached.");
+		} catch (DSSException e) {
+			LOG.warn("The OCSP response cannot be verified, the response is not cached: " + e.getMessage());
+		}
+		return null;
+	}
+
+	private static boolean isSignedByResponder(final BasicOCSPResp basicOCSPResp, final X509Certificate issuerX509Certificate) {
+
+		final CertificatePool certificatePool = new CertificatePool();
+		final CertificateToken issuerToken = certificatePool.getInstance(issuerX509Certificate, CertificateSourceType.OTHER);
+		final OCSPToken ocspToken = new OCSPToken(basicOCSPResp, certificatePool);
+		if (!ocspToken.isValid() && !ocspToken.isSignedBy(issuerToken)) {
+			return false;
+		}
+		final CertificateToken responderToken = ocspToken.getIssuerToken();
+		if (issuerToken.equals(responderToken)) {
+			return true;
+		}
+		// Delegated responder
+		return responderToken.isOCSPSigning() && responderToken.isValidOn(basicOCSPResp.getProducedAt()) && responderToken.isSignedBy(issuerToken);
+	}
+
+	/**
+	 * Indicates whether the responses given back by {@link #getFromCache(String)} are the instances verified before {@link #putInCache(String, BasicOCSPResp, Date)}. When
+	 * it is not the case (for example when the responses are read from an external store) they are verified again.
+	 *
+	 * @return {@code true} if the cached responses do not need to be verified again
+	 */
+	protected boolean keepsVerifiedResponses() {
+
+		return false;
+	}
+
+	/**
+	 * This method returns the cached response for the given key. The freshness of the response is checked by the caller.
+	 *
+	 * @param key the cache key
+	 * @return the cached response or null
+	 * @throws DSSException
+	 */
+	protected abstract BasicOCSPResp getFromCache(final String key) throws DSSException;
+
+	/**
+	 * This method stores the response in the cache.
+	 *
+	 * @param key            the cache key
+	 * @param basicOCSPResp  the OCSP response
+	 * @param expirationDate the date until which the response can be used
+	 * @throws DSSException
+	 */
+	protected abstract void putInCache(final String key, final BasicOCSPResp basicOCSPResp, final Date expirationDate) throws DSSException;
+
+	/**
+	 * This method removes the expired response from the cache.
+	 *
+	 * @param key the cache key
+	 * @throws DSSException
+	 */
+	protected abstract void removeFromCache(final String key) throws DSSException;
+
+	/**
+	 * Gives back the OCSP URI meta-data found within the given X509 cert when the underlying source is an online source.
+	 *
+	 * @param certificate the X509 cert.
+	 * @return the OCSP URI, or {@code null}
+	 * @throws DSSException
+	 */
+	public String getAccessLocation(final X509Certificate certificate) throws DSSException {
+
+		if (cachedSource instanceof OnlineOCSPSource) {
+
+			return ((OnlineOCSPSource) cachedSource).getAccessLocation(certificate);
+		}
+		if (cachedSource instanceof CacheOCSPSource) {
+
+			return ((CacheOCSPSource) cachedSource).getAccessLocation(certificate);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the {@code OCSPSource} used to retrieve the responses which are not in the cache
+	 */
+	public OCSPSource getCachedSource() {
+
+		return cachedSource;
+	}
+
+	/**
+	 * @param cachedSource the {@code OCSPSource} used to retrieve the responses which are not in the cache
+	 */
+	public void setCachedSource(final OCSPSource cachedSource) {
+
+		this.cachedSource = cachedSource;
+	}
+
+	/**
+	 * @return the maximum age (in milliseconds) of the responses without nextUpdate
+	 */
+	public long getMaxAge() {
+
+		return maxAge;
+	}
+
+	/**
+	 * @param maxAge the maximum age (in milliseconds) of the responses without nextUpdate, 0 disables the caching of such responses
+	 */
+	public void setMaxAge(final long maxAge) {
+
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * @return the number of responses found in this cache tier
+	 */
+	public long getHitCount() {
+
+		return hitCount.get();
+	}
+
+	/**
+	 * @return the number of responses requested to the underlying source
+	 */
+	public long getMissCount() {
+
+		return missCount.get();
+	}
+
+	/**
+	 * Resets the hit and miss counters.
+	 */
+	public void resetStatistics() {
+
+		hitCount.set(0);
+		missCount.set(0);
+	}
+}
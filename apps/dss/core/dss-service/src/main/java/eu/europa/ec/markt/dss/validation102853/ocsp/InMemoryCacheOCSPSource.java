@@ -0,0 +1,148 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.ocsp;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+
+/**
+ * In-memory OCSP cache tier. The number of cached responses is bounded by {@link #setMaxEntries(int)}.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class InMemoryCacheOCSPSource extends CacheOCSPSource {
+
+	/**
+	 * The default maximum number of cached OCSP responses.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private final ConcurrentMap<String, CachedOCSPResponse> cache = new ConcurrentHashMap<String, CachedOCSPResponse>();
+
+	/**
+	 * The default constructor for InMemoryCacheOCSPSource. The cached source must be set.
+	 */
+	public InMemoryCacheOCSPSource() {
+	}
+
+	/**
+	 * @param cachedSource the {@code OCSPSource} used to retrieve the responses which are not in the cache
+	 */
+	public InMemoryCacheOCSPSource(final OCSPSource cachedSource) {
+
+		setCachedSource(cachedSource);
+	}
+
+	@Override
+	protected BasicOCSPResp getFromCache(final String key) {
+
+		final CachedOCSPResponse cachedOCSPResponse = cache.get(key);
+		return cachedOCSPResponse == null ? null : cachedOCSPResponse.basicOCSPResp;
+	}
+
+	@Override
+	protected void putInCache(final String key, final BasicOCSPResp basicOCSPResp, final Date expirationDate) {
+
+		if (cache.size() >= maxEntries) {
+			evict(new Date());
+		}
+		cache.put(key, new CachedOCSPResponse(basicOCSPResp, expirationDate));
+	}
+
+	@Override
+	protected void removeFromCache(final String key) {
+
+		cache.remove(key);
+	}
+
+	@Override
+	protected boolean keepsVerifiedResponses() {
+
+		return true;
+	}
+
+	/**
+	 * Removes the expired responses. If the cache is still full an arbitrary entry is removed.
+	 *
+	 * @param now the current time
+	 */
+	private void evict(final Date now) {
+
+		final Iterator<Map.Entry<String, CachedOCSPResponse>> iterator = cache.entrySet().iterator();
+		while (iterator.hasNext()) {
+
+			if (!iterator.next().getValue().expirationDate.after(now)) {
+				iterator.remove();
+			}
+		}
+		final Iterator<String> keyIterator = cache.keySet().iterator();
+		while (cache.size() >= maxEntries && keyIterator.hasNext()) {
+
+			keyIterator.next();
+			keyIterator.remove();
+		}
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void clear() {
+
+		cache.clear();
+	}
+
+	/**
+	 * @return the number of cached responses
+	 */
+	public int size() {
+
+		return cache.size();
+	}
+
+	/**
+	 * @param maxEntries the maximum number of cached responses
+	 */
+	public void setMaxEntries(final int maxEntries) {
+
+		this.maxEntries = maxEntries;
+	}
+
+	private static class CachedOCSPResponse {
+
+		private final BasicOCSPResp basicOCSPResp;
+
+		private final Date expirationDate;
+
+		CachedOCSPResponse(final BasicOCSPResp basicOCSPResp, final Date expirationDate) {
+
+			this.basicOCSPResp = basicOCSPResp;
+			this.expirationDate = expirationDate;
+		}
+	}
+}
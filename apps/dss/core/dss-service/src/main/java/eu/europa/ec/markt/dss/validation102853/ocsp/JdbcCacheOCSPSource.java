@@ -0,0 +1,309 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.ocsp;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+
+import javax.sql.DataSource;
+
+import org.bouncycastle.asn1.ocsp.BasicOCSPResponse;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+
+/**
+ * Persistent OCSP cache tier which stores the responses in a JDBC datasource. It is usually placed behind an {@code InMemoryCacheOCSPSource} and in front of an {@code
+ * OnlineOCSPSource}.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class JdbcCacheOCSPSource extends CacheOCSPSource {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JdbcCacheOCSPSource.class);
+
+	/**
+	 * used in the init method to check if the table exists
+	 */
+	public static final String SQL_INIT_CHECK_EXISTENCE = "SELECT COUNT(*) FROM CACHED_OCSP";
+
+	/**
+	 * used in the init method to create the table, if not existing: ID (char40) and DATA (blob)
+	 */
+	public static final String SQL_INIT_CREATE_TABLE = "CREATE TABLE CACHED_OCSP (ID CHAR(40), DATA LONGVARBINARY)";
+
+	/**
+	 * used in the find method to select the OCSP response via the id
+	 */
+	public static final String SQL_FIND_QUERY = "SELECT DATA FROM CACHED_OCSP WHERE ID = ?";
+
+	/**
+	 * used to insert a new record
+	 */
+	public static final String SQL_FIND_INSERT = "INSERT INTO CACHED_OCSP (ID, DATA) VALUES (?, ?)";
+
+	/**
+	 * used to update an existing record via the id
+	 */
+	public static final String SQL_FIND_UPDATE = "UPDATE CACHED_OCSP SET DATA = ? WHERE ID = ?";
+
+	/**
+	 * used to remove an expired record via the id
+	 */
+	public static final String SQL_FIND_DELETE = "DELETE FROM CACHED_OCSP WHERE ID = ?";
+
+	private DataSource dataSource;
+
+	private String sqlInitCheckExistence = SQL_INIT_CHECK_EXISTENCE;
+
+	private String sqlInitCreateTable = SQL_INIT_CREATE_TABLE;
+
+	private String sqlFindQuery = SQL_FIND_QUERY;
+
+	private String sqlFindInsert = SQL_FIND_INSERT;
+
+	private String sqlFindUpdate = SQL_FIND_UPDATE;
+
+	private String sqlFindDelete = SQL_FIND_DELETE;
+
+	/**
+	 * The default constructor for JdbcCacheOCSPSource.
+	 */
+	public JdbcCacheOCSPSource() {
+
+	}
+
+	@Override
+	protected BasicOCSPResp getFromCache(final String key) throws DSSException {
+
+		Connection c = null;
+		PreparedStatement s = null;
+		ResultSet rs = null;
+		try {
+			c = dataSource.getConnection();
+			s = c.prepareStatement(sqlFindQuery);
+			s.setString(1, getId(key));
+			rs = s.executeQuery();
+			if (rs.next()) {
+
+				final byte[] encoded = rs.getBytes(1);
+				return new BasicOCSPResp(BasicOCSPResponse.getInstance(encoded));
+			}
+		} catch (SQLException e) {
+			LOG.info("Error with the cache data store: " + e.getMessage());
+		} catch (IllegalArgumentException e) {
+			LOG.warn("Invalid OCSP response in the cache data store: " + e.getMessage());
+		} finally {
+			closeQuietly(c, s, rs);
+		}
+		return null;
+	}
+
+	@Override
+	protected void putInCache(final String key, final BasicOCSPResp basicOCSPResp, final Date expirationDate) throws DSSException {
+
+		final String id = getId(key);
+		final byte[] encoded = DSSUtils.getEncoded(basicOCSPResp);
+		Connection c = null;
+		PreparedStatement s = null;
+		try {
+			c = dataSource.getConnection();
+			s = c.prepareStatement(sqlFindUpdate);
+			s.setBytes(1, encoded);
+			s.setString(2, id);
+			if (s.executeUpdate() == 0) {
+
+				s.close();
+				s = c.prepareStatement(sqlFindInsert);
+				s.setString(1, id);
+				s.setBytes(2, encoded);
+				s.executeUpdate();
+			}
+		} catch (SQLException e) {
+			LOG.info("Error with the cache data store: " + e.getMessage());
+		} finally {
+			closeQuietly(c, s, null);
+		}
+	}
+
+	@Override
+	protected void removeFromCache(final String key) throws DSSException {
+
+		Connection c = null;
+		PreparedStatement s = null;
+		try {
+			c = dataSource.getConnection();
+			s = c.prepareStatement(sqlFindDelete);
+			s.setString(1, getId(key));
+			s.executeUpdate();
+		} catch (SQLException e) {
+			LOG.info("Error with the cache data store: " + e.getMessage());
+		} finally {
+			closeQuietly(c, s, null);
+		}
+	}
+
+	/**
+	 * The key is too long to be stored as is: its SHA-1 digest is used as identifier.
+	 *
+	 * @param key the cache key
+	 * @return the hex encoded SHA-1 digest of the key
+	 */
+	private static String getId(final String key) {
+
+		return DSSUtils.encodeHexString(DSSUtils.digest(DigestAlgorithm.SHA1, key.getBytes()));
+	}
+
+	/**
+	 * Initialise the DAO by creating the table if it does not exist.
+	 *
+	 * @throws SQLException
+	 */
+	private void initDao() throws SQLException {
+
+		if (!tableExists()) {
+			createTable();
+		}
+	}
+
+	private void createTable() throws SQLException {
+
+		Connection c = null;
+		Statement s = null;
+		try {
+			c = dataSource.getConnection();
+			s = c.createStatement();
+			s.executeUpdate(sqlInitCreateTable);
+			c.commit();
+		} finally {
+			closeQuietly(c, s, null);
+		}
+	}
+
+	private boolean tableExists() {
+
+		Connection c = null;
+		Statement s = null;
+		boolean tableExists;
+		try {
+			c = dataSource.getConnection();
+			s = c.createStatement();
+			s.executeQuery(sqlInitCheckExistence);
+			tableExists = true;
+		} catch (SQLException e) {
+			tableExists = false;
+		} finally {
+			closeQuietly(c, s, null);
+		}
+		return tableExists;
+	}
+
+	/**
+	 * @param dataSource the dataSource to set
+	 * @throws SQLException
+	 */
+	public void setDataSource(final DataSource dataSource) throws SQLException {
+
+		this.dataSource = dataSource;
+		initDao();
+	}
+
+	/**
+	 * @param sqlInitCheckExistence the query used to check if the table exists
+	 */
+	public void setSqlInitCheckExistence(final String sqlInitCheckExistence) {
+
+		this.sqlInitCheckExistence = sqlInitCheckExistence;
+	}
+
+	/**
+	 * @param sqlInitCreateTable the statement used to create the table: ID (char40) and DATA (blob)
+	 */
+	public void setSqlInitCreateTable(final String sqlInitCreateTable) {
+
+		this.sqlInitCreateTable = sqlInitCreateTable;
+	}
+
+	/**
+	 * @param sqlFindQuery the query used to select the OCSP response via the id, the response must be the first column
+	 */
+	public void setSqlFindQuery(final String sqlFindQuery) {
+
+		this.sqlFindQuery = sqlFindQuery;
+	}
+
+	/**
+	 * @param sqlFindInsert the statement used to insert a new record
+	 */
+	public void setSqlFindInsert(final String sqlFindInsert) {
+
+		this.sqlFindInsert = sqlFindInsert;
+	}
+
+	/**
+	 * @param sqlFindUpdate the statement used to update an existing record via the id
+	 */
+	public void setSqlFindUpdate(final String sqlFindUpdate) {
+
+		this.sqlFindUpdate = sqlFindUpdate;
+	}
+
+	/**
+	 * @param sqlFindDelete the statement used to remove an expired record via the id
+	 */
+	public void setSqlFindDelete(final String sqlFindDelete) {
+
+		this.sqlFindDelete = sqlFindDelete;
+	}
+
+	/**
+	 * Close the statement and connection and resultset without throwing the exception
+	 *
+	 * @param c  the connection
+	 * @param s  the statement
+	 * @param rs the ResultSet
+	 */
+	private void closeQuietly(final Connection c, final Statement s, final ResultSet rs) {
+
+		try {
+			if (rs != null) {
+				rs.close();
+			}
+			if (s != null) {
+				s.close();
+			}
+			if (c != null) {
+				c.close();
+			}
+		} catch (SQLException e) {
+			// purposely empty
+		}
+	}
+}
@@ -24,6 +24,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.security.Security;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.Callable;
 
 import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
@@ -54,9 +55,13 @@ import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.exception.DSSNullException;
 import eu.europa.ec.markt.dss.validation102853.https.OCSPDataLoader;
 import eu.europa.ec.markt.dss.validation102853.loader.DataLoader;
+import eu.europa.ec.markt.dss.validation102853.loader.RequestCoalescer;
 
 /**
  * Online OCSP repository. This implementation will contact the OCSP Responder to retrieve the OCSP response.
+ * <p/>
+ * When the {@code nonce} extension is not used, the concurrent requests for the same certificate (identified by the issuer key hash and the serial number) share one in-flight
+ * request to the OCSP Responder.
  *
  * @version $Revision$ - $Date$
  */
@@ -86,6 +91,11 @@ public class OnlineOCSPSource implements OCSPSource {
 	 */
 	private DataLoader dataLoader;
 
+	/**
+	 * The OCSP requests in progress.
+	 */
+	private final RequestCoalescer<String, BasicOCSPResp> inFlightRequests = new RequestCoalescer<String, BasicOCSPResp>();
+
 	/**
 	 * Create an OCSP source The default constructor for OnlineOCSPSource. The default {@code OCSPDataLoader} is set. It is possible to change it with {@code
 	 * #setDataLoader}.
@@ -112,17 +122,35 @@ public class OnlineOCSPSource implements OCSPSource {
 
 			throw new DSSNullException(DataLoader.class);
 		}
-		try {
+		final String ocspUri = getAccessLocation(x509Certificate);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("OCSP URI: " + ocspUri);
+		}
+		if (ocspUri == null) {
 
-			final String ocspUri = getAccessLocation(x509Certificate);
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("OCSP URI: " + ocspUri);
-			}
-			if (ocspUri == null) {
+			return null;
+		}
+		final CertificateID certId = DSSRevocationUtils.getOCSPCertificateID(x509Certificate, issuerX509Certificate);
+		if (ADD_NONCE) {
 
-				return null;
+			return getOCSPResponse(ocspUri, certId);
+		}
+		final String requestKey = ocspUri + "|" + DSSUtils.encodeHexString(certId.getIssuerKeyHash()) + "|" + certId.getSerialNumber();
+		return inFlightRequests.execute(requestKey, new Callable<BasicOCSPResp>() {
+
+			@Override
+			public BasicOCSPResp call() throws Exception {
+
+				return getOCSPResponse(ocspUri, certId);
 			}
-			final byte[] content = buildOCSPRequest(x509Certificate, issuerX509Certificate);
+		});
+	}
+
+	private BasicOCSPResp getOCSPResponse(final String ocspUri, final CertificateID certId) throws DSSException {
+
+		try {
+
+			final byte[] content = buildOCSPRequest(certId);
 
 			final byte[] ocspRespBytes = dataLoader.post(ocspUri, content);
 
@@ -160,11 +188,10 @@ public class OnlineOCSPSource implements OCSPSource {
 		return null;
 	}
 
-	private byte[] buildOCSPRequest(final X509Certificate x509Certificate, final X509Certificate issuerX509Certificate) throws DSSException {
+	private byte[] buildOCSPRequest(final CertificateID certId) throws DSSException {
 
 		try {
 
-			final CertificateID certId = DSSRevocationUtils.getOCSPCertificateID(x509Certificate, issuerX509Certificate);
 			final OCSPReqBuilder ocspReqBuilder = new OCSPReqBuilder();
 			ocspReqBuilder.addRequest(certId);
 
@@ -43,6 +43,21 @@ import eu.europa.ec.markt.tsl.jaxb.tsl.TrustStatusListType;
 
 abstract class TrustServiceListFactory {
 
+    /**
+     * The {@code JAXBContext} is thread-safe and expensive to create: it is shared by all the parsings. The {@code Unmarshaller} is not thread-safe and is created for each
+     * parsing.
+     */
+    private static JAXBContext jaxbContext;
+
+    static {
+
+        try {
+            jaxbContext = JAXBContext.newInstance(ObjectFactory.class, eu.europa.ec.markt.tsl.jaxb.ecc.ObjectFactory.class);
+        } catch (JAXBException e) {
+            throw new DSSException(e);
+        }
+    }
+
     /**
      * @param input
      * @return
@@ -88,7 +103,6 @@ abstract class TrustServiceListFactory {
 
     private static Unmarshaller getUnmarshaller() throws JAXBException {
 
-        JAXBContext jaxbContext = JAXBContext.newInstance(ObjectFactory.class, ObjectFactory.class, eu.europa.ec.markt.tsl.jaxb.ecc.ObjectFactory.class);
         final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
         return unmarshaller;
     }
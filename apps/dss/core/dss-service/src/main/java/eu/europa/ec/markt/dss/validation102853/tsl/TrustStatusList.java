@@ -20,10 +20,12 @@
 
 package eu.europa.ec.markt.dss.validation102853.tsl;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import eu.europa.ec.markt.tsl.jaxb.tsl.NextUpdateType;
 import eu.europa.ec.markt.tsl.jaxb.tsl.OtherTSLPointerType;
 import eu.europa.ec.markt.tsl.jaxb.tsl.OtherTSLPointersType;
 import eu.europa.ec.markt.tsl.jaxb.tsl.TSLSchemeInformationType;
@@ -122,10 +124,25 @@ class TrustStatusList {
      * Returns the next update of the trusted list. This information can be used to implement an automatic TSL
      * certificates reloader (based on {@link eu.europa.ec.markt.dss.validation102853.CertificateSource}).
      *
-     * @return
+     * @return the next update date or {@code null} if the trusted list is closed
      */
     public Date getNextUpdate() {
 
-        return trustStatusListType.getSchemeInformation().getNextUpdate().getDateTime().toGregorianCalendar().getTime();
+        final NextUpdateType nextUpdate = trustStatusListType.getSchemeInformation().getNextUpdate();
+        if (nextUpdate == null || nextUpdate.getDateTime() == null) {
+
+            return null;
+        }
+        return nextUpdate.getDateTime().toGregorianCalendar().getTime();
+    }
+
+    /**
+     * Returns the sequence number of the trusted list. It is incremented by the scheme operator with each new version of the trusted list.
+     *
+     * @return
+     */
+    public BigInteger getSequenceNumber() {
+
+        return trustStatusListType.getSchemeInformation().getTSLSequenceNumber();
     }
 }
@@ -24,6 +24,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.URLConnection;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.tsp.TSPException;
@@ -37,24 +45,44 @@ import org.slf4j.LoggerFactory;
 import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.validation102853.DefaultValidationExecutor;
 import eu.europa.ec.markt.dss.validation102853.loader.DataLoader;
 
 /**
  * Class encompassing a RFC 3161 TSA, accessed through HTTP(S) to a given URI
+ * <p/>
+ * When several digests are timestamped at once ({@link #getTimeStampResponses(DigestAlgorithm, List)}) the requests are pipelined: up to {@link
+ * #setMaxRequestsInFlight(int)} requests are sent at the same time. To reuse the HTTP connections between the requests a pooled {@code DataLoader}
+ * (like {@code CommonsDataLoader}) should be set.
  *
  * @version $Revision$ - $Date$
  */
 
-public class OnlineTSPSource implements TSPSource {
+public class OnlineTSPSource implements BatchTSPSource {
 
     private static final Logger LOG = LoggerFactory.getLogger(OnlineTSPSource.class);
 
+    /**
+     * The default maximum number of requests sent at the same time to the TSA.
+     */
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 8;
+
+    private static final SecureRandom NONCE_GENERATOR = new SecureRandom();
+
     private String tspServer;
 
     private ASN1ObjectIdentifier policyOid;
 
     private DataLoader dataLoader;
 
+    private int maxRequestsInFlight = DEFAULT_MAX_REQUESTS_IN_FLIGHT;
+
+    /**
+     * The {@code ExecutorService} used to pipeline the requests. When it is not set a bounded pool of {@code maxRequestsInFlight} daemon threads
+     * is created at the first batch.
+     */
+    private ExecutorService executorService;
+
     /**
      * The default constructor for OnlineTSPSource.
      */
@@ -102,6 +130,93 @@ public class OnlineTSPSource implements TSPSource {
         this.dataLoader = dataLoader;
     }
 
+    public int getMaxRequestsInFlight() {
+        return maxRequestsInFlight;
+    }
+
+    /**
+     * Set the maximum number of requests sent at the same time to the TSA when several digests are timestamped at once. The value 1 disables the
+     * pipelining. This value is not used when the {@code ExecutorService} is set.
+     *
+     * @param maxRequestsInFlight
+     */
+    public void setMaxRequestsInFlight(final int maxRequestsInFlight) {
+
+        if (maxRequestsInFlight < 1) {
+            throw new DSSException("The maximum number of requests in flight must be strictly positive: " + maxRequestsInFlight);
+        }
+        this.maxRequestsInFlight = maxRequestsInFlight;
+    }
+
+    /**
+     * Set the {@code ExecutorService} used to pipeline the requests. This executor is not shut down by this class.
+     *
+     * @param executorService
+     */
+    public synchronized void setExecutorService(final ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    private synchronized ExecutorService getExecutorService() {
+
+        if (executorService == null) {
+            executorService = DefaultValidationExecutor.newBoundedExecutor("dss-tsp", maxRequestsInFlight);
+        }
+        return executorService;
+    }
+
+    @Override
+    public List<TimeStampToken> getTimeStampResponses(final DigestAlgorithm digestAlgorithm, final List<byte[]> digests) throws DSSException {
+
+        final List<TimeStampToken> timeStampTokens = new ArrayList<TimeStampToken>(digests.size());
+        if (digests.size() < 2 || (maxRequestsInFlight == 1 && executorService == null)) {
+
+            for (final byte[] digest : digests) {
+                timeStampTokens.add(getTimeStampResponse(digestAlgorithm, digest));
+            }
+            return timeStampTokens;
+        }
+        final ExecutorService executor = getExecutorService();
+        final List<Future<TimeStampToken>> requests = new ArrayList<Future<TimeStampToken>>(digests.size());
+        try {
+
+            for (final byte[] digest : digests) {
+
+                requests.add(executor.submit(new Callable<TimeStampToken>() {
+
+                    @Override
+                    public TimeStampToken call() throws Exception {
+
+                        return getTimeStampResponse(digestAlgorithm, digest);
+                    }
+                }));
+            }
+            for (final Future<TimeStampToken> request : requests) {
+                timeStampTokens.add(request.get());
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("{} timestamps obtained from {}", timeStampTokens.size(), tspServer);
+            }
+            return timeStampTokens;
+        } catch (RejectedExecutionException e) {
+            throw new DSSException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DSSException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof DSSException) {
+                throw (DSSException) cause;
+            }
+            throw new DSSException(cause);
+        } finally {
+
+            for (final Future<TimeStampToken> request : requests) {
+                request.cancel(true);
+            }
+        }
+    }
+
     @Override
     public TimeStampToken getTimeStampResponse(final DigestAlgorithm digestAlgorithm, final byte[] digest) throws DSSException {
 
@@ -119,8 +234,8 @@ public class OnlineTSPSource implements TSPSource {
             if (policyOid != null) {
                 tsqGenerator.setReqPolicy(policyOid);
             }
-            final long val = System.currentTimeMillis();
-            final BigInteger nonce = BigInteger.valueOf(val);
+            // The requests can be sent at the same time: the nonce cannot be based on the current time only
+            final BigInteger nonce = new BigInteger(64, NONCE_GENERATOR);
             final ASN1ObjectIdentifier asn1ObjectIdentifier = digestAlgorithm.getOid();
             final TimeStampRequest request = tsqGenerator.generate(asn1ObjectIdentifier, digest, nonce);
             final byte[] requestBytes = request.getEncoded();
@@ -21,8 +21,11 @@
 package eu.europa.ec.markt.dss;
 
 import java.security.cert.X509Certificate;
-import java.util.LinkedHashMap;
-import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.security.auth.x500.X500Principal;
 
@@ -33,6 +36,14 @@ import eu.europa.ec.markt.dss.exception.DSSException;
  * certificates, CRLs, OCSPs and signatures. This DSS unique id is a simple integer number.
  *
  * <p>
+ * The association between the certificates and their ids is kept in a bounded concurrent cache: when the cache is full
+ * the oldest associations are forgotten. A forgotten certificate receives a new id the next time it is seen and the
+ * ids restart at 1 once {@code Integer.MAX_VALUE} is reached. The id of a certificate is therefore stable for the
+ * lifetime of its {@code CertificateToken} (and so within a validation report) but neither stable nor unique between
+ * two unrelated validations: the id is only a label, {@code CertificateToken#equals} and
+ * {@code CertificateToken#hashCode} are based on the encoding of the certificate.
+ *
+ * <p>
  * DISCLAIMER: Project owner DG-MARKT.
  *
  * @author <a href="mailto:dgmarkt.Project-DSS@arhs-developments.com">ARHS Developments</a>
@@ -41,21 +52,40 @@ import eu.europa.ec.markt.dss.exception.DSSException;
 public final class CertificateIdentifier {
 
     /**
-     * This is the id which is given to a new certificate.
+     * The default maximum number of associations kept by the cache.
      */
-    private static int nextCertificateIdentifier = 1;
+    public static final int DEFAULT_CACHE_SIZE = 10000;
 
+    /**
+     * This is the id which is given to a new certificate.
+     */
+    private static final AtomicInteger nextCertificateIdentifier = new AtomicInteger(1);
 
     /**
      * This boolean is used in testing context, to keep consistent ids for certificates between various test launches
      */
-    private static boolean UNIQUE_IDENTIFIER = false;
+    private static volatile boolean UNIQUE_IDENTIFIER = false;
+
+    /**
+     * The maximum number of associations kept by the cache.
+     */
+    private static volatile int cacheSize = DEFAULT_CACHE_SIZE;
+
+    /**
+     * This map represents the association between the certificate unique identifier (certificate's issuer
+     * distinguished name + "|" + certificate's serial number) and the DSS certificate's id.
+     */
+    private static final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
 
     /**
-     * This {@link LinkedHashMap} represents the association between the certificate unique identifier (certificate's
-     * issuer distinguished name + "|" + certificate's serial number) and the DSS certificate's id.
+     * The keys of the {@code ids} map in their insertion order, used to forget the oldest associations.
      */
-    private static LinkedHashMap<String, Integer> ids = new LinkedHashMap<String, Integer>();
+    private static final Queue<String> insertionOrder = new ConcurrentLinkedQueue<String>();
+
+    /**
+     * The number of associations in the {@code ids} map ({@code ConcurrentHashMap#size} can lock the whole map).
+     */
+    private static final AtomicInteger numberOfIds = new AtomicInteger();
 
     private CertificateIdentifier() {
     }
@@ -71,9 +101,31 @@ public final class CertificateIdentifier {
     public static void setUniqueIdentifier(boolean uniqueIdentifier) {
         UNIQUE_IDENTIFIER = uniqueIdentifier;
     }
+
+    /**
+     * @return the maximum number of certificate/id associations kept in memory
+     */
+    public static int getCacheSize() {
+        return cacheSize;
+    }
+
     /**
-     * Return the DSS certificate's unique id for a given {@link X509Certificate}. If the {@code cert} parameter is
-     * null 0 is returned.
+     * This method sets the maximum number of certificate/id associations kept in memory. The default value is
+     * {@link #DEFAULT_CACHE_SIZE}.
+     *
+     * @param cacheSize the maximum number of associations, must be strictly positive
+     */
+    public static void setCacheSize(final int cacheSize) {
+
+        if (cacheSize < 1) {
+            throw new DSSException("The cache size must be strictly positive: " + cacheSize);
+        }
+        CertificateIdentifier.cacheSize = cacheSize;
+        evict();
+    }
+
+    /**
+     * Return the DSS certificate's unique id for a given {@link X509Certificate}.
      *
      * @param cert
      * @return
@@ -83,10 +135,10 @@ public final class CertificateIdentifier {
             throw new DSSException("The certificate cannot be null!");
         }
         final String certKey = getKey(cert);
-        Integer id = ids.get(certKey);
+        final Integer id = ids.get(certKey);
         if (id == null) {
 
-            id = add(certKey);
+            return add(certKey);
         }
         return id;
     }
@@ -100,28 +152,60 @@ public final class CertificateIdentifier {
      */
     private static int add(final String key) {
 
-        Integer id = ids.get(key);
-        if (id == null) {
-            if (UNIQUE_IDENTIFIER) {
-                id = key.hashCode();
-                ids.put(key, id);
-            } else {
-                id = nextCertificateIdentifier;
-                ids.put(key, id);
-                nextCertificateIdentifier++;
+        final Integer newId = UNIQUE_IDENTIFIER ? key.hashCode() : nextId();
+        final Integer id = ids.putIfAbsent(key, newId);
+        if (id != null) {
+
+            return id;
+        }
+        insertionOrder.offer(key);
+        numberOfIds.incrementAndGet();
+        evict();
+        return newId;
+    }
+
+    /**
+     * @return the next id, the ids restart at 1 after {@code Integer.MAX_VALUE} (0 and the negative values are never
+     *         given)
+     */
+    private static int nextId() {
+
+        while (true) {
+
+            final int id = nextCertificateIdentifier.get();
+            final int next = id == Integer.MAX_VALUE ? 1 : id + 1;
+            if (nextCertificateIdentifier.compareAndSet(id, next)) {
+                return id;
             }
         }
-        return id;
     }
 
     /**
-     * This method returns the unique identifier of a given {@link X509Certificate}. This identifier is used to obtain
-     * the DSS certificate's unique id. The CANONICAL form of the {@code X500Principal} is used.
+     * This method forgets the oldest associations while the cache holds more than {@code cacheSize} associations.
+     */
+    private static void evict() {
+
+        while (numberOfIds.get() > cacheSize) {
+
+            final String eldestKey = insertionOrder.poll();
+            if (eldestKey == null) {
+                break;
+            }
+            if (ids.remove(eldestKey) != null) {
+                numberOfIds.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * This method returns the unique identifier of a given {@link X509Certificate}: issuer distinguished name + "|" +
+     * serial number. This identifier is used to obtain the DSS certificate's unique id. The CANONICAL form of the
+     * {@code X500Principal} is used.
      *
      * @param cert
      * @return
      */
-    private static String getKey(final X509Certificate cert) {
+    public static String getKey(final X509Certificate cert) {
 
         final String canonicalIssuerX500Principal = cert.getIssuerX500Principal().getName(X500Principal.CANONICAL);
         final String serialNumber = cert.getSerialNumber().toString();
@@ -133,7 +217,9 @@ public final class CertificateIdentifier {
      */
     public static void clear() {
         ids.clear();
-        nextCertificateIdentifier = 1;
+        insertionOrder.clear();
+        numberOfIds.set(0);
+        nextCertificateIdentifier.set(1);
     }
 
     /**
@@ -148,11 +234,12 @@ public final class CertificateIdentifier {
         StringBuilder sb = new StringBuilder();
 
         sb.append(indentStr).append("List of certificates:\n");
-        for (Entry<String, Integer> entry : ids.entrySet()) {
+        for (final String key : insertionOrder) {
 
-            Integer id = entry.getValue();
-            String key = entry.getKey();
-            sb.append(indentStr).append(String.format("[%s] : %s\n", id, key));
+            final Integer id = ids.get(key);
+            if (id != null) {
+                sb.append(indentStr).append(String.format("[%s] : %s\n", id, key));
+            }
         }
         return sb.toString();
     }
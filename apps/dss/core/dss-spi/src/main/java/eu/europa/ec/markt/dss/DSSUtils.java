@@ -39,7 +39,9 @@ import java.math.BigInteger;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -58,6 +60,7 @@ import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -65,9 +68,14 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.security.auth.x500.X500Principal;
 
@@ -122,8 +130,10 @@ import eu.europa.ec.markt.dss.exception.DSSNullException;
 import eu.europa.ec.markt.dss.signature.DSSDocument;
 import eu.europa.ec.markt.dss.utils.Base64;
 import eu.europa.ec.markt.dss.validation102853.CertificateToken;
+import eu.europa.ec.markt.dss.validation102853.DefaultValidationExecutor;
 import eu.europa.ec.markt.dss.validation102853.loader.DataLoader;
 import eu.europa.ec.markt.dss.validation102853.loader.Protocol;
+import eu.europa.ec.markt.dss.validation102853.loader.RequestCoalescer;
 
 public final class DSSUtils {
 
@@ -172,7 +182,11 @@ public final class DSSUtils {
 	 */
 	private static final Date deterministicDate = DSSUtils.getUtcDate(1970, 04, 23);
 
-	private static MessageDigest sha1Digester;
+	/**
+	 * The downloads of the issuer certificates (AIA) in progress. The concurrent requests for the same URL through the same {@code DataLoader} share one in-flight download:
+	 * the key is the list made of the loader and of the URL, the loaders with different settings (proxy, authentication...) never share their results.
+	 */
+	private static final RequestCoalescer<List<Object>, byte[]> AIA_DOWNLOADS = new RequestCoalescer<List<Object>, byte[]>();
 
 	private static JcaDigestCalculatorProviderBuilder jcaDigestCalculatorProviderBuilder;
 
@@ -184,8 +198,6 @@ public final class DSSUtils {
 
 			certificateFactory = CertificateFactory.getInstance("X.509", "BC");
 
-			sha1Digester = getMessageDigest(DigestAlgorithm.SHA1);
-
 			jcaDigestCalculatorProviderBuilder = new JcaDigestCalculatorProviderBuilder();
 			jcaDigestCalculatorProviderBuilder.setProvider("BC");
 
@@ -197,10 +209,6 @@ public final class DSSUtils {
 
 			LOG.error(e.toString());
 			throw new DSSException("Platform does not support BouncyCastle", e);
-		} catch (NoSuchAlgorithmException e) {
-
-			LOG.error(e.toString());
-			throw new DSSException("The digest algorithm is not supported", e);
 		}
 	}
 
@@ -209,6 +217,21 @@ public final class DSSUtils {
 	 */
 	private static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
 
+	/**
+	 * The size of the buffer used to digest the streams and the files.
+	 */
+	private static final int DIGEST_BUFFER_SIZE = 1024 * 64;
+
+	/**
+	 * The amount of data after which the digests of several algorithms are computed in parallel.
+	 */
+	private static final long PARALLEL_DIGEST_THRESHOLD = 1024 * 1024 * 16;
+
+	/**
+	 * The threads used to compute in parallel the digests of several algorithms. The tasks never wait for each other.
+	 */
+	private static volatile ExecutorService digestExecutor;
+
 	/**
 	 * This class is an utility class and cannot be instantiated.
 	 */
@@ -799,7 +822,8 @@ public final class DSSUtils {
 	 * This method loads the issuer certificate from the given location (AIA).  The certificate must be DER-encoded and may be supplied in binary or
 	 * printable (Base64) encoding. If the certificate is provided in Base64 encoding, it must be bounded at the beginning by -----BEGIN
 	 * CERTIFICATE-----, and must be bounded at the end by -----END CERTIFICATE-----.  It throws an
-	 * {@code DSSException} or return {@code null} when the certificate cannot be loaded.
+	 * {@code DSSException} or return {@code null} when the certificate cannot be loaded. The concurrent requests for the same location through the same loader share one
+	 * download.
 	 *
 	 * @param cert   certificate for which the issuer should be loaded
 	 * @param loader the loader to use
@@ -816,7 +840,14 @@ public final class DSSUtils {
 		if (loader == null) {
 			throw new DSSNullException(DataLoader.class);
 		}
-		byte[] bytes = loader.get(url);
+		byte[] bytes = AIA_DOWNLOADS.execute(Arrays.<Object>asList(loader, url), new Callable<byte[]>() {
+
+			@Override
+			public byte[] call() throws Exception {
+
+				return loader.get(url);
+			}
+		});
 		if (bytes == null || bytes.length <= 0) {
 			LOG.error("Unable to read data from {}.", url);
 			return null;
@@ -1028,7 +1059,7 @@ public final class DSSUtils {
 	 */
 	public static String getSHA1Digest(final String stringToDigest) {
 
-		final byte[] digest = sha1Digester.digest(stringToDigest.getBytes());
+		final byte[] digest = digest(DigestAlgorithm.SHA1, stringToDigest.getBytes());
 		return encodeHexString(digest);
 	}
 
@@ -1040,8 +1071,7 @@ public final class DSSUtils {
 	 */
 	public static String getSHA1Digest(final InputStream inputStream) {
 
-		final byte[] bytes = DSSUtils.toByteArray(inputStream);
-		final byte[] digest = sha1Digester.digest(bytes);
+		final byte[] digest = digest(DigestAlgorithm.SHA1, inputStream);
 		return encodeHexString(digest);
 	}
 
@@ -1133,24 +1163,184 @@ public final class DSSUtils {
 	 */
 	public static byte[] digest(final DigestAlgorithm digestAlgo, final InputStream inputStream) throws DSSException {
 
+		final Map<DigestAlgorithm, byte[]> digests = digests(inputStream, digestAlgo);
+		return digests.get(digestAlgo);
+	}
+
+	/**
+	 * This method digests the data in the {@code InputStream} with all the given algorithms. The stream is read only once and is not closed. When the amount of data is
+	 * large, the digests of the different algorithms are computed in parallel.
+	 *
+	 * @param inputStream      the data to digest
+	 * @param digestAlgorithms the algorithms to use
+	 * @return the digest values, by algorithm
+	 * @throws DSSException
+	 */
+	public static Map<DigestAlgorithm, byte[]> digests(final InputStream inputStream, final DigestAlgorithm... digestAlgorithms) throws DSSException {
+
+		final MessageDigest[] messageDigests = getMessageDigests(digestAlgorithms);
 		try {
 
-			final MessageDigest messageDigest = getMessageDigest(digestAlgo);
-			final byte[] buffer = new byte[4096];
-			int count = 0;
-			while ((count = inputStream.read(buffer)) > 0) {
+			update(Channels.newChannel(inputStream), false, messageDigests);
+		} catch (IOException e) {
+			throw new DSSException(e);
+		}
+		return getDigestValues(digestAlgorithms, messageDigests);
+	}
 
-				messageDigest.update(buffer, 0, count);
+	/**
+	 * This method digests the content of the {@code File} with all the given algorithms. The file is read only once through a direct buffer. When the file is large, the
+	 * digests of the different algorithms are computed in parallel.
+	 *
+	 * @param file             the file to digest
+	 * @param digestAlgorithms the algorithms to use
+	 * @return the digest values, by algorithm
+	 * @throws DSSException
+	 */
+	public static Map<DigestAlgorithm, byte[]> digests(final File file, final DigestAlgorithm... digestAlgorithms) throws DSSException {
+
+		final MessageDigest[] messageDigests = getMessageDigests(digestAlgorithms);
+		FileInputStream fileInputStream = null;
+		try {
+
+			fileInputStream = new FileInputStream(file);
+			update(fileInputStream.getChannel(), true, messageDigests);
+		} catch (IOException e) {
+			throw new DSSException(e);
+		} finally {
+			closeQuietly(fileInputStream);
+		}
+		return getDigestValues(digestAlgorithms, messageDigests);
+	}
+
+	private static MessageDigest[] getMessageDigests(final DigestAlgorithm... digestAlgorithms) throws DSSException {
+
+		final MessageDigest[] messageDigests = new MessageDigest[digestAlgorithms.length];
+		try {
+
+			for (int ii = 0; ii < digestAlgorithms.length; ii++) {
+				messageDigests[ii] = getMessageDigest(digestAlgorithms[ii]);
 			}
-			final byte[] digestValue = messageDigest.digest();
-			return digestValue;
 		} catch (NoSuchAlgorithmException e) {
 			throw new DSSException("Digest algorithm error: " + e.getMessage(), e);
-		} catch (IOException e) {
+		}
+		return messageDigests;
+	}
+
+	private static Map<DigestAlgorithm, byte[]> getDigestValues(final DigestAlgorithm[] digestAlgorithms, final MessageDigest[] messageDigests) {
+
+		final Map<DigestAlgorithm, byte[]> digestValues = new HashMap<DigestAlgorithm, byte[]>();
+		for (int ii = 0; ii < digestAlgorithms.length; ii++) {
+			digestValues.put(digestAlgorithms[ii], messageDigests[ii].digest());
+		}
+		return digestValues;
+	}
+
+	/**
+	 * Feeds all the {@code MessageDigest}s with the content of the channel. Two buffers are used: the next chunk is read while the previous one is being digested. Once the
+	 * amount of data exceeds {@link #PARALLEL_DIGEST_THRESHOLD}, each {@code MessageDigest} is fed by its own thread.
+	 *
+	 * @param channel        the data to digest
+	 * @param direct         indicates if direct buffers must be used
+	 * @param messageDigests the {@code MessageDigest}s to feed
+	 * @throws IOException
+	 */
+	private static void update(final ReadableByteChannel channel, final boolean direct, final MessageDigest[] messageDigests) throws IOException {
+
+		final ByteBuffer[] buffers = new ByteBuffer[2];
+		for (int ii = 0; ii < buffers.length; ii++) {
+			buffers[ii] = direct ? ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE) : ByteBuffer.allocate(DIGEST_BUFFER_SIZE);
+		}
+		List<Future<?>> pendingUpdates = Collections.emptyList();
+		long total = 0;
+		int current = 0;
+		while (true) {
+
+			final ByteBuffer buffer = buffers[current];
+			buffer.clear();
+			fill(channel, buffer);
+			waitFor(pendingUpdates);
+			if (buffer.position() == 0) {
+				break;
+			}
+			buffer.flip();
+			total += buffer.remaining();
+			if (messageDigests.length > 1 && total > PARALLEL_DIGEST_THRESHOLD) {
+
+				pendingUpdates = submitUpdates(buffer, messageDigests);
+			} else {
+
+				for (final MessageDigest messageDigest : messageDigests) {
+					messageDigest.update(buffer.duplicate());
+				}
+				pendingUpdates = Collections.emptyList();
+			}
+			current = 1 - current;
+		}
+	}
+
+	private static void fill(final ReadableByteChannel channel, final ByteBuffer buffer) throws IOException {
+
+		while (buffer.hasRemaining()) {
+
+			if (channel.read(buffer) == -1) {
+				break;
+			}
+		}
+	}
+
+	private static List<Future<?>> submitUpdates(final ByteBuffer buffer, final MessageDigest[] messageDigests) {
+
+		final ExecutorService executorService = getDigestExecutor();
+		final List<Future<?>> futures = new ArrayList<Future<?>>(messageDigests.length);
+		for (final MessageDigest messageDigest : messageDigests) {
+
+			final ByteBuffer chunk = buffer.duplicate();
+			futures.add(executorService.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					messageDigest.update(chunk);
+				}
+			}));
+		}
+		return futures;
+	}
+
+	private static void waitFor(final List<Future<?>> futures) throws DSSException {
+
+		try {
+
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
 			throw new DSSException(e);
+		} catch (ExecutionException e) {
+			throw new DSSException(e.getCause());
 		}
 	}
 
+	private static ExecutorService getDigestExecutor() {
+
+		ExecutorService executorService = digestExecutor;
+		if (executorService == null) {
+
+			synchronized (DSSUtils.class) {
+
+				executorService = digestExecutor;
+				if (executorService == null) {
+
+					executorService = DefaultValidationExecutor.newBoundedExecutor("dss-digest", Runtime.getRuntime().availableProcessors());
+					digestExecutor = executorService;
+				}
+			}
+		}
+		return executorService;
+	}
+
 	public static byte[] digest(DigestAlgorithm digestAlgorithm, byte[]... data) {
 
 		try {
@@ -1240,6 +1430,39 @@ public final class DSSUtils {
 		}
 	}
 
+	/**
+	 * This method digest and encrypt each array of bytes of the given list with indicated private key and signature algorithm. Only one {@code Signature} object is created and
+	 * initialised: it is reset by each call to {@code Signature#sign} and reused for the next array of bytes. This allows to open only one session on the token holding the
+	 * private key.
+	 *
+	 * @param javaSignatureAlgorithm signature algorithm under JAVA form.
+	 * @param privateKey             private key to use
+	 * @param bytesList              the list of data to digest
+	 * @return the list of digested and encrypted arrays of bytes, in the same order as {@code bytesList}
+	 */
+	public static List<byte[]> encrypt(final String javaSignatureAlgorithm, final PrivateKey privateKey, final List<byte[]> bytesList) {
+
+		try {
+
+			final Signature signature = Signature.getInstance(javaSignatureAlgorithm);
+
+			signature.initSign(privateKey);
+			final List<byte[]> signatureValues = new ArrayList<byte[]>(bytesList.size());
+			for (final byte[] bytes : bytesList) {
+
+				signature.update(bytes);
+				signatureValues.add(signature.sign());
+			}
+			return signatureValues;
+		} catch (SignatureException e) {
+			throw new DSSException(e);
+		} catch (InvalidKeyException e) {
+			throw new DSSException(e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new DSSException(e);
+		}
+	}
+
 	/**
 	 * Returns the {@code CertificateID} for the given certificate and its issuer's certificate.
 	 *
@@ -47,11 +47,9 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.xml.security.Init;
 import org.apache.xml.security.c14n.CanonicalizationException;
@@ -88,10 +86,13 @@ public final class DSSXMLUtils {
 	private static DocumentBuilderFactory dbFactory;
 
 
-	private static final XPathFactory factory = XPathFactory.newInstance();
-
 	private static NamespaceContext namespacePrefixMapper;
 
+	/**
+	 * The compiled XPath expressions, it is replaced when a namespace is added.
+	 */
+	private static volatile XPathExpressionCache xPathExpressionCache;
+
 	private static final Map<String, String> namespaces;
 
 	static {
@@ -107,6 +108,7 @@ public final class DSSXMLUtils {
 		namespaces.put("xades111", XAdESNamespaces.XAdES111);
 
 		namespacePrefixMapper = new NamespaceContextMap(namespaces);
+		xPathExpressionCache = new XPathExpressionCache(namespacePrefixMapper);
 	}
 
 	/**
@@ -117,17 +119,15 @@ public final class DSSXMLUtils {
 	}
 
 	/**
+	 * The returned expression comes from a per-thread cache and must not be shared with other threads.
+	 *
 	 * @param xpathString XPath query string
 	 * @return
 	 */
 	private static XPathExpression createXPathExpression(final String xpathString) {
 
-      /* XPath */
-		final XPath xpath = factory.newXPath();
-		xpath.setNamespaceContext(namespacePrefixMapper);
-
 		try {
-			final XPathExpression expr = xpath.compile(xpathString);
+			final XPathExpression expr = xPathExpressionCache.get(xpathString);
 			return expr;
 		} catch (XPathExpressionException ex) {
 			throw new DSSException(ex);
@@ -832,8 +832,9 @@ public final class DSSXMLUtils {
 	 * This method enables a user to add a specific namespace + corresponding prefix
 	 * @param namespace a {@code HashMap} containing the additional namespace, with the prefix as key and the namespace URI as value
 	 */
-	public static void addNamespace(HashMap<String, String> namespace) {
+	public static synchronized void addNamespace(HashMap<String, String> namespace) {
 		namespaces.putAll(namespace);
 		namespacePrefixMapper = new NamespaceContextMap(namespaces);
+		xPathExpressionCache = new XPathExpressionCache(namespacePrefixMapper);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * This class keeps the compiled XPath expressions. Neither {@code XPath} nor {@code XPathExpression} are thread-safe: each thread has its own {@code XPath} and its own
+ * bounded cache of compiled expressions (the least recently used expression is removed first).
+ * <p/>
+ * The cache key can be transformed into the final XPath query by overriding {@link #toXPath(String)}, in this case the transformation is done only once per key and thread.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class XPathExpressionCache {
+
+	/**
+	 * The default maximum number of compiled expressions kept per thread.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 512;
+
+	private final NamespaceContext namespaceContext;
+
+	private final int maxSize;
+
+	private final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<ThreadCache>() {
+
+		@Override
+		protected ThreadCache initialValue() {
+
+			return new ThreadCache();
+		}
+	};
+
+	/**
+	 * @param namespaceContext the namespace context used to compile the expressions
+	 */
+	public XPathExpressionCache(final NamespaceContext namespaceContext) {
+
+		this(namespaceContext, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param namespaceContext the namespace context used to compile the expressions
+	 * @param maxSize          the maximum number of compiled expressions kept per thread
+	 */
+	public XPathExpressionCache(final NamespaceContext namespaceContext, final int maxSize) {
+
+		this.namespaceContext = namespaceContext;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * This method returns the compiled expression for the given key. The returned expression must be used only by the calling thread.
+	 *
+	 * @param key the XPath query or the key to be transformed with {@link #toXPath(String)}
+	 * @return the compiled {@code XPathExpression}
+	 * @throws XPathExpressionException if the expression cannot be compiled
+	 */
+	public XPathExpression get(final String key) throws XPathExpressionException {
+
+		final ThreadCache cache = threadCache.get();
+		XPathExpression expression = cache.get(key);
+		if (expression == null) {
+
+			expression = cache.xPath.compile(toXPath(key));
+			cache.put(key, expression);
+		}
+		return expression;
+	}
+
+	/**
+	 * This method transforms the cache key into the XPath query to compile. By default the key is the XPath query.
+	 *
+	 * @param key the cache key
+	 * @return the XPath query
+	 */
+	protected String toXPath(final String key) {
+
+		return key;
+	}
+
+	private class ThreadCache extends LinkedHashMap<String, XPathExpression> {
+
+		private final XPath xPath;
+
+		ThreadCache() {
+
+			super(16, 0.75f, true);
+			xPath = XPathFactory.newInstance().newXPath();
+			xPath.setNamespaceContext(namespaceContext);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, XPathExpression> eldest) {
+
+			return size() > maxSize;
+		}
+	}
+}
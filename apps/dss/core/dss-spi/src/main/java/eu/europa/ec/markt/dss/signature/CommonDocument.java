@@ -20,11 +20,23 @@
 
 package eu.europa.ec.markt.dss.signature;
 
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
 
 /**
  * This class implements the default methods.
  * <p/>
+ * The digests of the document are computed once and kept for the lifetime of the instance: the same detached content can be used by all the signatures of a container and
+ * it is read only once. The content of the document must not change after the first digest was computed.
+ * <p/>
  * DISCLAIMER: Project owner DG-MARKT.
  *
  * @author <a href="mailto:dgmarkt.Project-DSS@arhs-developments.com">ARHS Developments</a>
@@ -36,6 +48,11 @@ public abstract class CommonDocument implements DSSDocument {
 
 	protected MimeType mimeType;
 
+	/**
+	 * The base64 encoded digests already computed for this document.
+	 */
+	private final Map<DigestAlgorithm, String> digests = new HashMap<DigestAlgorithm, String>();
+
 	@Override
 	public MimeType getMimeType() {
 		return mimeType;
@@ -56,6 +73,82 @@ public abstract class CommonDocument implements DSSDocument {
 		this.nextDocument = nextDocument;
 	}
 
+	@Override
+	public String getDigest(final DigestAlgorithm digestAlgorithm) {
+
+		synchronized (digests) {
+
+			final String digest = digests.get(digestAlgorithm);
+			if (digest != null) {
+				return digest;
+			}
+		}
+		computeDigests(digestAlgorithm);
+		synchronized (digests) {
+			return digests.get(digestAlgorithm);
+		}
+	}
+
+	/**
+	 * This method computes in one pass over the content of the document the digests of all given algorithms which are not yet known. It can be used when several digests
+	 * of the same document are needed, the subsequent calls to {@code #getDigest} do not read the content anymore.
+	 *
+	 * @param digestAlgorithms the list of the {@code DigestAlgorithm}s to be used
+	 * @throws DSSException
+	 */
+	public void computeDigests(final DigestAlgorithm... digestAlgorithms) throws DSSException {
+
+		final List<DigestAlgorithm> missingDigestAlgorithms = new ArrayList<DigestAlgorithm>();
+		synchronized (digests) {
+
+			for (final DigestAlgorithm digestAlgorithm : digestAlgorithms) {
+
+				if (!digests.containsKey(digestAlgorithm) && !missingDigestAlgorithms.contains(digestAlgorithm)) {
+					missingDigestAlgorithms.add(digestAlgorithm);
+				}
+			}
+		}
+		if (missingDigestAlgorithms.isEmpty()) {
+			return;
+		}
+		final Map<DigestAlgorithm, byte[]> digestValues = digestContent(missingDigestAlgorithms.toArray(new DigestAlgorithm[missingDigestAlgorithms.size()]));
+		addDigests(digestValues);
+	}
+
+	/**
+	 * This method allows to provide the digests of the document when they were computed while its content was read for another purpose.
+	 *
+	 * @param digestValues the digest values, by algorithm
+	 */
+	protected void addDigests(final Map<DigestAlgorithm, byte[]> digestValues) {
+
+		synchronized (digests) {
+
+			for (final Map.Entry<DigestAlgorithm, byte[]> entry : digestValues.entrySet()) {
+
+				final String base64Encode = DSSUtils.base64Encode(entry.getValue());
+				digests.put(entry.getKey(), base64Encode);
+			}
+		}
+	}
+
+	/**
+	 * This method reads the content of the document once and computes its digests with all the given algorithms.
+	 *
+	 * @param digestAlgorithms the list of the {@code DigestAlgorithm}s to be used
+	 * @return the digest values, by algorithm
+	 * @throws DSSException
+	 */
+	protected Map<DigestAlgorithm, byte[]> digestContent(final DigestAlgorithm... digestAlgorithms) throws DSSException {
+
+		final InputStream inputStream = openStream();
+		try {
+			return DSSUtils.digests(inputStream, digestAlgorithms);
+		} finally {
+			DSSUtils.closeQuietly(inputStream);
+		}
+	}
+
 	@Override
 	public String toString() {
 
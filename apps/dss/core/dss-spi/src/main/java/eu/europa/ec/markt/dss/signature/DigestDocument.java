@@ -21,8 +21,9 @@
 package eu.europa.ec.markt.dss.signature;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.Collections;
 
+import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.exception.DSSUnsupportedOperationException;
@@ -35,8 +36,6 @@ import eu.europa.ec.markt.dss.exception.DSSUnsupportedOperationException;
 
 public class DigestDocument extends FileDocument {
 
-	private HashMap<DigestAlgorithm, String> base64EncodeDigestMap = new HashMap<DigestAlgorithm, String>();
-
 	/**
 	 * Creates dss document from the path and for which the digest can be provided externally.
 	 *
@@ -65,22 +64,13 @@ public class DigestDocument extends FileDocument {
 
 	/**
 	 * This method allows to add a pair: {@code DigestAlgorithm} and the corresponding digest value calculated externally on the encapsulated file. The digest value is base 64 encoded.
+	 * The provided digests are used by {@code #getDigest} and {@code #computeDigests}: the file is read only for the other algorithms.
 	 *
 	 * @param digestAlgorithm {@code DigestAlgorithm}
 	 * @param base64EncodeDigest the corresponding base 64 encoded digest value
 	 */
 	public void addDigest(final DigestAlgorithm digestAlgorithm, final String base64EncodeDigest) {
 
-		base64EncodeDigestMap.put(digestAlgorithm, base64EncodeDigest);
-	}
-
-	@Override
-	public String getDigest(final DigestAlgorithm digestAlgorithm) {
-
-		String base64EncodeDigest = base64EncodeDigestMap.get(digestAlgorithm);
-		if (base64EncodeDigest == null) {
-			base64EncodeDigest = super.getDigest(digestAlgorithm);
-		}
-		return base64EncodeDigest;
+		addDigests(Collections.singletonMap(digestAlgorithm, DSSUtils.base64Decode(base64EncodeDigest)));
 	}
 }
\ No newline at end of file
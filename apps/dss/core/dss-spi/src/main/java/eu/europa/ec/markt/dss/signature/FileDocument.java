@@ -22,6 +22,7 @@ package eu.europa.ec.markt.dss.signature;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Map;
 
 import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.DigestAlgorithm;
@@ -109,12 +110,8 @@ public class FileDocument extends CommonDocument {
 	}
 
 	@Override
-	public String getDigest(final DigestAlgorithm digestAlgorithm) {
+	protected Map<DigestAlgorithm, byte[]> digestContent(final DigestAlgorithm... digestAlgorithms) throws DSSException {
 
-		final InputStream inputStream = openStream();
-		final byte[] digestBytes = DSSUtils.digest(digestAlgorithm, inputStream);
-		DSSUtils.closeQuietly(inputStream);
-		final String base64Encode = DSSUtils.base64Encode(digestBytes);
-		return base64Encode;
+		return DSSUtils.digests(file, digestAlgorithms);
 	}
 }
@@ -27,7 +27,6 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import eu.europa.ec.markt.dss.DSSUtils;
-import eu.europa.ec.markt.dss.DigestAlgorithm;
 import eu.europa.ec.markt.dss.exception.DSSException;
 
 /**
@@ -160,12 +159,4 @@ public class InMemoryDocument extends CommonDocument {
 
 		return absolutePath;
 	}
-
-	@Override
-	public String getDigest(final DigestAlgorithm digestAlgorithm) {
-
-		final byte[] digestBytes = DSSUtils.digest(digestAlgorithm, getBytes());
-		final String base64Encode = DSSUtils.base64Encode(digestBytes);
-		return base64Encode;
-	}
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.signature;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.exception.DSSNullException;
+
+/**
+ * Document implementation representing an entry of a ZIP file stored on file-system. The entry is located through the central directory of the ZIP file and its content is
+ * read (and inflated) only when a stream is opened: the document is never loaded in memory, unless {@code #getBytes()} is called.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class ZipEntryDocument extends CommonDocument {
+
+	private final File zipFile;
+
+	private final String entryName;
+
+	/**
+	 * Create a ZipEntryDocument
+	 *
+	 * @param zipFile   {@code File} the ZIP file
+	 * @param entryName the name of the entry within the ZIP file
+	 */
+	public ZipEntryDocument(final File zipFile, final String entryName) {
+
+		if (zipFile == null) {
+
+			throw new DSSNullException(File.class);
+		}
+		if (entryName == null) {
+
+			throw new DSSNullException(String.class, "entryName");
+		}
+		this.zipFile = zipFile;
+		this.entryName = entryName;
+		this.mimeType = MimeType.fromFileName(entryName);
+	}
+
+	/**
+	 * The returned stream must be closed: it holds the ZIP file open.
+	 *
+	 * @return an {@code InputStream} on the inflated content of the entry
+	 * @throws DSSException
+	 */
+	@Override
+	public InputStream openStream() throws DSSException {
+
+		final ZipFile zip;
+		try {
+			zip = new ZipFile(zipFile);
+		} catch (IOException e) {
+			throw new DSSException(e);
+		}
+		try {
+
+			final ZipEntry zipEntry = zip.getEntry(entryName);
+			if (zipEntry == null) {
+
+				throw new DSSException("The entry '" + entryName + "' does not exist: " + zipFile.getAbsolutePath());
+			}
+			return new FilterInputStream(zip.getInputStream(zipEntry)) {
+
+				@Override
+				public void close() throws IOException {
+
+					try {
+						super.close();
+					} finally {
+						zip.close();
+					}
+				}
+			};
+		} catch (IOException e) {
+
+			closeQuietly(zip);
+			throw new DSSException(e);
+		} catch (RuntimeException e) {
+
+			closeQuietly(zip);
+			throw e;
+		}
+	}
+
+	private static void closeQuietly(final ZipFile zip) {
+
+		try {
+			zip.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	@Override
+	public String getName() {
+		return entryName;
+	}
+
+	@Override
+	public String getAbsolutePath() {
+		return zipFile.getAbsolutePath() + "!/" + entryName;
+	}
+
+	@Override
+	public byte[] getBytes() throws DSSException {
+
+		final InputStream inputStream = openStream();
+		final byte[] bytes = DSSUtils.toByteArray(inputStream);
+		DSSUtils.closeQuietly(inputStream);
+		return bytes;
+	}
+
+	@Override
+	public void save(final String path) throws DSSException {
+
+		final InputStream inputStream = openStream();
+		DSSUtils.saveToFile(inputStream, path);
+		DSSUtils.closeQuietly(inputStream);
+	}
+}
@@ -20,6 +20,8 @@
 
 package eu.europa.ec.markt.dss.signature.token;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,7 +36,7 @@ import eu.europa.ec.markt.dss.exception.DSSException;
  * @version $Revision: 1835 $ - $Date: 2013-03-12 09:54:17 +0100 (Tue, 12 Mar 2013) $
  */
 
-public abstract class AbstractSignatureTokenConnection implements SignatureTokenConnection {
+public abstract class AbstractSignatureTokenConnection implements BatchSignatureTokenConnection {
 
     protected static final Logger LOG = LoggerFactory.getLogger(AbstractSignatureTokenConnection.class);
 
@@ -52,4 +54,15 @@ public abstract class AbstractSignatureTokenConnection implements SignatureToken
         final byte[] encryptedBytes = DSSUtils.encrypt(javaSignatureAlgorithm, keyEntry.getPrivateKey(), bytes);
         return encryptedBytes;
     }
+
+    @Override
+    public List<byte[]> sign(final List<byte[]> bytesList, final DigestAlgorithm digestAlgorithm, final DSSPrivateKeyEntry keyEntry) throws DSSException {
+
+        final EncryptionAlgorithm encryptionAlgorithm = keyEntry.getEncryptionAlgorithm();
+        LOG.info("Signature algorithm: " + encryptionAlgorithm + "/" + digestAlgorithm + ", number of signature values: " + bytesList.size());
+        final SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.getAlgorithm(encryptionAlgorithm, digestAlgorithm);
+        final String javaSignatureAlgorithm = signatureAlgorithm.getJCEId();
+        final List<byte[]> encryptedBytesList = DSSUtils.encrypt(javaSignatureAlgorithm, keyEntry.getPrivateKey(), bytesList);
+        return encryptedBytesList;
+    }
 }
\ No newline at end of file
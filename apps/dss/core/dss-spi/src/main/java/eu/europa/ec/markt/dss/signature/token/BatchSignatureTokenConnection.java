@@ -0,0 +1,45 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.signature.token;
+
+import java.util.List;
+
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+
+/**
+ * Connection to a SSCD able to sign several arrays of bytes in one go with the same private key. The implementations open only one session on the SSCD for all the
+ * signature values.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public interface BatchSignatureTokenConnection extends SignatureTokenConnection {
+
+	/**
+	 * @param bytesList       The list of the arrays of bytes that need to be signed
+	 * @param digestAlgorithm The digest algorithm to be used before signing
+	 * @param keyEntry        The private key to be used
+	 * @return The list of the arrays of bytes representing the signature values, in the same order as {@code bytesList}
+	 * @throws DSSException If there is any problem during the signature process
+	 */
+	List<byte[]> sign(final List<byte[]> bytesList, final DigestAlgorithm digestAlgorithm, final DSSPrivateKeyEntry keyEntry) throws DSSException;
+}
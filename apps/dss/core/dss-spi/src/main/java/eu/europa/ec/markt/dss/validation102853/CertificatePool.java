@@ -25,9 +25,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.security.auth.x500.X500Principal;
 
@@ -35,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import eu.europa.ec.markt.dss.CertificateIdentifier;
+import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.exception.DSSNullException;
 import eu.europa.ec.markt.dss.validation102853.certificate.CertificateSourceType;
@@ -45,6 +47,9 @@ import eu.europa.ec.markt.dss.validation102853.condition.ServiceInfo;
  * different sources: trusted list, signature, OCSP response... but each certificate is unambiguously identified by its
  * issuer DN and serial number. This class allows to keep only one occurrence of the certificate regardless its
  * provenance. Two pools of certificates can be merged using the {@link #merge(CertificatePool)} method.
+ * <p/>
+ * The pool can be shared between threads: the certificates are kept in concurrent maps and the lists of the secondary indexes (by subject
+ * distinguished name and by key identifier) are copy-on-write lists.
  *
  * @author bielecro
  */
@@ -53,15 +58,22 @@ public class CertificatePool {
 	private static final Logger LOG = LoggerFactory.getLogger(CertificatePool.class);
 
 	/**
-	 * Map of encapsulated certificates with unique DSS identifier as key (hash code calculated on issuer distinguished name and serial
-	 * number)
+	 * Map of encapsulated certificates with the certificate's key as key (issuer distinguished name + "|" + serial number, see
+	 * {@link CertificateIdentifier#getKey(X509Certificate)}). The DSS identifier is only obtained when the certificate is added to the pool: it
+	 * remains stable for the lifetime of the pool even if the {@link CertificateIdentifier} forgets the certificate.
 	 */
-	private Map<Integer, CertificateToken> certById = new HashMap<Integer, CertificateToken>();
+	private final ConcurrentMap<String, CertificateToken> certByKey = new ConcurrentHashMap<String, CertificateToken>();
 
 	/**
-	 * Map f encapsulated certificates with subject distinguished name as key.
+	 * Map of encapsulated certificates with the canonical form of the subject distinguished name as key.
 	 */
-	private Map<String, List<CertificateToken>> certBySubject = new HashMap<String, List<CertificateToken>>();
+	private final ConcurrentMap<String, List<CertificateToken>> certBySubject = new ConcurrentHashMap<String, List<CertificateToken>>();
+
+	/**
+	 * Map of encapsulated certificates with the hexadecimal form of the key identifiers as key: the subject key identifier and the SHA-1
+	 * digest of the public key (see {@link CertificateToken#getPublicKeyHash()}).
+	 */
+	private final ConcurrentMap<String, List<CertificateToken>> certByKeyIdentifier = new ConcurrentHashMap<String, List<CertificateToken>>();
 
 	/**
 	 * Returns the instance of a certificate token. If the certificate is not referenced yet a new instance of
@@ -112,6 +124,22 @@ public class CertificatePool {
 	 */
 	public CertificateToken getInstance(final X509Certificate certificateToAdd, final List<CertificateSourceType> sources, final List<ServiceInfo> services) {
 
+		return getInstance(certificateToAdd, null, sources, services);
+	}
+
+	/**
+	 * This method returns the instance of a {@link CertificateToken} corresponding to the given {@link X509Certificate}. If the given certificate is not yet present in the pool
+	 * it will be added with the given DSS identifier, or with the identifier given by {@link CertificateIdentifier} when {@code dssId} is null.
+	 *
+	 * @param certificateToAdd
+	 * @param dssId            the DSS identifier to use for a new certificate token or null
+	 * @param sources
+	 * @param services
+	 * @return
+	 */
+	private CertificateToken getInstance(final X509Certificate certificateToAdd, final Integer dssId, final List<CertificateSourceType> sources,
+	                                     final List<ServiceInfo> services) {
+
 		if (certificateToAdd == null) {
 
 			throw new DSSNullException(X509Certificate.class);
@@ -121,45 +149,76 @@ public class CertificatePool {
 			throw new DSSException("The certificate source type must be set.");
 		}
 
-		final int id = CertificateIdentifier.getId(certificateToAdd);
-		synchronized (certById) {
+		final String key = CertificateIdentifier.getKey(certificateToAdd);
+		CertificateToken certToken = certByKey.get(key);
+		if (certToken == null) {
 
-			CertificateToken certToken = certById.get(id);
+			final int id = dssId == null ? CertificateIdentifier.getId(certificateToAdd) : dssId;
+			final CertificateToken newCertToken = CertificateToken.newInstance(certificateToAdd, id);
+			certToken = certByKey.putIfAbsent(key, newCertToken);
 			if (certToken == null) {
 
-				certToken = CertificateToken.newInstance(certificateToAdd, id);
-				certById.put(id, certToken);
-				final String subjectName = certificateToAdd.getSubjectX500Principal().getName(X500Principal.CANONICAL);
-				List<CertificateToken> list = certBySubject.get(subjectName);
-				if (list == null) {
-
-					list = new ArrayList<CertificateToken>();
-					certBySubject.put(subjectName, list);
-				}
-				list.add(certToken);
-			} else {
-
-				final X509Certificate foundCertificate = certToken.getCertificate();
-				final byte[] foundCertificateSignature = foundCertificate.getSignature();
-				final byte[] certificateToAddSignature = certificateToAdd.getSignature();
-				if (!Arrays.equals(foundCertificateSignature, certificateToAddSignature)) {
-
-					LOG.warn("More than one certificate for the same issuer subject name and serial number! The standard is not met by the certificate issuer!");
-				}
+				certToken = newCertToken;
+				index(newCertToken);
 			}
-			for (final CertificateSourceType sourceType : sources) {
+		}
+		if (certToken.getCertificate() != certificateToAdd) {
+
+			final X509Certificate foundCertificate = certToken.getCertificate();
+			final byte[] foundCertificateSignature = foundCertificate.getSignature();
+			final byte[] certificateToAddSignature = certificateToAdd.getSignature();
+			if (!Arrays.equals(foundCertificateSignature, certificateToAddSignature)) {
 
-				certToken.addSourceType(sourceType);
+				LOG.warn("More than one certificate for the same issuer subject name and serial number! The standard is not met by the certificate issuer!");
 			}
-			if (services != null) {
+		}
+		for (final CertificateSourceType sourceType : sources) {
+
+			certToken.addSourceType(sourceType);
+		}
+		if (services != null) {
 
-				for (final ServiceInfo serviceInfo : services) {
+			for (final ServiceInfo serviceInfo : services) {
 
-					certToken.addServiceInfo(serviceInfo);
-				}
+				certToken.addServiceInfo(serviceInfo);
 			}
-			return certToken;
 		}
+		return certToken;
+	}
+
+	/**
+	 * This method adds a new certificate token to the secondary indexes: by subject distinguished name and by key identifier.
+	 *
+	 * @param certToken the new certificate token
+	 */
+	private void index(final CertificateToken certToken) {
+
+		final X509Certificate certificate = certToken.getCertificate();
+		final String subjectName = certificate.getSubjectX500Principal().getName(X500Principal.CANONICAL);
+		addToIndex(certBySubject, subjectName, certToken);
+
+		final byte[] publicKeyHash = certToken.getPublicKeyHash();
+		addToIndex(certByKeyIdentifier, DSSUtils.encodeHexString(publicKeyHash), certToken);
+		final byte[] subjectKeyIdentifier = certToken.getSubjectKeyIdentifier();
+		if (subjectKeyIdentifier != null && !Arrays.equals(subjectKeyIdentifier, publicKeyHash)) {
+
+			addToIndex(certByKeyIdentifier, DSSUtils.encodeHexString(subjectKeyIdentifier), certToken);
+		}
+	}
+
+	private static void addToIndex(final ConcurrentMap<String, List<CertificateToken>> index, final String key, final CertificateToken certToken) {
+
+		List<CertificateToken> list = index.get(key);
+		if (list == null) {
+
+			final List<CertificateToken> newList = new CopyOnWriteArrayList<CertificateToken>();
+			list = index.putIfAbsent(key, newList);
+			if (list == null) {
+
+				list = newList;
+			}
+		}
+		list.add(certToken);
 	}
 
 	/**
@@ -169,7 +228,7 @@ public class CertificatePool {
 	 */
 	public List<CertificateToken> getCertificateTokens() {
 
-		ArrayList<CertificateToken> certificateTokenArrayList = new ArrayList<CertificateToken>(certById.values());
+		final ArrayList<CertificateToken> certificateTokenArrayList = new ArrayList<CertificateToken>(certByKey.values());
 		return Collections.unmodifiableList(certificateTokenArrayList);
 	}
 
@@ -180,13 +239,13 @@ public class CertificatePool {
 	 */
 	public int getNumberOfCertificates() {
 
-		return certById.size();
+		return certByKey.size();
 	}
 
 	/**
 	 * This method allows to add certificates from another {@link CertificatePool}. If an instance of the
 	 * {@link CertificateToken} already exists in this pool only the {@link ServiceInfo} and
-	 * {@link CertificateSourceType} are added.
+	 * {@link CertificateSourceType} are added. The new certificate tokens keep the DSS identifier of the merged ones.
 	 *
 	 * @param certPool
 	 */
@@ -198,7 +257,7 @@ public class CertificatePool {
 			X509Certificate cert = certificateToken.getCertificate();
 			List<CertificateSourceType> sources = certificateToken.getSources();
 			List<ServiceInfo> services = certificateToken.getAssociatedTSPS();
-			getInstance(cert, sources, services);
+			getInstance(cert, certificateToken.getDSSId(), sources, services);
 		}
 	}
 
@@ -210,7 +269,6 @@ public class CertificatePool {
 	 */
 	public List<CertificateToken> get(final X500Principal x500Principal) {
 
-		List<CertificateToken> certificateTokenList = null;
 		if (x500Principal != null) {
 
 			/**
@@ -219,12 +277,34 @@ public class CertificatePool {
 			 * The returned list can be maybe enriched by RFC2253 form?
 			 */
 			final String x500PrincipalCanonicalized = x500Principal.getName(X500Principal.CANONICAL);
-			certificateTokenList = certBySubject.get(x500PrincipalCanonicalized);
+			// The copy-on-write list can be iterated safely while another thread adds a certificate.
+			final List<CertificateToken> certificateTokens = certBySubject.get(x500PrincipalCanonicalized);
+			if (certificateTokens != null) {
+
+				return Collections.unmodifiableList(certificateTokens);
+			}
 		}
-		if (certificateTokenList == null) {
+		return Collections.emptyList();
+	}
 
-			certificateTokenList = new ArrayList<CertificateToken>();
+	/**
+	 * This method returns the list of certificates whose subject key identifier or public key hash (see
+	 * {@link CertificateToken#getPublicKeyHash()}) matches the given key identifier. It allows to find the issuer of a token from its
+	 * authority key identifier without trying all certificates with the same subject distinguished name.
+	 *
+	 * @param keyIdentifier the key identifier to match
+	 * @return If no match is found then an empty list is returned.
+	 */
+	public List<CertificateToken> getByKeyIdentifier(final byte[] keyIdentifier) {
+
+		if (keyIdentifier != null) {
+
+			final List<CertificateToken> certificateTokens = certByKeyIdentifier.get(DSSUtils.encodeHexString(keyIdentifier));
+			if (certificateTokens != null) {
+
+				return Collections.unmodifiableList(certificateTokens);
+			}
 		}
-		return Collections.unmodifiableList(certificateTokenList);
+		return Collections.emptyList();
 	}
 }
@@ -35,17 +35,20 @@ import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
 import java.security.cert.CertificateParsingException;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.security.auth.x500.X500Principal;
 
 import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1Primitive;
 import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.x509.AuthorityKeyIdentifier;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.asn1.x509.X509Extension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,19 +82,24 @@ public class CertificateToken extends Token {
 	/**
 	 * This array contains the different sources for this certificate.
 	 */
-	private List<CertificateSourceType> sources = new ArrayList<CertificateSourceType>();
+	private List<CertificateSourceType> sources = new CopyOnWriteArrayList<CertificateSourceType>();
 
 	/**
 	 * If the certificate is part of the trusted list then the the serviceInfo represents the associated trusted service
 	 * provider service. Same certificate can be a part of multiple services.
 	 */
-	private List<ServiceInfo> associatedTSPS = new ArrayList<ServiceInfo>();
+	private List<ServiceInfo> associatedTSPS = new CopyOnWriteArrayList<ServiceInfo>();
 
 	/**
 	 * DSS unique id based on the issuer distinguish name and serial number of encapsulated X509Certificate.
 	 */
 	private int dssId;
 
+	/**
+	 * The hash code of the encoding of the wrapped certificate, 0 when not yet computed.
+	 */
+	private int hashCode;
+
 	/**
 	 * The default algorithm used to compute the digest value of this certificate
 	 */
@@ -128,6 +136,23 @@ public class CertificateToken extends Token {
 	 */
 	private String xmlId;
 
+	/**
+	 * The value of the subject key identifier extension, an empty array when the extension is absent. This attribute stays null till the
+	 * first call to {@link #getSubjectKeyIdentifier()} function.
+	 */
+	private volatile byte[] subjectKeyIdentifier;
+
+	/**
+	 * The value of the authority key identifier extension, an empty array when the extension is absent. This attribute stays null till
+	 * the first call to {@link #getAuthorityKeyIdentifier()} function.
+	 */
+	private volatile byte[] authorityKeyIdentifier;
+
+	/**
+	 * The SHA-1 digest of the subject public key. This attribute stays null till the first call to {@link #getPublicKeyHash()} function.
+	 */
+	private volatile byte[] publicKeyHash;
+
 	/**
 	 * This method returns an instance of {@link eu.europa.ec.markt.dss.validation102853.CertificateToken}.
 	 *
@@ -165,7 +190,7 @@ public class CertificateToken extends Token {
 	 *
 	 * @param certSourceType
 	 */
-	public void addSourceType(final CertificateSourceType certSourceType) {
+	public synchronized void addSourceType(final CertificateSourceType certSourceType) {
 
 		if (certSourceType != null) {
 
@@ -181,7 +206,7 @@ public class CertificateToken extends Token {
 	 *
 	 * @param serviceInfo
 	 */
-	public void addServiceInfo(final ServiceInfo serviceInfo) {
+	public synchronized void addServiceInfo(final ServiceInfo serviceInfo) {
 
 		if (serviceInfo != null) {
 
@@ -367,19 +392,40 @@ public class CertificateToken extends Token {
 		return this.dssId == id;
 	}
 
+	/**
+	 * The hash code is computed from the encoding of the wrapped certificate: the DSS id of a certificate is not stable (see {@link eu.europa.ec.markt.dss.CertificateIdentifier}).
+	 *
+	 * @return the hash code of this token
+	 */
 	@Override
 	public int hashCode() {
 
-		return dssId;
+		int hashCode = this.hashCode;
+		if (hashCode == 0) {
+
+			hashCode = Arrays.hashCode(getEncoded());
+			this.hashCode = hashCode;
+		}
+		return hashCode;
 	}
 
+	/**
+	 * Two tokens are equal when they wrap the same certificate (same encoding), whatever their DSS ids.
+	 *
+	 * @param obj the object to compare with
+	 * @return {@code true} if the object wraps the same certificate
+	 */
 	@Override
 	public boolean equals(final Object obj) {
 
+		if (this == obj) {
+			return true;
+		}
 		if (obj == null || this.getClass() != obj.getClass()) {
 			return false;
 		}
-		return dssId == ((CertificateToken) obj).dssId;
+		final CertificateToken other = (CertificateToken) obj;
+		return hashCode() == other.hashCode() && x509Certificate.equals(other.x509Certificate);
 	}
 
 	/**
@@ -454,38 +500,133 @@ public class CertificateToken extends Token {
 		return subjectX500PrincipalNormalized;
 	}
 
+	/**
+	 * The successful verifications are remembered by the {@code SignatureVerificationCache}. The verification is done without locking: concurrent validations sharing this
+	 * token may verify the same issuer twice but never wait for each other. The outcome is then published under the lock of this token: once the signature has been found
+	 * valid, the failed verifications against other potential issuers do not change the outcome any more.
+	 */
 	@Override
 	public boolean isSignedBy(final CertificateToken issuerToken) {
 
-		signatureValid = false;
-		signatureInvalidityReason = "";
+		final String invalidityReason = verifySignature(issuerToken);
+		final boolean valid = invalidityReason.isEmpty();
+		synchronized (this) {
+
+			if (valid) {
+
+				signatureInvalidityReason = "";
+				signatureValid = true;
+				if (!isSelfSigned()) {
+					this.issuerToken = issuerToken;
+				}
+			} else if (!signatureValid) {
+
+				signatureInvalidityReason = invalidityReason;
+			}
+		}
+		return valid;
+	}
+
+	/**
+	 * Verifies the signature of the wrapped certificate with the public key of the given issuer.
+	 *
+	 * @param issuerToken the potential issuer
+	 * @return an empty string if the signature is valid, otherwise the reason of the invalidity
+	 */
+	private String verifySignature(final CertificateToken issuerToken) {
+
 		try {
 
 			final PublicKey publicKey = issuerToken.getCertificate().getPublicKey();
-			x509Certificate.verify(publicKey);
-			signatureValid = true;
-			if (!isSelfSigned()) {
-				this.issuerToken = issuerToken;
+			final SignatureVerificationCache verificationCache = SignatureVerificationCache.getInstance();
+			final String verificationKey = verificationCache.getKey(getEncoded(), publicKey.getEncoded());
+			if (!verificationCache.isVerified(verificationKey)) {
+
+				x509Certificate.verify(publicKey);
+				verificationCache.addVerified(verificationKey);
 			}
+			return "";
 		} catch (InvalidKeyException e) {
 
-			signatureInvalidityReason = "InvalidKeyException - on incorrect key.";
+			return "InvalidKeyException - on incorrect key.";
 		} catch (CertificateException e) {
 
-			signatureInvalidityReason = "CertificateException -  on encoding errors.";
+			return "CertificateException -  on encoding errors.";
 		} catch (NoSuchAlgorithmException e) {
 
-			signatureInvalidityReason = "NoSuchAlgorithmException - on unsupported signature algorithms.";
+			return "NoSuchAlgorithmException - on unsupported signature algorithms.";
 		} catch (SignatureException e) {
 
-			signatureInvalidityReason = "SignatureException - on signature errors.";
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("ERROR: {} is not signed by {}: {}", new Object[]{getAbbreviation(), issuerToken.getAbbreviation(), e.getMessage()});
 			}
+			return "SignatureException - on signature errors.";
 		} catch (NoSuchProviderException e) { // if there's no default provider.
 			throw new DSSException(e);
 		}
-		return signatureValid;
+	}
+
+	/**
+	 * Returns the value of the subject key identifier extension of the wrapped certificate.
+	 *
+	 * @return the subject key identifier or null if the extension is absent
+	 */
+	public byte[] getSubjectKeyIdentifier() {
+
+		if (subjectKeyIdentifier == null) {
+
+			final byte[] ski = DSSUtils.getSki(x509Certificate);
+			subjectKeyIdentifier = ski == null ? DSSUtils.EMPTY_BYTE_ARRAY : ski;
+		}
+		return subjectKeyIdentifier.length == 0 ? null : subjectKeyIdentifier;
+	}
+
+	/**
+	 * Returns the key identifier of the authority key identifier extension of the wrapped certificate.
+	 *
+	 * @return the authority key identifier or null if the extension (or its key identifier) is absent
+	 */
+	@Override
+	public byte[] getAuthorityKeyIdentifier() {
+
+		if (authorityKeyIdentifier == null) {
+
+			byte[] aki = null;
+			final byte[] extensionValue = x509Certificate.getExtensionValue(X509Extension.authorityKeyIdentifier.getId());
+			try {
+
+				if (extensionValue != null) {
+
+					final ASN1Primitive derObject = toDERObject(extensionValue);
+					if (derObject instanceof DEROctetString) {
+
+						final byte[] octets = ((DEROctetString) derObject).getOctets();
+						aki = AuthorityKeyIdentifier.getInstance(toDERObject(octets)).getKeyIdentifier();
+					}
+				}
+			} catch (Exception e) {
+
+				LOG.warn("The authority key identifier of {} cannot be read: {}", getAbbreviation(), e.getMessage());
+			}
+			authorityKeyIdentifier = aki == null ? DSSUtils.EMPTY_BYTE_ARRAY : aki;
+		}
+		return authorityKeyIdentifier.length == 0 ? null : authorityKeyIdentifier;
+	}
+
+	/**
+	 * Returns the SHA-1 digest of the subject public key (the value of the BIT STRING without the tag, length and number of unused bits). It
+	 * is the key identifier computed with the method (1) of RFC 5280 (4.2.1.2) and the key hash used by the OCSP responder ids.
+	 *
+	 * @return the SHA-1 digest of the subject public key
+	 */
+	public byte[] getPublicKeyHash() {
+
+		if (publicKeyHash == null) {
+
+			final SubjectPublicKeyInfo subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(getPublicKey().getEncoded());
+			publicKeyHash = DSSUtils.digest(DigestAlgorithm.SHA1, subjectPublicKeyInfo.getPublicKeyData().getBytes());
+		}
+		return publicKeyHash;
 	}
 
 	/**
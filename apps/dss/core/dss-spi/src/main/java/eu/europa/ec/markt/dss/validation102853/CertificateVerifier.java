@@ -20,6 +20,8 @@
 
 package eu.europa.ec.markt.dss.validation102853;
 
+import java.util.concurrent.ExecutorService;
+
 import eu.europa.ec.markt.dss.validation102853.crl.CRLSource;
 import eu.europa.ec.markt.dss.validation102853.crl.ListCRLSource;
 import eu.europa.ec.markt.dss.validation102853.loader.DataLoader;
@@ -132,4 +134,35 @@ public interface CertificateVerifier {
 	 * This method creates the validation pool of certificates which is used during the validation process.
 	 */
 	public CertificatePool createValidationPool();
+
+	/**
+	 * Returns the {@code ExecutorService} used to fetch in parallel the certificates through AIA and the revocation data from the online sources. The same {@code
+	 * ExecutorService} is shared by all validations carried out with this verifier.
+	 *
+	 * @return the {@code ExecutorService} to use
+	 */
+	public ExecutorService getExecutorService();
+
+	/**
+	 * This method allows to set the {@code ExecutorService} used to fetch the validation data. If this property is not set the shared and bounded {@code
+	 * DefaultValidationExecutor} is used.
+	 *
+	 * @param executorService the {@code ExecutorService} to use
+	 */
+	public void setExecutorService(final ExecutorService executorService);
+
+	/**
+	 * Returns the maximum time (in milliseconds) the retrieval of the validation data can take for one validation.
+	 *
+	 * @return the timeout in milliseconds
+	 */
+	public long getValidationTimeout();
+
+	/**
+	 * This method allows to set the maximum time (in milliseconds) the retrieval of the validation data can take for one validation. When this deadline is reached the
+	 * validation is aborted.
+	 *
+	 * @param validationTimeout the timeout in milliseconds
+	 */
+	public void setValidationTimeout(final long validationTimeout);
 }
\ No newline at end of file
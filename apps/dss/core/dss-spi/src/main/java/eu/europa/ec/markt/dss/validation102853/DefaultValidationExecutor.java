@@ -0,0 +1,122 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class provides the process-wide {@code ExecutorService} used to fetch in parallel the validation data (certificates through AIA, OCSP responses and CRLs). The pool is
+ * bounded: the number of threads is limited to {@link #DEFAULT_POOL_SIZE} and idle threads are released after {@link #KEEP_ALIVE_SECONDS} seconds. The threads are daemon
+ * threads and do not prevent the JVM from exiting.
+ * <p/>
+ * The size of the pool can be changed with the system property {@code dss.validation.threads}. A dedicated {@code ExecutorService} can be injected through {@link
+ * CertificateVerifier#setExecutorService(ExecutorService)}.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public final class DefaultValidationExecutor {
+
+	/**
+	 * The name of the system property allowing to change the number of threads of the shared pool.
+	 */
+	public static final String POOL_SIZE_PROPERTY = "dss.validation.threads";
+
+	/**
+	 * The default number of threads of the shared pool.
+	 */
+	public static final int DEFAULT_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 4);
+
+	/**
+	 * The time after which an idle thread is released.
+	 */
+	public static final long KEEP_ALIVE_SECONDS = 60;
+
+	private static volatile ExecutorService instance;
+
+	private DefaultValidationExecutor() {
+	}
+
+	/**
+	 * This method returns the shared {@code ExecutorService}. The pool is created at the first call.
+	 *
+	 * @return the shared {@code ExecutorService}
+	 */
+	public static ExecutorService getInstance() {
+
+		ExecutorService executorService = instance;
+		if (executorService == null) {
+
+			synchronized (DefaultValidationExecutor.class) {
+
+				executorService = instance;
+				if (executorService == null) {
+
+					executorService = newBoundedExecutor("dss-validation", Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE));
+					instance = executorService;
+				}
+			}
+		}
+		return executorService;
+	}
+
+	/**
+	 * This method creates a new bounded {@code ExecutorService} with daemon threads. The core threads are released when they are idle for more than {@link
+	 * #KEEP_ALIVE_SECONDS} seconds.
+	 *
+	 * @param namePrefix the prefix of the name of the created threads
+	 * @param poolSize   the maximum number of threads
+	 * @return the new {@code ExecutorService}
+	 */
+	public static ExecutorService newBoundedExecutor(final String namePrefix, final int poolSize) {
+
+		final int size = poolSize > 0 ? poolSize : DEFAULT_POOL_SIZE;
+		final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(size, size, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+			  new DaemonThreadFactory(namePrefix));
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+		return threadPoolExecutor;
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		private final String namePrefix;
+
+		DaemonThreadFactory(final String namePrefix) {
+
+			this.namePrefix = namePrefix;
+		}
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+
+			final Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -123,11 +123,21 @@ public class OCSPToken extends RevocationToken {
         try {
 
             signatureInvalidityReason = "";
-            JcaContentVerifierProviderBuilder jcaContentVerifierProviderBuilder = new JcaContentVerifierProviderBuilder();
-            jcaContentVerifierProviderBuilder.setProvider("BC");
             final PublicKey publicKey = issuerToken.getCertificate().getPublicKey();
-            ContentVerifierProvider contentVerifierProvider = jcaContentVerifierProviderBuilder.build(publicKey);
-            signatureValid = basicOCSPResp.isSignatureValid(contentVerifierProvider);
+            final SignatureVerificationCache verificationCache = SignatureVerificationCache.getInstance();
+            final String verificationKey = verificationCache.getKey(getEncoded(), publicKey.getEncoded());
+            signatureValid = verificationCache.isVerified(verificationKey);
+            if (!signatureValid) {
+
+                JcaContentVerifierProviderBuilder jcaContentVerifierProviderBuilder = new JcaContentVerifierProviderBuilder();
+                jcaContentVerifierProviderBuilder.setProvider("BC");
+                ContentVerifierProvider contentVerifierProvider = jcaContentVerifierProviderBuilder.build(publicKey);
+                signatureValid = basicOCSPResp.isSignatureValid(contentVerifierProvider);
+                if (signatureValid) {
+
+                    verificationCache.addVerified(verificationKey);
+                }
+            }
             if (signatureValid) {
 
                 this.issuerToken = issuerToken;
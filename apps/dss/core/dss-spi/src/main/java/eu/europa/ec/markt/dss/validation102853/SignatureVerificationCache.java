@@ -0,0 +1,236 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+
+/**
+ * This class memorises the successful verifications of the signatures of the tokens (certificates, OCSP responses, timestamps). The
+ * same chain certificates are used by many validations: when the signature of a token has already been verified with the same key, the
+ * public-key operation is skipped.
+ * <p/>
+ * A verification is identified by the SHA-256 digest of the signed object and the SHA-256 digest of the data used to verify it (the issuer's
+ * public key, or the issuer's certificate when the verification depends on it). Only the successful verifications are kept: a failure is
+ * always verified again. The cache is bounded, the oldest verifications are forgotten first. The shared instance is obtained with
+ * {@link #getInstance()}.
+ *
+ * @version $Revision$ - $Date$
+ */
+public final class SignatureVerificationCache {
+
+	/**
+	 * The default maximum number of verifications kept by the shared instance.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private static final SignatureVerificationCache INSTANCE = new SignatureVerificationCache(DEFAULT_MAX_SIZE);
+
+	private final ConcurrentMap<String, Boolean> verified = new ConcurrentHashMap<String, Boolean>();
+
+	/**
+	 * The keys of the {@code verified} map in their insertion order, used to forget the oldest verifications.
+	 */
+	private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<String>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private volatile int maxSize;
+
+	/**
+	 * @return the instance shared by all tokens
+	 */
+	public static SignatureVerificationCache getInstance() {
+
+		return INSTANCE;
+	}
+
+	/**
+	 * The default constructor for SignatureVerificationCache.
+	 *
+	 * @param maxSize the maximum number of verifications to keep, 0 disables the cache
+	 */
+	public SignatureVerificationCache(final int maxSize) {
+
+		setMaxSize(maxSize);
+	}
+
+	/**
+	 * This method sets the maximum number of verifications to keep. The value 0 disables the cache.
+	 *
+	 * @param maxSize the maximum number of verifications to keep
+	 */
+	public void setMaxSize(final int maxSize) {
+
+		if (maxSize < 0) {
+
+			throw new DSSException("The maximum size of the cache cannot be negative: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		evict();
+	}
+
+	/**
+	 * @return the maximum number of verifications to keep
+	 */
+	public int getMaxSize() {
+
+		return maxSize;
+	}
+
+	/**
+	 * This method returns the key identifying the verification of a signed object with a given verification data.
+	 *
+	 * @param signedObjectEncoded the encoded form of the signed object (certificate, OCSP response...)
+	 * @param verificationData    the encoded form of the public key or of the certificate used to verify the signature
+	 * @return the key of the verification or null if the cache is disabled
+	 */
+	public String getKey(final byte[] signedObjectEncoded, final byte[] verificationData) {
+
+		if (maxSize == 0) {
+
+			return null;
+		}
+		final byte[] signedObjectDigest = DSSUtils.digest(DigestAlgorithm.SHA256, signedObjectEncoded);
+		final byte[] verificationDataDigest = DSSUtils.digest(DigestAlgorithm.SHA256, verificationData);
+		return DSSUtils.encodeHexString(signedObjectDigest) + "|" + DSSUtils.encodeHexString(verificationDataDigest);
+	}
+
+	/**
+	 * Indicates if the verification identified by the given key already succeeded.
+	 *
+	 * @param key the key of the verification (see {@link #getKey(byte[], byte[])}), can be null
+	 * @return true if the signature does not need to be verified again
+	 */
+	public boolean isVerified(final String key) {
+
+		if (key == null) {
+
+			return false;
+		}
+		if (verified.containsKey(key)) {
+
+			hitCount.incrementAndGet();
+			return true;
+		}
+		missCount.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * This method records the successful verification identified by the given key.
+	 *
+	 * @param key the key of the verification (see {@link #getKey(byte[], byte[])}), can be null
+	 */
+	public void addVerified(final String key) {
+
+		if (key == null || verified.putIfAbsent(key, Boolean.TRUE) != null) {
+
+			return;
+		}
+		insertionOrder.offer(key);
+		size.incrementAndGet();
+		evict();
+	}
+
+	/**
+	 * This method forgets the oldest verifications while the cache holds more than {@code maxSize} verifications.
+	 */
+	private void evict() {
+
+		while (size.get() > maxSize) {
+
+			final String eldestKey = insertionOrder.poll();
+			if (eldestKey == null) {
+
+				break;
+			}
+			if (verified.remove(eldestKey) != null) {
+
+				size.decrementAndGet();
+				evictionCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * This method forgets all verifications. The statistics are kept.
+	 */
+	public void clear() {
+
+		verified.clear();
+		insertionOrder.clear();
+		size.set(0);
+	}
+
+	/**
+	 * @return the number of verifications currently kept
+	 */
+	public int size() {
+
+		return size.get();
+	}
+
+	/**
+	 * @return the number of verifications which were skipped thanks to the cache
+	 */
+	public long getHitCount() {
+
+		return hitCount.get();
+	}
+
+	/**
+	 * @return the number of verifications which were not found in the cache
+	 */
+	public long getMissCount() {
+
+		return missCount.get();
+	}
+
+	/**
+	 * @return the number of verifications forgotten because the cache was full
+	 */
+	public long getEvictionCount() {
+
+		return evictionCount.get();
+	}
+
+	@Override
+	public String toString() {
+
+		return "SignatureVerificationCache[size=" + size() + "/" + maxSize + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" +
+			  getEvictionCount() + "]";
+	}
+}
@@ -178,10 +178,17 @@ public class TimestampToken extends Token {
 		TimestampValidity timestampValidity = TimestampValidity.NOT_YET_VERIFIED;
 		try {
 
-			final JcaSimpleSignerInfoVerifierBuilder verifierBuilder = new JcaSimpleSignerInfoVerifierBuilder();
-			final X509Certificate x509Certificate = issuerToken.getCertificate();
-			final SignerInformationVerifier verifier = verifierBuilder.build(x509Certificate);
-			timeStampToken.validate(verifier);
+			// The validation also checks the signing certificate reference and its validity period: the whole certificate identifies it.
+			final SignatureVerificationCache verificationCache = SignatureVerificationCache.getInstance();
+			final String verificationKey = verificationCache.getKey(getEncoded(), issuerToken.getEncoded());
+			if (!verificationCache.isVerified(verificationKey)) {
+
+				final JcaSimpleSignerInfoVerifierBuilder verifierBuilder = new JcaSimpleSignerInfoVerifierBuilder();
+				final X509Certificate x509Certificate = issuerToken.getCertificate();
+				final SignerInformationVerifier verifier = verifierBuilder.build(x509Certificate);
+				timeStampToken.validate(verifier);
+				verificationCache.addVerified(verificationKey);
+			}
 			timestampValidity = TimestampValidity.VALID;
 		} catch (IllegalArgumentException e) {
 			timestampValidity = TimestampValidity.NO_SIGNING_CERTIFICATE;
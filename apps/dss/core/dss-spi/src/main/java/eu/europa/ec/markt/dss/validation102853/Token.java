@@ -41,7 +41,7 @@ public abstract class Token implements Serializable {
 	 * This attribute represents the {@link CertificateToken} which is the issuer of the encapsulated Token. In other
 	 * words this is the CertificateToken used to sign the enclosed Token.
 	 */
-	protected CertificateToken issuerToken;
+	protected volatile CertificateToken issuerToken;
 
 	/**
 	 * The normalized {@link X500Principal} of the signer's certificate of this token.
@@ -51,12 +51,12 @@ public abstract class Token implements Serializable {
 	/*
 	 * Indicates the token signature is valid.
 	 */
-	protected boolean signatureValid = false;
+	protected volatile boolean signatureValid = false;
 
 	/*
 	 * Indicates the token signature invalidity reason.
 	 */
-	protected String signatureInvalidityReason = "";
+	protected volatile String signatureInvalidityReason = "";
 
 	/*
 	 * The algorithm that was used to sign the token.
@@ -109,6 +109,17 @@ public abstract class Token implements Serializable {
 		return issuerX500Principal;
 	}
 
+	/**
+	 * Returns the key identifier of the public key used to sign this token (authority key identifier) or null if it is not known. Only the
+	 * CertificateToken can provide this information, for all other tokens this method returns null.
+	 *
+	 * @return the authority key identifier or null
+	 */
+	public byte[] getAuthorityKeyIdentifier() {
+
+		return null;
+	}
+
 	/**
 	 * It returns the issuer certificate token that was used to sign this token (CertificateToken, CRLToken,
 	 * OCSPRespToken, TimestampToken).
@@ -0,0 +1,302 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.crl;
+
+import java.math.BigInteger;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.bouncycastle.asn1.x509.Extension;
+
+import eu.europa.ec.markt.dss.DSSRevocationUtils;
+
+/**
+ * This class is a compact, read-only index of the revoked certificates of one CRL. The serial numbers are kept in a sorted array of their 64 low-order bits together with
+ * their full encoding in a single byte array; the revocation dates and reasons are kept in parallel arrays. The lookup of a serial number is a binary search and does not
+ * create any object.
+ * <p/>
+ * For a CRL with hundreds of thousands of entries the index takes a fraction of the memory used by the {@code X509CRLEntry} objects and the lookup does not scan the whole
+ * list as {@code X509CRL#getRevokedCertificate} does.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public final class CRLIndex {
+
+	/**
+	 * The value returned by {@link #indexOf(BigInteger)} when the serial number is not revoked.
+	 */
+	public static final int NOT_FOUND = -1;
+
+	private static final String[] EMPTY_REASONS = new String[0];
+
+	/**
+	 * The 64 low-order bits of the serial numbers, sorted.
+	 */
+	private final long[] keys;
+
+	/**
+	 * The offsets of the encoded serial numbers within {@link #serials}. The encoding of the entry {@code i} ends at {@code offsets[i + 1]}.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * The concatenated two's-complement encodings of the serial numbers.
+	 */
+	private final byte[] serials;
+
+	private final long[] revocationDates;
+
+	/**
+	 * The index of the revocation reason within {@link #reasons} or -1 if there is no reason.
+	 */
+	private final byte[] reasonIndexes;
+
+	private final String[] reasons;
+
+	private CRLIndex(final long[] keys, final int[] offsets, final byte[] serials, final long[] revocationDates, final byte[] reasonIndexes, final String[] reasons) {
+
+		this.keys = keys;
+		this.offsets = offsets;
+		this.serials = serials;
+		this.revocationDates = revocationDates;
+		this.reasonIndexes = reasonIndexes;
+		this.reasons = reasons;
+	}
+
+	/**
+	 * This method creates the index of the revoked certificates of the given CRL. The CRL entries are read only once.
+	 *
+	 * @param x509CRL the CRL to index
+	 * @return the new {@code CRLIndex}
+	 */
+	public static CRLIndex build(final X509CRL x509CRL) {
+
+		final Set<? extends X509CRLEntry> revokedCertificates = x509CRL.getRevokedCertificates();
+		final Builder builder = new Builder(revokedCertificates == null ? 0 : revokedCertificates.size());
+		if (revokedCertificates != null) {
+
+			final String reasonId = Extension.reasonCode.getId();
+			for (final X509CRLEntry crlEntry : revokedCertificates) {
+
+				final String reason = crlEntry.getExtensionValue(reasonId) == null ? null : DSSRevocationUtils.getRevocationReason(crlEntry);
+				builder.add(crlEntry.getSerialNumber(), crlEntry.getRevocationDate(), reason);
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * This method returns the position of the given serial number in the index.
+	 *
+	 * @param serialNumber the serial number of the certificate
+	 * @return the position of the revoked certificate or {@link #NOT_FOUND}
+	 */
+	public int indexOf(final BigInteger serialNumber) {
+
+		final long key = serialNumber.longValue();
+		int position = Arrays.binarySearch(keys, key);
+		if (position < 0) {
+			return NOT_FOUND;
+		}
+		// Several serial numbers can share the same low-order bits
+		while (position > 0 && keys[position - 1] == key) {
+			position--;
+		}
+		final byte[] encoded = serialNumber.toByteArray();
+		for (; position < keys.length && keys[position] == key; position++) {
+
+			if (serialEquals(position, encoded)) {
+				return position;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	private boolean serialEquals(final int position, final byte[] encoded) {
+
+		final int start = offsets[position];
+		if (offsets[position + 1] - start != encoded.length) {
+			return false;
+		}
+		for (int ii = 0; ii < encoded.length; ii++) {
+
+			if (serials[start + ii] != encoded[ii]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param serialNumber the serial number of the certificate
+	 * @return {@code true} if the given serial number is present in the CRL
+	 */
+	public boolean isRevoked(final BigInteger serialNumber) {
+
+		return indexOf(serialNumber) != NOT_FOUND;
+	}
+
+	/**
+	 * @param position the position returned by {@link #indexOf(BigInteger)}
+	 * @return the revocation date of the entry
+	 */
+	public Date getRevocationDate(final int position) {
+
+		return new Date(revocationDates[position]);
+	}
+
+	/**
+	 * @param position the position returned by {@link #indexOf(BigInteger)}
+	 * @return the revocation reason of the entry or null if the reason is not specified
+	 */
+	public String getRevocationReason(final int position) {
+
+		final byte reasonIndex = reasonIndexes[position];
+		return reasonIndex < 0 ? null : reasons[reasonIndex];
+	}
+
+	/**
+	 * @return the number of revoked certificates
+	 */
+	public int size() {
+
+		return keys.length;
+	}
+
+	/**
+	 * This class allows to create a {@code CRLIndex} entry by entry, for example while a CRL is parsed.
+	 */
+	public static final class Builder {
+
+		private long[] keys;
+		private byte[][] serials;
+		private long[] revocationDates;
+		private byte[] reasonIndexes;
+		private final List<String> reasons = new ArrayList<String>();
+		private int size;
+		private int serialsLength;
+
+		/**
+		 * @param expectedSize the expected number of entries
+		 */
+		public Builder(final int expectedSize) {
+
+			final int capacity = Math.max(16, expectedSize);
+			keys = new long[capacity];
+			serials = new byte[capacity][];
+			revocationDates = new long[capacity];
+			reasonIndexes = new byte[capacity];
+		}
+
+		/**
+		 * Adds a revoked certificate.
+		 *
+		 * @param serialNumber   the serial number of the revoked certificate
+		 * @param revocationDate the revocation date
+		 * @param reason         the revocation reason, can be null
+		 * @return this builder
+		 */
+		public Builder add(final BigInteger serialNumber, final Date revocationDate, final String reason) {
+
+			if (size == keys.length) {
+				grow();
+			}
+			final byte[] encoded = serialNumber.toByteArray();
+			keys[size] = serialNumber.longValue();
+			serials[size] = encoded;
+			revocationDates[size] = revocationDate.getTime();
+			reasonIndexes[size] = getReasonIndex(reason);
+			serialsLength += encoded.length;
+			size++;
+			return this;
+		}
+
+		private byte getReasonIndex(final String reason) {
+
+			if (reason == null) {
+				return -1;
+			}
+			int reasonIndex = reasons.indexOf(reason);
+			if (reasonIndex < 0) {
+
+				reasonIndex = reasons.size();
+				reasons.add(reason);
+			}
+			return (byte) reasonIndex;
+		}
+
+		private void grow() {
+
+			final int capacity = keys.length * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			serials = Arrays.copyOf(serials, capacity);
+			revocationDates = Arrays.copyOf(revocationDates, capacity);
+			reasonIndexes = Arrays.copyOf(reasonIndexes, capacity);
+		}
+
+		/**
+		 * @return the new {@code CRLIndex}
+		 */
+		public CRLIndex build() {
+
+			final Integer[] order = new Integer[size];
+			for (int ii = 0; ii < size; ii++) {
+				order[ii] = ii;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+
+				@Override
+				public int compare(final Integer first, final Integer second) {
+
+					final long firstKey = keys[first];
+					final long secondKey = keys[second];
+					return firstKey < secondKey ? -1 : (firstKey == secondKey ? 0 : 1);
+				}
+			});
+			final long[] sortedKeys = new long[size];
+			final int[] offsets = new int[size + 1];
+			final byte[] sortedSerials = new byte[serialsLength];
+			final long[] sortedRevocationDates = new long[size];
+			final byte[] sortedReasonIndexes = new byte[size];
+			int offset = 0;
+			for (int ii = 0; ii < size; ii++) {
+
+				final int source = order[ii];
+				sortedKeys[ii] = keys[source];
+				offsets[ii] = offset;
+				System.arraycopy(serials[source], 0, sortedSerials, offset, serials[source].length);
+				offset += serials[source].length;
+				sortedRevocationDates[ii] = revocationDates[source];
+				sortedReasonIndexes[ii] = reasonIndexes[source];
+			}
+			offsets[size] = offset;
+			final String[] reasonArray = reasons.isEmpty() ? EMPTY_REASONS : reasons.toArray(new String[reasons.size()]);
+			return new CRLIndex(sortedKeys, offsets, sortedSerials, sortedRevocationDates, sortedReasonIndexes, reasonArray);
+		}
+	}
+}
@@ -0,0 +1,471 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.crl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.ASN1TaggedObject;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.IssuingDistributionPoint;
+import org.bouncycastle.asn1.x509.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.SignatureAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.validation102853.CertificateToken;
+
+/**
+ * This class reads a DER encoded CRL from a stream without creating an {@code X509CRL}: the revoked certificates are read one by one and added to a {@code CRLIndex} while
+ * the bytes of the TBSCertList are fed to the signature verification. Only one CRL entry at a time is held in memory.
+ * <p/>
+ * CertificateList ::= SEQUENCE { tbsCertList TBSCertList, signatureAlgorithm AlgorithmIdentifier, signatureValue BIT STRING }<br/>
+ * TBSCertList ::= SEQUENCE { version Version OPTIONAL, signature AlgorithmIdentifier, issuer Name, thisUpdate Time, nextUpdate Time OPTIONAL, revokedCertificates SEQUENCE
+ * OF SEQUENCE { userCertificate CertificateSerialNumber, revocationDate Time, crlEntryExtensions Extensions OPTIONAL } OPTIONAL, crlExtensions [0] EXPLICIT Extensions
+ * OPTIONAL }
+ * <p/>
+ * Only complete CRLs are indexed, since the absence of a certificate from the index must mean that it is not revoked: delta CRLs, indirect CRLs (including the entries with a
+ * certificateIssuer extension), CRLs limited to some reasons or to attribute certificates and CRLs with an unknown critical extension are rejected.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public final class CRLStreamParser {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CRLStreamParser.class);
+
+	private static final int TAG_INTEGER = 0x02;
+	private static final int TAG_BIT_STRING = 0x03;
+	private static final int TAG_UTC_TIME = 0x17;
+	private static final int TAG_GENERALIZED_TIME = 0x18;
+	private static final int TAG_SEQUENCE = 0x30;
+	private static final int TAG_CRL_EXTENSIONS = 0xA0;
+
+	/**
+	 * The average size of a CRL entry, used to estimate the number of entries.
+	 */
+	private static final int AVERAGE_ENTRY_SIZE = 40;
+
+	/**
+	 * The CRL extensions which can be critical without changing the scope of the CRL.
+	 */
+	private static final Set<ASN1ObjectIdentifier> HANDLED_CRL_EXTENSIONS = new HashSet<ASN1ObjectIdentifier>(Arrays
+		  .asList(Extension.cRLNumber, Extension.authorityKeyIdentifier, Extension.issuerAlternativeName, Extension.authorityInfoAccess, Extension.freshestCRL));
+
+	/**
+	 * The CRL entry extensions which can be critical without changing the meaning of the entry.
+	 */
+	private static final Set<ASN1ObjectIdentifier> HANDLED_ENTRY_EXTENSIONS = new HashSet<ASN1ObjectIdentifier>(Arrays
+		  .asList(Extension.reasonCode, Extension.invalidityDate, Extension.instructionCode));
+
+	private final InputStream inputStream;
+
+	private final PublicKey publicKey;
+
+	/**
+	 * The number of bytes read so far.
+	 */
+	private long position;
+
+	/**
+	 * Indicates if the bytes read belong to the signed data (TBSCertList).
+	 */
+	private boolean signedData;
+
+	/**
+	 * The signed bytes read before the signature algorithm is known.
+	 */
+	private ByteArrayOutputStream pendingSignedData = new ByteArrayOutputStream();
+
+	private Signature signature;
+
+	private String signatureInvalidityReason;
+
+	private CRLStreamParser(final InputStream inputStream, final PublicKey publicKey) {
+
+		this.inputStream = inputStream;
+		this.publicKey = publicKey;
+	}
+
+	/**
+	 * This method reads the CRL from the given stream and verifies its signature with the public key of the given issuer certificate. The key usage and the issuer name are
+	 * not checked. The stream is not closed.
+	 *
+	 * @param inputStream the stream containing the DER encoded CRL
+	 * @param issuerToken the CRL signing certificate (can be null, in this case the signature is not verified)
+	 * @return the {@code CRLValidity} of the CRL including its {@code CRLIndex}, its {@code X509CRL} is not set.
+	 * @throws DSSException if the CRL cannot be read
+	 */
+	public static CRLValidity parse(final InputStream inputStream, final CertificateToken issuerToken) throws DSSException {
+
+		final CRLStreamParser parser = new CRLStreamParser(inputStream, issuerToken == null ? null : issuerToken.getPublicKey());
+		try {
+
+			final CRLValidity crlValidity = parser.parse();
+			if (crlValidity.signatureIntact) {
+				crlValidity.issuerToken = issuerToken;
+			}
+			return crlValidity;
+		} catch (IOException e) {
+			throw new DSSException("Unable to read the CRL: " + e.getMessage(), e);
+		} catch (IllegalArgumentException e) {
+			throw new DSSException("Unable to read the CRL: " + e.getMessage(), e);
+		}
+	}
+
+	private CRLValidity parse() throws IOException {
+
+		final CRLValidity crlValidity = new CRLValidity();
+		expectTag(TAG_SEQUENCE);
+		readLength();
+
+		signedData = true;
+		expectTag(TAG_SEQUENCE);
+		final long tbsEnd = readLength() + position;
+		int tag = readTag();
+		if (tag == TAG_INTEGER) {
+
+			crlValidity.version = ASN1Integer.getInstance(readPrimitive(tag)).getValue().intValue() + 1;
+			tag = readTag();
+		}
+		checkTag(TAG_SEQUENCE, tag);
+		final AlgorithmIdentifier tbsSignatureAlgorithm = AlgorithmIdentifier.getInstance(readPrimitive(tag));
+		crlValidity.signatureAlgorithmOID = tbsSignatureAlgorithm.getAlgorithm().getId();
+		initSignature(crlValidity.signatureAlgorithmOID);
+
+		expectTag(TAG_SEQUENCE);
+		crlValidity.issuerX500Principal = new X500Principal(readElement(TAG_SEQUENCE));
+		crlValidity.thisUpdate = readTime(readTag());
+		tag = position < tbsEnd ? readTag() : -1;
+		if (tag == TAG_UTC_TIME || tag == TAG_GENERALIZED_TIME) {
+
+			crlValidity.nextUpdate = readTime(tag);
+			tag = position < tbsEnd ? readTag() : -1;
+		}
+		if (tag == TAG_SEQUENCE) {
+
+			final int revokedCertificatesLength = readLength();
+			final long revokedCertificatesEnd = revokedCertificatesLength + position;
+			final CRLIndex.Builder builder = new CRLIndex.Builder(revokedCertificatesLength / AVERAGE_ENTRY_SIZE);
+			while (position < revokedCertificatesEnd) {
+
+				expectTag(TAG_SEQUENCE);
+				addEntry(builder, ASN1Sequence.getInstance(readPrimitive(TAG_SEQUENCE)));
+			}
+			crlValidity.crlIndex = builder.build();
+			tag = position < tbsEnd ? readTag() : -1;
+		} else {
+
+			crlValidity.crlIndex = new CRLIndex.Builder(0).build();
+		}
+		if (tag == TAG_CRL_EXTENSIONS) {
+
+			checkCrlExtensions(Extensions.getInstance(ASN1TaggedObject.getInstance(readPrimitive(tag)).getObject()));
+		} else if (tag != -1) {
+
+			throw new DSSException("Unexpected element in the TBSCertList: " + tag);
+		}
+		if (position != tbsEnd) {
+			throw new DSSException("The TBSCertList does not end at its declared length");
+		}
+		signedData = false;
+
+		expectTag(TAG_SEQUENCE);
+		final AlgorithmIdentifier signatureAlgorithm = AlgorithmIdentifier.getInstance(readPrimitive(TAG_SEQUENCE));
+		if (!tbsSignatureAlgorithm.equals(signatureAlgorithm)) {
+			throw new DSSException("The signature algorithm " + signatureAlgorithm.getAlgorithm().getId() + " does not match the algorithm of the TBSCertList " + crlValidity
+				  .signatureAlgorithmOID);
+		}
+		expectTag(TAG_BIT_STRING);
+		final byte[] bitString = readContent(readLength());
+		verifySignature(crlValidity, bitString);
+		return crlValidity;
+	}
+
+	private static void checkCrlExtensions(final Extensions extensions) {
+
+		for (final ASN1ObjectIdentifier oid : extensions.getExtensionOIDs()) {
+
+			if (Extension.deltaCRLIndicator.equals(oid)) {
+				throw new DSSException("Delta CRLs are not supported");
+			}
+			final Extension extension = extensions.getExtension(oid);
+			if (Extension.issuingDistributionPoint.equals(oid)) {
+
+				final IssuingDistributionPoint issuingDistributionPoint = IssuingDistributionPoint.getInstance(extension.getParsedValue());
+				if (issuingDistributionPoint.isIndirectCRL() || issuingDistributionPoint.getOnlySomeReasons() != null || issuingDistributionPoint
+					  .onlyContainsAttributeCerts()) {
+					throw new DSSException("Partitioned or indirect CRLs are not supported");
+				}
+			} else if (extension.isCritical() && !HANDLED_CRL_EXTENSIONS.contains(oid)) {
+				throw new DSSException("Unsupported critical CRL extension: " + oid.getId());
+			}
+		}
+	}
+
+	private static void checkEntryExtensions(final Extensions extensions) {
+
+		for (final ASN1ObjectIdentifier oid : extensions.getExtensionOIDs()) {
+
+			if (Extension.certificateIssuer.equals(oid)) {
+				throw new DSSException("Indirect CRLs are not supported");
+			}
+			if (extensions.getExtension(oid).isCritical() && !HANDLED_ENTRY_EXTENSIONS.contains(oid)) {
+				throw new DSSException("Unsupported critical CRL entry extension: " + oid.getId());
+			}
+		}
+	}
+
+	private void addEntry(final CRLIndex.Builder builder, final ASN1Sequence entry) {
+
+		final BigInteger serialNumber = ASN1Integer.getInstance(entry.getObjectAt(0)).getValue();
+		final Date revocationDate = Time.getInstance(entry.getObjectAt(1)).getDate();
+		String reason = null;
+		if (entry.size() > 2) {
+
+			final Extensions extensions = Extensions.getInstance(entry.getObjectAt(2));
+			checkEntryExtensions(extensions);
+			final Extension reasonCode = extensions.getExtension(Extension.reasonCode);
+			if (reasonCode != null) {
+
+				try {
+					reason = CRLReason.getInstance(reasonCode.getParsedValue()).toString();
+				} catch (IllegalArgumentException e) {
+					// Same behaviour as DSSRevocationUtils.getRevocationReason
+					reason = CRLReason.lookup(7).toString(); // 7 -> unknown
+				}
+			}
+		}
+		builder.add(serialNumber, revocationDate, reason);
+	}
+
+	private Date readTime(final int tag) throws IOException {
+
+		if (tag != TAG_UTC_TIME && tag != TAG_GENERALIZED_TIME) {
+			throw new DSSException("Time expected, found: " + tag);
+		}
+		return Time.getInstance(readPrimitive(tag)).getDate();
+	}
+
+	private void initSignature(final String signatureAlgorithmOID) {
+
+		if (publicKey == null) {
+			return;
+		}
+		try {
+
+			final SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forOID(signatureAlgorithmOID);
+			signature = Signature.getInstance(signatureAlgorithm.getJCEId());
+			signature.initVerify(publicKey);
+			signature.update(pendingSignedData.toByteArray());
+		} catch (DSSException e) {
+			signatureInvalidityReason = e.getClass().getSimpleName() + " - " + e.getMessage();
+		} catch (NoSuchAlgorithmException e) {
+			signatureInvalidityReason = e.getClass().getSimpleName() + " - " + e.getMessage();
+		} catch (InvalidKeyException e) {
+			signatureInvalidityReason = e.getClass().getSimpleName() + " - " + e.getMessage();
+		} catch (SignatureException e) {
+			signatureInvalidityReason = e.getClass().getSimpleName() + " - " + e.getMessage();
+		}
+		if (signatureInvalidityReason != null) {
+			signature = null;
+		}
+		pendingSignedData = null;
+	}
+
+	private void verifySignature(final CRLValidity crlValidity, final byte[] bitString) {
+
+		if (signature == null) {
+
+			crlValidity.signatureInvalidityReason = signatureInvalidityReason == null ? "" : signatureInvalidityReason;
+			return;
+		}
+		try {
+
+			// The first byte of the BIT STRING is the number of unused bits
+			final byte[] signatureValue = new byte[bitString.length - 1];
+			System.arraycopy(bitString, 1, signatureValue, 0, signatureValue.length);
+			crlValidity.signatureIntact = signature.verify(signatureValue);
+			if (!crlValidity.signatureIntact) {
+				crlValidity.signatureInvalidityReason = "SignatureException - CRL does not verify with the supplied public key";
+			}
+		} catch (SignatureException e) {
+			crlValidity.signatureInvalidityReason = e.getClass().getSimpleName() + " - " + e.getMessage();
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("CRL streamed: " + crlValidity.crlIndex.size() + " revoked certificates, signature intact: " + crlValidity.signatureIntact);
+		}
+	}
+
+	private void expectTag(final int expectedTag) throws IOException {
+
+		checkTag(expectedTag, readTag());
+	}
+
+	private static void checkTag(final int expectedTag, final int tag) {
+
+		if (tag != expectedTag) {
+			throw new DSSException("Unexpected ASN.1 tag: " + tag + ", expected: " + expectedTag);
+		}
+	}
+
+	private int readTag() throws IOException {
+
+		final int tag = read();
+		if ((tag & 0x1F) == 0x1F) {
+			throw new DSSException("High tag numbers are not supported in a CRL");
+		}
+		return tag;
+	}
+
+	private int readLength() throws IOException {
+
+		final int first = read();
+		if (first < 0x80) {
+			return first;
+		}
+		final int numberOfBytes = first & 0x7F;
+		if (numberOfBytes == 0) {
+			throw new DSSException("Indefinite length is not allowed in DER");
+		}
+		if (numberOfBytes > 4) {
+			throw new DSSException("Length too long: " + numberOfBytes + " bytes");
+		}
+		int length = 0;
+		for (int ii = 0; ii < numberOfBytes; ii++) {
+			length = (length << 8) | read();
+		}
+		if (length < 0) {
+			throw new DSSException("Negative length");
+		}
+		return length;
+	}
+
+	/**
+	 * Reads the length and the content of the element whose tag was already read and returns the element as an {@code ASN1Primitive}.
+	 */
+	private ASN1Primitive readPrimitive(final int tag) throws IOException {
+
+		return ASN1Primitive.fromByteArray(readElement(tag));
+	}
+
+	/**
+	 * Reads the length and the content of the element whose tag was already read and returns the complete encoding of the element.
+	 */
+	private byte[] readElement(final int tag) throws IOException {
+
+		final int length = readLength();
+		final byte[] content = readContent(length);
+		final ByteArrayOutputStream element = new ByteArrayOutputStream(length + 6);
+		element.write(tag);
+		writeLength(element, length);
+		element.write(content);
+		return element.toByteArray();
+	}
+
+	private static void writeLength(final ByteArrayOutputStream outputStream, final int length) {
+
+		if (length < 0x80) {
+
+			outputStream.write(length);
+			return;
+		}
+		int numberOfBytes = 1;
+		for (int value = length >>> 8; value != 0; value >>>= 8) {
+			numberOfBytes++;
+		}
+		outputStream.write(0x80 | numberOfBytes);
+		for (int ii = (numberOfBytes - 1) * 8; ii >= 0; ii -= 8) {
+			outputStream.write(length >> ii);
+		}
+	}
+
+	private byte[] readContent(final int length) throws IOException {
+
+		final byte[] content = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+
+			final int count = inputStream.read(content, offset, length - offset);
+			if (count < 0) {
+				throw new DSSException("Unexpected end of the CRL");
+			}
+			offset += count;
+		}
+		position += length;
+		signed(content, length);
+		return content;
+	}
+
+	private int read() throws IOException {
+
+		final int value = inputStream.read();
+		if (value < 0) {
+			throw new DSSException("Unexpected end of the CRL");
+		}
+		position++;
+		if (signedData) {
+
+			final byte[] singleByte = {(byte) value};
+			signed(singleByte, 1);
+		}
+		return value;
+	}
+
+	private void signed(final byte[] bytes, final int length) throws IOException {
+
+		if (!signedData) {
+			return;
+		}
+		if (pendingSignedData != null) {
+
+			pendingSignedData.write(bytes, 0, length);
+		} else if (signature != null) {
+
+			try {
+				signature.update(bytes, 0, length);
+			} catch (SignatureException e) {
+				throw new DSSException(e);
+			}
+		}
+	}
+}
@@ -19,6 +19,7 @@
  */
 package eu.europa.ec.markt.dss.validation102853.crl;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.security.cert.CRLException;
 import java.security.cert.X509CRL;
@@ -85,7 +86,7 @@ public class CRLToken extends RevocationToken {
 
 			throw new DSSNullException(CRLValidity.class);
 		}
-		if (crlValidity.x509CRL == null) {
+		if (crlValidity.x509CRL == null && crlValidity.crlEncoded == null) {
 
 			throw new DSSNullException(X509CRL.class);
 		}
@@ -93,13 +94,12 @@ public class CRLToken extends RevocationToken {
 
 	private void setDefaultValues() {
 
-		final X509CRL x509crl = crlValidity.x509CRL;
-		final String sigAlgOID = x509crl.getSigAlgOID();
+		final String sigAlgOID = crlValidity.signatureAlgorithmOID;
 		final SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forOID(sigAlgOID);
 		this.algorithmUsedToSignToken = signatureAlgorithm;
-		this.issuingTime = x509crl.getThisUpdate();
-		this.nextUpdate = x509crl.getNextUpdate();
-		issuerX500Principal = x509crl.getIssuerX500Principal();
+		this.issuingTime = crlValidity.thisUpdate;
+		this.nextUpdate = crlValidity.nextUpdate;
+		issuerX500Principal = crlValidity.issuerX500Principal;
 		this.extraInfo = new TokenValidationExtraInfo();
 
 		issuerToken = crlValidity.issuerToken;
@@ -119,7 +119,19 @@ public class CRLToken extends RevocationToken {
 		}
 
 		final BigInteger serialNumber = certificateToken.getSerialNumber();
-		final X509CRL x509crl = crlValidity.x509CRL;
+		final CRLIndex crlIndex = crlValidity.crlIndex;
+		if (crlIndex != null) {
+
+			final int position = crlIndex.indexOf(serialNumber);
+			status = position == CRLIndex.NOT_FOUND;
+			if (!status) {
+
+				revocationDate = crlIndex.getRevocationDate(position);
+				reason = crlIndex.getRevocationReason(position);
+			}
+			return;
+		}
+		final X509CRL x509crl = crlValidity.getX509CRL();
 		final X509CRLEntry crlEntry = x509crl.getRevokedCertificate(serialNumber);
 		status = null == crlEntry;
 		if (!status) {
@@ -132,11 +144,19 @@ public class CRLToken extends RevocationToken {
 	}
 
 	/**
-	 * @return the x509crl
+	 * @return the {@code CRLValidity} of this token
+	 */
+	CRLValidity getCrlValidity() {
+
+		return crlValidity;
+	}
+
+	/**
+	 * @return the x509crl. When the CRL was streamed the {@code X509CRL} is created at the first call.
 	 */
 	public X509CRL getX509crl() {
 
-		return crlValidity.x509CRL;
+		return crlValidity.getX509CRL();
 	}
 
 	/**
@@ -144,6 +164,14 @@ public class CRLToken extends RevocationToken {
 	 */
 	public X509CRLHolder getX509CrlHolder() {
 
+		if (crlValidity.crlEncoded != null) {
+
+			try {
+				return new X509CRLHolder(crlValidity.crlEncoded);
+			} catch (IOException e) {
+				throw new DSSException(e);
+			}
+		}
 		try {
 			final X509CRL x509crl = getX509crl();
 			final TBSCertList tbsCertList = TBSCertList.getInstance(x509crl.getTBSCertList());
@@ -191,12 +219,7 @@ public class CRLToken extends RevocationToken {
 	@Override
 	public byte[] getEncoded() {
 
-		try {
-
-			return crlValidity.x509CRL.getEncoded();
-		} catch (CRLException e) {
-			throw new DSSException("CRL encoding error: " + e.getMessage(), e);
-		}
+		return crlValidity.getEncoded();
 	}
 
 	/**
@@ -217,7 +240,7 @@ public class CRLToken extends RevocationToken {
 	 */
 	public Date getThisUpdate() {
 
-		return crlValidity.x509CRL.getThisUpdate();
+		return crlValidity.thisUpdate;
 	}
 
 	@Override
@@ -228,7 +251,7 @@ public class CRLToken extends RevocationToken {
 			StringBuilder out = new StringBuilder();
 			out.append(indentStr).append("CRLToken[\n");
 			indentStr += "\t";
-			out.append(indentStr).append("Version: ").append(crlValidity.x509CRL.getVersion()).append('\n');
+			out.append(indentStr).append("Version: ").append(crlValidity.version).append('\n');
 			out.append(indentStr).append("Issuing time: ").append(issuingTime == null ? "?" : DSSUtils.formatInternal(issuingTime)).append('\n');
 			out.append(indentStr).append("Signature algorithm: ").append(algorithmUsedToSignToken == null ? "?" : algorithmUsedToSignToken).append('\n');
 			out.append(indentStr).append("Status: ").append(getStatus()).append('\n');
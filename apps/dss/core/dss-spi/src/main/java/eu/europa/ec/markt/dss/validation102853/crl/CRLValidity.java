@@ -19,8 +19,14 @@
  */
 package eu.europa.ec.markt.dss.validation102853.crl;
 
+import java.security.cert.CRLException;
 import java.security.cert.X509CRL;
+import java.util.Date;
 
+import javax.security.auth.x500.X500Principal;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.validation102853.CertificateToken;
 
 /**
@@ -34,7 +40,22 @@ import eu.europa.ec.markt.dss.validation102853.CertificateToken;
  */
 public class CRLValidity {
 
-	X509CRL x509CRL = null;
+	/**
+	 * The parsed CRL. It is null when the CRL was read with the {@code CRLStreamParser}: in this case the {@code X509CRL} is created once on demand from {@link
+	 * #crlEncoded}. It is never copied to the cached instances, see {@link #copy(CertificateToken)}.
+	 */
+	volatile X509CRL x509CRL = null;
+
+	/**
+	 * The DER encoding of the CRL (can be null when {@link #x509CRL} is set).
+	 */
+	byte[] crlEncoded = null;
+
+	String signatureAlgorithmOID = null;
+	Date thisUpdate = null;
+	Date nextUpdate = null;
+	X500Principal issuerX500Principal = null;
+	int version = 1;
 
 	boolean issuerX509PrincipalMatches = false;
 	boolean signatureIntact = false;
@@ -44,6 +65,95 @@ public class CRLValidity {
 
 	String signatureInvalidityReason = "";
 
+	/**
+	 * The index of the revoked certificates, when null the revocation status is read from the {@code X509CRL}.
+	 */
+	CRLIndex crlIndex = null;
+
+	/**
+	 * This method creates a new {@code CRLValidity} for the given {@code X509CRL}. The information about the CRL is copied from the {@code X509CRL}.
+	 *
+	 * @param x509CRL the CRL
+	 * @return the new {@code CRLValidity}
+	 */
+	static CRLValidity newInstance(final X509CRL x509CRL) {
+
+		final CRLValidity crlValidity = new CRLValidity();
+		crlValidity.x509CRL = x509CRL;
+		crlValidity.signatureAlgorithmOID = x509CRL.getSigAlgOID();
+		crlValidity.thisUpdate = x509CRL.getThisUpdate();
+		crlValidity.nextUpdate = x509CRL.getNextUpdate();
+		crlValidity.issuerX500Principal = x509CRL.getIssuerX500Principal();
+		crlValidity.version = x509CRL.getVersion();
+		return crlValidity;
+	}
+
+	/**
+	 * @return the {@code X509CRL}, it is created and kept by this instance at the first call if the CRL was streamed
+	 */
+	X509CRL getX509CRL() {
+
+		X509CRL x509CRL = this.x509CRL;
+		if (x509CRL == null) {
+
+			x509CRL = DSSUtils.loadCRL(crlEncoded);
+			this.x509CRL = x509CRL;
+		}
+		return x509CRL;
+	}
+
+	/**
+	 * @return the DER encoding of the CRL
+	 */
+	byte[] getEncoded() {
+
+		if (crlEncoded != null) {
+			return crlEncoded;
+		}
+		try {
+			return x509CRL.getEncoded();
+		} catch (CRLException e) {
+			throw new DSSException("CRL encoding error: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return the nextUpdate date of the CRL, can be null
+	 */
+	public Date getNextUpdate() {
+
+		return nextUpdate;
+	}
+
+	/**
+	 * This method returns a copy of this {@code CRLValidity} for the given issuer certificate token. It allows to reuse the result of the signature verification of a CRL
+	 * already verified with an other instance of the same certificate. When the encoding of the CRL is known the parsed {@code X509CRL} is not copied: the copy creates
+	 * it again only if it is needed.
+	 *
+	 * @param issuerToken the CRL signing certificate
+	 * @return the copy of this {@code CRLValidity}
+	 */
+	CRLValidity copy(final CertificateToken issuerToken) {
+
+		final CRLValidity copy = new CRLValidity();
+		if (crlEncoded == null) {
+			copy.x509CRL = x509CRL;
+		}
+		copy.crlEncoded = crlEncoded;
+		copy.signatureAlgorithmOID = signatureAlgorithmOID;
+		copy.thisUpdate = thisUpdate;
+		copy.nextUpdate = nextUpdate;
+		copy.issuerX500Principal = issuerX500Principal;
+		copy.version = version;
+		copy.issuerX509PrincipalMatches = issuerX509PrincipalMatches;
+		copy.signatureIntact = signatureIntact;
+		copy.hasCRLSignKeyUsage = hasCRLSignKeyUsage;
+		copy.issuerToken = signatureIntact ? issuerToken : null;
+		copy.signatureInvalidityReason = signatureInvalidityReason;
+		copy.crlIndex = crlIndex;
+		return copy;
+	}
+
 	/**
 	 * This method indicates if the CRL is valid. To be valid the CRL must full fill the following requirements:<p/>
 	 * - its signature must be valid,
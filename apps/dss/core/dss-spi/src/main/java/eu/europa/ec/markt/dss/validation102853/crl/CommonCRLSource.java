@@ -1,5 +1,6 @@
 package eu.europa.ec.markt.dss.validation102853.crl;
 
+import java.io.ByteArrayInputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
@@ -34,8 +35,7 @@ public abstract class CommonCRLSource implements CRLSource {
 	 */
 	protected CRLValidity isValidCRL(final X509CRL x509CRL, final CertificateToken issuerToken) {
 
-		final CRLValidity crlValidity = new CRLValidity();
-		crlValidity.x509CRL = x509CRL;
+		final CRLValidity crlValidity = CRLValidity.newInstance(x509CRL);
 
 		final X500Principal x509CRLIssuerX500Principal = DSSUtils.getX500Principal(x509CRL.getIssuerX500Principal());
 		final X500Principal issuerTokenSubjectX500Principal = DSSUtils.getX500Principal(issuerToken.getSubjectX500Principal());
@@ -45,6 +45,7 @@ public abstract class CommonCRLSource implements CRLSource {
 		}
 		try {
 
+			// The SignatureVerificationCache is not used: its key would require to digest the whole CRL, which costs as much as the verification itself
 			x509CRL.verify(issuerToken.getPublicKey());
 			crlValidity.signatureIntact = true;
 			crlValidity.issuerToken = issuerToken;
@@ -65,4 +66,36 @@ public abstract class CommonCRLSource implements CRLSource {
 		}
 		return crlValidity;
 	}
+
+	/**
+	 * This method carries out the same verifications as {@link #isValidCRL(java.security.cert.X509CRL, eu.europa.ec.markt.dss.validation102853.CertificateToken)} but the CRL is
+	 * read with the {@code CRLStreamParser}: the signature is verified and the revoked certificates are indexed in one pass, without creating the {@code X509CRL}. A CRL which
+	 * is not DER encoded (PEM) is loaded as an {@code X509CRL}.
+	 *
+	 * @param crlEncoded  DER encoding of the CRL to be verified
+	 * @param issuerToken CRL signing certificate
+	 * @return the {@code CRLValidity} of the CRL
+	 * @throws DSSException if the CRL cannot be read
+	 */
+	protected CRLValidity isValidCRL(final byte[] crlEncoded, final CertificateToken issuerToken) throws DSSException {
+
+		if (crlEncoded.length == 0 || crlEncoded[0] != 0x30) {
+
+			return isValidCRL(DSSUtils.loadCRL(crlEncoded), issuerToken);
+		}
+		final CRLValidity crlValidity = CRLStreamParser.parse(new ByteArrayInputStream(crlEncoded), issuerToken);
+		crlValidity.crlEncoded = crlEncoded;
+
+		final X500Principal crlIssuerX500Principal = DSSUtils.getX500Principal(crlValidity.issuerX500Principal);
+		final X500Principal issuerTokenSubjectX500Principal = DSSUtils.getX500Principal(issuerToken.getSubjectX500Principal());
+		if (crlIssuerX500Principal.equals(issuerTokenSubjectX500Principal)) {
+
+			crlValidity.issuerX509PrincipalMatches = true;
+		}
+		if (crlValidity.signatureIntact) {
+
+			crlValidity.hasCRLSignKeyUsage = issuerToken.hasCRLSignKeyUsage();
+		}
+		return crlValidity;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.loader;
+
+import eu.europa.ec.markt.dss.exception.DSSCannotFetchDataException;
+
+/**
+ * Component that allows to retrieve the data using HTTP conditional requests: the data is transferred only when it was modified since the previous download.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public interface ConditionalDataLoader extends DataLoader {
+
+    /**
+     * Executes a conditional HTTP GET operation. The {@code If-None-Match} and {@code If-Modified-Since} headers are built from the validators returned by the previous
+     * download of the same resource. For the protocols which do not support the conditional requests the data is always retrieved.
+     *
+     * @param url
+     * @param eTag         the {@code ETag} returned by the previous download or {@code null}
+     * @param lastModified the {@code Last-Modified} date returned by the previous download or {@code null}
+     * @return the response, {@code ConditionalResponse#isNotModified()} indicates that the resource was not modified
+     * @throws eu.europa.ec.markt.dss.exception.DSSCannotFetchDataException
+     */
+    ConditionalResponse get(final String url, final String eTag, final String lastModified) throws DSSCannotFetchDataException;
+}
@@ -0,0 +1,99 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.loader;
+
+/**
+ * The response of a conditional request executed by a {@code ConditionalDataLoader}. It carries the validators ({@code ETag} and {@code Last-Modified}) to be used by the
+ * next request for the same resource.
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public class ConditionalResponse {
+
+	private final byte[] content;
+
+	private final String eTag;
+
+	private final String lastModified;
+
+	private final boolean notModified;
+
+	/**
+	 * This constructor is used when the content of the resource was retrieved.
+	 *
+	 * @param content      the retrieved content (can be {@code null})
+	 * @param eTag         the {@code ETag} of the resource or {@code null}
+	 * @param lastModified the {@code Last-Modified} date of the resource or {@code null}
+	 */
+	public ConditionalResponse(final byte[] content, final String eTag, final String lastModified) {
+
+		this(content, eTag, lastModified, false);
+	}
+
+	private ConditionalResponse(final byte[] content, final String eTag, final String lastModified, final boolean notModified) {
+
+		this.content = content;
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+		this.notModified = notModified;
+	}
+
+	/**
+	 * Creates the response indicating that the resource was not modified since the previous download.
+	 *
+	 * @param eTag         the {@code ETag} of the resource or {@code null}
+	 * @param lastModified the {@code Last-Modified} date of the resource or {@code null}
+	 * @return the new response
+	 */
+	public static ConditionalResponse notModified(final String eTag, final String lastModified) {
+
+		return new ConditionalResponse(null, eTag, lastModified, true);
+	}
+
+	/**
+	 * @return the retrieved content or {@code null} when the resource was not modified
+	 */
+	public byte[] getContent() {
+		return content;
+	}
+
+	/**
+	 * @return the {@code ETag} of the resource or {@code null}
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * @return the {@code Last-Modified} date of the resource or {@code null}
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * @return true if the resource was not modified since the previous download
+	 */
+	public boolean isNotModified() {
+		return notModified;
+	}
+}
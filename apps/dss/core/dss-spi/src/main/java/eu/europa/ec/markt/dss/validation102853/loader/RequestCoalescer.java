@@ -0,0 +1,149 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.loader;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import eu.europa.ec.markt.dss.exception.DSSException;
+
+/**
+ * This class allows to share one in-flight request between all concurrent callers asking for the same resource (single-flight). The first caller executes the request in its
+ * own thread, the other callers wait for its result. Once the request is completed it is forgotten: the result is not cached. When the request fails because the executing
+ * caller was interrupted, the waiting callers are not affected by this interruption: one of them executes the request again.
+ * <p/>
+ * Example of keys: the URL of a CRL distribution point, the URL of an AIA certificate, the issuer key hash and the serial number of a certificate for an OCSP request.
+ *
+ * @param <K> the type of the key identifying the request
+ * @param <V> the type of the result of the request
+ * @version $Revision$ - $Date$
+ */
+
+public class RequestCoalescer<K, V> {
+
+	private final ConcurrentMap<K, InFlightRequest<V>> inFlightRequests = new ConcurrentHashMap<K, InFlightRequest<V>>();
+
+	/**
+	 * This method executes the given request or waits for the result of the identical request already in progress.
+	 *
+	 * @param key     the key identifying the request
+	 * @param request the request to execute
+	 * @return the result of the request
+	 * @throws DSSException if the request fails. The same exception is thrown to all waiting callers, unless it is caused by the interruption of the executing caller.
+	 */
+	public V execute(final K key, final Callable<V> request) throws DSSException {
+
+		while (true) {
+
+			final InFlightRequest<V> newTask = new InFlightRequest<V>(request);
+			final InFlightRequest<V> existingTask = inFlightRequests.putIfAbsent(key, newTask);
+			if (existingTask == null) {
+
+				try {
+					newTask.run();
+				} finally {
+					inFlightRequests.remove(key, newTask);
+				}
+				return getResult(newTask);
+			}
+			try {
+				return getResult(existingTask);
+			} catch (RuntimeException e) {
+
+				if (!existingTask.interrupted || Thread.currentThread().isInterrupted()) {
+					throw e;
+				}
+				// The executing caller was interrupted: the request is executed again for this caller
+				inFlightRequests.remove(key, existingTask);
+			}
+		}
+	}
+
+	private V getResult(final InFlightRequest<V> task) throws DSSException {
+
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new DSSException(e);
+		} catch (ExecutionException e) {
+
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new DSSException(cause);
+		}
+	}
+
+	/**
+	 * @return the number of requests currently in progress
+	 */
+	public int getInFlightCount() {
+
+		return inFlightRequests.size();
+	}
+
+	/**
+	 * The request in progress. It records whether it failed because the thread executing it was interrupted: this state is set by the executing thread before the waiting
+	 * callers are released.
+	 */
+	private static final class InFlightRequest<V> extends FutureTask<V> {
+
+		private volatile boolean interrupted;
+
+		InFlightRequest(final Callable<V> request) {
+
+			super(request);
+		}
+
+		@Override
+		protected void setException(final Throwable throwable) {
+
+			interrupted = Thread.currentThread().isInterrupted() || isInterruption(throwable);
+			super.setException(throwable);
+		}
+
+		private static boolean isInterruption(final Throwable throwable) {
+
+			for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+
+				if (cause instanceof InterruptedException || cause instanceof ClosedByInterruptException) {
+					return true;
+				}
+				// A socket timeout is also an InterruptedIOException: only the plain one denotes an interruption
+				if (cause.getClass() == InterruptedIOException.class) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -21,6 +21,7 @@
 package eu.europa.ec.markt.dss.validation102853.policy;
 
 import java.util.Date;
+import java.util.Map;
 
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.validation102853.process.POEExtraction;
@@ -117,6 +118,11 @@ public class ProcessParameters implements ExceptionMessage {
 
     private XmlDom certPool;
 
+    /**
+     * The certificates of the {@code certPool} indexed by their identifier. It is built at the first call of {@code getCertificate}.
+     */
+    private Map<String, XmlDom> certificateIndex;
+
     private POEExtraction poe;
 
     /**
@@ -368,6 +374,7 @@ public class ProcessParameters implements ExceptionMessage {
 
     public void setCertPool(final XmlDom certPool) {
         this.certPool = certPool;
+        this.certificateIndex = null;
     }
 
     /**
@@ -387,7 +394,13 @@ public class ProcessParameters implements ExceptionMessage {
 
     public XmlDom getCertificate(final String id) {
 
-        return certPool == null ? certPool : certPool.getElement("./Certificate[@Id='%s']", id);
+        if (certPool == null) {
+            return null;
+        }
+        if (certificateIndex == null) {
+            certificateIndex = certPool.indexChildElements("Certificate", "Id");
+        }
+        return certificateIndex.get(id);
     }
 
     public POEExtraction getPOE() {
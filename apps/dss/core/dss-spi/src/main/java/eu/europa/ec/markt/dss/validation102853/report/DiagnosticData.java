@@ -22,7 +22,9 @@ package eu.europa.ec.markt.dss.validation102853.report;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.NodeList;
@@ -46,10 +48,103 @@ public class DiagnosticData extends XmlDom {
 
 	private List<String> signatureIdList;
 
+	/**
+	 * The signatures indexed by their identifier.
+	 */
+	private Map<String, XmlDom> signatureIndex;
+
+	/**
+	 * The timestamps of all signatures indexed by their identifier.
+	 */
+	private Map<String, XmlDom> timestampIndex;
+
+	/**
+	 * The used certificates indexed by their identifier.
+	 */
+	private Map<String, XmlDom> usedCertificateIndex;
+
+	/**
+	 * This element is returned when an identifier is not found: the queries executed on it give the same results as the queries on a missing element.
+	 */
+	private XmlDom emptyElement;
+
 	public DiagnosticData(final Document document) {
 		super(document);
 	}
 
+	/**
+	 * This method returns the {@code Signature} element with the given identifier. The elements are indexed at the first call, the subsequent queries are relative to the
+	 * found element and do not scan the whole diagnostic data.
+	 *
+	 * @param signatureId the identifier of the signature
+	 * @return the {@code Signature} element or an empty element if not found, never null
+	 */
+	public XmlDom getSignature(final String signatureId) {
+
+		if (signatureIndex == null) {
+			signatureIndex = indexChildElements("Signature", "Id");
+		}
+		return orEmpty(signatureIndex.get(signatureId));
+	}
+
+	/**
+	 * This method returns the {@code Timestamp} element with the given identifier.
+	 *
+	 * @param timestampId the identifier of the timestamp
+	 * @return the {@code Timestamp} element or an empty element if not found, never null
+	 */
+	public XmlDom getTimestamp(final String timestampId) {
+
+		if (timestampIndex == null) {
+
+			final Map<String, XmlDom> index = new HashMap<String, XmlDom>();
+			for (final XmlDom signature : getChildElements("Signature")) {
+
+				for (final XmlDom timestamps : signature.getChildElements("Timestamps")) {
+
+					for (final Map.Entry<String, XmlDom> entry : timestamps.indexChildElements("Timestamp", "Id").entrySet()) {
+
+						if (!index.containsKey(entry.getKey())) {
+							index.put(entry.getKey(), entry.getValue());
+						}
+					}
+				}
+			}
+			timestampIndex = index;
+		}
+		return orEmpty(timestampIndex.get(timestampId));
+	}
+
+	/**
+	 * This method returns the {@code Certificate} element from the {@code UsedCertificates} with the given identifier.
+	 *
+	 * @param dssCertificateId DSS certificate identifier
+	 * @return the {@code Certificate} element or an empty element if not found, never null
+	 */
+	public XmlDom getUsedCertificate(final int dssCertificateId) {
+
+		if (usedCertificateIndex == null) {
+
+			final Map<String, XmlDom> index = new HashMap<String, XmlDom>();
+			for (final XmlDom usedCertificates : getChildElements("UsedCertificates")) {
+				index.putAll(usedCertificates.indexChildElements("Certificate", "Id"));
+			}
+			usedCertificateIndex = index;
+		}
+		return orEmpty(usedCertificateIndex.get(String.valueOf(dssCertificateId)));
+	}
+
+	private XmlDom orEmpty(final XmlDom xmlDom) {
+
+		if (xmlDom != null) {
+			return xmlDom;
+		}
+		if (emptyElement == null) {
+			emptyElement = new XmlDom(getRootElement().getOwnerDocument().createElementNS(NAMESPACE, "Empty"));
+		}
+		return emptyElement;
+	}
+
 	/**
 	 * This method returns the list of the signature id. The result is stored in the local variable.
 	 *
@@ -61,7 +156,7 @@ public class DiagnosticData extends XmlDom {
 
 			signatureIdList = new ArrayList<String>();
 
-			final List<XmlDom> signatures = getElements("/DiagnosticData/Signature");
+			final List<XmlDom> signatures = getChildElements("Signature");
 			for (final XmlDom signature : signatures) {
 
 				final String signatureId = signature.getAttribute("Id");
@@ -89,7 +184,7 @@ public class DiagnosticData extends XmlDom {
 
 		Date signatureDate = null;
 		try {
-			signatureDate = getTimeValue("/DiagnosticData/Signature[@Id='%s']/DateTime/text()", signatureId);
+			signatureDate = getSignature(signatureId).getTimeValue("./DateTime/text()");
 		} catch (DSSException e) {
 
 			// returns null if not found
@@ -105,7 +200,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getSignatureFormat(final String signatureId) {
 
-		String signatureFormat = getValue("/DiagnosticData/Signature[@Id='%s']/SignatureFormat/text()", signatureId);
+		String signatureFormat = getSignature(signatureId).getValue("./SignatureFormat/text()");
 		return signatureFormat;
 	}
 
@@ -129,7 +224,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public DigestAlgorithm getSignatureDigestAlgorithm(final String signatureId) {
 
-		final String signatureDigestAlgorithmName = getValue("/DiagnosticData/Signature[@Id='%s']/BasicSignature/DigestAlgoUsedToSignThisToken/text()", signatureId);
+		final String signatureDigestAlgorithmName = getSignature(signatureId).getValue("./BasicSignature/DigestAlgoUsedToSignThisToken/text()");
 		final DigestAlgorithm signatureDigestAlgorithm = DigestAlgorithm.forName(signatureDigestAlgorithmName);
 		return signatureDigestAlgorithm;
 	}
@@ -154,7 +249,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public EncryptionAlgorithm getSignatureEncryptionAlgorithm(final String signatureId) {
 
-		final String signatureEncryptionAlgorithmName = getValue("/DiagnosticData/Signature[@Id='%s']/BasicSignature/EncryptionAlgoUsedToSignThisToken/text()", signatureId);
+		final String signatureEncryptionAlgorithmName = getSignature(signatureId).getValue("./BasicSignature/EncryptionAlgoUsedToSignThisToken/text()");
 		final EncryptionAlgorithm signatureEncryptionAlgorithm = EncryptionAlgorithm.forName(signatureEncryptionAlgorithmName);
 		return signatureEncryptionAlgorithm;
 	}
@@ -178,7 +273,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public int getSigningCertificateId(final String signatureId) {
 
-		final int signingCertificateId = getIntValue("/DiagnosticData/Signature[@Id='%s']/SigningCertificate/@Id", signatureId);
+		final int signingCertificateId = getSignature(signatureId).getIntValue("./SigningCertificate/@Id");
 		return signingCertificateId;
 	}
 
@@ -190,8 +285,8 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isSigningCertificateIdentified(final String signatureId) {
 
-		final boolean digestValueMatch = getBoolValue("/DiagnosticData/Signature[@Id='%s']/SigningCertificate/DigestValueMatch/text()", signatureId);
-		final boolean issuerSerialMatch = getBoolValue("/DiagnosticData/Signature[@Id='%s']/SigningCertificate/IssuerSerialMatch/text()", signatureId);
+		final boolean digestValueMatch = getSignature(signatureId).getBoolValue("./SigningCertificate/DigestValueMatch/text()");
+		final boolean issuerSerialMatch = getSignature(signatureId).getBoolValue("./SigningCertificate/IssuerSerialMatch/text()");
 		return digestValueMatch && issuerSerialMatch;
 	}
 
@@ -204,7 +299,7 @@ public class DiagnosticData extends XmlDom {
 	public List<Integer> getSignatureCertificateChain(final String signatureId) {
 
 		final ArrayList<Integer> certificateChain = new ArrayList<Integer>();
-		final List<XmlDom> certificateId = getElements("/DiagnosticData/Signature[@Id='%s']/CertificateChain/ChainCertificate/@Id", signatureId);
+		final List<XmlDom> certificateId = getSignature(signatureId).getElements("./CertificateChain/ChainCertificate/@Id");
 		for (XmlDom xmlDom : certificateId) {
 			final String text = xmlDom.getText();
 			certificateChain.add(Integer.valueOf(text));
@@ -226,7 +321,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getPolicyId(final String signatureId) {
 
-		final String policyId = getValue("/DiagnosticData/Signature[@Id='%s']/Policy/Id/text()", signatureId);
+		final String policyId = getSignature(signatureId).getValue("./Policy/Id/text()");
 		return policyId;
 	}
 
@@ -240,7 +335,7 @@ public class DiagnosticData extends XmlDom {
 
 		final List<String> timestampIdList = new ArrayList<String>();
 
-		final List<XmlDom> timestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp", signatureId);
+		final List<XmlDom> timestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp");
 		for (final XmlDom timestamp : timestamps) {
 
 			final String timestampId = timestamp.getAttribute("Id");
@@ -260,7 +355,7 @@ public class DiagnosticData extends XmlDom {
 
 		final List<String> timestampIdList = new ArrayList<String>();
 
-		final List<XmlDom> timestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId, timestampType.name());
+		final List<XmlDom> timestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']", timestampType.name());
 		for (final XmlDom timestamp : timestamps) {
 
 			final String timestampId = timestamp.getAttribute("Id");
@@ -277,7 +372,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isBLevelTechnicallyValid(final String signatureId) {
 
-		final boolean signatureValueValid = getBoolValue("/DiagnosticData/Signature[@Id='%s']/BasicSignature/SignatureValid/text()", signatureId);
+		final boolean signatureValueValid = getSignature(signatureId).getBoolValue("./BasicSignature/SignatureValid/text()");
 		return signatureValueValid;
 	}
 
@@ -289,7 +384,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isThereTLevel(final String signatureId) {
 
-		final List<XmlDom> timestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId, TimestampType.SIGNATURE_TIMESTAMP.name());
+		final List<XmlDom> timestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']", TimestampType.SIGNATURE_TIMESTAMP.name());
 		return timestamps.size() > 0;
 	}
 
@@ -301,7 +396,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isTLevelTechnicallyValid(final String signatureId) {
 
-		final List<XmlDom> timestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId, TimestampType.SIGNATURE_TIMESTAMP.name());
+		final List<XmlDom> timestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']", TimestampType.SIGNATURE_TIMESTAMP.name());
 		for (final XmlDom timestamp : timestamps) {
 
 			final boolean signatureValid = timestamp.getBoolValue("./BasicSignature/SignatureValid/text()");
@@ -321,9 +416,9 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isThereXLevel(final String signatureId) {
 
-		final List<XmlDom> vdroTimestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId,
+		final List<XmlDom> vdroTimestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']",
 			  TimestampType.VALIDATION_DATA_REFSONLY_TIMESTAMP.name());
-		final List<XmlDom> vdTimestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId,
+		final List<XmlDom> vdTimestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']",
 			  TimestampType.VALIDATION_DATA_TIMESTAMP.name());
 		return vdroTimestamps.size() > 0 || vdTimestamps.size() > 0;
 	}
@@ -336,9 +431,9 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isXLevelTechnicallyValid(final String signatureId) {
 
-		final List<XmlDom> vdroTimestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId,
+		final List<XmlDom> vdroTimestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']",
 			  TimestampType.VALIDATION_DATA_REFSONLY_TIMESTAMP.name());
-		final List<XmlDom> vdTimestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId,
+		final List<XmlDom> vdTimestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']",
 			  TimestampType.VALIDATION_DATA_TIMESTAMP.name());
 		final List<XmlDom> timestamps = new ArrayList<XmlDom>(vdroTimestamps);
 		timestamps.addAll(vdroTimestamps);
@@ -361,7 +456,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isThereALevel(final String signatureId) {
 
-		final List<XmlDom> timestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId, TimestampType.ARCHIVE_TIMESTAMP.name());
+		final List<XmlDom> timestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']", TimestampType.ARCHIVE_TIMESTAMP.name());
 		return timestamps.size() > 0;
 	}
 
@@ -373,7 +468,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isALevelTechnicallyValid(final String signatureId) {
 
-		final List<XmlDom> timestamps = getElements("/DiagnosticData/Signature[@Id='%s']/Timestamps/Timestamp[@Type='%s']", signatureId, TimestampType.ARCHIVE_TIMESTAMP.name());
+		final List<XmlDom> timestamps = getSignature(signatureId).getElements("./Timestamps/Timestamp[@Type='%s']", TimestampType.ARCHIVE_TIMESTAMP.name());
 		for (final XmlDom timestamp : timestamps) {
 
 			final boolean signatureValid = timestamp.getBoolValue("./BasicSignature/SignatureValid/text()");
@@ -393,7 +488,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public int getTimestampSigningCertificateId(final String timestampId) {
 
-		final int signingCertificateId = getIntValue("/DiagnosticData/Signature/Timestamps/Timestamp[@Id='%s']/SigningCertificate/@Id", timestampId);
+		final int signingCertificateId = getTimestamp(timestampId).getIntValue("./SigningCertificate/@Id");
 		return signingCertificateId;
 	}
 
@@ -405,7 +500,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public Date getTimestampProductionTime(final String timestampId) {
 
-		final Date productionTime = getTimeValue("/DiagnosticData/Signature/Timestamps/Timestamp[@Id='%s']/ProductionTime/text()", timestampId);
+		final Date productionTime = getTimestamp(timestampId).getTimeValue("./ProductionTime/text()");
 		return productionTime;
 	}
 
@@ -417,7 +512,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getTimestampDigestAlgorithm(final String timestampId) {
 
-		final String digestAlgorithm = getValue("/DiagnosticData/Signature/Timestamps/Timestamp[@Id='%s']/SignedDataDigestAlgo/text()", timestampId);
+		final String digestAlgorithm = getTimestamp(timestampId).getValue("./SignedDataDigestAlgo/text()");
 		return digestAlgorithm;
 	}
 
@@ -429,7 +524,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isTimestampMessageImprintIntact(final String timestampId) {
 
-		final boolean messageImprintIntact = getBoolValue("/DiagnosticData/Signature/Timestamps/Timestamp[@Id='%s']/MessageImprintDataIntact/text()", timestampId);
+		final boolean messageImprintIntact = getTimestamp(timestampId).getBoolValue("./MessageImprintDataIntact/text()");
 		return messageImprintIntact;
 	}
 
@@ -441,7 +536,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isTimestampSignatureValid(final String timestampId) {
 
-		final boolean signatureValid = getBoolValue("/DiagnosticData/Signature/Timestamps/Timestamp[@Id='%s']/BasicSignature/SignatureValid/text()", timestampId);
+		final boolean signatureValid = getTimestamp(timestampId).getBoolValue("./BasicSignature/SignatureValid/text()");
 		return signatureValid;
 	}
 
@@ -453,13 +548,13 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getTimestampType(final String timestampId) {
 
-		final String timestampType = getValue("/DiagnosticData/Signature/Timestamps/Timestamp[@Id='%s']/@Type", timestampId);
+		final String timestampType = getTimestamp(timestampId).getValue("./@Type");
 		return timestampType;
 	}
 
 	public String getTimestampCanonicalizationMethod(final String timestampId) {
 
-		final String canonicalizationMethod = getValue("/DiagnosticData/Signature/Timestamps/Timestamp[@Id='%s']/CanonicalizationMethod/text()", timestampId);
+		final String canonicalizationMethod = getTimestamp(timestampId).getValue("./CanonicalizationMethod/text()");
 		return canonicalizationMethod;
 	}
 
@@ -471,7 +566,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isValidCertificate(final int dssCertificateId) {
 
-		final XmlDom certificate = getElement("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']", dssCertificateId);
+		final XmlDom certificate = getUsedCertificate(dssCertificateId);
 		final boolean signatureValid = certificate.getBoolValue("./BasicSignature/SignatureValid/text()");
 		final boolean revocationValid = certificate.getBoolValue("./Revocation/Status/text()");
 		final boolean trusted = certificate.getBoolValue("./Trusted/text()");
@@ -488,8 +583,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getCertificateDN(final int dssCertificateId) {
 
-		final String subjectDistinguishedName = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/SubjectDistinguishedName[@Format='RFC2253']/text()",
-			  dssCertificateId);
+		final String subjectDistinguishedName = getUsedCertificate(dssCertificateId).getValue("./SubjectDistinguishedName[@Format='RFC2253']/text()");
 		return subjectDistinguishedName;
 	}
 
@@ -501,8 +595,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getCertificateIssuerDN(final int dssCertificateId) {
 
-		final String issuerDistinguishedName = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/IssuerDistinguishedName[@Format='RFC2253']/text()",
-			  dssCertificateId);
+		final String issuerDistinguishedName = getUsedCertificate(dssCertificateId).getValue("./IssuerDistinguishedName[@Format='RFC2253']/text()");
 		return issuerDistinguishedName;
 	}
 
@@ -514,7 +607,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getCertificateSerialNumber(final int dssCertificateId) {
 
-		final String serialNumber = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/SerialNumber/text()", dssCertificateId);
+		final String serialNumber = getUsedCertificate(dssCertificateId).getValue("./SerialNumber/text()");
 		return serialNumber;
 	}
 
@@ -526,7 +619,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isCertificateValidAtValidationTime(final int dssCertificateId) {
 
-		final boolean validityAtValidationTime = getBoolValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/ValidityAtValidationTime/text()", dssCertificateId);
+		final boolean validityAtValidationTime = getUsedCertificate(dssCertificateId).getBoolValue("./ValidityAtValidationTime/text()");
 		return validityAtValidationTime;
 	}
 
@@ -538,7 +631,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isCertificateQCP(final int dssCertificateId) {
 
-		final boolean qcp = getBoolValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/QCStatement/QCP/text()", dssCertificateId);
+		final boolean qcp = getUsedCertificate(dssCertificateId).getBoolValue("./QCStatement/QCP/text()");
 		return qcp;
 	}
 
@@ -550,7 +643,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isCertificateQCPPlus(final int dssCertificateId) {
 
-		final boolean qcpPlus = getBoolValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/QCStatement/QCPPlus/text()", dssCertificateId);
+		final boolean qcpPlus = getUsedCertificate(dssCertificateId).getBoolValue("./QCStatement/QCPPlus/text()");
 		return qcpPlus;
 	}
 
@@ -562,7 +655,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isCertificateQCC(final int dssCertificateId) {
 
-		final boolean qcc = getBoolValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/QCStatement/QCC/text()", dssCertificateId);
+		final boolean qcc = getUsedCertificate(dssCertificateId).getBoolValue("./QCStatement/QCC/text()");
 		return qcc;
 	}
 
@@ -574,7 +667,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isCertificateQCSSCD(final int dssCertificateId) {
 
-		final boolean qcsscd = getBoolValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/QCStatement/QCSSCD/text()", dssCertificateId);
+		final boolean qcsscd = getUsedCertificate(dssCertificateId).getBoolValue("./QCStatement/QCSSCD/text()");
 		return qcsscd;
 	}
 
@@ -588,8 +681,7 @@ public class DiagnosticData extends XmlDom {
 	public boolean hasCertificateQCWithSSCDQualification(final int dssCertificateId) {
 
 		final String condition = "contains('" + TSLConstant.QC_WITH_SSCD + "', '" + TSLConstant.QC_WITH_SSCD_119612 + "')";
-		final String qualification = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()",
-			  dssCertificateId);
+		final String qualification = getUsedCertificate(dssCertificateId).getValue("./TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()");
 		return !qualification.isEmpty();
 	}
 
@@ -602,8 +694,7 @@ public class DiagnosticData extends XmlDom {
 	public boolean hasCertificateQCNoSSCDQualification(final int dssCertificateId) {
 
 		final String condition = "contains('" + TSLConstant.QC_NO_SSCD + "', '" + TSLConstant.QC_NO_SSCD_119612 + "')";
-		final String qualification = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()",
-			  dssCertificateId);
+		final String qualification = getUsedCertificate(dssCertificateId).getValue("./TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()");
 		return !qualification.isEmpty();
 	}
 
@@ -616,8 +707,7 @@ public class DiagnosticData extends XmlDom {
 	public boolean hasCertificateQCSSCDStatusAsInCertQualification(final int dssCertificateId) {
 
 		final String condition = "contains('" + TSLConstant.QCSSCD_STATUS_AS_IN_CERT + "', '" + TSLConstant.QCSSCD_STATUS_AS_IN_CERT_119612 + "')";
-		final String qualification = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()",
-			  dssCertificateId);
+		final String qualification = getUsedCertificate(dssCertificateId).getValue("./TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()");
 		return !qualification.isEmpty();
 	}
 
@@ -630,8 +720,7 @@ public class DiagnosticData extends XmlDom {
 	public boolean hasCertificateQCForLegalPersonQualification(final int dssCertificateId) {
 
 		final String condition = "contains('" + TSLConstant.QC_FOR_LEGAL_PERSON + "', '" + TSLConstant.QC_FOR_LEGAL_PERSON_119612 + "')";
-		final String qualification = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()",
-			  dssCertificateId);
+		final String qualification = getUsedCertificate(dssCertificateId).getValue("./TrustedServiceProvider/Qualifiers/Qualifier[" + condition + "]/text()");
 		return !qualification.isEmpty();
 	}
 
@@ -643,27 +732,26 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getCertificateTSPServiceName(final int dssCertificateId) {
 
-		final String tspServiceName = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/TSPServiceName/text()", dssCertificateId);
+		final String tspServiceName = getUsedCertificate(dssCertificateId).getValue("./TrustedServiceProvider/TSPServiceName/text()");
 		return tspServiceName;
 	}
 
 	public String getCertificateTSPServiceStatus(final int dssCertificateId) {
 
-		final String TSPServiceStatus = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/Status/text()", dssCertificateId);
+		final String TSPServiceStatus = getUsedCertificate(dssCertificateId).getValue("./TrustedServiceProvider/Status/text()");
 		return TSPServiceStatus;
 	}
 
 	public String getCertificateTSPServiceStartDate(final int dssCertificateId) {
 
-		final String TSPServiceStartDate = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/StartDate/text()", dssCertificateId);
+		final String TSPServiceStartDate = getUsedCertificate(dssCertificateId).getValue("./TrustedServiceProvider/StartDate/text()");
 		return TSPServiceStartDate;
 	}
 
 	public List<String> getCertificateTSPServiceQualifiers(final int dssCertificateId) {
 
 		List<String> tspServiceQualifiers = new ArrayList<String>();
-		final List<XmlDom> TSPServiceQualifiers = getElements("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/Qualifiers/Qualifier",
-			  dssCertificateId);
+		final List<XmlDom> TSPServiceQualifiers = getUsedCertificate(dssCertificateId).getElements("./TrustedServiceProvider/Qualifiers/Qualifier");
 
 		for (XmlDom tspServiceQualifier : TSPServiceQualifiers) {
 			tspServiceQualifiers.add(tspServiceQualifier.getText());
@@ -679,7 +767,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean isCertificateRelatedTSLWellSigned(final int dssCertificateId) {
 
-		final boolean wellSigned = getBoolValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/TrustedServiceProvider/WellSigned/text()", dssCertificateId);
+		final boolean wellSigned = getUsedCertificate(dssCertificateId).getBoolValue("./TrustedServiceProvider/WellSigned/text()");
 		return wellSigned;
 	}
 
@@ -691,7 +779,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getCertificateRevocationSource(final int dssCertificateId) {
 
-		final String certificateRevocationSource = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/Revocation/Source/text()", dssCertificateId);
+		final String certificateRevocationSource = getUsedCertificate(dssCertificateId).getValue("./Revocation/Source/text()");
 		return certificateRevocationSource;
 	}
 
@@ -703,7 +791,7 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public boolean getCertificateRevocationStatus(final int dssCertificateId) {
 
-		final boolean certificateRevocationStatus = getBoolValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/Revocation/Status/text()", dssCertificateId);
+		final boolean certificateRevocationStatus = getUsedCertificate(dssCertificateId).getBoolValue("./Revocation/Status/text()");
 		return certificateRevocationStatus;
 	}
 
@@ -715,13 +803,13 @@ public class DiagnosticData extends XmlDom {
 	 */
 	public String getCertificateRevocationReason(int dssCertificateId) {
 
-		final String revocationReason = getValue("/DiagnosticData/UsedCertificates/Certificate[@Id='%s']/Revocation/Reason/text()", dssCertificateId);
+		final String revocationReason = getUsedCertificate(dssCertificateId).getValue("./Revocation/Reason/text()");
 		return revocationReason;
 	}
 
 	public String getErrorMessage(final String signatureId) {
 
-		final String errorMessage = getValue("/DiagnosticData/Signature[@Id='%s']/ErrorMessage/text()", signatureId);
+		final String errorMessage = getSignature(signatureId).getValue("./ErrorMessage/text()");
 		return errorMessage;
 	}
 
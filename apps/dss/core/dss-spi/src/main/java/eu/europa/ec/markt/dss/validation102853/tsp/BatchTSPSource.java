@@ -0,0 +1,48 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.tsp;
+
+import java.util.List;
+
+import org.bouncycastle.tsp.TimeStampToken;
+
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+
+/**
+ * A {@code TSPSource} able to obtain the timestamps of several digests at once. Each digest receives its own RFC 3161 Time Stamp Token, the
+ * implementation decides how the requests are sent to the Time Stamping Authority (for example several requests in flight at the same time).
+ *
+ * @version $Revision$ - $Date$
+ */
+
+public interface BatchTSPSource extends TSPSource {
+
+    /**
+     * Gets the TimeStampResponses relevant to the provided digests. The tokens are returned in the order of the digests.
+     *
+     * @param digestAlgorithm the algorithm used to compute all digests
+     * @param digests         the digests to timestamp
+     * @return the list of the time stamp tokens, one by digest
+     * @throws DSSException if one of the time stamp tokens cannot be obtained
+     */
+    public List<TimeStampToken> getTimeStampResponses(final DigestAlgorithm digestAlgorithm, final List<byte[]> digests) throws DSSException;
+}
@@ -0,0 +1,135 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.tsp;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bouncycastle.tsp.TimeStampToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DSSUtils;
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.exception.DSSNullException;
+
+/**
+ * This {@code TSPSource} allows to obtain in advance, with a single call to a {@link BatchTSPSource}, the timestamps which will be requested one by
+ * one later (for example the signature timestamps of all signatures of a document being extended). A prefetched time stamp token is given back
+ * only once; the digests which were not prefetched are timestamped by the wrapped {@code TSPSource}.
+ *
+ * @version $Revision$ - $Date$
+ */
+public class PrefetchedTSPSource implements TSPSource {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PrefetchedTSPSource.class);
+
+	private final TSPSource tspSource;
+
+	/**
+	 * The prefetched time stamp tokens with the digest algorithm name + "|" + the hexadecimal digest as key.
+	 */
+	private final ConcurrentMap<String, TimeStampToken> prefetchedTokens = new ConcurrentHashMap<String, TimeStampToken>();
+
+	/**
+	 * The default constructor for PrefetchedTSPSource.
+	 *
+	 * @param tspSource the {@code TSPSource} used to obtain the time stamp tokens
+	 */
+	public PrefetchedTSPSource(final TSPSource tspSource) {
+
+		if (tspSource == null) {
+
+			throw new DSSNullException(TSPSource.class);
+		}
+		this.tspSource = tspSource;
+	}
+
+	/**
+	 * Indicates if the wrapped {@code TSPSource} is able to timestamp several digests at once.
+	 *
+	 * @return true if the wrapped {@code TSPSource} is a {@code BatchTSPSource}
+	 */
+	public boolean isBatchSupported() {
+
+		return tspSource instanceof BatchTSPSource;
+	}
+
+	/**
+	 * This method obtains the time stamp tokens of the given digests at once. Nothing is done if the wrapped {@code TSPSource} is not a {@code
+	 * BatchTSPSource} or if there is less than two digests: the tokens are then obtained one by one when they are requested.
+	 *
+	 * @param digestAlgorithm the algorithm used to compute all digests
+	 * @param digests         the digests to timestamp
+	 * @throws DSSException if the time stamp tokens cannot be obtained
+	 */
+	public void prefetch(final DigestAlgorithm digestAlgorithm, final List<byte[]> digests) throws DSSException {
+
+		if (!isBatchSupported() || digests.size() < 2) {
+
+			return;
+		}
+		final List<TimeStampToken> timeStampTokens = ((BatchTSPSource) tspSource).getTimeStampResponses(digestAlgorithm, digests);
+		for (int ii = 0; ii < digests.size(); ii++) {
+
+			final TimeStampToken timeStampToken = timeStampTokens.get(ii);
+			if (timeStampToken != null) {
+
+				prefetchedTokens.put(getKey(digestAlgorithm, digests.get(ii)), timeStampToken);
+			}
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("{} timestamps prefetched.", timeStampTokens.size());
+		}
+	}
+
+	@Override
+	public TimeStampToken getTimeStampResponse(final DigestAlgorithm digestAlgorithm, final byte[] digest) throws DSSException {
+
+		final TimeStampToken timeStampToken = prefetchedTokens.remove(getKey(digestAlgorithm, digest));
+		if (timeStampToken != null) {
+
+			return timeStampToken;
+		}
+		return tspSource.getTimeStampResponse(digestAlgorithm, digest);
+	}
+
+	/**
+	 * Forgets the prefetched time stamp tokens which were not requested.
+	 */
+	public void clear() {
+
+		prefetchedTokens.clear();
+	}
+
+	@Override
+	public void setPolicyOid(final String policyOid) {
+
+		tspSource.setPolicyOid(policyOid);
+	}
+
+	private static String getKey(final DigestAlgorithm digestAlgorithm, final byte[] digest) {
+
+		return digestAlgorithm.getName() + "|" + DSSUtils.encodeHexString(digest);
+	}
+}
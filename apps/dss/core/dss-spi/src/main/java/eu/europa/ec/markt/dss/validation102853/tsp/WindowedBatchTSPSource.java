@@ -0,0 +1,274 @@
+/*
+ * DSS - Digital Signature Services
+ *
+ * Copyright (C) 2013 European Commission, Directorate-General Internal Market and Services (DG MARKT), B-1049 Bruxelles/Brussel
+ *
+ * Developed by: 2013 ARHS Developments S.A. (rue Nicolas Bové 2B, L-1253 Luxembourg) http://www.arhs-developments.com
+ *
+ * This file is part of the "DSS - Digital Signature Services" project.
+ *
+ * "DSS - Digital Signature Services" is free software: you can redistribute it and/or modify it under the terms of
+ * the GNU Lesser General Public License as published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * DSS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty
+ * of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with
+ * "DSS - Digital Signature Services".  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.europa.ec.markt.dss.validation102853.tsp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.tsp.TimeStampToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import eu.europa.ec.markt.dss.DigestAlgorithm;
+import eu.europa.ec.markt.dss.exception.DSSException;
+import eu.europa.ec.markt.dss.exception.DSSNullException;
+
+/**
+ * This {@code BatchTSPSource} collects the timestamp requests of concurrent callers (for example several threads each extending its own document)
+ * and sends them together to the wrapped {@code BatchTSPSource}. The first request opens a window of {@link #getWindowMillis()} milliseconds during
+ * which the requests using the same digest algorithm join it; the window is closed earlier when {@link #getMaxBatchSize()} digests are collected.
+ * Every caller blocks until the batch it joined has been timestamped.
+ * <p/>
+ * A single caller extending its documents one after the other does not benefit from this source: each of its requests waits for the end of the
+ * window alone.
+ *
+ * @version $Revision$ - $Date$
+ */
+public class WindowedBatchTSPSource implements BatchTSPSource {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WindowedBatchTSPSource.class);
+
+	/**
+	 * The default duration (in milliseconds) during which the requests are collected: 50 milliseconds.
+	 */
+	public static final long DEFAULT_WINDOW_MILLIS = 50;
+
+	/**
+	 * The default number of digests after which a batch is sent without waiting for the end of the window.
+	 */
+	public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+	private final BatchTSPSource tspSource;
+
+	private volatile long windowMillis = DEFAULT_WINDOW_MILLIS;
+
+	private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+	/**
+	 * The batches which are still collecting requests, by digest algorithm. Guarded by itself, which is also the monitor on which the callers wait.
+	 */
+	private final Map<DigestAlgorithm, Batch> openBatches = new HashMap<DigestAlgorithm, Batch>();
+
+	/**
+	 * The default constructor for WindowedBatchTSPSource.
+	 *
+	 * @param tspSource the {@code BatchTSPSource} used to obtain the time stamp tokens
+	 */
+	public WindowedBatchTSPSource(final BatchTSPSource tspSource) {
+
+		if (tspSource == null) {
+
+			throw new DSSNullException(BatchTSPSource.class);
+		}
+		this.tspSource = tspSource;
+	}
+
+	@Override
+	public TimeStampToken getTimeStampResponse(final DigestAlgorithm digestAlgorithm, final byte[] digest) throws DSSException {
+
+		return getTimeStampResponses(digestAlgorithm, Collections.singletonList(digest)).get(0);
+	}
+
+	@Override
+	public List<TimeStampToken> getTimeStampResponses(final DigestAlgorithm digestAlgorithm, final List<byte[]> digests) throws DSSException {
+
+		if (digests.isEmpty()) {
+			return new ArrayList<TimeStampToken>();
+		}
+		final Batch batch;
+		final int firstIndex;
+		final boolean leader;
+		synchronized (openBatches) {
+
+			final Batch openBatch = openBatches.get(digestAlgorithm);
+			leader = openBatch == null;
+			if (leader) {
+
+				batch = new Batch(digestAlgorithm);
+				openBatches.put(digestAlgorithm, batch);
+			} else {
+				batch = openBatch;
+			}
+			firstIndex = batch.digests.size();
+			batch.digests.addAll(digests);
+			if (batch.digests.size() >= maxBatchSize) {
+
+				close(batch);
+				openBatches.notifyAll();
+			}
+		}
+		if (leader) {
+			send(batch);
+		}
+		return awaitTokens(batch, firstIndex, digests.size());
+	}
+
+	/**
+	 * Waits until the end of the window (or until the batch is full), then sends the collected digests to the wrapped {@code BatchTSPSource}.
+	 *
+	 * @param batch the batch opened by the calling thread
+	 */
+	private void send(final Batch batch) {
+
+		List<TimeStampToken> timeStampTokens = null;
+		RuntimeException failure = null;
+		try {
+
+			synchronized (openBatches) {
+
+				final long deadline = System.currentTimeMillis() + windowMillis;
+				long remaining = windowMillis;
+				while (!batch.closed && remaining > 0) {
+
+					openBatches.wait(remaining);
+					remaining = deadline - System.currentTimeMillis();
+				}
+				close(batch);
+			}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Timestamping a batch of {} digests.", batch.digests.size());
+			}
+			timeStampTokens = tspSource.getTimeStampResponses(batch.digestAlgorithm, batch.digests);
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			failure = new DSSException("Interrupted while collecting the timestamp requests.", e);
+		} catch (RuntimeException e) {
+			failure = e;
+		} finally {
+
+			synchronized (openBatches) {
+
+				close(batch);
+				batch.timeStampTokens = timeStampTokens;
+				batch.failure = failure;
+				batch.done = true;
+				openBatches.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Closes the batch: the next requests open a new one. Must be called while holding the lock of {@code openBatches}.
+	 *
+	 * @param batch the batch to close
+	 */
+	private void close(final Batch batch) {
+
+		if (!batch.closed) {
+
+			batch.closed = true;
+			if (openBatches.get(batch.digestAlgorithm) == batch) {
+				openBatches.remove(batch.digestAlgorithm);
+			}
+		}
+	}
+
+	private List<TimeStampToken> awaitTokens(final Batch batch, final int firstIndex, final int count) throws DSSException {
+
+		synchronized (openBatches) {
+
+			while (!batch.done) {
+
+				try {
+					openBatches.wait();
+				} catch (InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+					throw new DSSException("Interrupted while waiting for the timestamp batch.", e);
+				}
+			}
+		}
+		if (batch.failure != null) {
+
+			throw new DSSException("The timestamp batch failed: " + batch.failure.getMessage(), batch.failure);
+		}
+		return new ArrayList<TimeStampToken>(batch.timeStampTokens.subList(firstIndex, firstIndex + count));
+	}
+
+	@Override
+	public void setPolicyOid(final String policyOid) {
+
+		tspSource.setPolicyOid(policyOid);
+	}
+
+	/**
+	 * @return the duration (in milliseconds) during which the requests are collected
+	 */
+	public long getWindowMillis() {
+
+		return windowMillis;
+	}
+
+	/**
+	 * @param windowMillis the duration (in milliseconds) during which the requests are collected, 0 sends each request (or the requests made at
+	 *                     the same time) without waiting
+	 */
+	public void setWindowMillis(final long windowMillis) {
+
+		this.windowMillis = windowMillis;
+	}
+
+	/**
+	 * @return the number of digests after which a batch is sent without waiting for the end of the window
+	 */
+	public int getMaxBatchSize() {
+
+		return maxBatchSize;
+	}
+
+	/**
+	 * @param maxBatchSize the number of digests after which a batch is sent without waiting for the end of the window
+	 */
+	public void setMaxBatchSize(final int maxBatchSize) {
+
+		if (maxBatchSize < 1) {
+			throw new DSSException("The maximum batch size must be strictly positive: " + maxBatchSize);
+		}
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * The digests collected during one window. The fields are guarded by the lock of {@code openBatches}.
+	 */
+	private static final class Batch {
+
+		private final DigestAlgorithm digestAlgorithm;
+
+		private final List<byte[]> digests = new ArrayList<byte[]>();
+
+		private boolean closed;
+
+		private boolean done;
+
+		private List<TimeStampToken> timeStampTokens;
+
+		private RuntimeException failure;
+
+		private Batch(final DigestAlgorithm digestAlgorithm) {
+
+			this.digestAlgorithm = digestAlgorithm;
+		}
+	}
+}
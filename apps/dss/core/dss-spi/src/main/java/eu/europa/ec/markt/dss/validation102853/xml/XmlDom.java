@@ -29,11 +29,9 @@ import java.util.Map;
 import java.util.StringTokenizer;
 
 import javax.xml.namespace.NamespaceContext;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +44,7 @@ import org.w3c.dom.NodeList;
 import eu.europa.ec.markt.dss.DSSUtils;
 import eu.europa.ec.markt.dss.DSSXMLUtils;
 import eu.europa.ec.markt.dss.NamespaceContextMap;
+import eu.europa.ec.markt.dss.XPathExpressionCache;
 import eu.europa.ec.markt.dss.exception.DSSException;
 import eu.europa.ec.markt.dss.validation102853.RuleUtils;
 
@@ -61,17 +60,28 @@ public class XmlDom {
 
 	public static final String NAMESPACE = "http://dss.markt.ec.europa.eu/validation/diagnostic";
 
-	private static final XPathFactory factory = XPathFactory.newInstance();
-
 	private static final NamespaceContext nsContext;
 
 	private static final Map<String, String> namespaces;
 
+	/**
+	 * The compiled XPath expressions keyed by the XPath query before the addition of the namespace prefix.
+	 */
+	private static final XPathExpressionCache xPathExpressionCache;
+
 	static {
 
 		namespaces = new HashMap<String, String>();
 		namespaces.put("dss", NAMESPACE);
 		nsContext = new NamespaceContextMap(namespaces);
+		xPathExpressionCache = new XPathExpressionCache(nsContext) {
+
+			@Override
+			protected String toXPath(final String key) {
+
+				return addNamespacePrefix(key);
+			}
+		};
 	}
 
 	final Element rootElement;
@@ -91,11 +101,9 @@ public class XmlDom {
 
 	private static XPathExpression createXPathExpression(final String xpathString) {
 
-		final XPath xpath = factory.newXPath();
-		xpath.setNamespaceContext(nsContext);
 		try {
 
-			final XPathExpression expr = xpath.compile(xpathString);
+			final XPathExpression expr = xPathExpressionCache.get(xpathString);
 			return expr;
 		} catch (XPathExpressionException ex) {
 
@@ -184,7 +192,7 @@ public class XmlDom {
 
 			formattedXPath = xPath;
 		}
-		formattedXPath = addNamespacePrefix(formattedXPath);
+		// The namespace prefix is added when the expression is compiled
 		return formattedXPath;
 	}
 
@@ -372,6 +380,52 @@ public class XmlDom {
 		return rootElement.getAttributes();
 	}
 
+	/**
+	 * This method returns the child elements with the given local name. The DOM is walked directly, no XPath query is executed.
+	 *
+	 * @param localName the local name of the child elements
+	 * @return the list of the child elements, never null
+	 */
+	public List<XmlDom> getChildElements(final String localName) {
+
+		final List<XmlDom> list = new ArrayList<XmlDom>();
+		for (Node node = rootElement.getFirstChild(); node != null; node = node.getNextSibling()) {
+
+			if (node.getNodeType() == Node.ELEMENT_NODE && localName.equals(getLocalName(node))) {
+
+				list.add(new XmlDom((Element) node));
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * This method indexes the child elements with the given local name by the value of the given attribute. When several elements have the same value the first one is
+	 * kept.
+	 *
+	 * @param localName     the local name of the child elements
+	 * @param attributeName the name of the attribute used as key
+	 * @return the index of the child elements, never null
+	 */
+	public Map<String, XmlDom> indexChildElements(final String localName, final String attributeName) {
+
+		final Map<String, XmlDom> index = new HashMap<String, XmlDom>();
+		for (final XmlDom child : getChildElements(localName)) {
+
+			final String key = child.getAttribute(attributeName);
+			if (!index.containsKey(key)) {
+				index.put(key, child);
+			}
+		}
+		return index;
+	}
+
+	private static String getLocalName(final Node node) {
+
+		final String localName = node.getLocalName();
+		return localName == null ? node.getNodeName() : localName;
+	}
+
 	/**
 	 * Converts the list of {@code XmlDom} to {@code List} of {@code String}. The children of the node are not taken
 	 * into account.